@@ -26,7 +26,12 @@ import java.net.MalformedURLException;
 import java.rmi.RemoteException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import net.jini.config.Configuration;
+import net.jini.config.ConfigurationException;
 import net.jini.core.discovery.LookupLocator;
 import net.jini.core.entry.Entry;
 import net.jini.core.lookup.ServiceID;
@@ -93,8 +98,8 @@ import static sorcer.util.StringUtils.tName;
  * always removed and added to the end
  * 
  * <li> <code>getServiceItem(String[] interfaces), String providerName))</code>:
- * not only returns the serviceItem with the following specs, but also removes
- * and adds the sericeItem to the end of the list to provide load-balancing
+ * not only returns the serviceItem with the following specs, but also
+ * returns the matching services in turns to provide load-balancing
  * 
  * <li> synchronized <code>getServiceItem(ServiceID serviceID)</code> returns a
  * service with a serviceID, with the same load-balancing feature mentioned
@@ -122,6 +127,21 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 
 	protected static CatalogerInfo cinfo;
 
+	/** Interval in milliseconds between health probes of the services, 0 to probe services on each lookup */
+	public static final String HEALTH_CHECK_INTERVAL = "catalogerHealthCheckInterval";
+
+	/** Number of threads probing the services in parallel */
+	public static final String HEALTH_CHECK_THREADS = "catalogerHealthCheckThreads";
+
+	/** Number of consecutive failed probes after which a service is removed */
+	public static final String HEALTH_CHECK_FAILURES = "catalogerHealthCheckFailures";
+
+	public static final long DEFAULT_HEALTH_CHECK_INTERVAL = 10000;
+	public static final int DEFAULT_HEALTH_CHECK_THREADS = 4;
+	public static final int DEFAULT_HEALTH_CHECK_FAILURES = 2;
+
+	private ServiceHealthTracker healthTracker;
+
 	private String[] locators = null;
 
 	public LookupLocator[] getLL() throws RemoteException {
@@ -203,6 +223,7 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 			ServiceTemplate template = new ServiceTemplate(null,
 					new Class[] { Class.forName(templateMatch) }, null);
 			cinfo = new CatalogerInfo();
+			initHealthTracker();
 			cache = lookupMgr.createLookupCache(template, null,
 					new CatalogerEventListener());
 
@@ -218,6 +239,35 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 		}
 	}
 
+	private void initHealthTracker() {
+		long interval = DEFAULT_HEALTH_CHECK_INTERVAL;
+		int threads = DEFAULT_HEALTH_CHECK_THREADS;
+		int failures = DEFAULT_HEALTH_CHECK_FAILURES;
+		try {
+			Configuration config = getProviderConfiguration();
+			interval = (Long) config.getEntry(ServiceProvider.COMPONENT,
+					HEALTH_CHECK_INTERVAL, long.class, interval);
+			threads = (Integer) config.getEntry(ServiceProvider.COMPONENT,
+					HEALTH_CHECK_THREADS, int.class, threads);
+			failures = (Integer) config.getEntry(ServiceProvider.COMPONENT,
+					HEALTH_CHECK_FAILURES, int.class, failures);
+		} catch (ConfigurationException e) {
+			logger.warn("Error while reading the health check configuration", e);
+		}
+		if (interval > 0) {
+			healthTracker = new ServiceHealthTracker(cinfo, interval, threads, failures);
+			cinfo.setHealthTracker(healthTracker);
+			healthTracker.start();
+		}
+	}
+
+	@Override
+	public void destroy() throws RemoteException {
+		if (healthTracker != null)
+			healthTracker.stop();
+		super.destroy();
+	}
+
 	/**
 	 * Returns a Jini ServiceItem containing SORCER service provider based on
 	 * two entries provided. The first entry is a provider's service type, the
@@ -436,8 +486,9 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 	 * <p>
 	 * The method <code>getServiceItem(String[] interfaces, String providerName)</code>
 	 * not only returns the serviceItem with the following specs, but also
-	 * removes and adds the sericeItem to the end of the list to provide
-	 * load-balancing
+	 * returns the matching services in turns to provide load-balancing. The
+	 * interface lists matching requested interfaces are found with an index of
+	 * individual interfaces built in <code>addServiceItem</code>.
 	 * <p>
 	 * The method <code>getServiceItem(ServiceID serviceID)</code> returns a service with a
 	 * given serviceID
@@ -462,6 +513,22 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 		private String[] interfaceIgnoreList;
 		private CatalogObservable observable;
 
+		// interface name -> interface lists of the services implementing it
+		private final ConcurrentMap<String, Set<InterfaceList>> interfaceIndex = new ConcurrentHashMap<String, Set<InterfaceList>>();
+
+		// requested interface names -> matching interface lists
+		private final ConcurrentMap<Set<String>, Selection> selections = new ConcurrentHashMap<Set<String>, Selection>();
+
+		// incremented when the interface index changes
+		private final AtomicInteger version = new AtomicInteger();
+
+		private final ConcurrentMap<ServiceID, ServiceItem> itemsById = new ConcurrentHashMap<ServiceID, ServiceItem>();
+
+		// guards adding and removing the keys with their index entries
+		private final Object keyLock = new Object();
+
+		private transient volatile ServiceHealthTracker healthTracker;
+
 		public CatalogerInfo() {
 			super();
 			interfaceIgnoreList = new String[6];
@@ -487,41 +554,54 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 			return null;
 		}
 
+		@Override
+		public List<ServiceItem> remove(Object key) {
+			synchronized (keyLock) {
+				List<ServiceItem> removed = super.remove(key);
+				if (removed != null && key instanceof InterfaceList)
+					unindex((InterfaceList) key);
+				return removed;
+			}
+		}
+
 		public List<ServiceItem> get(InterfaceList interfaceList) {
-            for (Enumeration e = keys(); e.hasMoreElements();) {
-                InterfaceList key = (InterfaceList) e.nextElement();
-                if (key.containsAllInterfaces(interfaceList)) {
-                    logger.info("Cataloger found matching interface list: " + Arrays.toString(key.toArray()));
+			return getFirst(getSelection(interfaceList).keys);
+		}
 
-					return super.get(key);
+		private List<ServiceItem> getFirst(List<InterfaceList> keys) {
+			for (InterfaceList key : keys) {
+				List<ServiceItem> sItems = super.get(key);
+				if (sItems != null) {
+					logger.debug("Cataloger found matching interface list: {}", key);
+					return sItems;
 				}
 			}
 			return null;
 		}
 
 		public List<ServiceItem> getAll(InterfaceList interfaceList) {
-			List<ServiceItem> sItems = new ArrayList<ServiceItem>();
-            for (Enumeration e = keys(); e.hasMoreElements();) {
-                InterfaceList key = (InterfaceList) e.nextElement();
-				if (key.containsAllInterfaces(interfaceList)) {
-					logger.info("Cataloger found all matching interfaces list: " + key);
-					sItems.addAll(super.get(key));
-				}
-			}
-			return sItems;
+			return getItems(getSelection(interfaceList).keys);
 		}
 
 		public void addServiceItem(ServiceItem sItem) {
 			InterfaceList keyList = new InterfaceList(sItem.service.getClass()
 					.getInterfaces());
-			List<ServiceItem> sItems = super.get(keyList);
-			if (sItems == null)
-				sItems = new Vector();
-			// better heuristics
-			// add it to the head assuming the tail's busy
-			if (!sItems.contains(sItem)) {
-				sItems.add(0, sItem);
-				super.put(keyList, sItems);
+			ServiceItem old = itemsById.put(sItem.serviceID, sItem);
+			for (;;) {
+				List<ServiceItem> sItems = getOrCreate(keyList);
+				synchronized (sItems) {
+					// the list was dropped with its last item, add to a new one
+					if (super.get(keyList) != sItems)
+						continue;
+					// replace the item of a changed service
+					if (old != null && old != sItem)
+						sItems.remove(old);
+					// better heuristics
+					// add it to the head assuming the tail's busy
+					if (!sItems.contains(sItem))
+						sItems.add(0, sItem);
+					break;
+				}
 			}
 
             if (sItem.service instanceof Provider) {
@@ -539,37 +619,143 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 		public void removeServiceItem(ServiceItem sItem) {
 			InterfaceList searchInterfaceList = new InterfaceList(sItem.service
 					.getClass().getInterfaces());
-			InterfaceList key;
 			List<ServiceItem> value;
             logger.info("Removing ServiceItem from Cataloger: " + sItem.toString());
 
-			for (Enumeration e = keys(); e.hasMoreElements();) {
-				key = (InterfaceList) e.nextElement();
-
-
-                if (key.containsAllInterfaces(searchInterfaceList)) {
-					value = get(key);
-                    if (value != null) {
-						if (value.size() == 1)
-							remove(key);
-						else
-							removeFrom(value, sItem);
+			if (sItem.serviceID != null)
+				itemsById.remove(sItem.serviceID);
+			for (InterfaceList key : findKeys(searchInterfaceList.getTypeNames())) {
+				value = super.get(key);
+				if (value == null)
+					continue;
+				// an add to the list can't interleave with dropping it
+				synchronized (value) {
+					removeFrom(value, sItem);
+					if (value.isEmpty()) {
+						synchronized (keyLock) {
+							if (super.remove(key, value))
+								unindex(key);
+						}
 					}
 				}
 			}
 			observable.tellOfAction("UPDATEDPLEASE");
 		}
 
+		private List<ServiceItem> getOrCreate(InterfaceList key) {
+			List<ServiceItem> sItems = super.get(key);
+			if (sItems != null)
+				return sItems;
+			synchronized (keyLock) {
+				sItems = super.get(key);
+				if (sItems == null) {
+					sItems = new CopyOnWriteArrayList<ServiceItem>();
+					putIfAbsent(key, sItems);
+					index(key);
+				}
+				return sItems;
+			}
+		}
+
 		private void removeFrom(List<ServiceItem> sis, ServiceItem si) {
 			if (si.service == null)
 				return;
-			for (int i = 0; i < sis.size(); i++)
-				if (si.service.equals(sis.get(i).service)) {
-					sis.remove(i);
+			for (ServiceItem next : sis)
+				if (si.service.equals(next.service)) {
+					sis.remove(next);
 					return;
 				}
 		}
 
+		private void index(InterfaceList key) {
+			for (String name : key.getAllTypeNames()) {
+				Set<InterfaceList> keys = interfaceIndex.get(name);
+				if (keys == null) {
+					keys = Collections.newSetFromMap(new ConcurrentHashMap<InterfaceList, Boolean>());
+					Set<InterfaceList> existing = interfaceIndex.putIfAbsent(name, keys);
+					if (existing != null)
+						keys = existing;
+				}
+				keys.add(key);
+			}
+			// invalidate the selections after the index is updated
+			version.incrementAndGet();
+		}
+
+		private void unindex(InterfaceList key) {
+			for (String name : key.getAllTypeNames()) {
+				Set<InterfaceList> keys = interfaceIndex.get(name);
+				if (keys != null)
+					keys.remove(key);
+			}
+			version.incrementAndGet();
+		}
+
+		/**
+		 * Returns the interface lists containing all the requested interfaces
+		 * and the load balancing cursor shared by all lookups of these
+		 * interfaces. The selection is computed again only when services of a
+		 * new interface list are added or the last service of an interface list
+		 * is removed.
+		 */
+		private Selection getSelection(InterfaceList interfaceList) {
+			Set<String> names = interfaceList.getTypeNames();
+			int current = version.get();
+			Selection selection = selections.get(names);
+			if (selection == null || selection.version != current) {
+				selection = new Selection(current, findKeys(names),
+						selection == null ? new AtomicInteger() : selection.cursor);
+				selections.put(names, selection);
+			}
+			return selection;
+		}
+
+		private List<InterfaceList> findKeys(Set<String> names) {
+			// start with the least common interface
+			Set<InterfaceList> candidates = null;
+			for (String name : names) {
+				Set<InterfaceList> keys = interfaceIndex.get(name);
+				if (keys == null || keys.isEmpty())
+					return Collections.emptyList();
+				if (candidates == null || keys.size() < candidates.size())
+					candidates = keys;
+			}
+			if (candidates == null)
+				candidates = keySet();
+			List<InterfaceList> result = new ArrayList<InterfaceList>();
+			for (InterfaceList key : candidates)
+				if (containsKey(key) && key.getAllTypeNames().containsAll(names))
+					result.add(key);
+			return result;
+		}
+
+		private List<ServiceItem> getItems(List<InterfaceList> keys) {
+			if (keys.size() == 1) {
+				List<ServiceItem> sItems = super.get(keys.get(0));
+				return sItems != null ? sItems : new ArrayList<ServiceItem>(0);
+			}
+			List<ServiceItem> sItems = new ArrayList<ServiceItem>();
+			for (InterfaceList key : keys) {
+				List<ServiceItem> next = super.get(key);
+				if (next != null)
+					sItems.addAll(next);
+			}
+			return sItems;
+		}
+
+		private static int next(AtomicInteger cursor, int size) {
+			return (cursor.getAndIncrement() & Integer.MAX_VALUE) % size;
+		}
+
+		private static boolean hasName(ServiceItem sItem, String providerName) {
+			if (sItem.attributeSets == null)
+				return false;
+			for (net.jini.core.entry.Entry et : sItem.attributeSets)
+				if (et instanceof Name && providerName.equals(((Name) et).name))
+					return true;
+			return false;
+		}
+
 		public String toString() {
 			StringBuilder sb = new StringBuilder();
 			List<ServiceItem> sItems;
@@ -603,82 +789,66 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 		 * first parameter = String[] of interfaces<br>
 		 * second parameter = providerName if any
 		 * <p>
-		 * This method provides automatic load balancing by providing the
-		 * serviceItem from the beginning and by removing it and adding to the
-		 * end upon each request.
+		 * This method provides automatic load balancing by returning the
+		 * matching service items in turns, starting at a cursor shared by all
+		 * callers looking up the same interfaces.
 		 */
 		public ServiceItem getServiceItem(Class[] interfaces,
 				String providerName) {
-			List<ServiceItem> list = getAll(new InterfaceList(interfaces));
-			logger.info("Cinfo getServiceItem, got: " + list);
+			Selection selection = getSelection(new InterfaceList(interfaces));
+			ServiceItem[] sItems = getItems(selection.keys).toArray(new ServiceItem[0]);
+			logger.debug("Cinfo getServiceItem, got: {}", sItems.length);
 			if (providerName != null && providerName.equals(ANY))
 				providerName = null;
-			if (list == null)
+			if (sItems.length == 0)
 				return null;
 
-			ServiceItem sItem;
+			boolean anyProvider = providerName == null || providerName.length() == 0;
 			// provide load balancing and check if still alive
-			if (providerName == null || providerName.length() == 0) {
-				do {
-					if (list.size() == 0)
-						return null;
-					sItem = list.remove(0);
-					if (sItem != null) {
-						if (isAlive(sItem)) {
-							list.add(sItem);
-							return sItem;
-						} else {
-							// not Alive anymore removing from cataloger
-							removeServiceItem(sItem);
-						}
-					}
-				} while (sItem != null);
-			} else {
-				net.jini.core.entry.Entry[] attrs;
-				for (int i = 0; i < list.size(); i++) {
-					attrs = list.get(i).attributeSets;
-					for (net.jini.core.entry.Entry et : attrs) {
-						if (et instanceof Name
-								&& providerName.equals(((Name) et).name)) {
-							sItem = list.remove(i);
-                            if (sItem != null) {
-                                if (isAlive(sItem)) {
-                                    list.add(sItem);
-                                    return sItem;
-                                } else {
-                                    // not Alive anymore removing from cataloger
-                                    removeServiceItem(sItem);
-                                }
-                            }
-						}
-					}
-				}
+			int start = next(selection.cursor, sItems.length);
+			for (int i = 0; i < sItems.length; i++) {
+				ServiceItem sItem = sItems[(start + i) % sItems.length];
+				if (sItem == null || !(anyProvider || hasName(sItem, providerName)))
+					continue;
+				if (isAvailable(sItem))
+					return sItem;
+				lookupFailed(sItem);
 			}
 			return null;
 		}
 
-		// there's no other better way of doing this because of the structure we
-		// maintain.
-		// we need to iterate through each and every one of the list and get the
-		// service
 		public ServiceItem getServiceItem(ServiceID serviceID) {
-			Collection<List<ServiceItem>> c = values();
-			if (c == null)
-				return null;
-			List<ServiceItem> sItems;
-			ServiceItem sItem;
-			for (Iterator<List<ServiceItem>> it = c.iterator(); it.hasNext();) {
-				sItems = it.next();
-				for (int i = 0; i < sItems.size(); i++) {
-					if (serviceID
-							.equals((sItems.get(i)).serviceID)) {
-						sItem = sItems.remove(i);
-						sItems.add(sItem);
-						return sItem;
-					}
-				}
-			}
-			return null;
+			return itemsById.get(serviceID);
+		}
+
+		Collection<ServiceItem> getRegisteredItems() {
+			return itemsById.values();
+		}
+
+		Set<ServiceID> getRegisteredIds() {
+			return itemsById.keySet();
+		}
+
+		void setHealthTracker(ServiceHealthTracker healthTracker) {
+			this.healthTracker = healthTracker;
+		}
+
+		/**
+		 * Reads the health state cached by the tracker if the services are
+		 * tracked, otherwise calls the service.
+		 */
+		boolean isAvailable(ServiceItem sItem) {
+			ServiceHealthTracker tracker = healthTracker;
+			return tracker != null ? tracker.isAlive(sItem) : isAlive(sItem);
+		}
+
+		/**
+		 * Removes a service found dead by a lookup, unless the tracker decides
+		 * on removing services.
+		 */
+		void lookupFailed(ServiceItem sItem) {
+			if (healthTracker == null)
+				removeServiceItem(sItem);
 		}
 
 		public ServiceItem[] getServiceItems(Class[] interfaces,
@@ -688,52 +858,34 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 				maxItems = Integer.MAX_VALUE;
 			if (providerName != null && providerName.equals(ANY))
 				providerName = null;
-			// logger.debug("Looking for interfaces: " + interfaces);
-			List<ServiceItem> list = get(new InterfaceList(interfaces));
-			// logger.debug("Got list: " + list.toString());
+			// the items of the first matching interface list, as before the
+			// interface index was introduced
+			Selection selection = getSelection(new InterfaceList(interfaces));
+			List<ServiceItem> list = getFirst(selection.keys);
 			if (list == null)
 				return null;
+			ServiceItem[] sItems = list.toArray(new ServiceItem[0]);
+			if (sItems.length == 0)
+				return null;
 
-			ServiceItem sItem;
+			boolean anyProvider = providerName == null || "".equals(providerName);
 			// provide load balancing
-			if (providerName == null || "".equals(providerName)) {
-				sItem = list.remove(0);
-				list.add(sItem);
-				ArrayList<ServiceItem> arItems = new ArrayList<ServiceItem>();
-				Iterator<ServiceItem> it = list.iterator();
-				while (it.hasNext() && arItems.size() < maxItems) {
-					// Check if provider is still alive
-					ServiceItem si = it.next();
-					if (isAlive(si) && (!arItems.contains(si)))
-						arItems.add(si);
-				}
-				ServiceItem[] sitems = new ServiceItem[arItems.size()];
-				for (int i = 0; i < arItems.size(); i++) {
-					sitems[i] = arItems.get(i);
-				}
-				return sitems;
-			} else {
-				net.jini.core.entry.Entry[] attrs;
-				List<ServiceItem> slist = new ArrayList<ServiceItem>();
-				Iterator<ServiceItem> it = list.iterator();
-				ServiceItem si = null;
-				while (it.hasNext() && slist.size() < maxItems) {
-					si = it.next();
-					attrs = si.attributeSets;
-					if (attrs != null && attrs.length > 0
-							&& (attrs[0] instanceof Name)
-							&& providerName.equals(((Name) attrs[0]).name)) {
-						if (isAlive(si) && (!slist.contains(si))) {
-							slist.add(si);
-						}
-					}
+			int start = next(selection.cursor, sItems.length);
+			List<ServiceItem> slist = new ArrayList<ServiceItem>();
+			for (int i = 0; i < sItems.length && slist.size() < maxItems; i++) {
+				ServiceItem si = sItems[(start + i) % sItems.length];
+				if (!anyProvider) {
+					net.jini.core.entry.Entry[] attrs = si.attributeSets;
+					if (attrs == null || attrs.length == 0
+							|| !(attrs[0] instanceof Name)
+							|| !providerName.equals(((Name) attrs[0]).name))
+						continue;
 				}
-				ServiceItem[] sitems = new ServiceItem[slist.size()];
-				for (int i = 0; i < slist.size(); i++) {
-					sitems[i] = slist.get(i);
-				}
-				return sitems;
+				// Check if provider is still alive
+				if (isAvailable(si) && (!slist.contains(si)))
+					slist.add(si);
 			}
+			return slist.toArray(new ServiceItem[slist.size()]);
 		}
 
 
@@ -1242,12 +1394,32 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 			return null;
 		}
 
+		private static class Selection implements Serializable {
+			private static final long serialVersionUID = 1L;
+			final int version;
+			final List<InterfaceList> keys;
+			// load balancing cursor, kept across selection updates
+			final AtomicInteger cursor;
+
+			Selection(int version, List<InterfaceList> keys, AtomicInteger cursor) {
+				this.version = version;
+				this.keys = keys;
+				this.cursor = cursor;
+			}
+		}
+
 		/**
 		 * See above CatalogerInfo for comments.
 		 */
 		public static class InterfaceList extends ArrayList<Class> {
 			private static final long serialVersionUID = 1L;
 
+			// names of the interfaces
+			private transient Set<String> typeNames;
+
+			// names of the interfaces and their direct superinterfaces
+			private transient Set<String> allTypeNames;
+
 			public InterfaceList(Class[] clazz) {
 				if (clazz != null && clazz.length > 0)
 					for (int i = 0; i < clazz.length; i++)
@@ -1255,17 +1427,29 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
 			}
 
 			public boolean containsAllInterfaces(InterfaceList interfaceList) {
-				Set<Class> all = new HashSet<Class>(this);
-				for (int i = 0; i < size(); i++) {
-					all.addAll(Arrays.asList(get(i).getInterfaces()));
+				return getAllTypeNames().containsAll(interfaceList.getTypeNames());
+			}
+
+			Set<String> getTypeNames() {
+				if (typeNames == null)
+					typeNames = getServiceList(this);
+				return typeNames;
+			}
+
+			Set<String> getAllTypeNames() {
+				if (allTypeNames == null) {
+					Set<Class> all = new HashSet<Class>(this);
+					for (int i = 0; i < size(); i++) {
+						all.addAll(Arrays.asList(get(i).getInterfaces()));
+					}
+					allTypeNames = getServiceList(all);
 				}
-				return getServiceList(all).containsAll(
-						getServiceList(interfaceList));
+				return allTypeNames;
 			}
 
-			private List<String> getServiceList(
+			private Set<String> getServiceList(
 					Collection<Class> interfaceCollection) {
-				List<String> serviceList = new ArrayList<String>();
+				Set<String> serviceList = new HashSet<String>();
 				for (Class service : interfaceCollection) {
 					serviceList.add("" + service);
 				}
@@ -1349,7 +1533,7 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
      * @param si service to check
      * @return true if a provider is alive, otherwise false
      */
-    private static boolean isAlive(ServiceItem si) {
+    static boolean isAlive(ServiceItem si) {
         if (si == null)
             return false;
         try {
@@ -1414,7 +1598,7 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
                             continue SRVITEM;
                         }
                     }
-                    if (isAlive(serviceItem)) {
+                    if (cinfo.isAvailable(serviceItem)) {
                         logger.info("Service " + serviceItem.serviceID + " is adding to results for: " + tmpl.toString());
                         result.add(serviceItem);
                     } else {
@@ -1426,7 +1610,7 @@ public class ServiceCataloger extends ServiceProvider implements Cataloger, Admi
             }
             synchronized (cinfo){
                 for(ServiceItem serviceItem: down)
-                        cinfo.removeServiceItem(serviceItem);
+                        cinfo.lookupFailed(serviceItem);
             }
 
         }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.provider.cataloger;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jini.core.lookup.ServiceID;
+import net.jini.core.lookup.ServiceItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.util.ConfigurableThreadFactory;
+
+import static sorcer.util.StringUtils.tName;
+
+/**
+ * Background liveness tracker of the services registered in the cataloger. Services are probed periodically by a
+ * pool of threads, so lookups only read the cached health state. A service failing the given number of consecutive
+ * probes is evicted from the cataloger.
+ */
+public class ServiceHealthTracker implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(ServiceHealthTracker.class);
+
+    private final ServiceCataloger.CatalogerInfo cinfo;
+    private final long interval;
+    private final int failureThreshold;
+
+    private final ConcurrentMap<ServiceID, Health> health = new ConcurrentHashMap<ServiceID, Health>();
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService probes;
+
+    public ServiceHealthTracker(ServiceCataloger.CatalogerInfo cinfo, long interval, int probeThreads,
+                                int failureThreshold) {
+        this.cinfo = cinfo;
+        this.interval = interval;
+        this.failureThreshold = Math.max(1, failureThreshold);
+
+        ConfigurableThreadFactory schedulerFactory = new ConfigurableThreadFactory();
+        schedulerFactory.setNameFormat(tName("Cataloger-health"));
+        schedulerFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(schedulerFactory);
+
+        ConfigurableThreadFactory probeFactory = new ConfigurableThreadFactory();
+        probeFactory.setNameFormat(tName("Cataloger-probe-%2$d"));
+        probeFactory.setDaemon(true);
+        probes = Executors.newFixedThreadPool(Math.max(1, probeThreads), probeFactory);
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        probes.shutdownNow();
+    }
+
+    /**
+     * @return false if the last probe of the service failed; services not probed yet are considered alive
+     */
+    public boolean isAlive(ServiceItem sItem) {
+        if (sItem == null)
+            return false;
+        Health h = health.get(sItem.serviceID);
+        return h == null || h.failures.get() == 0;
+    }
+
+    /**
+     * Start a probe of every registered service that is not being probed already
+     */
+    @Override
+    public void run() {
+        try {
+            for (ServiceItem sItem : cinfo.getRegisteredItems()) {
+                Health h = health.get(sItem.serviceID);
+                if (h == null) {
+                    h = new Health();
+                    Health existing = health.putIfAbsent(sItem.serviceID, h);
+                    if (existing != null)
+                        h = existing;
+                }
+                if (h.probing.compareAndSet(false, true))
+                    probes.execute(new Probe(sItem, h));
+            }
+            // forget services removed from the cataloger
+            health.keySet().retainAll(cinfo.getRegisteredIds());
+        } catch (RejectedExecutionException ignored) {
+            // stopped
+        } catch (RuntimeException e) {
+            logger.warn("Error while scheduling health probes", e);
+        }
+    }
+
+    private class Probe implements Runnable {
+        private final ServiceItem sItem;
+        private final Health h;
+
+        Probe(ServiceItem sItem, Health h) {
+            this.sItem = sItem;
+            this.h = h;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (ServiceCataloger.isAlive(sItem)) {
+                    if (h.failures.getAndSet(0) > 0)
+                        logger.info("Service ID: {} is alive again", sItem.serviceID);
+                } else if (h.failures.incrementAndGet() == failureThreshold) {
+                    logger.warn("Service ID: {} failed {} health probes, removing", sItem.serviceID, failureThreshold);
+                    cinfo.removeServiceItem(sItem);
+                    health.remove(sItem.serviceID, h);
+                }
+            } finally {
+                h.probing.set(false);
+            }
+        }
+    }
+
+    private static class Health {
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicBoolean probing = new AtomicBoolean();
+    }
+}
@@ -38,4 +38,12 @@ public interface DatabaseStorer extends StorageManagement, Remote {
             return null;
         }
     }
+
+    /**
+     * Secondary indexes of the stores: the name and owner of the stored objects, the creation time of exertions
+     * and the exertion of contexts
+     */
+    enum Index {
+        name, owner, created, exertion
+    }
 }
@@ -35,10 +35,26 @@ public interface StorageManagement {
 	final static String object_url = "object/url";
 	final static String object_uuid = "object/uuid";
 	final static String object_type = "object/type";
+	// version of the stored object, changed by each update or deletion
+	final static String object_version = "object/version";
 	final static String store_type = "store/type";
 	final static String store_size = "store/size";
 	final static String store_content_list = "store/content/list";
+	// paginated listing and range queries
+	final static String store_index = "store/index";
+	final static String store_index_from = "store/index/from";
+	final static String store_index_to = "store/index/to";
+	final static String store_page_size = "store/page/size";
+	final static String store_page_cursor = "store/page/cursor";
+	final static String store_page_next = "store/page/next";
 
+	/**
+	 * Retrieves the object of the {@link #object_type} store with the
+	 * {@link #object_uuid} id into {@link #object_retrieved}, and returns its
+	 * version in {@link #object_version}. If the caller already has the object
+	 * with the version given in {@link #object_version}, and it was not
+	 * modified since, only the version is returned.
+	 */
 	public Context contextRetrieve(Context context) throws RemoteException,
 			ContextException;
 
@@ -57,6 +73,18 @@ public interface StorageManagement {
 	public Context contextList(Context context) throws RemoteException,
 			ContextException, MalformedURLException;
 
+	/**
+	 * Lists a page of the objects of the store given by {@link #store_type}
+	 * whose {@link #store_index} value is between {@link #store_index_from}
+	 * and {@link #store_index_to}, both inclusive and optional, in the order of
+	 * the index. The page of at most {@link #store_page_size} objects is
+	 * returned in {@link #store_content_list}, and the cursor of the next page
+	 * in {@link #store_page_next}; it is passed as {@link #store_page_cursor}
+	 * to get the next page.
+	 */
+	public Context contextQuery(Context context) throws RemoteException,
+			ContextException, MalformedURLException;
+
 	public Context contextRecords(Context context) throws RemoteException,
 			ContextException, MalformedURLException;
 
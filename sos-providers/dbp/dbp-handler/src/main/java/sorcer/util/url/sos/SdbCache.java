@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.util.url.sos;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.jini.io.MarshalledInstance;
+
+/**
+ * Bounded client cache of the objects retrieved with <code>sos://</code> URLs, keyed by the URL, which holds the
+ * provider, store and id of the object, and keeping the version of each object.
+ * <p/>
+ * Cached objects are revalidated with the provider by their version on each access, so only the objects modified
+ * since they were cached are transferred again. Objects are kept marshalled, and each access returns a new copy.
+ * The total size in bytes of the marshalled objects is bounded by the {@value #MAX_SIZE} system property, least
+ * recently used objects are evicted first and objects larger than the bound are not cached; 0 disables the cache.
+ */
+public class SdbCache {
+    public static final String MAX_SIZE = "sorcer.sos.cache.maxSize";
+    public static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    private static final SdbCache instance = new SdbCache(Long.getLong(MAX_SIZE, DEFAULT_MAX_SIZE));
+
+    private final long maxSize;
+    // guarded by this
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long size;
+
+    public SdbCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public static SdbCache getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public synchronized Entry get(String url) {
+        return entries.get(url);
+    }
+
+    public void put(String url, String version, Object object) throws IOException {
+        if (!isEnabled())
+            return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(new MarshalledInstance(object));
+        out.close();
+        Entry entry = new Entry(version, bytes.toByteArray());
+        synchronized (this) {
+            remove(url);
+            if (entry.getSize() > maxSize)
+                return;
+            entries.put(url, entry);
+            size += entry.getSize();
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (size > maxSize) {
+                size -= eldest.next().getSize();
+                eldest.remove();
+            }
+        }
+    }
+
+    public synchronized void remove(String url) {
+        Entry entry = entries.remove(url);
+        if (entry != null)
+            size -= entry.getSize();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * @return number of the cached objects
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return total size in bytes of the cached objects
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public static class Entry {
+        private final String version;
+        private final byte[] value;
+
+        Entry(String version, byte[] value) {
+            this.version = version;
+            this.value = value;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        int getSize() {
+            return value.length;
+        }
+
+        /**
+         * @return new copy of the cached object
+         */
+        public Object getObject() throws IOException, ClassNotFoundException {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(value));
+            try {
+                return ((MarshalledInstance) in.readObject()).get(false);
+            } finally {
+                in.close();
+            }
+        }
+    }
+}
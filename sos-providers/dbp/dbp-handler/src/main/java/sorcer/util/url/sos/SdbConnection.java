@@ -27,6 +27,10 @@ import sorcer.service.Context;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.rmi.RemoteException;
+
+import net.jini.core.lookup.ServiceID;
+import net.jini.core.lookup.ServiceItem;
 
 /**
  * @author Mike Sobolewski
@@ -37,7 +41,10 @@ import java.net.URLConnection;
  */
 public class SdbConnection extends URLConnection {
 
+	private static final SdbCache cache = SdbCache.getInstance();
+
 	private StorageManagement store;
+	private ServiceID serviceID;
 
 	private String serviceType;
 
@@ -68,13 +75,20 @@ public class SdbConnection extends URLConnection {
 	@Override
 	public void connect() throws IOException {
         try {
-            store = (StorageManagement) Accessor.getService(providerName, Class.forName(serviceType));
+            ServiceItem item = Accessor.getCachedServiceItem(Class.forName(serviceType), providerName, null);
+            store = item == null ? null : (StorageManagement) item.service;
+            serviceID = item == null ? null : item.serviceID;
         } catch (ClassNotFoundException e) {
             throw new IOException("Could not access StorageManagement implementation " + serviceType, e);
         }
         connected = true;
 	}
 
+	/**
+	 * Returns the stored object. Objects in the {@link SdbCache} are
+	 * revalidated with the provider by their version, and only retrieved again
+	 * if they were modified.
+	 */
 	@Override
 	public Object getContent() throws IOException {
 		Context outContext;
@@ -82,15 +96,34 @@ public class SdbConnection extends URLConnection {
 			connect();
         if (store == null)
             throw new IOException("Could not access StorageManagement implementation " + serviceType);
+        String key = getURL().toString();
+        SdbCache.Entry cached = cache.get(key);
 		try {
-            outContext = null;
-            if (store != null) {
-                Context cxt = new ServiceContext();
-                cxt.putInValue(StorageManagement.object_type, storeType);
-                cxt.putInValue(StorageManagement.object_uuid, uuid);
-                outContext = store.contextRetrieve(cxt);
+            Context cxt = new ServiceContext();
+            cxt.putInValue(StorageManagement.object_type, storeType);
+            cxt.putInValue(StorageManagement.object_uuid, uuid);
+            if (cached != null)
+                cxt.putInValue(StorageManagement.object_version, cached.getVersion());
+            outContext = store.contextRetrieve(cxt);
+
+            Object version = outContext.containsPath(StorageManagement.object_version)
+                    ? outContext.getValue(StorageManagement.object_version) : null;
+            if (cached != null && cached.getVersion().equals(version))
+                return cached.getObject();
+            Object object = outContext.getValue(StorageManagement.object_retrieved);
+            if (version instanceof String && object != null && object != Context.none)
+                cache.put(key, (String) version, object);
+            else
+                cache.remove(key);
+            return object;
+        } catch (RemoteException e) {
+            cache.remove(key);
+            try {
+                Accessor.invalidate(Class.forName(serviceType), providerName, null, serviceID);
+            } catch (ClassNotFoundException ignored) {
+                // the proxy class was loaded by connect
             }
-            return outContext.getValue(StorageManagement.object_retrieved);
+            throw new IOException(e);
 		} catch (Exception e) {
             throw new IOException(e);
         }
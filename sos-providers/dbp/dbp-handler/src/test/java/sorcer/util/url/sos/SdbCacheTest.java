@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.util.url.sos;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SdbCacheTest {
+
+    @Test
+    public void testEntryReturnsCopyOfObject() throws Exception {
+        SdbCache cache = new SdbCache(64 * 1024);
+        StringBuilder object = new StringBuilder("value");
+        cache.put("a", "1", object);
+        SdbCache.Entry entry = cache.get("a");
+        assertEquals("1", entry.getVersion());
+        Object copy = entry.getObject();
+        assertNotSame(object, copy);
+        assertEquals("value", copy.toString());
+    }
+
+    @Test
+    public void testSizeIsBoundedByBytes() throws Exception {
+        SdbCache cache = new SdbCache(16 * 1024);
+        for (int i = 0; i < 10; i++)
+            cache.put("url" + i, "1", new byte[4 * 1024]);
+        assertTrue(cache.getSize() <= 16 * 1024);
+        assertEquals(3, cache.size());
+        assertNull(cache.get("url0"));
+        assertNotNull(cache.get("url9"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        SdbCache cache = new SdbCache(16 * 1024);
+        cache.put("a", "1", new byte[4 * 1024]);
+        cache.put("b", "1", new byte[4 * 1024]);
+        cache.put("c", "1", new byte[4 * 1024]);
+        cache.get("a");
+        cache.put("d", "1", new byte[4 * 1024]);
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void testObjectLargerThanBoundIsNotCached() throws Exception {
+        SdbCache cache = new SdbCache(16 * 1024);
+        cache.put("a", "1", new byte[1024]);
+        cache.put("b", "1", new byte[32 * 1024]);
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+    }
+
+    @Test
+    public void testReplacedAndRemovedEntriesAreNotCounted() throws Exception {
+        SdbCache cache = new SdbCache(16 * 1024);
+        cache.put("a", "1", new byte[4 * 1024]);
+        long size = cache.getSize();
+        cache.put("a", "2", new byte[4 * 1024]);
+        assertEquals(size, cache.getSize());
+        assertEquals("2", cache.get("a").getVersion());
+        cache.remove("a");
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testDisabledCacheKeepsNothing() throws Exception {
+        SdbCache cache = new SdbCache(0);
+        assertFalse(cache.isEnabled());
+        cache.put("a", "1", "value");
+        assertNull(cache.get("a"));
+    }
+}
@@ -24,6 +24,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.rmi.RemoteException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import net.jini.id.Uuid;
 import net.jini.id.UuidFactory;
@@ -36,15 +38,19 @@ import sorcer.core.provider.StorageManagement;
 import sorcer.service.*;
 import sorcer.core.provider.DatabaseStorer;
 import sorcer.util.ModelTable;
+import sorcer.util.bdb.objects.ObjectVersions;
 import sorcer.util.bdb.objects.SorcerDatabase;
 import sorcer.util.bdb.objects.SorcerDatabaseViews;
+import sorcer.util.bdb.objects.StoreQuery;
 import sorcer.util.bdb.objects.UuidKey;
 import sorcer.util.bdb.objects.UuidObject;
 import sorcer.util.url.sos.SosDbUtil;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.sleepycat.collections.StoredMap;
 import com.sleepycat.collections.StoredValueSet;
 import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.SecondaryDatabase;
 
 import static sorcer.util.StringUtils.tName;
 
@@ -64,17 +70,34 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
         setupDatabase();
     }
 
-    private Set<Uuid> objectsBeingModified = Collections.synchronizedSet(new HashSet<Uuid>());
+    @ConfigEntry("writeWorkers")
+    private int writeWorkers = 2;
+
+    @ConfigEntry("writeBatchSize")
+    private int writeBatchSize = 64;
+
+    @ConfigEntry("writeQueueSize")
+    private int writeQueueSize = 4096;
+
+    @ConfigEntry("defaultPageSize")
+    private int defaultPageSize = 100;
+
+    private WriteBehindQueue writes;
+
+    // opens the secondary indexes in the background, populating the new ones
+    private Thread indexer;
+
+    // persistent versions of the stored objects, written by the write operations in their transactions
+    private ObjectVersions versions;
 
 	public Uuid store(Object object) {
 		Object obj = object;
 		if (!(object instanceof Identifiable)) {
 			obj = new UuidObject(object);
 		}
-        PersistThread pt = new PersistThread(obj);
-		Uuid id = pt.getUuid();
-        pt.start();
-        return id;
+		Uuid id = (Uuid) ((Identifiable) obj).getId();
+		submit(id, new PersistOperation(obj));
+		return id;
 	}
 	
 	public Uuid update(Uuid uuid, Object object) throws InvalidObjectException {
@@ -82,227 +105,148 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
 		if (!(object instanceof Identifiable)) {
 			uuidObject = new UuidObject(uuid, object);
 		}
-		UpdateThread ut = new UpdateThread(uuid, uuidObject);
-        Uuid id = ut.getUuid();
-        //ut.start();
-        ut.run();
-        return id;
+		try {
+			return submit(uuid, new UpdateOperation(uuid, uuidObject)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while updating object " + uuid, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IllegalArgumentException)
+				throw (IllegalArgumentException) e.getCause();
+			throw new IllegalStateException("Could not update object " + uuid, e.getCause());
+		}
 	}
 	
 	public Uuid update(URL url, Object object) throws InvalidObjectException {
+		Uuid id = SosDbUtil.getUuid(url);
 		Object uuidObject = object;
 		if (!(object instanceof Identifiable)) {
-			uuidObject = new UuidObject(SosDbUtil.getUuid(url), object);
+			uuidObject = new UuidObject(id, object);
 		}
-		UpdateThread ut = new UpdateThread(url, uuidObject);
-        Uuid id = ut.getUuid();
-        ut.start();
+		submit(id, new UpdateOperation(id, uuidObject));
 		return id;
 	}
 
-    private void addToWaitingList(Uuid id) {
-        waitWhileObjectIsModified(id);
-        objectsBeingModified.add(id);
-    }
-
-    private void waitWhileObjectIsModified(Uuid uuid) {
-        while (objectsBeingModified.contains(uuid)) {
-            try {
-                logger.debug("waiting for uuid: " + uuid);
-                Thread.sleep(25);
-            } catch (InterruptedException ie) {
-                logger.error("Interrupted in getObject while waiting for object to be modified: " + uuid);
-            }
-        }
+    private ListenableFuture<Uuid> submit(Uuid uuid, Runnable operation) {
+        return writes.submit(uuid, operation);
     }
 
-    private synchronized Set<Uuid> getAllObjectsBeingModified(){
-        return new HashSet<Uuid>(objectsBeingModified);
+    /**
+     * Return the version of the stored object, which changes with each write
+     * of the object and is kept over restarts, or null if the object has no
+     * version as it was stored before versions were kept or is deleted.
+     */
+    public String getVersion(Uuid uuid) {
+        writes.await(uuid);
+        return versions.get(uuid);
     }
 
+    /**
+     * Wait until all pending writes are committed
+     */
     public void waitWhileObjectsAreModified() {
-        Set<Uuid> tmpObjectList = getAllObjectsBeingModified();
-        logger.debug("Init tmpObjList size: " + tmpObjectList.size());
-        while (!tmpObjectList.isEmpty()) {
-            try {
-                tmpObjectList.retainAll(objectsBeingModified);
-                logger.debug("tmpObjList size: " + tmpObjectList.size());
-                Thread.sleep(30);
-            } catch (InterruptedException ie) {
-                logger.error("Interrupted in getObject while waiting for objects to be modified");
-            }
-        }
+        writes.awaitAll();
     }
 
     public Object getObject(Uuid uuid) {
-        waitWhileObjectIsModified(uuid);
-        logger.debug("Getting object: " + uuid);
-        StoredMap<UuidKey, UuidObject> uuidObjectMap = views.getUuidObjectMap();
-        int tries = 0;
-        while (uuidObjectMap==null && tries<20) {
-            logger.debug("Didn't get UuidObjectMap, trying: " + tries);
-            try {
-                Thread.sleep(25);
-            } catch (InterruptedException ie) {
-            }
-            views.getUuidObjectMap();
-            tries++;
-        }
-		UuidObject uuidObj = uuidObjectMap.get(new UuidKey(uuid));
-        /*int tries = 0;
-        while (uuidObj==null && tries<20) {
-            try {
-                Thread.sleep(25);
-            } catch (InterruptedException ie) {
-            }
-            uuidObj = uuidObjectMap.get(new UuidKey(uuid));
-            tries++;
-        }*/
+        writes.await(uuid);
+        logger.debug("Getting object: {}", uuid);
+		UuidObject uuidObj = views.getUuidObjectMap().get(new UuidKey(uuid));
 		return (uuidObj!=null ? uuidObj.getObject() : null);
 	}
 	
 	public Context getContext(Uuid uuid) {
-        try {
-            addToWaitingList(uuid);
-            StoredMap<UuidKey, Context> cxtMap = views.getContextMap();
-            return cxtMap.get(new UuidKey(uuid));
-        } finally {
-            objectsBeingModified.remove(uuid);
-        }
+        writes.await(uuid);
+        StoredMap<UuidKey, Context> cxtMap = views.getContextMap();
+        return cxtMap.get(new UuidKey(uuid));
 	}
 	
 	public Exertion getExertion(Uuid uuid) {
-        try {
-            addToWaitingList(uuid);
-            StoredMap<UuidKey, Exertion> xrtMap = views.getExertionMap();
-		    return xrtMap.get(new UuidKey(uuid));
-        } finally {
-            objectsBeingModified.remove(uuid);
-        }
+        writes.await(uuid);
+        StoredMap<UuidKey, Exertion> xrtMap = views.getExertionMap();
+        return xrtMap.get(new UuidKey(uuid));
 	}
 
     public ModelTable getTable(Uuid uuid) {
-        try {
-            addToWaitingList(uuid);
-            StoredMap<UuidKey, ModelTable> xrtMap = views.getTableMap();
-            return xrtMap.get(new UuidKey(uuid));
-        } finally {
-            objectsBeingModified.remove(uuid);
-        }
+        writes.await(uuid);
+        StoredMap<UuidKey, ModelTable> xrtMap = views.getTableMap();
+        return xrtMap.get(new UuidKey(uuid));
     }
 
-	protected class PersistThread extends Thread {
+	protected class PersistOperation implements Runnable {
 
 		Object object;
-		Uuid uuid;
 
-		public PersistThread(Object object) {
-            super(tName("PersistThread-" + ((Identifiable)object).getId()));
+		public PersistOperation(Object object) {
 			this.object = object;
-			this.uuid = (Uuid)((Identifiable)object).getId();
-            addToWaitingList(uuid);
 		}
 
 		@SuppressWarnings("unchecked")
 		public void run() {
-			try {
-                StoredValueSet storedSet = null;
-                if (object instanceof Context) {
-                    storedSet = views.getContextSet();
-                    storedSet.add(object);
-                } else if (object instanceof Exertion) {
-                    storedSet = views.getExertionSet();
-                    storedSet.add(object);
-                } else if (object instanceof ModelTable) {
-                    storedSet = views.getTableSet();
-                    storedSet.add(object);
-                } else if (object instanceof UuidObject) {
-                    storedSet = views.getUuidObjectSet();
-                    storedSet.add(object);
-                }
-            } finally {
-                objectsBeingModified.remove(this.uuid);
+            StoredValueSet storedSet = null;
+            if (object instanceof Context) {
+                storedSet = views.getContextSet();
+                storedSet.add(object);
+            } else if (object instanceof Exertion) {
+                storedSet = views.getExertionSet();
+                storedSet.add(object);
+            } else if (object instanceof ModelTable) {
+                storedSet = views.getTableSet();
+                storedSet.add(object);
+            } else if (object instanceof UuidObject) {
+                storedSet = views.getUuidObjectSet();
+                storedSet.add(object);
             }
-		}
-		
-		public Uuid getUuid() {
-			return uuid;
+            if (storedSet != null)
+                versions.next((Uuid) ((Identifiable) object).getId());
 		}
 	}
 
-	protected class UpdateThread extends Thread {
+	protected class UpdateOperation implements Runnable {
 
 		Object object;
 		Uuid uuid;
 
-		public UpdateThread(Uuid uuid, Object object) throws InvalidObjectException {
+		public UpdateOperation(Uuid uuid, Object object) {
 			this.uuid = uuid;
 			this.object = object;
 		}
 
-		public UpdateThread(URL url, Object object) throws InvalidObjectException {
-            super(tName("UpdateThread-" + url));
-			this.object = object;
-			this.uuid = SosDbUtil.getUuid(url);
-            addToWaitingList(uuid);
-		}
-		
 		public void run() {
             StoredMap storedMap = null;
-            UuidKey key = null;
+            UuidKey key = new UuidKey(uuid);
 			try {
-                key = new UuidKey(uuid);
                 if (object instanceof Context) {
                     storedMap = views.getContextMap();
-                    storedMap.replace(key, object);
                 } else if (object instanceof Exertion) {
                     storedMap = views.getExertionMap();
-                    storedMap.replace(key, object);
                 } else if (object instanceof ModelTable) {
                     storedMap = views.getTableMap();
-                    storedMap.replace(key, object);
-                } else if (object instanceof Object) {
+                } else {
                     storedMap = views.getUuidObjectMap();
-                    storedMap.replace(key, object);
                 }
+                if (storedMap.replace(key, object) != null)
+                    versions.next(uuid);
             } catch (IllegalArgumentException ie) {
-                logger.error("Problem updating object with key: " + key.toString() + "\n" + storedMap.get(key).toString());
-                objectsBeingModified.remove(this.uuid);
+                logger.error("Problem updating object with key: " + key + "\n" + storedMap.get(key));
                 throw (ie);
-            } finally {
-                objectsBeingModified.remove(this.uuid);
             }
 		}
-		
-		public Uuid getUuid() {
-			return uuid;
-		}
 	}
 	
-	protected class DeleteThread extends Thread {
+	protected class DeleteOperation implements Runnable {
 
 		Uuid uuid;
 		Store storeType;
-        StoredMap storedMap;
 
-        public DeleteThread(Uuid uuid, Store storeType) {
-            super(tName("DeleteThread-" + uuid));
+        public DeleteOperation(Uuid uuid, Store storeType) {
             this.uuid = uuid;
 			this.storeType = storeType;
-            storedMap = getStoredMap(storeType);
-            addToWaitingList(uuid);
 		}
 
 		public void run() {
-            try {
-                storedMap.remove(new UuidKey(uuid));
-            } finally {
-                objectsBeingModified.remove(this.uuid);
-            }
-		}
-		
-		public Uuid getUuid() {
-			return uuid;
+            getViewMap(storeType).remove(new UuidKey(uuid));
+            versions.remove(uuid);
 		}
 	}
 	
@@ -348,9 +292,7 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
 	public Uuid deleteURL(URL url) {
 		Store storeType = SosDbUtil.getStoreType(url);
 		Uuid id = SosDbUtil.getUuid(url);
-		DeleteThread dt = new DeleteThread(id, storeType);
-		dt.start();
-		id = dt.getUuid();
+		submit(id, new DeleteOperation(id, storeType));
 		return id;
 	}
 
@@ -393,6 +335,19 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
 				throw new ContextException("No valid stored object Uuid: " + id);
 			}
 				
+		// version known to the caller
+		Object known = getOptionalValue(context, object_version);
+		// read before the object, so a concurrent update yields a stale version rather than a stale object
+		String version = getVersion(uuid);
+		if (version != null) {
+			context.putOutValue(object_version, version);
+			if (version.equals(known))
+				return context;
+		} else if (known != null) {
+			// the caller must not take its copy for current
+			context.removePath(object_version);
+		}
+
 		Object obj = retrieve(uuid, storeType);
 		if (context.getReturnPath() != null)
 			context.putOutValue(context.getReturnPath().path, obj);
@@ -441,10 +396,81 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
 	@Override
 	public Context contextList(Context context) throws RemoteException,
 			ContextException, MalformedURLException {
-		List<String> content = list((Store) context.getValue(StorageManagement.store_type));
-		context.putValue(StorageManagement.store_content_list, content);
+		Store type = (Store) context.getValue(StorageManagement.store_type);
+		Object pageSize = getOptionalValue(context, store_page_size);
+		if (pageSize == null) {
+			context.putValue(StorageManagement.store_content_list, list(type));
+			return context;
+		}
+		StoreQuery.Page page = list(type,
+				(String) getOptionalValue(context, store_page_cursor),
+				((Number) pageSize).intValue());
+		putPage(context, page);
+		return context;
+	}
+
+	/* (non-Javadoc)
+	 * @see sorcer.core.StorageManagement#contextQuery(sorcer.service.Context)
+	 */
+	@Override
+	public Context contextQuery(Context context) throws RemoteException,
+			ContextException, MalformedURLException {
+		Store type = (Store) context.getValue(StorageManagement.store_type);
+		Object index = context.getValue(StorageManagement.store_index);
+		Object pageSize = getOptionalValue(context, store_page_size);
+		StoreQuery.Page page = query(type,
+				index instanceof Index ? (Index) index : Index.valueOf(index.toString()),
+				getOptionalValue(context, store_index_from),
+				getOptionalValue(context, store_index_to),
+				(String) getOptionalValue(context, store_page_cursor),
+				pageSize == null ? defaultPageSize : ((Number) pageSize).intValue());
+		putPage(context, page);
 		return context;
 	}
+
+	/**
+	 * List a page of the store in the order of the object ids
+	 *
+	 * @param cursor cursor of the previous page, or null for the first page
+	 */
+	public StoreQuery.Page list(Store storeType, String cursor, int pageSize) {
+		waitWhileObjectsAreModified();
+		return new StoreQuery(db.getDatabase(storeType), views.getEntityBinding(storeType))
+				.list(cursor, pageSize);
+	}
+
+	/**
+	 * List a page of the objects of the store whose index value is between
+	 * the given bounds, both inclusive and optional, in the order of the index
+	 */
+	public StoreQuery.Page query(Store storeType, Index index, Object from, Object to,
+			String cursor, int pageSize) {
+		SecondaryDatabase indexDb = views.getIndex(storeType, index);
+		if (indexDb == null) {
+			if (!views.isIndexed())
+				throw new IllegalStateException("Indexes are still being populated");
+			throw new IllegalArgumentException("Store " + storeType
+					+ " is not indexed by " + index);
+		}
+		waitWhileObjectsAreModified();
+		return new StoreQuery(db.getDatabase(storeType), views.getEntityBinding(storeType))
+				.range(indexDb, index, from, to, cursor, pageSize);
+	}
+
+	private void putPage(Context context, StoreQuery.Page page) throws ContextException {
+		List<String> content = new ArrayList<String>(page.getValues().size());
+		for (Object value : page.getValues())
+			content.add(value.toString());
+		context.putValue(StorageManagement.store_content_list, content);
+		context.putValue(StorageManagement.store_page_next, page.getNext());
+	}
+
+	private static Object getOptionalValue(Context context, String path) throws ContextException {
+		if (!context.containsPath(path))
+			return null;
+		Object value = context.getValue(path);
+		return value == Context.none ? null : value;
+	}
 	
 	public List<String> list(Store storeType) {
 		StoredValueSet storedSet = getStoredSet(storeType);
@@ -476,6 +502,8 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
 			ContextException, MalformedURLException {
 		StoredValueSet storedSet = getStoredSet(type);
 		int size = storedSet.size();
+		// drop the versions first, so a cleared object is never reported with its last version
+		versions.removeAll(getViewMap(type).keySet());
 		storedSet.clear();
 		return size;
 	}
@@ -483,6 +511,14 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
     @ConfigEntry("dbHome")
     private String dbHome;
 
+    public DatabaseProvider() {
+    }
+
+    // for tests, opened by setupDatabase
+    DatabaseProvider(String dbHome) {
+        this.dbHome = dbHome;
+    }
+
 	protected void setupDatabase() throws DatabaseException, RemoteException {
 		logger.info("dbHome: " + dbHome);
 		if (dbHome == null || dbHome.length() == 0) {
@@ -505,7 +541,36 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
 		logger.info("Opening provider's BDBJE in: {}"
 				, dbHomeFile.getAbsolutePath());
 		db = new SorcerDatabase(dbHome);
-		views = new SorcerDatabaseViews(db);
+		views = new SorcerDatabaseViews(db, false);
+		versions = new ObjectVersions(db.getVersionDatabase());
+		writes = new WriteBehindQueue(db.getEnvironment(), writeWorkers, writeBatchSize, writeQueueSize);
+		openIndexes();
+	}
+
+	/**
+	 * Open the indexes in the background, as populating new indexes of large
+	 * stores takes long. Writes are held in the queue meanwhile.
+	 */
+	private void openIndexes() {
+		indexer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				long start = System.currentTimeMillis();
+				try {
+					writes.runExclusive(new Runnable() {
+						@Override
+						public void run() {
+							views.openIndexes();
+						}
+					});
+					logger.info("Opened indexes in {} ms", System.currentTimeMillis() - start);
+				} catch (RuntimeException e) {
+					logger.error("Could not open indexes, queries are not available", e);
+				}
+			}
+		}, tName("DBP-indexer"));
+		indexer.setDaemon(true);
+		indexer.start();
 	}
 	
 	/**
@@ -515,14 +580,16 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
 	 */
 	public void destroy() throws RemoteException {
 		try {
-            int tries=0;
-            try {
-                while (objectsBeingModified.size()>0 && tries<80) {
-                    Thread.sleep(50);
-                    tries++;
+            if (writes != null) {
+                try {
+                    writes.close(4, TimeUnit.SECONDS);
+                    // the database can't be closed while being indexed
+                    if (indexer != null)
+                        indexer.join();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
                 }
-                if (tries==80) logger.error("Interrupted while {} objects where still being modified", objectsBeingModified.size());
-            } catch (InterruptedException ie) {}
+            }
 			if (db != null) {
 				db.close();
 			}
@@ -553,6 +620,10 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
 	
 	public StoredMap getStoredMap(Store storeType) {
         waitWhileObjectsAreModified();
+        return getViewMap(storeType);
+	}
+
+	private StoredMap getViewMap(Store storeType) {
 		StoredMap storedMap = null;
 		if (storeType == Store.context) {
 			storedMap = views.getContextMap();
@@ -591,18 +662,7 @@ public class DatabaseProvider implements DatabaseStorer, IDatabaseProvider {
 	
 	public Uuid deleteIdentifiable(Object object) {
 		Uuid id = (Uuid) ((Identifiable) object).getId();
-		DeleteThread dt = null;
-		if (object instanceof Context) {
-			dt = new DeleteThread(id, Store.context);
-		} else if (object instanceof Exertion) {
-			dt = new DeleteThread(id, Store.exertion);
-		} else if (object instanceof ModelTable) {
-            dt = new DeleteThread(id, Store.table);
-        } else {
-			dt = new DeleteThread(id, Store.object);			
-		}
-		dt.start();
-		id = dt.getUuid();
+		submit(id, new DeleteOperation(id, getStoreType(object)));
 		return id;
 	}
 	
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.provider.dbp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.sleepycat.collections.TransactionRunner;
+import com.sleepycat.collections.TransactionWorker;
+import com.sleepycat.je.Environment;
+import net.jini.id.Uuid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.util.ConfigurableThreadFactory;
+
+import static sorcer.util.StringUtils.tName;
+
+/**
+ * Bounded write-behind queue of the database provider.
+ * <p/>
+ * Writes are partitioned by object id between a fixed number of workers, so the writes of an object are applied
+ * in order. Each worker drains up to a batch of writes and commits them in a single transaction; if the
+ * transaction fails, the writes of the batch are retried one by one; a write failing with an error fails its whole
+ * batch, and the worker goes on. Submitting blocks while the queue of the worker is full.
+ * <p/>
+ * Every write returns a future, and readers wait for the last pending write of an object with
+ * {@link #await(Uuid)} to read their own writes.
+ */
+public class WriteBehindQueue {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private final TransactionRunner runner;
+    private final int batchSize;
+    private final List<BlockingQueue<Write>> queues;
+    private final ExecutorService workers;
+
+    // last pending write of each object
+    private final ConcurrentMap<Uuid, Write> pending = new ConcurrentHashMap<Uuid, Write>();
+
+    // held shared by the commits, and exclusively by the actions run while no write is committed
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock(true);
+
+    // held shared by the submitters while they enqueue, and exclusively by close, so no write is queued behind CLOSE
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private boolean closed;
+
+    public WriteBehindQueue(Environment env, int workerCount, int batchSize, int queueSize) {
+        this.runner = new TransactionRunner(env);
+        this.batchSize = Math.max(1, batchSize);
+        workerCount = Math.max(1, workerCount);
+
+        ConfigurableThreadFactory factory = new ConfigurableThreadFactory();
+        factory.setNameFormat(tName("DBP-writer-%2$d"));
+        factory.setDaemon(true);
+        workers = Executors.newFixedThreadPool(workerCount, factory);
+
+        queues = new ArrayList<BlockingQueue<Write>>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<Write> queue = new ArrayBlockingQueue<Write>(Math.max(1, queueSize / workerCount));
+            queues.add(queue);
+            workers.execute(new Worker(queue));
+        }
+    }
+
+    /**
+     * Queue a write of the object. The operation is executed by a worker thread within a transaction.
+     *
+     * @return future completed with the object id once the write is committed
+     */
+    public ListenableFuture<Uuid> submit(Uuid uuid, Runnable operation) {
+        Write write = new Write(uuid, operation);
+        BlockingQueue<Write> queue = queues.get((uuid.hashCode() & Integer.MAX_VALUE) % queues.size());
+        closeLock.readLock().lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("Write queue is closed");
+            pending.put(uuid, write);
+            queue.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete(write, e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return write.future;
+    }
+
+    /**
+     * Wait until the writes of the object submitted so far are committed
+     */
+    public void await(Uuid uuid) {
+        Write write = pending.get(uuid);
+        if (write != null)
+            await(write);
+    }
+
+    /**
+     * Wait until all the writes submitted so far are committed
+     */
+    public void awaitAll() {
+        for (Write write : new ArrayList<Write>(pending.values()))
+            await(write);
+    }
+
+    public boolean isPending(Uuid uuid) {
+        return pending.containsKey(uuid);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stop accepting writes and wait for the queued ones to be committed
+     */
+    public void close(long timeout, TimeUnit unit) throws InterruptedException {
+        // waits for the submitters blocked on a full queue, the workers keep draining it
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        workers.shutdown();
+        for (BlockingQueue<Write> queue : queues)
+            queue.put(Write.CLOSE);
+        if (!workers.awaitTermination(timeout, unit)) {
+            logger.error("{} objects were still being written", pending.size());
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Run the action while no write is being committed, writes submitted meanwhile stay queued
+     */
+    public void runExclusive(Runnable action) {
+        commitLock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    private void await(Write write) {
+        try {
+            write.future.get();
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while waiting for object to be written: {}", write.uuid);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // already logged by the worker
+        }
+    }
+
+    private void complete(Write write, Throwable error) {
+        pending.remove(write.uuid, write);
+        if (error == null)
+            write.future.set(write.uuid);
+        else
+            write.future.setException(error);
+    }
+
+    private class Worker implements Runnable {
+        private final BlockingQueue<Write> queue;
+
+        Worker(BlockingQueue<Write> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            List<Write> batch = new ArrayList<Write>(batchSize);
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, batchSize - 1);
+                    boolean close = batch.remove(Write.CLOSE);
+                    try {
+                        commit(batch);
+                    } catch (Throwable t) {
+                        // keep the worker alive, submitters would block on its full queue
+                        logger.error("Could not write batch of {} objects", batch.size(), t);
+                        for (Write write : batch)
+                            complete(write, t);
+                    }
+                    batch.clear();
+                    if (close)
+                        return;
+                }
+            } catch (InterruptedException e) {
+                for (Write write : batch)
+                    complete(write, e);
+                for (Write write : queue)
+                    if (write != Write.CLOSE)
+                        complete(write, e);
+            }
+        }
+
+        private void commit(final List<Write> batch) {
+            if (batch.isEmpty())
+                return;
+            Exception error = null;
+            commitLock.readLock().lock();
+            try {
+                runner.run(new TransactionWorker() {
+                    @Override
+                    public void doWork() throws Exception {
+                        for (Write write : batch)
+                            write.operation.run();
+                    }
+                });
+            } catch (Exception e) {
+                error = e;
+            } finally {
+                commitLock.readLock().unlock();
+            }
+            if (error == null) {
+                for (Write write : batch)
+                    complete(write, null);
+            } else if (batch.size() == 1) {
+                logger.error("Could not write object {}", batch.get(0).uuid, error);
+                complete(batch.get(0), error);
+            } else {
+                logger.warn("Could not commit batch of {} writes, retrying one by one", batch.size(), error);
+                for (Write write : batch)
+                    commit(Collections.singletonList(write));
+            }
+        }
+    }
+
+    private static class Write {
+        static final Write CLOSE = new Write(null, null);
+
+        final Uuid uuid;
+        final Runnable operation;
+        final SettableFuture<Uuid> future = SettableFuture.create();
+
+        Write(Uuid uuid, Runnable operation) {
+            this.uuid = uuid;
+            this.operation = operation;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.util.bdb.objects;
+
+import java.io.IOException;
+import java.util.Date;
+
+import net.jini.id.Uuid;
+import sorcer.core.provider.DatabaseStorer;
+import sorcer.core.provider.DatabaseStorer.Index;
+import sorcer.service.Context;
+import sorcer.service.Exertion;
+import sorcer.service.ServiceExertion;
+import sorcer.util.Table;
+
+import com.sleepycat.bind.EntityBinding;
+import com.sleepycat.bind.serial.ClassCatalog;
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.je.DatabaseEntry;
+
+/**
+ * Entity binding of the SORCER database stores with tuple {@link UuidKey} keys and values encoded by a
+ * {@link ValueCodec}. A record starts with {@link #INDEXED} and the indexed values of the entity, written once so
+ * the {@link IndexKeyCreator}s don't decode the entity, followed by the id of the codec that wrote it and the
+ * encoded entity. Records written without the index prefix start with the codec id.
+ */
+@SuppressWarnings("rawtypes")
+public abstract class CodecEntityBinding implements EntityBinding {
+    private static final UuidKeyBinding keyBinding = new UuidKeyBinding();
+
+    /**
+     * First byte of the records with the index prefix, never used as a codec id
+     */
+    static final byte INDEXED = 0;
+
+    private final ValueCodec codec;
+    private final ClassCatalog catalog;
+
+    protected CodecEntityBinding(ValueCodec codec, ClassCatalog catalog) {
+        this.codec = codec;
+        this.catalog = catalog;
+    }
+
+    /**
+     * @return the binding of the entities of the given store
+     */
+    public static CodecEntityBinding forStore(DatabaseStorer.Store store, ValueCodec codec, ClassCatalog catalog) {
+        switch (store) {
+            case exertion:
+                return new CodecEntityBinding(codec, catalog) {
+                    protected Uuid getId(Object entity) {
+                        return (Uuid) ((Exertion) entity).getId();
+                    }
+
+                    protected void setId(Object entity, Uuid id) {
+                        ((ServiceExertion) entity).setId(id);
+                    }
+                };
+            case context:
+                return new CodecEntityBinding(codec, catalog) {
+                    protected Uuid getId(Object entity) {
+                        return (Uuid) ((Context) entity).getId();
+                    }
+
+                    protected void setId(Object entity, Uuid id) {
+                        ((Context) entity).setId(id);
+                    }
+                };
+            case table:
+                return new CodecEntityBinding(codec, catalog) {
+                    protected Uuid getId(Object entity) {
+                        return (Uuid) ((Table) entity).getId();
+                    }
+
+                    protected void setId(Object entity, Uuid id) {
+                        ((Table) entity).setId(id);
+                    }
+                };
+            case object:
+                return new CodecEntityBinding(codec, catalog) {
+                    protected Uuid getId(Object entity) {
+                        return (Uuid) ((UuidObject) entity).getId();
+                    }
+
+                    protected void setId(Object entity, Uuid id) {
+                        ((UuidObject) entity).setId(id);
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("No codec binding for store " + store);
+        }
+    }
+
+    public static UuidKeyBinding getKeyBinding() {
+        return keyBinding;
+    }
+
+    protected abstract Uuid getId(Object entity);
+
+    protected abstract void setId(Object entity, Uuid id);
+
+    @Override
+    public Object entryToObject(DatabaseEntry key, DatabaseEntry data) {
+        byte[] bytes = data.getData();
+        int offset = data.getOffset();
+        int end = offset + data.getSize();
+        if (bytes[offset] == INDEXED)
+            offset = skipIndexPrefix(data);
+        try {
+            Object entity = ValueCodecs.get(bytes[offset]).decode(bytes, offset + 1, end - offset - 1, catalog);
+            setId(entity, keyBinding.entryToObject(key).getId());
+            return entity;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not decode record " + keyBinding.entryToObject(key), e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Could not decode record " + keyBinding.entryToObject(key), e);
+        }
+    }
+
+    @Override
+    public void objectToKey(Object entity, DatabaseEntry key) {
+        keyBinding.objectToEntry(new UuidKey(getId(entity)), key);
+    }
+
+    @Override
+    public void objectToData(Object entity, DatabaseEntry data) {
+        Object value = entity instanceof MarshalledData ? ((MarshalledData) entity).getMarshalledObject() : entity;
+        byte[] encoded;
+        try {
+            encoded = codec.encode(value, catalog);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not encode " + entity, e);
+        }
+        TupleOutput output = new TupleOutput();
+        output.writeByte(INDEXED);
+        for (Index index : Index.values()) {
+            Object indexed = IndexKeyCreator.getValue(index, value);
+            if (index == Index.created) {
+                output.writeBoolean(indexed != null);
+                if (indexed != null)
+                    output.writeLong(((Date) indexed).getTime());
+            } else {
+                output.writeString(indexed == null ? null : indexed.toString());
+            }
+        }
+        output.writeByte(codec.getId());
+        output.writeFast(encoded);
+        data.setData(output.getBufferBytes(), 0, output.getBufferLength());
+    }
+
+    /**
+     * @return true if the record starts with the indexed values of the entity
+     */
+    static boolean hasIndexPrefix(DatabaseEntry data) {
+        return data.getSize() > 0 && data.getData()[data.getOffset()] == INDEXED;
+    }
+
+    /**
+     * @return the indexed value read from the index prefix of the record, a String or a Long, or null if the
+     * entity is not indexed
+     */
+    static Object readIndexValue(DatabaseEntry data, Index index) {
+        TupleInput input = new TupleInput(data.getData(), data.getOffset() + 1, data.getSize() - 1);
+        for (Index current : Index.values()) {
+            Object value;
+            if (current == Index.created)
+                value = input.readBoolean() ? (Object) input.readLong() : null;
+            else
+                value = input.readString();
+            if (current == index)
+                return value;
+        }
+        throw new IllegalArgumentException("Unknown index " + index);
+    }
+
+    private static int skipIndexPrefix(DatabaseEntry data) {
+        TupleInput input = new TupleInput(data.getData(), data.getOffset() + 1, data.getSize() - 1);
+        for (Index index : Index.values()) {
+            if (index == Index.created) {
+                if (input.readBoolean())
+                    input.readLong();
+            } else {
+                input.readString();
+            }
+        }
+        return input.getBufferOffset();
+    }
+}
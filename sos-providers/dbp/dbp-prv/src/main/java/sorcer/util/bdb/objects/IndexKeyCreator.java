@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.util.bdb.objects;
+
+import java.security.Principal;
+import java.util.Date;
+
+import sorcer.core.provider.DatabaseStorer.Index;
+import sorcer.service.Context;
+import sorcer.service.Exertion;
+import sorcer.service.ServiceExertion;
+import sorcer.util.Table;
+
+import com.sleepycat.bind.EntityBinding;
+import com.sleepycat.bind.tuple.LongBinding;
+import com.sleepycat.bind.tuple.StringBinding;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.SecondaryDatabase;
+import com.sleepycat.je.SecondaryKeyCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the keys of a secondary {@link Index} of a store from the stored entities. String keys are used for
+ * names, owners and exertion ids, long keys for creation times.
+ * <p/>
+ * The values are read from the index prefix of the records written by a {@link CodecEntityBinding}, other records
+ * are decoded. A record that can't be decoded is logged and left out of the index, so a single bad legacy record
+ * doesn't prevent the index from being populated.
+ */
+@SuppressWarnings("rawtypes")
+public class IndexKeyCreator implements SecondaryKeyCreator {
+    private static final Logger logger = LoggerFactory.getLogger(IndexKeyCreator.class);
+
+    private final EntityBinding binding;
+    private final Index index;
+
+    public IndexKeyCreator(EntityBinding binding, Index index) {
+        this.binding = binding;
+        this.index = index;
+    }
+
+    @Override
+    public boolean createSecondaryKey(SecondaryDatabase secondary, DatabaseEntry key, DatabaseEntry data,
+                                      DatabaseEntry result) {
+        Object value;
+        try {
+            if (binding instanceof CodecEntityBinding && CodecEntityBinding.hasIndexPrefix(data))
+                value = CodecEntityBinding.readIndexValue(data, index);
+            else
+                value = getValue(index, binding.entryToObject(key, data));
+        } catch (RuntimeException e) {
+            logger.warn("Could not index record by {}, leaving it out of the index", index, e);
+            return false;
+        }
+        if (value == null)
+            return false;
+        toEntry(index, value, result);
+        return true;
+    }
+
+    /**
+     * Encode an index key, given as a String, Number or Date
+     */
+    public static void toEntry(Index index, Object value, DatabaseEntry entry) {
+        if (index == Index.created) {
+            long time;
+            if (value instanceof Date)
+                time = ((Date) value).getTime();
+            else if (value instanceof Number)
+                time = ((Number) value).longValue();
+            else
+                time = Long.parseLong(value.toString());
+            LongBinding.longToEntry(time, entry);
+        } else {
+            StringBinding.stringToEntry(value.toString(), entry);
+        }
+    }
+
+    public static Object fromEntry(Index index, DatabaseEntry entry) {
+        return index == Index.created ? (Object) LongBinding.entryToLong(entry) : StringBinding.entryToString(entry);
+    }
+
+    /**
+     * @return the indexed value of the entity, or null if the entity is not indexed
+     */
+    public static Object getValue(Index index, Object entity) {
+        switch (index) {
+            case name:
+                if (entity instanceof Context)
+                    return ((Context) entity).getName();
+                if (entity instanceof Exertion)
+                    return ((Exertion) entity).getName();
+                if (entity instanceof UuidObject)
+                    return ((UuidObject) entity).getName();
+                if (entity instanceof Table)
+                    return ((Table) entity).getName();
+                return null;
+            case owner:
+                Principal principal = null;
+                if (entity instanceof Context)
+                    principal = ((Context) entity).getPrincipal();
+                else if (entity instanceof ServiceExertion)
+                    principal = ((ServiceExertion) entity).getPrincipal();
+                else if (entity instanceof UuidObject)
+                    principal = ((UuidObject) entity).getPrincipal();
+                return principal == null ? null : principal.getName();
+            case created:
+                return entity instanceof ServiceExertion ? ((ServiceExertion) entity).getCreationDate() : null;
+            case exertion:
+                if (entity instanceof Context) {
+                    Exertion exertion = ((Context) entity).getExertion();
+                    return exertion == null ? null : exertion.getId();
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.util.bdb.objects;
+
+import net.jini.id.Uuid;
+import net.jini.id.UuidFactory;
+
+import com.sleepycat.bind.tuple.TupleBinding;
+import com.sleepycat.collections.StoredMap;
+import com.sleepycat.je.Database;
+
+/**
+ * Persistent versions of the stored objects, used by clients to revalidate their cached copies. Each write of an
+ * object gives it a new random version, written in the transaction of the write, so versions of other objects never
+ * change with it and are kept over restarts. Objects written before versions were kept, and deleted objects, have
+ * no version and can't be revalidated.
+ */
+public class ObjectVersions {
+    private final StoredMap<UuidKey, String> versions;
+
+    public ObjectVersions(Database versionDb) {
+        versions = new StoredMap<UuidKey, String>(versionDb, CodecEntityBinding.getKeyBinding(),
+                TupleBinding.getPrimitiveBinding(String.class), true);
+    }
+
+    /**
+     * @return the version of the object, or null if the object has no version
+     */
+    public String get(Uuid uuid) {
+        return versions.get(new UuidKey(uuid));
+    }
+
+    /**
+     * Give the object a new version, to be called within the transaction writing the object
+     *
+     * @return the new version
+     */
+    public String next(Uuid uuid) {
+        String version = UuidFactory.generate().toString();
+        versions.put(new UuidKey(uuid), version);
+        return version;
+    }
+
+    /**
+     * Drop the version of a deleted object
+     */
+    public void remove(Uuid uuid) {
+        versions.remove(new UuidKey(uuid));
+    }
+
+    /**
+     * Drop the versions of the objects with the given keys
+     */
+    public void removeAll(Iterable<UuidKey> keys) {
+        for (UuidKey key : keys)
+            versions.remove(key);
+    }
+}
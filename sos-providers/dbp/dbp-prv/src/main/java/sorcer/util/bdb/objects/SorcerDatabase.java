@@ -19,23 +19,33 @@
 package sorcer.util.bdb.objects;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
+import sorcer.core.provider.DatabaseStorer;
 import sorcer.core.provider.ProviderRuntime;
 import sorcer.service.ServiceExertion;
 
 import com.sleepycat.bind.serial.ClassCatalog;
 import com.sleepycat.bind.serial.StoredClassCatalog;
 import com.sleepycat.bind.serial.TupleSerialKeyCreator;
+import com.sleepycat.bind.tuple.IntegerBinding;
+import com.sleepycat.bind.tuple.StringBinding;
 import com.sleepycat.bind.tuple.TupleInput;
 import com.sleepycat.bind.tuple.TupleOutput;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
 import com.sleepycat.je.ForeignKeyDeleteAction;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
 import com.sleepycat.je.SecondaryConfig;
 import com.sleepycat.je.SecondaryDatabase;
+import com.sleepycat.je.SecondaryKeyCreator;
+import com.sleepycat.je.Transaction;
 
 /**
  * SorcerDatabase defines the storage containers, indices and foreign keys for
@@ -53,6 +63,26 @@ public class SorcerDatabase {
     private static final String VAR_STORE = "var_store";
     private static final String VAR_MODEL_STORE = "var_model_store";
     private static final String OBJECT_STORE = "uuid_object_store";
+    private static final String FORMAT_STORE = "format_store";
+    private static final String VERSION_STORE = "object_version_store";
+
+    /**
+     * Keys and values of the stores bound with the serial binding
+     */
+    public static final int FORMAT_SERIAL = 1;
+
+    /**
+     * Tuple keys and values encoded by a {@link ValueCodec}
+     */
+    public static final int FORMAT_TUPLE = 2;
+
+    /**
+     * System property selecting the format of new environments: "tuple", the
+     * default, or "serial"
+     */
+    public static final String FORMAT_PROPERTY = "sorcer.dbp.format";
+
+    private static final String FORMAT_KEY = "format";
 
     private static final String RUNTIME_PROVIDER_NAME_INDEX =
         "runtime_provider_name_index";
@@ -65,6 +95,10 @@ public class SorcerDatabase {
     private Database varDb;
     private Database varModelDb;
     private Database uuidObjectDb;
+    private Database formatDb;
+    private Database versionDb;
+    private final List<SecondaryDatabase> indexDbs = new ArrayList<SecondaryDatabase>();
+    private int format;
 
     private SecondaryDatabase runtimeByProviderNameDb;
     private StoredClassCatalog javaCatalog;
@@ -109,6 +143,18 @@ public class SorcerDatabase {
         
         uuidObjectDb = env.openDatabase(null, OBJECT_STORE, dbConfig);
 
+        versionDb = env.openDatabase(null, VERSION_STORE, dbConfig);
+
+        // New environments use the format selected by FORMAT_PROPERTY, existing
+        // ones keep theirs until converted by SorcerDatabaseMigration.
+        formatDb = env.openDatabase(null, FORMAT_STORE, dbConfig);
+        format = readFormat(formatDb);
+        if (format == 0) {
+            format = isEmpty() && !"serial".equals(System.getProperty(FORMAT_PROPERTY))
+                    ? FORMAT_TUPLE : FORMAT_SERIAL;
+            writeFormat(formatDb, null, format);
+        }
+
         // Open the SecondaryDatabase for the name index of the provider in the runtime store.
         // Duplicate keys are allowed since more than one provider may be in
         // the same exertion.  A foreign key constraint is defined for the
@@ -132,6 +178,114 @@ public class SorcerDatabase {
                                                              ServiceExertion.class));
     }
 
+    /**
+     * Return the format of the exertion, context, table and object stores.
+     */
+    public final int getFormat() {
+        return format;
+    }
+
+    /**
+     * Return the storage container of the store type, or null.
+     */
+    public final Database getDatabase(DatabaseStorer.Store store) {
+        switch (store) {
+            case exertion:
+                return exertionDb;
+            case context:
+                return contextDb;
+            case table:
+                return tableDb;
+            case object:
+                return uuidObjectDb;
+            case var:
+                return varDb;
+            case varmodel:
+                return varModelDb;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Open a secondary index of the store. A new index is populated from the
+     * existing records of the store.
+     */
+    public synchronized SecondaryDatabase openIndex(DatabaseStorer.Store store,
+            DatabaseStorer.Index index, SecondaryKeyCreator keyCreator)
+        throws DatabaseException {
+        SecondaryConfig secConfig = new SecondaryConfig();
+        secConfig.setTransactional(true);
+        secConfig.setAllowCreate(true);
+        secConfig.setSortedDuplicates(true);
+        secConfig.setAllowPopulate(true);
+        secConfig.setKeyCreator(keyCreator);
+        SecondaryDatabase indexDb = env.openSecondaryDatabase(null,
+                getIndexName(store, index), getDatabase(store), secConfig);
+        indexDbs.add(indexDb);
+        return indexDb;
+    }
+
+    static String getIndexName(DatabaseStorer.Store store, DatabaseStorer.Index index) {
+        return getDatabaseName(store) + "_" + index + "_index";
+    }
+
+    static String getDatabaseName(DatabaseStorer.Store store) {
+        switch (store) {
+            case exertion:
+                return EXERTION_STORE;
+            case context:
+                return CONTEXT_STORE;
+            case table:
+                return TABLE_STORE;
+            case object:
+                return OBJECT_STORE;
+            case var:
+                return VAR_STORE;
+            case varmodel:
+                return VAR_MODEL_STORE;
+            default:
+                return null;
+        }
+    }
+
+    private boolean isEmpty() throws DatabaseException {
+        return exertionDb.count() == 0 && contextDb.count() == 0
+                && tableDb.count() == 0 && uuidObjectDb.count() == 0;
+    }
+
+    private static int readFormat(Database formatDb) throws DatabaseException {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry data = new DatabaseEntry();
+        StringBinding.stringToEntry(FORMAT_KEY, key);
+        if (formatDb.get(null, key, data, LockMode.DEFAULT) == OperationStatus.SUCCESS)
+            return IntegerBinding.entryToInt(data);
+        return 0;
+    }
+
+    private static void writeFormat(Database formatDb, Transaction txn, int format) throws DatabaseException {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry data = new DatabaseEntry();
+        StringBinding.stringToEntry(FORMAT_KEY, key);
+        IntegerBinding.intToEntry(format, data);
+        formatDb.put(txn, key, data);
+    }
+
+    /**
+     * Set the format of a closed environment, used by the migration.
+     */
+    static void writeFormat(Environment env, Transaction txn, int format) throws DatabaseException {
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setTransactional(true);
+        dbConfig.setAllowCreate(true);
+        Database formatDb = env.openDatabase(txn, FORMAT_STORE, dbConfig);
+        try {
+            writeFormat(formatDb, txn, format);
+        } finally {
+            formatDb.close();
+        }
+    }
+
     /**
      * Return the storage environment for the database.
      */
@@ -195,6 +349,13 @@ public class SorcerDatabase {
         return uuidObjectDb;
     }
     
+    /**
+     * Return the storage container of the object versions, see {@link ObjectVersions}.
+     */
+    public final Database getVersionDatabase() {
+        return versionDb;
+    }
+
     /**
      * Return the shipment-by-part index.
      */
@@ -208,6 +369,9 @@ public class SorcerDatabase {
     public void close()
         throws DatabaseException {
         // Close secondary databases, then primary databases.
+        for (SecondaryDatabase indexDb : indexDbs)
+            indexDb.close();
+        indexDbs.clear();
         runtimeByProviderNameDb.close();
         exertionDb.close();
         runtimeDb.close();
@@ -216,6 +380,8 @@ public class SorcerDatabase {
         varDb.close();
         varModelDb.close();
         uuidObjectDb.close();
+        formatDb.close();
+        versionDb.close();
         
         // close the catalog and the environment.
         javaCatalog.close();
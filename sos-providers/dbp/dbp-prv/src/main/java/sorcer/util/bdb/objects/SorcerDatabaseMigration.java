@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.util.bdb.objects;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.core.provider.DatabaseStorer.Index;
+import sorcer.core.provider.DatabaseStorer.Store;
+
+import com.sleepycat.collections.StoredMap;
+import com.sleepycat.collections.StoredValueSet;
+import com.sleepycat.collections.StoredIterator;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+import com.sleepycat.je.Transaction;
+
+/**
+ * Offline conversion of a SORCER database from the {@link SorcerDatabase#FORMAT_SERIAL} format to the
+ * {@link SorcerDatabase#FORMAT_TUPLE} format. The database must not be used by a provider while it's converted.
+ * <p/>
+ * Each store is copied to a new container with the tuple bindings, which then replaces the old container, and the
+ * format of the environment is updated in the same transaction. The secondary indexes of the stores are removed and
+ * rebuilt when the database is next opened.
+ * <p/>
+ * Usage: <code>SorcerDatabaseMigration &lt;dbHome&gt; [codec]</code>
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class SorcerDatabaseMigration {
+    private static final Logger logger = LoggerFactory.getLogger(SorcerDatabaseMigration.class);
+
+    private static final Store[] STORES = { Store.exertion, Store.context, Store.table, Store.object };
+
+    private static final String TMP_SUFFIX = "_tuple";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: SorcerDatabaseMigration <dbHome> [codec]");
+            System.exit(1);
+        }
+        ValueCodec codec = args.length > 1 ? ValueCodecs.get(args[1]) : ValueCodecs.getDefault();
+        migrate(args[0], codec);
+    }
+
+    /**
+     * @return false if the database is already in the tuple format
+     */
+    public static boolean migrate(String dbHome, ValueCodec codec) throws DatabaseException {
+        if (!new File(dbHome).isDirectory())
+            throw new IllegalArgumentException("No database in " + dbHome);
+
+        SorcerDatabase db = new SorcerDatabase(dbHome);
+        try {
+            if (db.getFormat() >= SorcerDatabase.FORMAT_TUPLE) {
+                logger.info("Database in {} is already in the tuple format", dbHome);
+                return false;
+            }
+            SorcerDatabaseViews views = new SorcerDatabaseViews(db, false);
+            for (Store store : STORES)
+                copy(db, views, store, codec);
+        } finally {
+            db.close();
+        }
+
+        EnvironmentConfig envConfig = new EnvironmentConfig();
+        envConfig.setTransactional(true);
+        Environment env = new Environment(new File(dbHome), envConfig);
+        try {
+            List<String> names = env.getDatabaseNames();
+            Transaction txn = env.beginTransaction(null, null);
+            try {
+                for (Store store : STORES) {
+                    String name = SorcerDatabase.getDatabaseName(store);
+                    env.removeDatabase(txn, name);
+                    env.renameDatabase(txn, name + TMP_SUFFIX, name);
+                    // indexes are populated again from the new containers when opened
+                    for (Index index : Index.values()) {
+                        String indexName = SorcerDatabase.getIndexName(store, index);
+                        if (names.contains(indexName))
+                            env.removeDatabase(txn, indexName);
+                    }
+                }
+                SorcerDatabase.writeFormat(env, txn, SorcerDatabase.FORMAT_TUPLE);
+                txn.commit();
+                txn = null;
+            } finally {
+                if (txn != null)
+                    txn.abort();
+            }
+            env.sync();
+        } finally {
+            env.close();
+        }
+        logger.info("Converted database in {} to the tuple format with the {} codec", dbHome, codec.getName());
+        return true;
+    }
+
+    private static void copy(SorcerDatabase db, SorcerDatabaseViews views, Store store, ValueCodec codec)
+            throws DatabaseException {
+        Environment env = db.getEnvironment();
+        String name = SorcerDatabase.getDatabaseName(store) + TMP_SUFFIX;
+        // leftover of an interrupted conversion
+        if (env.getDatabaseNames().contains(name))
+            env.removeDatabase(null, name);
+
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setTransactional(true);
+        dbConfig.setAllowCreate(true);
+        Database target = env.openDatabase(null, name, dbConfig);
+        try {
+            StoredValueSet source = (StoredValueSet) getMap(views, store).values();
+            StoredValueSet copy = (StoredValueSet) new StoredMap(target, CodecEntityBinding.getKeyBinding(),
+                    CodecEntityBinding.forStore(store, codec, db.getClassCatalog()), true).values();
+            // the copy is discarded if the conversion fails, so records are committed one by one
+            int count = 0;
+            Iterator it = source.iterator();
+            try {
+                while (it.hasNext()) {
+                    copy.add(it.next());
+                    count++;
+                }
+            } finally {
+                StoredIterator.close(it);
+            }
+            logger.info("Copied {} records of the {} store", count, store);
+        } finally {
+            target.close();
+        }
+    }
+
+    private static StoredMap getMap(SorcerDatabaseViews views, Store store) {
+        switch (store) {
+            case exertion:
+                return views.getExertionMap();
+            case context:
+                return views.getContextMap();
+            case table:
+                return views.getTableMap();
+            default:
+                return views.getUuidObjectMap();
+        }
+    }
+}
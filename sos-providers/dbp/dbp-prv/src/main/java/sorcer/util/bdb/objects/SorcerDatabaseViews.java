@@ -19,9 +19,13 @@
 package sorcer.util.bdb.objects;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 
 import net.jini.id.Uuid;
 import sorcer.core.provider.DatabaseStorer;
+import sorcer.core.provider.DatabaseStorer.Index;
+import sorcer.core.provider.DatabaseStorer.Store;
 import sorcer.core.provider.ProviderRuntime;
 import sorcer.service.Context;
 import sorcer.service.Exertion;
@@ -38,10 +42,13 @@ import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.collections.StoredMap;
 import com.sleepycat.collections.StoredSortedMap;
 import com.sleepycat.collections.StoredValueSet;
+import com.sleepycat.je.SecondaryDatabase;
 
 /**
  * ExertionDatabaseViews defines the data bindings and collection views for the
- * exertion database.
+ * exertion database. Databases in the {@link SorcerDatabase#FORMAT_TUPLE} format
+ * bind the exertion, context, table and object stores with
+ * {@link CodecEntityBinding}s.
  * 
  * @author Mike Sobolewski
  */
@@ -54,10 +61,32 @@ public class SorcerDatabaseViews {
 	private StoredMap tableMap;
 	private StoredMap uuidObjectMap;
 
+	// indexes of the stores
+	private static final Map<Store, Index[]> INDEXES = new EnumMap<Store, Index[]>(Store.class);
+
+	static {
+		INDEXES.put(Store.exertion, new Index[] { Index.name, Index.owner, Index.created });
+		INDEXES.put(Store.context, new Index[] { Index.name, Index.owner, Index.exertion });
+		INDEXES.put(Store.table, new Index[] { Index.name });
+		INDEXES.put(Store.object, new Index[] { Index.name, Index.owner });
+	}
+
+	private final Map<Store, EntryBinding> keyBindings = new EnumMap<Store, EntryBinding>(Store.class);
+	private final Map<Store, EntityBinding> entityBindings = new EnumMap<Store, EntityBinding>(Store.class);
+	private final SorcerDatabase db;
+	// secondary indexes of the stores, null until opened
+	private volatile Map<Store, Map<Index, SecondaryDatabase>> indexes;
+
+	public SorcerDatabaseViews(SorcerDatabase db) {
+		this(db, true);
+	}
+
     /**
-	 * Create the data bindings and collection views.
+	 * Create the data bindings and collection views, and open the secondary
+	 * indexes of the stores if requested.
 	 */
-	public SorcerDatabaseViews(SorcerDatabase db) {
+	public SorcerDatabaseViews(SorcerDatabase db, boolean indexed) {
+		this.db = db;
 		// Create the data bindings.
 		ClassCatalog catalog = db.getClassCatalog();
 		SerialBinding runtimeKeyBinding = new SerialBinding(catalog, Uuid.class);
@@ -72,34 +101,86 @@ public class SorcerDatabaseViews {
 				db.getRuntimeByProviderNameDatabase(), providerNameKeyBinding,
 				runtimeDataBinding, true);
 		
-		SerialBinding exertiontKeyBinding = new SerialBinding(catalog, UuidKey.class);
-		EntityBinding exertionDataBinding = new ExertionBinding(catalog,
-				UuidKey.class, ServiceExertion.class);
-	
+		if (db.getFormat() >= SorcerDatabase.FORMAT_TUPLE) {
+			ValueCodec codec = ValueCodecs.getDefault();
+			for (Store store : INDEXES.keySet()) {
+				keyBindings.put(store, CodecEntityBinding.getKeyBinding());
+				entityBindings.put(store, CodecEntityBinding.forStore(store, codec, catalog));
+			}
+		} else {
+			for (Store store : INDEXES.keySet())
+				keyBindings.put(store, new SerialBinding(catalog, UuidKey.class));
+			entityBindings.put(Store.exertion, new ExertionBinding(catalog,
+					UuidKey.class, ServiceExertion.class));
+			entityBindings.put(Store.context, new ContextBinding(catalog,
+					UuidKey.class, MarshalledData.class));
+			entityBindings.put(Store.table, new TableBinding(catalog,
+					UuidKey.class, MarshalledData.class));
+			entityBindings.put(Store.object, new UuidObjectBinding(catalog,
+					UuidKey.class, MarshalledData.class));
+		}
+
 		exertionMap = new StoredSortedMap(db.getExertionDatabase(),
-				exertiontKeyBinding, exertionDataBinding, true);
-		
-		SerialBinding contextKeyBinding = new SerialBinding(catalog, UuidKey.class);
-		EntityBinding contextDataBinding = new ContextBinding(catalog,
-				UuidKey.class, MarshalledData.class);
-		
+				keyBindings.get(Store.exertion), entityBindings.get(Store.exertion), true);
 		contextMap = new StoredMap(db.getContextDatabase(),
-				contextKeyBinding, contextDataBinding, true);
-		
-		SerialBinding tableKeyBinding = new SerialBinding(catalog, UuidKey.class);
-		EntityBinding tableDataBinding = new TableBinding(catalog,
-				UuidKey.class, MarshalledData.class);
-		
+				keyBindings.get(Store.context), entityBindings.get(Store.context), true);
 		tableMap = new StoredMap(db.getTableDatabase(),
-				tableKeyBinding, tableDataBinding, true);
-	
-			
-		SerialBinding objectKeyBinding = new SerialBinding(catalog, UuidKey.class);
-		EntityBinding objectDataBinding = new UuidObjectBinding(catalog,
-				UuidKey.class, MarshalledData.class);
-		
+				keyBindings.get(Store.table), entityBindings.get(Store.table), true);
 		uuidObjectMap = new StoredMap(db.getUuidObjectDatabase(),
-				objectKeyBinding, objectDataBinding, true);
+				keyBindings.get(Store.object), entityBindings.get(Store.object), true);
+
+		if (indexed)
+			openIndexes();
+	}
+
+	/**
+	 * Open the secondary indexes of the stores, populating the new ones from
+	 * the existing records. Writes must not be committed meanwhile.
+	 */
+	public void openIndexes() {
+		Map<Store, Map<Index, SecondaryDatabase>> opened
+				= new EnumMap<Store, Map<Index, SecondaryDatabase>>(Store.class);
+		for (Map.Entry<Store, Index[]> e : INDEXES.entrySet()) {
+			Map<Index, SecondaryDatabase> storeIndexes = new EnumMap<Index, SecondaryDatabase>(Index.class);
+			for (Index index : e.getValue())
+				storeIndexes.put(index, db.openIndex(e.getKey(), index,
+						new IndexKeyCreator(entityBindings.get(e.getKey()), index)));
+			opened.put(e.getKey(), storeIndexes);
+		}
+		indexes = opened;
+	}
+
+	/**
+	 * Return true once the secondary indexes are open.
+	 */
+	public boolean isIndexed() {
+		return indexes != null;
+	}
+
+	/**
+	 * Return the key binding of the exertion, context, table or object store.
+	 */
+	public EntryBinding getKeyBinding(Store store) {
+		return keyBindings.get(store);
+	}
+
+	/**
+	 * Return the entity binding of the exertion, context, table or object store.
+	 */
+	public EntityBinding getEntityBinding(Store store) {
+		return entityBindings.get(store);
+	}
+
+	/**
+	 * Return the secondary index of the store, or null if the store is not
+	 * indexed by the index or the indexes are not open yet.
+	 */
+	public SecondaryDatabase getIndex(Store store, Index index) {
+		Map<Store, Map<Index, SecondaryDatabase>> indexes = this.indexes;
+		if (indexes == null)
+			return null;
+		Map<Index, SecondaryDatabase> storeIndexes = indexes.get(store);
+		return storeIndexes == null ? null : storeIndexes.get(index);
 	}
 
 	// The views returned below can be accessed using the java.util.Map or
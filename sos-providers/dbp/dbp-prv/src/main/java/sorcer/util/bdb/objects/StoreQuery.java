@@ -0,0 +1,220 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.util.bdb.objects;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import sorcer.core.provider.DatabaseStorer.Index;
+
+import com.sleepycat.bind.EntityBinding;
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.CursorConfig;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.SecondaryCursor;
+import com.sleepycat.je.SecondaryDatabase;
+
+/**
+ * Cursor-based paginated listing of a store, in the order of its primary keys, and range queries over a secondary
+ * {@link Index} of the store, in the order of the index keys.
+ * <p/>
+ * Each page but the last carries an opaque cursor pointing at the first record of the next page; passing it to the
+ * next call continues the listing. Pages are read with read-committed isolation, so records written between the calls are seen or not
+ * depending on their position, but none is returned twice.
+ */
+@SuppressWarnings("rawtypes")
+public class StoreQuery {
+    private final Database store;
+    private final EntityBinding binding;
+
+    public StoreQuery(Database store, EntityBinding binding) {
+        this.store = store;
+        this.binding = binding;
+    }
+
+    /**
+     * List the store in the order of its primary keys
+     *
+     * @param cursor cursor returned with the previous page, or null for the first page
+     * @param size   maximum number of records of the page
+     */
+    public Page list(String cursor, int size) {
+        checkSize(size);
+        List<Object> values = new ArrayList<Object>(Math.min(size, 1024));
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry data = new DatabaseEntry();
+        String next = null;
+        Cursor dbCursor = store.openCursor(null, CursorConfig.READ_COMMITTED);
+        try {
+            OperationStatus status;
+            if (cursor == null) {
+                status = dbCursor.getFirst(key, data, LockMode.DEFAULT);
+            } else {
+                // the cursor points at the first record of the next page
+                key.setData(fromHex(cursor));
+                status = dbCursor.getSearchKeyRange(key, data, LockMode.DEFAULT);
+            }
+            while (status == OperationStatus.SUCCESS) {
+                if (values.size() == size) {
+                    next = toHex(key);
+                    break;
+                }
+                values.add(binding.entryToObject(key, data));
+                status = dbCursor.getNext(key, data, LockMode.DEFAULT);
+            }
+        } finally {
+            dbCursor.close();
+        }
+        return new Page(values, next);
+    }
+
+    /**
+     * List the records whose index value is between the given bounds, in the order of the index
+     *
+     * @param from   lower bound, inclusive, or null for no lower bound
+     * @param to     upper bound, inclusive, or null for no upper bound
+     * @param cursor cursor returned with the previous page, or null for the first page
+     * @param size   maximum number of records of the page
+     */
+    public Page range(SecondaryDatabase index, Index type, Object from, Object to, String cursor, int size) {
+        DatabaseEntry upper = null;
+        if (to != null) {
+            upper = new DatabaseEntry();
+            IndexKeyCreator.toEntry(type, to, upper);
+        }
+        checkSize(size);
+        List<Object> values = new ArrayList<Object>(Math.min(size, 1024));
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry pKey = new DatabaseEntry();
+        DatabaseEntry data = new DatabaseEntry();
+        String next = null;
+        SecondaryCursor indexCursor = index.openCursor(null, CursorConfig.READ_COMMITTED);
+        try {
+            OperationStatus status = position(indexCursor, type, from, cursor, key, pKey, data);
+            while (status == OperationStatus.SUCCESS
+                    && (upper == null || compare(key, upper.getData()) <= 0)) {
+                if (values.size() == size) {
+                    next = toHex(key) + '.' + toHex(pKey);
+                    break;
+                }
+                values.add(binding.entryToObject(pKey, data));
+                status = indexCursor.getNext(key, pKey, data, LockMode.DEFAULT);
+            }
+        } finally {
+            indexCursor.close();
+        }
+        return new Page(values, next);
+    }
+
+    private OperationStatus position(SecondaryCursor indexCursor, Index type, Object from, String cursor,
+                                     DatabaseEntry key, DatabaseEntry pKey, DatabaseEntry data) {
+        if (cursor != null) {
+            int dot = cursor.indexOf('.');
+            if (dot < 0)
+                throw new IllegalArgumentException("Invalid index cursor: " + cursor);
+            byte[] lastKey = fromHex(cursor.substring(0, dot));
+            key.setData(lastKey);
+            pKey.setData(fromHex(cursor.substring(dot + 1)));
+            // the cursor points at the first record of the next page
+            OperationStatus status = indexCursor.getSearchBothRange(key, pKey, data, LockMode.DEFAULT);
+            if (status == OperationStatus.SUCCESS)
+                return status;
+            // no records left with the last key
+            key.setData(lastKey);
+            status = indexCursor.getSearchKeyRange(key, pKey, data, LockMode.DEFAULT);
+            if (status == OperationStatus.SUCCESS && compare(key, lastKey) == 0)
+                status = indexCursor.getNextNoDup(key, pKey, data, LockMode.DEFAULT);
+            return status;
+        }
+        if (from == null)
+            return indexCursor.getFirst(key, pKey, data, LockMode.DEFAULT);
+        IndexKeyCreator.toEntry(type, from, key);
+        return indexCursor.getSearchKeyRange(key, pKey, data, LockMode.DEFAULT);
+    }
+
+    private static void checkSize(int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("Invalid page size: " + size);
+    }
+
+    private static int compare(DatabaseEntry entry, byte[] bytes) {
+        byte[] data = entry.getData();
+        int offset = entry.getOffset();
+        int length = entry.getSize();
+        for (int i = 0; i < length && i < bytes.length; i++) {
+            int diff = (data[offset + i] & 0xff) - (bytes[i] & 0xff);
+            if (diff != 0)
+                return diff;
+        }
+        return length - bytes.length;
+    }
+
+    private static String toHex(DatabaseEntry entry) {
+        StringBuilder result = new StringBuilder(entry.getSize() * 2);
+        byte[] data = entry.getData();
+        for (int i = entry.getOffset(); i < entry.getOffset() + entry.getSize(); i++) {
+            result.append(Character.forDigit((data[i] >> 4) & 0xf, 16));
+            result.append(Character.forDigit(data[i] & 0xf, 16));
+        }
+        return result.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0)
+            throw new IllegalArgumentException("Invalid cursor: " + hex);
+        byte[] result = new byte[hex.length() / 2];
+        for (int i = 0; i < result.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0)
+                throw new IllegalArgumentException("Invalid cursor: " + hex);
+            result[i] = (byte) ((high << 4) | low);
+        }
+        return result;
+    }
+
+    /**
+     * Page of a listing or a range query
+     */
+    public static class Page implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Object> values;
+        private final String next;
+
+        public Page(List<Object> values, String next) {
+            this.values = values;
+            this.next = next;
+        }
+
+        public List<Object> getValues() {
+            return values;
+        }
+
+        /**
+         * @return cursor of the next page, or null if this is the last page
+         */
+        public String getNext() {
+            return next;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.util.bdb.objects;
+
+import net.jini.id.Uuid;
+import net.jini.id.UuidFactory;
+
+import com.sleepycat.bind.tuple.TupleBinding;
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+
+/**
+ * Binds a {@link UuidKey} to a 16 byte tuple entry, ordered as the signed halves of the {@link Uuid}.
+ */
+public class UuidKeyBinding extends TupleBinding<UuidKey> {
+
+    @Override
+    public UuidKey entryToObject(TupleInput input) {
+        long most = input.readLong();
+        long least = input.readLong();
+        return new UuidKey(UuidFactory.create(most, least));
+    }
+
+    @Override
+    public void objectToEntry(UuidKey key, TupleOutput output) {
+        output.writeLong(key.getId().getMostSignificantBits());
+        output.writeLong(key.getId().getLeastSignificantBits());
+    }
+}
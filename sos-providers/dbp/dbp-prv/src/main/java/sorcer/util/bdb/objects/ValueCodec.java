@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.util.bdb.objects;
+
+import java.io.IOException;
+
+import com.sleepycat.bind.serial.ClassCatalog;
+
+/**
+ * Encoding of the values stored in the SORCER database.
+ * <p/>
+ * Every stored record is prefixed with the id of the codec that wrote it, so records written by different codecs
+ * may be mixed in a store. Codecs other than the built-in ones are registered with
+ * {@link ValueCodecs#register(ValueCodec)} or as a {@link java.util.ServiceLoader} service.
+ */
+public interface ValueCodec {
+    /**
+     * @return id of the codec stored with each record, unique among the registered codecs
+     */
+    byte getId();
+
+    /**
+     * @return name used to select the codec in the configuration
+     */
+    String getName();
+
+    /**
+     * @param catalog class catalog of the database, for codecs storing class descriptions once per database
+     */
+    byte[] encode(Object object, ClassCatalog catalog) throws IOException;
+
+    Object decode(byte[] data, int offset, int length, ClassCatalog catalog) throws IOException, ClassNotFoundException;
+}
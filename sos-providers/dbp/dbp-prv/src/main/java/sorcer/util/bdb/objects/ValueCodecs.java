@@ -0,0 +1,172 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.util.bdb.objects;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.rmi.server.RMIClassLoader;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sleepycat.bind.serial.ClassCatalog;
+import com.sleepycat.bind.serial.SerialInput;
+import com.sleepycat.bind.serial.SerialOutput;
+
+/**
+ * Registry of the {@link ValueCodec}s of the SORCER database.
+ * <p/>
+ * The built-in {@value #CATALOG} codec serializes values like the serial binding, with the class descriptions
+ * kept once in the class catalog of the database, and stores the codebase annotation of the value's class in
+ * front of the serialized bytes; {@value #CATALOG_DEFLATE} is its compressed variant. The codec used to write new
+ * records is selected with the {@value #CODEC_PROPERTY} system property, {@value #CATALOG} by default.
+ */
+public class ValueCodecs {
+    private static final Logger logger = LoggerFactory.getLogger(ValueCodecs.class);
+
+    public static final String CODEC_PROPERTY = "sorcer.dbp.codec";
+
+    public static final String CATALOG = "catalog";
+    public static final String CATALOG_DEFLATE = "catalog-deflate";
+
+    private static final Map<Byte, ValueCodec> byId = new ConcurrentHashMap<Byte, ValueCodec>();
+    private static final Map<String, ValueCodec> byName = new ConcurrentHashMap<String, ValueCodec>();
+
+    static {
+        register(new CatalogCodec((byte) 1, CATALOG, false));
+        register(new CatalogCodec((byte) 2, CATALOG_DEFLATE, true));
+        for (ValueCodec codec : ServiceLoader.load(ValueCodec.class, ValueCodecs.class.getClassLoader()))
+            register(codec);
+    }
+
+    public static void register(ValueCodec codec) {
+        if (codec.getId() == CodecEntityBinding.INDEXED)
+            throw new IllegalArgumentException("Codec id " + codec.getId() + " of " + codec.getName() + " is reserved");
+        ValueCodec old = byId.get(codec.getId());
+        if (old != null && !old.getName().equals(codec.getName()))
+            throw new IllegalArgumentException("Codec id " + codec.getId() + " of " + codec.getName()
+                    + " already used by " + old.getName());
+        byId.put(codec.getId(), codec);
+        byName.put(codec.getName(), codec);
+        logger.debug("Registered value codec {}", codec.getName());
+    }
+
+    public static ValueCodec get(byte id) {
+        ValueCodec codec = byId.get(id);
+        if (codec == null)
+            throw new IllegalArgumentException("Unknown value codec id: " + id);
+        return codec;
+    }
+
+    public static ValueCodec get(String name) {
+        ValueCodec codec = byName.get(name);
+        if (codec == null)
+            throw new IllegalArgumentException("Unknown value codec: " + name);
+        return codec;
+    }
+
+    public static ValueCodec getDefault() {
+        return get(System.getProperty(CODEC_PROPERTY, CATALOG));
+    }
+
+    private static class CatalogCodec implements ValueCodec {
+        private final byte id;
+        private final String name;
+        private final boolean compress;
+
+        CatalogCodec(byte id, String name, boolean compress) {
+            this.id = id;
+            this.name = name;
+            this.compress = compress;
+        }
+
+        @Override
+        public byte getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public byte[] encode(Object object, ClassCatalog catalog) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            SerialOutput serialOutput = new SerialOutput(body, catalog);
+            serialOutput.writeObject(object);
+            serialOutput.close();
+            // the stream header is the same for all records, like in the serial binding
+            int headerLength = SerialOutput.getStreamHeader().length;
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.size());
+            DataOutputStream header = new DataOutputStream(bytes);
+            String annotation = object == null ? null : RMIClassLoader.getClassAnnotation(object.getClass());
+            header.writeUTF(annotation == null ? "" : annotation);
+            header.flush();
+            Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+            try {
+                OutputStream out = compress ? new DeflaterOutputStream(bytes, deflater) : bytes;
+                out.write(body.toByteArray(), headerLength, body.size() - headerLength);
+                out.close();
+            } finally {
+                if (deflater != null)
+                    deflater.end();
+            }
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public Object decode(byte[] data, int offset, int length, ClassCatalog catalog)
+                throws IOException, ClassNotFoundException {
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+            ClassLoader classLoader = getClassLoader(header.readUTF());
+            InputStream body = compress ? new InflaterInputStream(header) : header;
+            SerialInput in = new SerialInput(new SequenceInputStream(
+                    new ByteArrayInputStream(SerialOutput.getStreamHeader()), body), catalog, classLoader);
+            try {
+                return in.readObject();
+            } finally {
+                in.close();
+            }
+        }
+
+        /**
+         * @return the class loader of the codebase the value's class was annotated with. Classes of the value's
+         * fields are resolved through it as well.
+         */
+        private static ClassLoader getClassLoader(String annotation) {
+            ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+            if (annotation.isEmpty())
+                return contextLoader;
+            try {
+                return RMIClassLoader.getClassLoader(annotation);
+            } catch (MalformedURLException e) {
+                logger.warn("Invalid codebase annotation {}", annotation, e);
+            } catch (SecurityException e) {
+                logger.debug("Could not access the class loader of {}", annotation, e);
+            }
+            return contextLoader;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.core.provider.dbp;
+
+import com.google.common.io.Files;
+import net.jini.id.Uuid;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.core.context.ServiceContext;
+import sorcer.core.provider.DatabaseStorer.Store;
+import sorcer.core.provider.StorageManagement;
+import sorcer.service.Context;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Revalidation of the cached copies of stored objects by their versions
+ */
+public class DatabaseProviderVersionTest {
+    private File home;
+    private DatabaseProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        home = Files.createTempDir();
+        provider = new DatabaseProvider(home.getPath());
+        provider.setupDatabase();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.destroy();
+        delete(home);
+    }
+
+    @Test
+    public void testWriteChangesOnlyVersionOfWrittenObject() throws Exception {
+        Uuid a = provider.store("a");
+        Uuid b = provider.store("b");
+        String versionA = provider.getVersion(a);
+        String versionB = provider.getVersion(b);
+        assertNotNull(versionA);
+        assertNotNull(versionB);
+        assertFalse(versionA.equals(versionB));
+
+        provider.update(a, "a2");
+        String updatedA = provider.getVersion(a);
+        assertNotNull(updatedA);
+        assertFalse(versionA.equals(updatedA));
+        assertEquals(versionB, provider.getVersion(b));
+
+        provider.delete(provider.getDatabaseURL(Store.object, a));
+        assertNull(provider.getVersion(a));
+        assertEquals(versionB, provider.getVersion(b));
+    }
+
+    @Test
+    public void testUnmodifiedObjectIsNotRetrievedAgain() throws Exception {
+        Uuid uuid = provider.store("a");
+
+        Context first = provider.contextRetrieve(request(uuid, null));
+        assertEquals("a", first.getValue(StorageManagement.object_retrieved));
+        String version = (String) first.getValue(StorageManagement.object_version);
+        assertNotNull(version);
+
+        Context second = provider.contextRetrieve(request(uuid, version));
+        assertFalse(second.containsPath(StorageManagement.object_retrieved));
+        assertEquals(version, second.getValue(StorageManagement.object_version));
+
+        provider.update(uuid, "b");
+        Context third = provider.contextRetrieve(request(uuid, version));
+        assertEquals("b", third.getValue(StorageManagement.object_retrieved));
+        assertFalse(version.equals(third.getValue(StorageManagement.object_version)));
+    }
+
+    @Test
+    public void testDeletedObjectIsNotReportedCurrent() throws Exception {
+        Uuid uuid = provider.store("a");
+        String version = provider.getVersion(uuid);
+        provider.delete(provider.getDatabaseURL(Store.object, uuid));
+
+        Context retrieved = provider.contextRetrieve(request(uuid, version));
+        assertFalse(retrieved.containsPath(StorageManagement.object_version));
+    }
+
+    @Test
+    public void testVersionsAreKeptOverRestart() throws Exception {
+        Uuid uuid = provider.store("a");
+        String version = provider.getVersion(uuid);
+
+        provider.destroy();
+        provider = new DatabaseProvider(home.getPath());
+        provider.setupDatabase();
+
+        assertEquals(version, provider.getVersion(uuid));
+        Context retrieved = provider.contextRetrieve(request(uuid, version));
+        assertFalse(retrieved.containsPath(StorageManagement.object_retrieved));
+    }
+
+    private static Context request(Uuid uuid, String version) throws Exception {
+        Context context = new ServiceContext();
+        context.putInValue(StorageManagement.object_type, Store.object);
+        context.putInValue(StorageManagement.object_uuid, uuid);
+        if (version != null)
+            context.putInValue(StorageManagement.object_version, version);
+        return context;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.core.provider.dbp;
+
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.sleepycat.bind.EntryBinding;
+import com.sleepycat.bind.tuple.TupleBinding;
+import com.sleepycat.collections.StoredMap;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+import net.jini.id.Uuid;
+import net.jini.id.UuidFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WriteBehindQueueTest {
+    private File home;
+    private Environment env;
+    private Database db;
+    private StoredMap<String, String> map;
+    private WriteBehindQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        home = Files.createTempDir();
+        EnvironmentConfig envConfig = new EnvironmentConfig();
+        envConfig.setAllowCreate(true);
+        envConfig.setTransactional(true);
+        env = new Environment(home, envConfig);
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setAllowCreate(true);
+        dbConfig.setTransactional(true);
+        db = env.openDatabase(null, "test", dbConfig);
+        EntryBinding<String> binding = TupleBinding.getPrimitiveBinding(String.class);
+        map = new StoredMap<String, String>(db, binding, binding, true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (queue != null)
+            queue.close(10, TimeUnit.SECONDS);
+        db.close();
+        env.close();
+        delete(home);
+    }
+
+    @Test(timeout = 10000)
+    public void testWritesOfObjectApplyInOrder() throws Exception {
+        queue = new WriteBehindQueue(env, 4, 8, 64);
+        Uuid uuid = UuidFactory.generate();
+        List<Integer> applied = Collections.synchronizedList(new ArrayList<Integer>());
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 100; i++) {
+            queue.submit(uuid, new Put(uuid, Integer.toString(i), applied, i));
+            expected.add(i);
+        }
+        queue.await(uuid);
+        assertEquals(expected, applied);
+        assertEquals("99", map.get(uuid.toString()));
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedBatchIsRetriedOneByOne() throws Exception {
+        queue = new WriteBehindQueue(env, 1, 8, 64);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        queue.submit(UuidFactory.generate(), new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        started.await();
+
+        // queued behind the blocked write, so committed in a single batch
+        Uuid first = UuidFactory.generate();
+        Uuid failing = UuidFactory.generate();
+        Uuid last = UuidFactory.generate();
+        final AtomicInteger runs = new AtomicInteger();
+        ListenableFuture<Uuid> firstWrite = queue.submit(first, new Put(first, "first") {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+                super.run();
+            }
+        });
+        ListenableFuture<Uuid> failingWrite = queue.submit(failing, new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalArgumentException("failing write");
+            }
+        });
+        ListenableFuture<Uuid> lastWrite = queue.submit(last, new Put(last, "last"));
+        release.countDown();
+
+        assertEquals(first, firstWrite.get());
+        assertEquals(last, lastWrite.get());
+        try {
+            failingWrite.get();
+            fail("The failing write was committed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals("the batch was not retried one by one", 2, runs.get());
+        assertEquals("first", map.get(first.toString()));
+        assertEquals("last", map.get(last.toString()));
+        assertFalse(map.containsKey(failing.toString()));
+    }
+
+    @Test(timeout = 10000)
+    public void testAwaitReadsOwnWrite() throws Exception {
+        queue = new WriteBehindQueue(env, 2, 8, 64);
+        Uuid uuid = UuidFactory.generate();
+        queue.submit(uuid, new Put(uuid, "value") {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                super.run();
+            }
+        });
+        assertTrue(queue.isPending(uuid));
+        queue.await(uuid);
+        assertFalse(queue.isPending(uuid));
+        assertEquals("value", map.get(uuid.toString()));
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseDrainsQueuedWrites() throws Exception {
+        queue = new WriteBehindQueue(env, 2, 4, 256);
+        List<ListenableFuture<Uuid>> writes = new ArrayList<ListenableFuture<Uuid>>();
+        for (int i = 0; i < 200; i++) {
+            Uuid uuid = UuidFactory.generate();
+            writes.add(queue.submit(uuid, new Put(uuid, Integer.toString(i))));
+        }
+        queue.close(10, TimeUnit.SECONDS);
+        for (ListenableFuture<Uuid> write : writes)
+            assertTrue(write.isDone());
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(200, map.size());
+        try {
+            queue.submit(UuidFactory.generate(), new Put(UuidFactory.generate(), "closed"));
+            fail("Write accepted after close");
+        } catch (IllegalStateException expected) {
+        }
+        queue = null;
+    }
+
+    /**
+     * A write submitted while the queue is being closed is either rejected or committed, never left queued
+     */
+    @Test(timeout = 30000)
+    public void testSubmitRacingClose() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            final WriteBehindQueue closing = new WriteBehindQueue(env, 2, 4, 8);
+            final List<ListenableFuture<Uuid>> writes = Collections.synchronizedList(
+                    new ArrayList<ListenableFuture<Uuid>>());
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Thread> submitters = new ArrayList<Thread>();
+            for (int i = 0; i < 4; i++) {
+                Thread submitter = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            while (true) {
+                                Uuid uuid = UuidFactory.generate();
+                                writes.add(closing.submit(uuid, new Put(uuid, "racing")));
+                            }
+                        } catch (IllegalStateException closed) {
+                            // rejected after close
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+                submitter.start();
+                submitters.add(submitter);
+            }
+            start.countDown();
+            Thread.sleep(round % 5);
+            closing.close(10, TimeUnit.SECONDS);
+            for (Thread submitter : submitters)
+                submitter.join();
+            for (ListenableFuture<Uuid> write : writes) {
+                assertTrue("write left queued after close", write.isDone());
+                write.get();
+            }
+            assertEquals(0, closing.getPendingCount());
+        }
+    }
+
+    /**
+     * A worker must survive an Error, otherwise submitters block forever on its full queue
+     */
+    @Test(timeout = 10000)
+    public void testWorkerSurvivesError() throws Exception {
+        queue = new WriteBehindQueue(env, 1, 1, 1);
+        ListenableFuture<Uuid> failing = queue.submit(UuidFactory.generate(), new Runnable() {
+            @Override
+            public void run() {
+                throw new AssertionError("failing write");
+            }
+        });
+        try {
+            failing.get();
+            fail("The failing write was committed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        for (int i = 0; i < 10; i++) {
+            Uuid uuid = UuidFactory.generate();
+            assertEquals(uuid, queue.submit(uuid, new Put(uuid, "after error")).get());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testWritesWaitForExclusiveAction() throws Exception {
+        queue = new WriteBehindQueue(env, 2, 8, 64);
+        final Uuid uuid = UuidFactory.generate();
+        final AtomicInteger committed = new AtomicInteger(-1);
+        queue.runExclusive(new Runnable() {
+            @Override
+            public void run() {
+                ListenableFuture<Uuid> write = queue.submit(uuid, new Put(uuid, "value"));
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                committed.set(write.isDone() ? 1 : 0);
+            }
+        });
+        assertEquals("a write was committed during the exclusive action", 0, committed.get());
+        queue.await(uuid);
+        assertEquals("value", map.get(uuid.toString()));
+    }
+
+    private class Put implements Runnable {
+        private final Uuid uuid;
+        private final String value;
+        private final List<Integer> applied;
+        private final int sequence;
+
+        Put(Uuid uuid, String value) {
+            this(uuid, value, null, 0);
+        }
+
+        Put(Uuid uuid, String value, List<Integer> applied, int sequence) {
+            this.uuid = uuid;
+            this.value = value;
+            this.applied = applied;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            map.put(uuid.toString(), value);
+            if (applied != null)
+                applied.add(sequence);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+}
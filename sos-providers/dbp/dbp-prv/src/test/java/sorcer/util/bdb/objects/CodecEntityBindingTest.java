@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.util.bdb.objects;
+
+import com.google.common.io.Files;
+import com.sleepycat.bind.serial.StoredClassCatalog;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.core.context.ServiceContext;
+import sorcer.core.provider.DatabaseStorer.Index;
+import sorcer.core.provider.DatabaseStorer.Store;
+import sorcer.service.Context;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class CodecEntityBindingTest {
+    private File home;
+    private Environment env;
+    private StoredClassCatalog catalog;
+
+    @Before
+    public void setUp() throws Exception {
+        home = Files.createTempDir();
+        EnvironmentConfig envConfig = new EnvironmentConfig();
+        envConfig.setAllowCreate(true);
+        envConfig.setTransactional(true);
+        env = new Environment(home, envConfig);
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setAllowCreate(true);
+        dbConfig.setTransactional(true);
+        Database catalogDb = env.openDatabase(null, "catalog", dbConfig);
+        catalog = new StoredClassCatalog(catalogDb);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        catalog.close();
+        env.close();
+        delete(home);
+    }
+
+    @Test
+    public void testObjectRoundTrip() throws Exception {
+        UuidObject object = object();
+        CodecEntityBinding binding = binding(Store.object, ValueCodecs.CATALOG);
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry data = new DatabaseEntry();
+        binding.objectToKey(object, key);
+        binding.objectToData(object, data);
+
+        assertEquals(new UuidKey(object.getId()), CodecEntityBinding.getKeyBinding().entryToObject(key));
+        UuidObject read = (UuidObject) binding.entryToObject(key, data);
+        assertEquals(object.getId(), read.getId());
+        assertEquals("value", read.getObject());
+        assertEquals("name", read.getName());
+    }
+
+    @Test
+    public void testContextRoundTrip() throws Exception {
+        ServiceContext context = new ServiceContext("context");
+        context.putValue("arg/x", 1.5);
+        CodecEntityBinding binding = binding(Store.context, ValueCodecs.CATALOG);
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry data = new DatabaseEntry();
+        binding.objectToKey(context, key);
+        binding.objectToData(context, data);
+
+        Context read = (Context) binding.entryToObject(key, data);
+        assertEquals(context.getId(), read.getId());
+        assertEquals("context", read.getName());
+        assertEquals(1.5, read.getValue("arg/x"));
+        assertEquals("context", CodecEntityBinding.readIndexValue(data, Index.name));
+    }
+
+    @Test
+    public void testIndexPrefix() throws Exception {
+        DatabaseEntry data = new DatabaseEntry();
+        binding(Store.object, ValueCodecs.CATALOG).objectToData(object(), data);
+
+        assertTrue(CodecEntityBinding.hasIndexPrefix(data));
+        assertEquals("name", CodecEntityBinding.readIndexValue(data, Index.name));
+        assertNull(CodecEntityBinding.readIndexValue(data, Index.owner));
+        assertNull(CodecEntityBinding.readIndexValue(data, Index.created));
+        assertNull(CodecEntityBinding.readIndexValue(data, Index.exertion));
+    }
+
+    @Test
+    public void testRecordWithoutIndexPrefix() throws Exception {
+        UuidObject object = object();
+        ValueCodec codec = ValueCodecs.get(ValueCodecs.CATALOG);
+        byte[] encoded = codec.encode(object, catalog);
+        byte[] record = new byte[encoded.length + 1];
+        record[0] = codec.getId();
+        System.arraycopy(encoded, 0, record, 1, encoded.length);
+        DatabaseEntry key = new DatabaseEntry();
+        CodecEntityBinding.getKeyBinding().objectToEntry(new UuidKey(object.getId()), key);
+        DatabaseEntry data = new DatabaseEntry(record);
+
+        assertFalse(CodecEntityBinding.hasIndexPrefix(data));
+        UuidObject read = (UuidObject) binding(Store.object, ValueCodecs.CATALOG).entryToObject(key, data);
+        assertEquals("value", read.getObject());
+    }
+
+    @Test
+    public void testRecordOfOtherCodec() throws Exception {
+        UuidObject object = object();
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry data = new DatabaseEntry();
+        CodecEntityBinding deflate = binding(Store.object, ValueCodecs.CATALOG_DEFLATE);
+        deflate.objectToKey(object, key);
+        deflate.objectToData(object, data);
+
+        UuidObject read = (UuidObject) binding(Store.object, ValueCodecs.CATALOG).entryToObject(key, data);
+        assertEquals("value", read.getObject());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCodec() throws Exception {
+        DatabaseEntry key = new DatabaseEntry();
+        CodecEntityBinding.getKeyBinding().objectToEntry(new UuidKey(object().getId()), key);
+        binding(Store.object, ValueCodecs.CATALOG).entryToObject(key, new DatabaseEntry(new byte[]{99, 1, 2}));
+    }
+
+    private CodecEntityBinding binding(Store store, String codec) {
+        return CodecEntityBinding.forStore(store, ValueCodecs.get(codec), catalog);
+    }
+
+    private static UuidObject object() {
+        UuidObject object = new UuidObject("value");
+        object.setName("name");
+        return object;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.util.bdb.objects;
+
+import com.google.common.io.Files;
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
+import net.jini.id.Uuid;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.core.context.ServiceContext;
+import sorcer.core.provider.DatabaseStorer.Index;
+import sorcer.core.provider.DatabaseStorer.Store;
+import sorcer.service.Context;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SorcerDatabaseMigrationTest {
+    private static final int RECORDS = 20;
+
+    private final List<File> homes = new ArrayList<File>();
+    private final List<Context> contexts = new ArrayList<Context>();
+    private final List<UuidObject> objects = new ArrayList<UuidObject>();
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            ServiceContext context = new ServiceContext("context " + i);
+            context.putValue("arg/x", (double) i);
+            context.putValue("arg/label", "value " + i);
+            contexts.add(context);
+            UuidObject object = new UuidObject("object " + i);
+            object.setName("name " + i);
+            objects.add(object);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(SorcerDatabase.FORMAT_PROPERTY);
+        for (File home : homes)
+            delete(home);
+    }
+
+    @Test
+    public void testNewDatabaseFormat() throws Exception {
+        assertEquals(SorcerDatabase.FORMAT_TUPLE, format(create(null)));
+        assertEquals(SorcerDatabase.FORMAT_SERIAL, format(create("serial")));
+    }
+
+    @Test
+    public void testMigration() throws Exception {
+        File home = create("serial");
+        SorcerDatabase db = new SorcerDatabase(home.getPath());
+        try {
+            store(db);
+        } finally {
+            db.close();
+        }
+
+        assertTrue(SorcerDatabaseMigration.migrate(home.getPath(), ValueCodecs.get(ValueCodecs.CATALOG)));
+
+        db = new SorcerDatabase(home.getPath());
+        try {
+            assertEquals(SorcerDatabase.FORMAT_TUPLE, db.getFormat());
+            SorcerDatabaseViews views = new SorcerDatabaseViews(db);
+            for (Context context : contexts) {
+                Context read = views.getContextMap().get(new UuidKey((Uuid) context.getId()));
+                assertEquals(context.getName(), read.getName());
+                assertEquals(context.getValue("arg/x"), read.getValue("arg/x"));
+                assertEquals(context.getValue("arg/label"), read.getValue("arg/label"));
+            }
+            for (UuidObject object : objects) {
+                UuidObject read = views.getUuidObjectMap().get(new UuidKey(object.getId()));
+                assertEquals(object.getName(), read.getName());
+                assertEquals(object.getObject(), read.getObject());
+            }
+            // the indexes are rebuilt from the converted records
+            assertEquals(RECORDS, views.getIndex(Store.context, Index.name).count());
+            assertEquals(RECORDS, views.getIndex(Store.object, Index.name).count());
+        } finally {
+            db.close();
+        }
+
+        assertFalse(SorcerDatabaseMigration.migrate(home.getPath(), ValueCodecs.get(ValueCodecs.CATALOG)));
+    }
+
+    /**
+     * Justifies the tuple format as the default: the same records, class catalog included, take less space than
+     * in the serial format, which stores contexts and objects as MarshalledInstances with all their class
+     * descriptions and serializes the keys.
+     */
+    @Test
+    public void testTupleFormatIsSmaller() throws Exception {
+        long serial = size(create("serial"));
+        long tuple = size(create("tuple"));
+
+        assertTrue("tuple " + tuple + " bytes, serial " + serial + " bytes", tuple < serial);
+    }
+
+    private File create(String format) {
+        if (format == null)
+            System.clearProperty(SorcerDatabase.FORMAT_PROPERTY);
+        else
+            System.setProperty(SorcerDatabase.FORMAT_PROPERTY, format);
+        File home = Files.createTempDir();
+        homes.add(home);
+        return home;
+    }
+
+    private static int format(File home) throws Exception {
+        SorcerDatabase db = new SorcerDatabase(home.getPath());
+        try {
+            return db.getFormat();
+        } finally {
+            db.close();
+        }
+    }
+
+    private void store(SorcerDatabase db) {
+        SorcerDatabaseViews views = new SorcerDatabaseViews(db, false);
+        for (Context context : contexts)
+            views.getContextSet().add(context);
+        for (UuidObject object : objects)
+            views.getUuidObjectSet().add(object);
+    }
+
+    /**
+     * @return bytes of the keys and data of the records stored in the database, including the class catalog
+     */
+    private long size(File home) throws Exception {
+        SorcerDatabase db = new SorcerDatabase(home.getPath());
+        try {
+            store(db);
+            return size(db, SorcerDatabase.getDatabaseName(Store.context))
+                    + size(db, SorcerDatabase.getDatabaseName(Store.object))
+                    + size(db, "java_class_catalog");
+        } finally {
+            db.close();
+        }
+    }
+
+    private static long size(SorcerDatabase db, String name) {
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setTransactional(true);
+        Database database = db.getEnvironment().openDatabase(null, name, dbConfig);
+        try {
+            Cursor cursor = database.openCursor(null, null);
+            try {
+                long size = 0;
+                DatabaseEntry key = new DatabaseEntry();
+                DatabaseEntry data = new DatabaseEntry();
+                while (cursor.getNext(key, data, LockMode.DEFAULT) == OperationStatus.SUCCESS)
+                    size += key.getSize() + data.getSize();
+                return size;
+            } finally {
+                cursor.close();
+            }
+        } finally {
+            database.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.util.bdb.objects;
+
+import com.google.common.io.Files;
+import com.sleepycat.bind.EntityBinding;
+import com.sleepycat.bind.tuple.StringBinding;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+import com.sleepycat.je.SecondaryConfig;
+import com.sleepycat.je.SecondaryDatabase;
+import com.sleepycat.je.SecondaryKeyCreator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.core.provider.DatabaseStorer.Index;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StoreQueryTest {
+    private File home;
+    private Environment env;
+    private Database store;
+    private SecondaryDatabase index;
+    private StoreQuery query;
+
+    @Before
+    public void setUp() throws Exception {
+        home = Files.createTempDir();
+        EnvironmentConfig envConfig = new EnvironmentConfig();
+        envConfig.setAllowCreate(true);
+        envConfig.setTransactional(true);
+        env = new Environment(home, envConfig);
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setAllowCreate(true);
+        dbConfig.setTransactional(true);
+        store = env.openDatabase(null, "store", dbConfig);
+        query = new StoreQuery(store, new RecordBinding());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (index != null)
+            index.close();
+        store.close();
+        env.close();
+        delete(home);
+    }
+
+    @Test
+    public void testListReturnsAllRecordsInPages() throws Exception {
+        for (int i = 0; i < 10; i++)
+            put("k0" + i, "n");
+        List<Object> all = new ArrayList<Object>();
+        List<Integer> sizes = new ArrayList<Integer>();
+        String cursor = null;
+        do {
+            StoreQuery.Page page = query.list(cursor, 3);
+            all.addAll(page.getValues());
+            sizes.add(page.getValues().size());
+            cursor = page.getNext();
+        } while (cursor != null);
+        assertEquals(Arrays.asList(3, 3, 3, 1), sizes);
+        assertEquals(10, all.size());
+        for (int i = 0; i < 10; i++)
+            assertEquals("k0" + i + "=n", all.get(i));
+    }
+
+    @Test
+    public void testListCursorSurvivesChangesBetweenPages() throws Exception {
+        for (int i = 0; i < 6; i++)
+            put("k0" + i, "n");
+        StoreQuery.Page first = query.list(null, 3);
+        assertEquals(Arrays.<Object>asList("k00=n", "k01=n", "k02=n"), first.getValues());
+
+        // a record before the cursor is not seen, the deleted first record of the next page is skipped
+        put("k01a", "n");
+        store.delete(null, key("k03"));
+        StoreQuery.Page second = query.list(first.getNext(), 3);
+        assertEquals(Arrays.<Object>asList("k04=n", "k05=n"), second.getValues());
+        assertNull(second.getNext());
+    }
+
+    @Test
+    public void testListOfEmptyStore() throws Exception {
+        StoreQuery.Page page = query.list(null, 3);
+        assertTrue(page.getValues().isEmpty());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    public void testRangeReturnsDuplicateKeysAcrossPagesOnce() throws Exception {
+        openIndex();
+        put("k00", "a");
+        put("k01", "a");
+        for (int i = 2; i < 7; i++)
+            put("k0" + i, "b");
+        put("k07", "c");
+
+        List<Object> all = new ArrayList<Object>();
+        String cursor = null;
+        do {
+            StoreQuery.Page page = query.range(index, Index.name, "b", "b", cursor, 2);
+            assertTrue(page.getValues().size() <= 2);
+            all.addAll(page.getValues());
+            cursor = page.getNext();
+        } while (cursor != null);
+        assertEquals(Arrays.<Object>asList("k02=b", "k03=b", "k04=b", "k05=b", "k06=b"), all);
+    }
+
+    @Test
+    public void testRangeBounds() throws Exception {
+        openIndex();
+        put("k00", "c");
+        put("k01", "a");
+        put("k02", "b");
+
+        assertEquals(Arrays.<Object>asList("k02=b", "k00=c"),
+                query.range(index, Index.name, "b", null, null, 10).getValues());
+        assertEquals(Arrays.<Object>asList("k01=a", "k02=b"),
+                query.range(index, Index.name, null, "b", null, 10).getValues());
+        assertEquals(Arrays.<Object>asList("k01=a", "k02=b", "k00=c"),
+                query.range(index, Index.name, null, null, null, 10).getValues());
+        assertTrue(query.range(index, Index.name, "d", null, null, 10).getValues().isEmpty());
+    }
+
+    @Test
+    public void testRangeCursorSurvivesDeletedKeys() throws Exception {
+        openIndex();
+        put("k00", "a");
+        put("k01", "a");
+        put("k02", "a");
+        put("k03", "b");
+
+        StoreQuery.Page first = query.range(index, Index.name, null, null, null, 2);
+        assertEquals(Arrays.<Object>asList("k00=a", "k01=a"), first.getValues());
+
+        // no records left with the key of the cursor
+        store.delete(null, key("k02"));
+        StoreQuery.Page second = query.range(index, Index.name, null, null, first.getNext(), 2);
+        assertEquals(Arrays.<Object>asList("k03=b"), second.getValues());
+        assertNull(second.getNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidListCursor() throws Exception {
+        query.list("xyz", 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRangeCursor() throws Exception {
+        openIndex();
+        query.range(index, Index.name, null, null, "0a", 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPageSize() throws Exception {
+        query.list(null, 0);
+    }
+
+    @Test
+    public void testUndecodableRecordIsLeftOutOfIndex() throws Exception {
+        put("k00", "a");
+        put("k01", "bad");
+        put("k02", "b");
+        openIndex(new IndexKeyCreator(new NamedRecordBinding(), Index.name));
+
+        assertEquals(2, index.count());
+        put("k03", "bad");
+        put("k04", "c");
+        assertEquals(3, index.count());
+        assertEquals(5, store.count());
+        assertEquals(Arrays.<Object>asList("k00=a", "k02=b", "k04=c"),
+                query.range(index, Index.name, null, null, null, 10).getValues());
+    }
+
+    private void openIndex() {
+        openIndex(new SecondaryKeyCreator() {
+            @Override
+            public boolean createSecondaryKey(SecondaryDatabase secondary, DatabaseEntry key, DatabaseEntry data,
+                                              DatabaseEntry result) {
+                IndexKeyCreator.toEntry(Index.name, StringBinding.entryToString(data), result);
+                return true;
+            }
+        });
+    }
+
+    private void openIndex(SecondaryKeyCreator keyCreator) {
+        SecondaryConfig config = new SecondaryConfig();
+        config.setAllowCreate(true);
+        config.setTransactional(true);
+        config.setSortedDuplicates(true);
+        config.setAllowPopulate(true);
+        config.setKeyCreator(keyCreator);
+        index = env.openSecondaryDatabase(null, "index", store, config);
+    }
+
+    private void put(String key, String name) {
+        DatabaseEntry data = new DatabaseEntry();
+        StringBinding.stringToEntry(name, data);
+        store.put(null, key(key), data);
+    }
+
+    private static DatabaseEntry key(String key) {
+        DatabaseEntry entry = new DatabaseEntry();
+        StringBinding.stringToEntry(key, entry);
+        return entry;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+
+    /**
+     * Binds records of a name to "key=name" strings, failing on records named "bad"
+     */
+    private static class RecordBinding implements EntityBinding<Object> {
+        @Override
+        public Object entryToObject(DatabaseEntry key, DatabaseEntry data) {
+            return StringBinding.entryToString(key) + "=" + getName(data);
+        }
+
+        static String getName(DatabaseEntry data) {
+            String name = StringBinding.entryToString(data);
+            if ("bad".equals(name))
+                throw new IllegalArgumentException("Undecodable record");
+            return name;
+        }
+
+        @Override
+        public void objectToKey(Object object, DatabaseEntry key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void objectToData(Object object, DatabaseEntry data) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Binds records of a name to named {@link UuidObject}s, indexed by the {@link IndexKeyCreator}
+     */
+    private static class NamedRecordBinding extends RecordBinding {
+        @Override
+        public Object entryToObject(DatabaseEntry key, DatabaseEntry data) {
+            // named by the object
+            return new UuidObject(getName(data));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.util.bdb.objects;
+
+import com.sleepycat.je.DatabaseEntry;
+import net.jini.id.Uuid;
+import net.jini.id.UuidFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UuidKeyBindingTest {
+    private final UuidKeyBinding binding = new UuidKeyBinding();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        UuidKey key = new UuidKey(UuidFactory.generate());
+        DatabaseEntry entry = new DatabaseEntry();
+        binding.objectToEntry(key, entry);
+
+        assertEquals(16, entry.getSize());
+        assertEquals(key, binding.entryToObject(entry));
+    }
+
+    @Test
+    public void testEntriesSortAsSignedHalves() throws Exception {
+        List<Uuid> ids = Arrays.asList(
+                UuidFactory.create(1, 2),
+                UuidFactory.create(-1, 5),
+                UuidFactory.create(Long.MIN_VALUE, 0),
+                UuidFactory.create(0, 0),
+                UuidFactory.create(1, -1),
+                UuidFactory.create(Long.MAX_VALUE, Long.MIN_VALUE));
+        final List<byte[]> entries = new ArrayList<byte[]>();
+        for (Uuid id : ids) {
+            DatabaseEntry entry = new DatabaseEntry();
+            binding.objectToEntry(new UuidKey(id), entry);
+            entries.add(Arrays.copyOfRange(entry.getData(), entry.getOffset(), entry.getOffset() + entry.getSize()));
+        }
+        Collections.sort(entries, new Comparator<byte[]>() {
+            @Override
+            public int compare(byte[] a, byte[] b) {
+                for (int i = 0; i < a.length; i++) {
+                    int diff = (a[i] & 0xff) - (b[i] & 0xff);
+                    if (diff != 0)
+                        return diff;
+                }
+                return 0;
+            }
+        });
+        List<Uuid> sorted = new ArrayList<Uuid>();
+        for (byte[] entry : entries)
+            sorted.add(binding.entryToObject(new DatabaseEntry(entry)).getId());
+
+        assertEquals(Arrays.asList(
+                UuidFactory.create(Long.MIN_VALUE, 0),
+                UuidFactory.create(-1, 5),
+                UuidFactory.create(0, 0),
+                UuidFactory.create(1, -1),
+                UuidFactory.create(1, 2),
+                UuidFactory.create(Long.MAX_VALUE, Long.MIN_VALUE)), sorted);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.util.bdb.objects;
+
+import com.google.common.io.Files;
+import com.sleepycat.bind.serial.ClassCatalog;
+import com.sleepycat.bind.serial.StoredClassCatalog;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectOutputStream;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ValueCodecsTest {
+    private File home;
+    private Environment env;
+    private StoredClassCatalog catalog;
+
+    @Before
+    public void setUp() throws Exception {
+        home = Files.createTempDir();
+        EnvironmentConfig envConfig = new EnvironmentConfig();
+        envConfig.setAllowCreate(true);
+        envConfig.setTransactional(true);
+        env = new Environment(home, envConfig);
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setAllowCreate(true);
+        dbConfig.setTransactional(true);
+        Database catalogDb = env.openDatabase(null, "catalog", dbConfig);
+        catalog = new StoredClassCatalog(catalogDb);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        catalog.close();
+        env.close();
+        delete(home);
+    }
+
+    @Test
+    public void testCatalogCodecsRoundTrip() throws Exception {
+        for (String name : new String[]{ValueCodecs.CATALOG, ValueCodecs.CATALOG_DEFLATE}) {
+            ValueCodec codec = ValueCodecs.get(name);
+            for (Object value : new Object[]{"text", 42, sample(3), null}) {
+                byte[] encoded = codec.encode(value, catalog);
+                assertEquals(name, value, codec.decode(encoded, 0, encoded.length, catalog));
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeAtOffset() throws Exception {
+        ValueCodec codec = ValueCodecs.get(ValueCodecs.CATALOG);
+        byte[] encoded = codec.encode(sample(3), catalog);
+        byte[] record = new byte[encoded.length + 7];
+        System.arraycopy(encoded, 0, record, 5, encoded.length);
+
+        assertEquals(sample(3), codec.decode(record, 5, encoded.length, catalog));
+    }
+
+    @Test
+    public void testClassDescriptionsAreKeptInCatalog() throws Exception {
+        Object value = sample(3);
+        byte[] encoded = ValueCodecs.get(ValueCodecs.CATALOG).encode(value, catalog);
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(serialized);
+        out.writeObject(value);
+        out.close();
+        assertTrue(encoded.length + " >= " + serialized.size(), encoded.length < serialized.size());
+    }
+
+    @Test
+    public void testDeflateCompresses() throws Exception {
+        Object value = sample(200);
+        byte[] plain = ValueCodecs.get(ValueCodecs.CATALOG).encode(value, catalog);
+        byte[] deflated = ValueCodecs.get(ValueCodecs.CATALOG_DEFLATE).encode(value, catalog);
+
+        assertTrue(deflated.length + " >= " + plain.length, deflated.length < plain.length);
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        assertEquals(ValueCodecs.CATALOG, ValueCodecs.get((byte) 1).getName());
+        assertEquals(ValueCodecs.CATALOG_DEFLATE, ValueCodecs.get((byte) 2).getName());
+        assertEquals(2, ValueCodecs.get(ValueCodecs.CATALOG_DEFLATE).getId());
+        assertEquals(ValueCodecs.CATALOG, ValueCodecs.getDefault().getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownId() throws Exception {
+        ValueCodecs.get((byte) 99);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownName() throws Exception {
+        ValueCodecs.get("marshalled");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReservedId() throws Exception {
+        ValueCodecs.register(new NamedCodec(CodecEntityBinding.INDEXED, "reserved"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUsedId() throws Exception {
+        ValueCodecs.register(new NamedCodec((byte) 1, "other"));
+    }
+
+    private static Map<String, Object> sample(int size) {
+        Map<String, Object> value = new TreeMap<String, Object>();
+        for (int i = 0; i < size; i++) {
+            value.put("path/" + i, "value " + i);
+            value.put("list/" + i, new ArrayList<Object>(Arrays.asList(i, (double) i, new Date(i))));
+        }
+        return value;
+    }
+
+    private static class NamedCodec implements ValueCodec {
+        private final byte id;
+        private final String name;
+
+        NamedCodec(byte id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public byte getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public byte[] encode(Object object, ClassCatalog catalog) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object decode(byte[] data, int offset, int length, ClassCatalog catalog) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+}
@@ -21,17 +21,22 @@ import java.io.File;
 import java.io.IOException;
 import java.rmi.RemoteException;
 import java.security.Principal;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.jini.core.event.RemoteEventListener;
 import net.jini.core.lease.Lease;
 import net.jini.id.Uuid;
+import net.jini.id.UuidFactory;
 import sorcer.core.context.IControlContext;
 import sorcer.core.monitor.MonitoringManagement;
 import sorcer.core.provider.MonitorManagementSession;
@@ -42,24 +47,46 @@ import sorcer.core.provider.exertmonitor.db.SessionDatabase;
 import sorcer.core.provider.exertmonitor.db.SessionDatabaseViews;
 import sorcer.core.provider.exertmonitor.lease.MonitorLandlord;
 import sorcer.security.util.SorcerPrincipal;
+import sorcer.util.ConfigurableThreadFactory;
 import sorcer.util.bdb.objects.UuidKey;
 
 import com.sleepycat.collections.StoredMap;
+import com.sleepycat.collections.TransactionRunner;
+import com.sleepycat.collections.TransactionWorker;
 import com.sleepycat.je.DatabaseException;
 import com.sun.jini.start.LifeCycle;
 
+import static sorcer.util.StringUtils.tName;
+
 public class ExertMonitor extends ServiceProvider implements
         MonitoringManagement {
 
 	static transient final Logger logger = LoggerFactory.getLogger(ExertMonitor.class.getName());
 
+	static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
 	private MonitorLandlord landlord;
 
 	private SessionDatabase db;
 	
 	private StoredMap<UuidKey, MonitorManagementSession> resources;
 
-    private Map<Uuid, UuidKey> cacheSessionKeyMap = new HashMap<Uuid, UuidKey>();
+	// keys of the root sessions by the cookies and exertion ids of their sessions
+	private StoredMap<UuidKey, UuidKey> cookieIndex;
+
+	private StoredMap<UuidKey, UuidKey> exertionIndex;
+
+	private TransactionRunner runner;
+
+	// root sessions being monitored; they are modified in memory and written by the flusher
+	private final ConcurrentMap<UuidKey, MonitorSession> liveSessions = new ConcurrentHashMap<UuidKey, MonitorSession>();
+
+	// root sessions modified since the last flush
+	private final ConcurrentMap<UuidKey, MonitorSession> dirtySessions = new ConcurrentHashMap<UuidKey, MonitorSession>();
+
+	private ScheduledExecutorService flusher;
+
+	private final Object loadLock = new Object();
 
 	public ExertMonitor(String[] args, LifeCycle lifeCycle) throws Exception {
 		super(args, lifeCycle);
@@ -88,14 +115,31 @@ public class ExertMonitor extends ServiceProvider implements
 		db = new SessionDatabase(dbHome);
 		SessionDatabaseViews views = new SessionDatabaseViews(db);
 		resources = views.getSessionMap();
+		cookieIndex = views.getCookieIndexMap();
+		exertionIndex = views.getExertionIndexMap();
+		runner = new TransactionRunner(db.getEnvironment());
+		if (cookieIndex.isEmpty() && !resources.isEmpty())
+			rebuildIndex();
+
+		// session changes are coalesced and written periodically
+		long flushInterval = Long.parseLong(getProperty("monitor.flush.interval", "" + DEFAULT_FLUSH_INTERVAL));
+		ConfigurableThreadFactory factory = new ConfigurableThreadFactory();
+		factory.setNameFormat(tName("Monitor-flusher-%2$d"));
+		factory.setDaemon(true);
+		flusher = Executors.newSingleThreadScheduledExecutor(factory);
+		flusher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
 
 		// statically initialize
 		MonitorSession.mLandlord = landlord;
 		MonitorSession.sessionManager = (MonitoringManagement) getServiceProxy();
+		MonitorSession.sessionPersister = this;
 	}
 
-	final Object resourcesWriteLock = new Object();
-
 	public Exertion register(RemoteEventListener lstnr, Exertion ex,
 			long duration) throws RemoteException {
 
@@ -106,12 +150,10 @@ public class ExertMonitor extends ServiceProvider implements
 			throw new RemoteException(ioe.getMessage());
 		}
 
-		synchronized (resourcesWriteLock) {
-			try {
-				persist(resource);
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		try {
+			store(resource);
+		} catch (Exception e) {
+			logger.error("Could not store the session of " + ex.getName(), e);
 		}
 
 		return resource.getRuntimeExertion();
@@ -147,47 +189,117 @@ public class ExertMonitor extends ServiceProvider implements
 		if (resource == null)
 			throw new MonitorException("There exists no such session");
 
-		return resource.init(mntrbl, duration, timeout);
+		synchronized (resource.getRoot()) {
+			return resource.init(mntrbl, duration, timeout);
+		}
 	}
 	
 	private MonitorSession findSessionResource(Uuid cookie)
 			throws MonitorException {
 
-		MonitorSession resource;
-
 		// Check if landlord is keeping it in memory
 		Hashtable lresources = landlord.getResources();
 		if (lresources.get(cookie) != null)
 			return (MonitorSession) lresources.get(cookie);
 
-		Uuid key;
-		for (Enumeration e = lresources.keys(); e.hasMoreElements();) {
-			key = (Uuid) e.nextElement();
-			resource = ((MonitorSession) lresources.get(key))
-			.getSessionResource(cookie);
-			if (resource != null)
-				return resource;
+		// Ok it's not with landlord. So we find its root session by the index
+		UuidKey rootKey = cookieIndex.get(new UuidKey(cookie));
+		if (rootKey == null)
+			return null;
+		MonitorSession root = getRootSession(rootKey);
+		return root == null ? null : root.getSessionResource(cookie);
+	}
+
+	/**
+	 * Return the root session being monitored, loading it from the database
+	 * if needed.
+	 */
+	private MonitorSession getRootSession(UuidKey key) throws MonitorException {
+		MonitorSession root = liveSessions.get(key);
+		if (root != null)
+			return root;
+		synchronized (loadLock) {
+			root = liveSessions.get(key);
+			if (root == null) {
+				root = getSession(key);
+				if (root != null && !isFinished(root))
+					liveSessions.put(key, root);
+			}
+		}
+		return root;
+	}
+
+	private static boolean isFinished(MonitorSession root) {
+		return root.isDone() || root.isFailed();
+	}
+
+	/**
+	 * Write a new root session and index all its sessions
+	 */
+	private void store(final MonitorSession root) throws Exception {
+		final UuidKey key = new UuidKey(root.getCookie());
+		runner.run(new TransactionWorker() {
+			@Override
+			public void doWork() throws Exception {
+				index(key, root);
+				resources.put(key, root);
+			}
+		});
+		liveSessions.put(key, root);
+	}
+
+	private void index(UuidKey key, MonitorSession root) {
+		for (MonitorManagementSession s : root.getSessions().values()) {
+			MonitorSession session = (MonitorSession) s;
+			cookieIndex.put(new UuidKey(session.getCookie()), key);
+			exertionIndex.put(new UuidKey(session.getRuntimeExertion().getId()), key);
 		}
+	}
 
-		// if (landlord.getResource(cookie)!=null) return
-		// (SessionResource)landlord.getResource(cookie);
-
-		// Ok it's not with landlord. So we retrieve it from the database
-		synchronized (resourcesWriteLock) {
-			Iterator<Map.Entry<UuidKey, MonitorManagementSession>> si = resources.entrySet().iterator();
-			Map.Entry<UuidKey, MonitorManagementSession> next;
-			while (si.hasNext()) {
-				next = si.next();
-				try {
-					resource = getSession(next.getKey()).getSessionResource(cookie);
-				} catch (Exception e) {
-					throw new MonitorException(e);
-				} 
-				if (resource != null)
-					return resource;
+	private void rebuildIndex() {
+		logger.info("Indexing the stored sessions");
+		for (UuidKey key : resources.keySet()) {
+			try {
+				MonitorSession root = getSession(key);
+				if (root != null)
+					index(key, root);
+			} catch (Exception e) {
+				logger.warn("Could not index session " + key, e);
 			}
 		}
-			return null;
+	}
+
+	/**
+	 * Write the root sessions modified since the last flush in one
+	 * transaction, and stop keeping finished ones in memory.
+	 */
+	void flush() {
+		if (dirtySessions.isEmpty())
+			return;
+		final Map<UuidKey, MonitorSession> batch = new HashMap<UuidKey, MonitorSession>();
+		for (Map.Entry<UuidKey, MonitorSession> e : dirtySessions.entrySet())
+			if (dirtySessions.remove(e.getKey(), e.getValue()))
+				batch.put(e.getKey(), e.getValue());
+		try {
+			runner.run(new TransactionWorker() {
+				@Override
+				public void doWork() throws Exception {
+					for (Map.Entry<UuidKey, MonitorSession> e : batch.entrySet()) {
+						synchronized (e.getValue()) {
+							resources.put(e.getKey(), e.getValue());
+						}
+					}
+				}
+			});
+		} catch (Exception e) {
+			logger.error("Could not write " + batch.size() + " sessions", e);
+			for (Map.Entry<UuidKey, MonitorSession> entry : batch.entrySet())
+				dirtySessions.putIfAbsent(entry.getKey(), entry.getValue());
+			return;
+		}
+		for (Map.Entry<UuidKey, MonitorSession> e : batch.entrySet())
+			if (isFinished(e.getValue()) && !dirtySessions.containsKey(e.getKey()))
+				liveSessions.remove(e.getKey(), e.getValue());
 	}
 
 	/**
@@ -226,7 +338,9 @@ public class ExertMonitor extends ServiceProvider implements
 		if (resource == null)
 			throw new MonitorException("There exists no such session");
 
-		resource.init(duration, timeout);
+		synchronized (resource.getRoot()) {
+			resource.init(duration, timeout);
+		}
 	}
 
 	/**
@@ -260,7 +374,9 @@ public class ExertMonitor extends ServiceProvider implements
 		if (resource == null)
 			throw new MonitorException("There exists no such session");
 
-		return resource.init(mntrbl);
+		synchronized (resource.getRoot()) {
+			return resource.init(mntrbl);
+		}
 	}
 
 	/**
@@ -285,7 +401,9 @@ public class ExertMonitor extends ServiceProvider implements
 			throw new MonitorException("There exists no such session for: "
 					+ cookie);
 
-		resource.update(ctx, controlContext, aspect);
+		synchronized (resource.getRoot()) {
+			resource.update(ctx, controlContext, aspect);
+		}
 	}
 
 	/**
@@ -310,7 +428,9 @@ public class ExertMonitor extends ServiceProvider implements
 		if (resource == null)
 			throw new MonitorException("There exists no such session");
 		
-		resource.done(ctx, controlContext);
+		synchronized (resource.getRoot()) {
+			resource.done(ctx, controlContext);
+		}
 	}
 
 	/**
@@ -333,7 +453,9 @@ public class ExertMonitor extends ServiceProvider implements
 		if (resource == null)
 			throw new MonitorException("There exists no such session");
 
-		resource.failed(ctx, controlContext);
+		synchronized (resource.getRoot()) {
+			resource.failed(ctx, controlContext);
+		}
 	}
 
 	public int getState(Uuid cookie) throws RemoteException, MonitorException {
@@ -416,27 +538,20 @@ public class ExertMonitor extends ServiceProvider implements
 	 */
 	public Exertion getMonitorableExertion(UEID cookie, Principal principal)
 			throws RemoteException, MonitorException {
-        UuidKey lkey = cacheSessionKeyMap.get(cookie.exertionID);
-        Exertion ex;
-        if (lkey!=null) {
-            ex = (getSession(lkey)).getRuntimeExertion();
-            if (ex!=null && ((ServiceExertion) ex).getPrincipal().getId()
-                    .equals(((SorcerPrincipal) principal).getId()))
-                return ex;
-            else
-                return null;
-        }
-		Iterator<UuidKey> ki = resources.keySet().iterator();
-		while (ki.hasNext()) {
-			lkey = ki.next();
-			ex = (getSession(lkey)).getRuntimeExertion();
-            if (ex!=null) cacheSessionKeyMap.put(ex.getId(), lkey);
-            if (cookie.exertionID.equals(ex.getId().toString())
-					&& ((ServiceExertion) ex).getPrincipal().getId()
-							.equals(((SorcerPrincipal) principal).getId()))
-				return ex;
-		}
-		return null;
+        Uuid exertionId = UuidFactory.create(cookie.exertionID);
+        UuidKey rootKey = exertionIndex.get(new UuidKey(exertionId));
+        if (rootKey == null)
+            return null;
+        MonitorSession root = getSession(rootKey);
+        MonitorSession session = root == null ? null : root.getSessionByExertion(exertionId);
+        if (session == null)
+            return null;
+        Exertion ex = session.getRuntimeExertion();
+        if (((ServiceExertion) ex).getPrincipal().getId()
+                .equals(((SorcerPrincipal) principal).getId()))
+            return ex;
+        else
+            return null;
 	}
 
 	/*
@@ -462,6 +577,15 @@ public class ExertMonitor extends ServiceProvider implements
 	}
 
 	public void destroy() throws RemoteException {
+		if (flusher != null) {
+			flusher.shutdown();
+			try {
+				flusher.awaitTermination(4, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			flush();
+		}
 		try {
 			db.close();
 		} catch (DatabaseException e) {
@@ -474,13 +598,22 @@ public class ExertMonitor extends ServiceProvider implements
 	/* (non-Javadoc)
 	 * @see sorcer.core.monitor.MonitorManagement#persist(sorcer.core.provider.exertmonitor.MonitorSession)
 	 */
+	/**
+	 * The session is written with the next flush of the modified sessions.
+	 */
 	@Override
 	public boolean persist(MonitorManagementSession session) throws IOException {
-		resources.put(new UuidKey(((MonitorSession)session).getCookie()), session);
+		MonitorSession root = ((MonitorSession) session).getRoot();
+		UuidKey key = new UuidKey(root.getCookie());
+		liveSessions.put(key, root);
+		dirtySessions.put(key, root);
 		return true;
 	}
 	
 	public MonitorSession getSession(UuidKey key) throws MonitorException {
+		MonitorSession root = liveSessions.get(key);
+		if (root != null)
+			return root;
 		try {
 			return (MonitorSession) resources.get(key);
 		} catch (Exception e) {
@@ -489,10 +622,6 @@ public class ExertMonitor extends ServiceProvider implements
 	}
 
 	public MonitorSession getSession(Uuid key) throws MonitorException {
-		try {
-			return (MonitorSession) resources.get(new UuidKey(key));
-		} catch (Exception e) {
-			throw new MonitorException(e);
-		}
+		return getSession(new UuidKey(key));
 	}
 }
@@ -35,9 +35,13 @@ public class SessionDatabase {
 
     private static final String CLASS_CATALOG = "java_class_catalog";
     private static final String SESSION_STORE = "sesion_store";
+    private static final String COOKIE_INDEX = "session_cookie_index";
+    private static final String EXERTION_INDEX = "session_exertion_index";
 
     private Environment env;
     private Database sessionDb;
+    private Database cookieIndexDb;
+    private Database exertionIndexDb;
     private StoredClassCatalog javaCatalog;
 
     /**
@@ -65,6 +69,11 @@ public class SessionDatabase {
         // Open the Berkeley DB database for the monitor session
         // store.  The store is opened with no duplicate keys allowed.
         sessionDb = env.openDatabase(null, SESSION_STORE, dbConfig);
+
+        // Open the indexes from the cookies and exertion ids of all the
+        // sessions of a job to the key of its root session.
+        cookieIndexDb = env.openDatabase(null, COOKIE_INDEX, dbConfig);
+        exertionIndexDb = env.openDatabase(null, EXERTION_INDEX, dbConfig);
     }
 
     /**
@@ -87,6 +96,20 @@ public class SessionDatabase {
     public final Database getSessionDatabase() {
         return sessionDb;
     }
+
+    /**
+     * Return the index of root session keys by session cookie.
+     */
+    public final Database getCookieIndexDatabase() {
+        return cookieIndexDb;
+    }
+
+    /**
+     * Return the index of root session keys by exertion id.
+     */
+    public final Database getExertionIndexDatabase() {
+        return exertionIndexDb;
+    }
     
     /**
      * Close all stores (closing a store automatically closes its indices).
@@ -94,6 +117,8 @@ public class SessionDatabase {
     public void close()
         throws DatabaseException {
         // Close secondary databases, then primary databases.
+        exertionIndexDb.close();
+        cookieIndexDb.close();
         sessionDb.close();
         // And don't forget to close the catalog and the environment.
         javaCatalog.close();
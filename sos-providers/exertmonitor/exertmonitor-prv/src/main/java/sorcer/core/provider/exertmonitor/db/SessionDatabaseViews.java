@@ -42,6 +42,10 @@ public class SessionDatabaseViews {
 	
 	private StoredMap<UuidKey, MonitorManagementSession>  sessionMap;
 
+	private StoredMap<UuidKey, UuidKey> cookieIndexMap;
+
+	private StoredMap<UuidKey, UuidKey> exertionIndexMap;
+
 	/**
 	 * Create the data bindings and collection views.
 	 */
@@ -54,6 +58,12 @@ public class SessionDatabaseViews {
 		
 		sessionMap = new StoredMap(db.getSessionDatabase(),
 				sessionKeyBinding, sessionDataBinding, true);
+
+		SerialBinding indexBinding = new SerialBinding(catalog, UuidKey.class);
+		cookieIndexMap = new StoredMap(db.getCookieIndexDatabase(),
+				indexBinding, indexBinding, true);
+		exertionIndexMap = new StoredMap(db.getExertionIndexDatabase(),
+				indexBinding, indexBinding, true);
 	}
 
 	// The views returned below can be accessed using the java.util.Map or
@@ -69,6 +79,20 @@ public class SessionDatabaseViews {
 		return sessionMap;
 	}
 	
+	/**
+	 * Return a map view of the root session keys by session cookie.
+	 */
+	public StoredMap<UuidKey, UuidKey> getCookieIndexMap() {
+		return cookieIndexMap;
+	}
+
+	/**
+	 * Return a map view of the root session keys by exertion id.
+	 */
+	public StoredMap<UuidKey, UuidKey> getExertionIndexMap() {
+		return exertionIndexMap;
+	}
+
 	/**
 	 * Return an entity set view of the session storage container.
 	 */
@@ -340,6 +340,8 @@ public interface SorcerConstants {
 
 	public static final String LOOKUP_CACHE_ENABLED = "lookup.cache.enabled";
 
+	public static final String LOOKUP_PROXY_CACHE_TTL = "lookup.proxyCache.ttl";
+
 	public static final String LOOKUP_MIN_MATCHES = "lookup.minMatches";
 
 	public static final String LOOKUP_MAX_MATCHES = "lookup.maxMatches";
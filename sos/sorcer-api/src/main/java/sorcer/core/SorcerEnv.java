@@ -153,6 +153,16 @@ public class SorcerEnv {
         return getProperty(LOOKUP_CACHE_ENABLED, "false").equals("true");
     }
 
+    /**
+     * Returns how long the proxies found by a lookup are cached when no lookup
+     * cache maintains them.
+     *
+     * @return time to live in milliseconds, default is 30 seconds
+     */
+    public static long getLookupProxyCacheTtl() {
+        return Long.parseLong(getProperty(LOOKUP_PROXY_CACHE_TTL, "30000"));
+    }
+
     /**
      * Returns required wait duration for a ServiceDiscoveryManager.
      *
@@ -769,6 +779,10 @@ public class SorcerEnv {
             if (val != null && val.length() != 0)
                 getEnvProperties().put(LOOKUP_CACHE_ENABLED, val);
 
+            val = props.getProperty(LOOKUP_PROXY_CACHE_TTL);
+            if (val != null && val.length() != 0)
+                getEnvProperties().put(LOOKUP_PROXY_CACHE_TTL, val);
+
             val = props.getProperty(P_SERVICE_ID_PERSISTENT);
             if (val != null && val.length() != 0)
                 getEnvProperties().put(P_SERVICE_ID_PERSISTENT, val);
@@ -174,6 +174,7 @@ public class NetSignature extends ObjectSignature {
         } catch (RemoteException e) {
             // provider is dead; get new one
             //e.printStackTrace();
+            Accessor.invalidateProxy(provider);
             provider = null;
             provider = (Provider)Accessor.getService(this);
         }
@@ -32,9 +32,11 @@ import net.jini.lookup.entry.Name;
 import sorcer.core.provider.Provider;
 import sorcer.core.SorcerConstants;
 import sorcer.core.SorcerEnv;
+import sorcer.core.signature.NetSignature;
 import sorcer.jini.lookup.entry.SorcerServiceInfo;
 import sorcer.river.Filters;
 import sorcer.util.ProviderNameUtil;
+import sorcer.util.ProxyCache;
 import sorcer.util.ServiceAccessor;
 import sorcer.util.SorcerProviderNameUtil;
 import sorcer.util.StringUtils;
@@ -60,6 +62,7 @@ public class Accessor {
     private static int maxMatches = SorcerEnv.getLookupMaxMatches();
     private static ProviderNameUtil providerNameUtil = new SorcerProviderNameUtil();
     final public static DynamicAccessor nonCachingAccessor;
+    private static final ProxyCache proxyCache = ProxyCache.getInstance();
 
     static {
         initialize(SorcerEnv.getProperties().getProperty(SorcerConstants.S_SERVICE_ACCESSOR_PROVIDER_NAME));
@@ -163,13 +166,102 @@ public class Accessor {
     /**
      * Returns a service item containing the servicer matching its {@link Signature}
      * using the particular factory <code>accessor</code> of this service accessor facility.
+     * Items found are kept in the {@link ProxyCache}, so next calls with the same
+     * signature don't look up the service again. Consecutive calls get the matching
+     * providers in turn.
      *
      * @param signature
      *            the signature of requested servicer
      * @return the requested {@link ServiceItem}
      */
     public static ServiceItem getServiceItem(Signature signature){
-        return getServiceItem(signature.getProviderName(), signature.getServiceType());
+        return getCachedServiceItem(signature.getServiceType(), signature.getProviderName(), getVersion(signature));
+    }
+
+    /**
+     * Returns a service item of the given type, name and version, kept in the {@link ProxyCache}
+     * like by {@link #getServiceItem(Signature)}.
+     */
+    public static ServiceItem getCachedServiceItem(Class serviceType, String providerName, String version) {
+        providerName = overrideName(providerName, serviceType);
+        ServiceItem serviceItem = proxyCache.get(serviceType, providerName, version);
+        if (serviceItem != null)
+            return serviceItem;
+        ServiceTemplate serviceTemplate = getServiceTemplate(null, providerName, new Class[]{serviceType}, null);
+        ServiceItem[] serviceItems = getServiceItems(serviceTemplate, Filters.any());
+        proxyCache.put(serviceType, providerName, version, serviceItems);
+        serviceItem = proxyCache.get(serviceType, providerName, version);
+        // items of other versions are not cached, but still returned like by a lookup
+        if (serviceItem == null && serviceItems.length > 0)
+            serviceItem = serviceItems[0];
+        return serviceItem;
+    }
+
+    /**
+     * Removes the proxy cached for the signature, so the next call to {@link #getService(Signature)} looks the
+     * service up again. Should be called when the proxy has thrown a {@link java.rmi.RemoteException}.
+     *
+     * @param signature
+     *            the signature of the failed servicer
+     */
+    public static void invalidate(Signature signature) {
+        invalidate(signature.getServiceType(), signature.getProviderName(), getVersion(signature));
+    }
+
+    /**
+     * Removes the proxy cached for the given type, name and version.
+     */
+    public static void invalidate(Class serviceType, String providerName, String version) {
+        if (proxyCache.invalidate(serviceType, overrideName(providerName, serviceType), version))
+            logger.debug("Removed cached proxy of {} {}", serviceType.getName(), providerName);
+    }
+
+    /**
+     * Removes the proxy of the failed service cached for the signature, other providers matching the signature
+     * stay cached.
+     *
+     * @param signature
+     *            the signature of the failed servicer
+     * @param serviceID
+     *            the ID of the failed servicer
+     */
+    public static void invalidate(Signature signature, ServiceID serviceID) {
+        invalidate(signature.getServiceType(), signature.getProviderName(), getVersion(signature), serviceID);
+    }
+
+    /**
+     * Removes the proxy of the failed service cached for the given type, name and version.
+     */
+    public static void invalidate(Class serviceType, String providerName, String version, ServiceID serviceID) {
+        if (proxyCache.invalidate(serviceType, overrideName(providerName, serviceType), version, serviceID))
+            logger.debug("Removed cached proxy {} of {} {}", serviceID, serviceType.getName(), providerName);
+    }
+
+    /**
+     * Removes the cached items of the service with the given proxy. Should be called when the proxy has thrown a
+     * {@link java.rmi.RemoteException}.
+     */
+    public static void invalidateProxy(Object proxy) {
+        if (proxy != null)
+            proxyCache.invalidateProxy(proxy);
+    }
+
+    /**
+     * Returns all service items matching the {@link Signature}, bypassing the {@link ProxyCache}.
+     *
+     * @param signature
+     *            the signature of requested servicers
+     * @return the matching service items
+     */
+    public static ServiceItem[] getServiceItems(Signature signature) {
+        Class serviceType = signature.getServiceType();
+        String providerName = overrideName(signature.getProviderName(), serviceType);
+        ServiceTemplate serviceTemplate = getServiceTemplate(null, providerName, new Class[]{serviceType}, null);
+        return getServiceItems(serviceTemplate, Filters.any());
+    }
+
+    private static String getVersion(Signature signature) {
+        return signature instanceof NetSignature ? ((NetSignature) signature).getVersion() : null;
     }
 
     /**
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jini.core.entry.Entry;
+import net.jini.core.lookup.ServiceID;
+import net.jini.core.lookup.ServiceItem;
+import net.jini.lookup.ServiceDiscoveryEvent;
+import net.jini.lookup.ServiceDiscoveryListener;
+import net.jini.lookup.entry.Name;
+import net.jini.lookup.entry.ServiceInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.core.SorcerEnv;
+
+/**
+ * Client side cache of service items keyed by the service type, provider name and version of a signature.
+ * <p/>
+ * All the items matching a key are kept and {@link #get(Class, String, String)} hands them out in turn, so calls
+ * are balanced over the providers like with a lookup. Items are added after a successful lookup and, while the
+ * cache is attached to a {@link net.jini.lookup.LookupCache}, on its discovery events. A single item is removed when
+ * the service is discarded by the lookup cache or when the client calls {@link #invalidateProxy(Object)} after a
+ * {@link java.rmi.RemoteException} from its proxy.
+ * <p/>
+ * Without a lookup cache nothing tells about services stopped or started later, so the items of a key expire
+ * {@link sorcer.core.SorcerEnv#getLookupProxyCacheTtl()} milliseconds after they were looked up.
+ * <p/>
+ * When a key has a version, only items with a {@link ServiceInfo} attribute of that version are cached.
+ */
+public class ProxyCache implements ServiceDiscoveryListener {
+    private static final Logger logger = LoggerFactory.getLogger(ProxyCache.class);
+
+    // largest number of missing keys waiting for discovery events
+    static final int MAX_WANTED = 1024;
+
+    private static final ProxyCache instance = new ProxyCache(SorcerEnv.getLookupProxyCacheTtl());
+
+    private final ConcurrentMap<Key, Items> items = new ConcurrentHashMap<Key, Items>();
+
+    // requested keys missing in the cache, filled on discovery
+    private final Set<Key> wanted = Collections.newSetFromMap(new ConcurrentHashMap<Key, Boolean>());
+
+    private final long ttl;
+
+    // true while a lookup cache delivers its discovery events
+    private volatile boolean attached;
+
+    ProxyCache(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public static ProxyCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Set when a lookup cache starts or stops delivering its discovery events to this cache. Items of attached
+     * caches don't expire.
+     */
+    public void setAttached(boolean attached) {
+        this.attached = attached;
+        if (!attached)
+            wanted.clear();
+    }
+
+    /**
+     * @return the next of the items cached for the signature, or null
+     */
+    public ServiceItem get(Class serviceType, String providerName, String version) {
+        Key key = new Key(serviceType, providerName, version);
+        Items cached = items.get(key);
+        if (cached != null && isExpired(cached)) {
+            if (items.remove(key, cached))
+                cached.discard();
+            cached = null;
+        }
+        ServiceItem item = cached == null ? null : cached.next();
+        if (item == null && attached && wanted.size() < MAX_WANTED)
+            wanted.add(key);
+        return item;
+    }
+
+    /**
+     * Cache the items found for the signature. Items not matching the version of the signature are skipped.
+     */
+    public void put(Class serviceType, String providerName, String version, ServiceItem... found) {
+        if (found == null)
+            return;
+        Key key = new Key(serviceType, providerName, version);
+        for (ServiceItem item : found)
+            if (item != null && item.service != null && key.matches(item))
+                add(key, item);
+    }
+
+    /**
+     * Remove the item of the service cached for the signature, usually after its proxy has thrown a
+     * RemoteException. Other providers of the signature stay cached.
+     */
+    public boolean invalidate(Class serviceType, String providerName, String version, ServiceID serviceID) {
+        return remove(new Key(serviceType, providerName, version), serviceID);
+    }
+
+    /**
+     * Remove all the items cached for the signature
+     */
+    public boolean invalidate(Class serviceType, String providerName, String version) {
+        Items removed = items.remove(new Key(serviceType, providerName, version));
+        if (removed == null)
+            return false;
+        removed.discard();
+        return true;
+    }
+
+    /**
+     * Remove the items of the service with the given proxy, usually after the proxy has thrown a RemoteException
+     */
+    public void invalidateProxy(Object proxy) {
+        for (Map.Entry<Key, Items> e : items.entrySet())
+            for (ServiceID serviceID : e.getValue().findService(proxy))
+                remove(e.getKey(), serviceID);
+    }
+
+    /**
+     * Remove all items of the service
+     */
+    public void invalidate(ServiceID serviceID) {
+        for (Key key : items.keySet())
+            remove(key, serviceID);
+    }
+
+    public void clear() {
+        items.clear();
+        wanted.clear();
+    }
+
+    /**
+     * @return number of cached signatures
+     */
+    public int size() {
+        return items.size();
+    }
+
+    private boolean isExpired(Items cached) {
+        return !attached && System.currentTimeMillis() - cached.created > ttl;
+    }
+
+    private void add(Key key, ServiceItem item) {
+        while (true) {
+            Items cached = items.get(key);
+            if (cached == null) {
+                cached = new Items();
+                Items previous = items.putIfAbsent(key, cached);
+                if (previous != null)
+                    cached = previous;
+            }
+            // retry if the items were discarded concurrently
+            if (cached.add(item)) {
+                wanted.remove(key);
+                return;
+            }
+            items.remove(key, cached);
+        }
+    }
+
+    private boolean remove(Key key, ServiceID serviceID) {
+        Items cached = items.get(key);
+        if (cached == null || !cached.remove(serviceID))
+            return false;
+        if (cached.isDiscarded())
+            items.remove(key, cached);
+        return true;
+    }
+
+    @Override
+    public void serviceAdded(ServiceDiscoveryEvent event) {
+        ServiceItem item = event.getPostEventServiceItem();
+        if (item == null || item.service == null)
+            return;
+        List<Key> keys = new ArrayList<Key>(wanted);
+        keys.addAll(items.keySet());
+        for (Key key : keys) {
+            if (key.matches(item)) {
+                add(key, item);
+                logger.debug("Cached discovered service {} for {}", item.serviceID, key);
+            }
+        }
+    }
+
+    @Override
+    public void serviceRemoved(ServiceDiscoveryEvent event) {
+        ServiceItem item = event.getPreEventServiceItem();
+        if (item != null)
+            invalidate(item.serviceID);
+    }
+
+    @Override
+    public void serviceChanged(ServiceDiscoveryEvent event) {
+        ServiceItem item = event.getPostEventServiceItem();
+        if (item == null)
+            return;
+        for (Map.Entry<Key, Items> e : items.entrySet()) {
+            if (!e.getValue().contains(item.serviceID))
+                continue;
+            // attributes may have changed, so the item may no longer match the signature
+            if (item.service != null && e.getKey().matches(item))
+                add(e.getKey(), item);
+            else
+                remove(e.getKey(), item.serviceID);
+        }
+    }
+
+    /**
+     * Items of a key with a round-robin cursor. Once the last item is removed the instance is discarded, so an
+     * item added concurrently goes to a new instance instead of one no longer in the map.
+     */
+    private static class Items {
+        private final List<ServiceItem> list = new CopyOnWriteArrayList<ServiceItem>();
+        private final AtomicInteger cursor = new AtomicInteger();
+        private final long created = System.currentTimeMillis();
+        private boolean discarded;
+
+        ServiceItem next() {
+            while (true) {
+                int size = list.size();
+                if (size == 0)
+                    return null;
+                try {
+                    return list.get((cursor.getAndIncrement() & Integer.MAX_VALUE) % size);
+                } catch (IndexOutOfBoundsException e) {
+                    // an item was removed concurrently
+                }
+            }
+        }
+
+        /**
+         * Add or replace the item of the service
+         *
+         * @return false if this instance was discarded
+         */
+        synchronized boolean add(ServiceItem item) {
+            if (discarded)
+                return false;
+            for (int i = 0; i < list.size(); i++) {
+                if (item.serviceID.equals(list.get(i).serviceID)) {
+                    list.set(i, item);
+                    return true;
+                }
+            }
+            list.add(item);
+            return true;
+        }
+
+        synchronized boolean remove(ServiceID serviceID) {
+            for (ServiceItem item : list) {
+                if (serviceID.equals(item.serviceID)) {
+                    list.remove(item);
+                    if (list.isEmpty())
+                        discarded = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        List<ServiceID> findService(Object proxy) {
+            List<ServiceID> found = new ArrayList<ServiceID>(1);
+            for (ServiceItem item : list)
+                if (item.service.equals(proxy))
+                    found.add(item.serviceID);
+            return found;
+        }
+
+        boolean contains(ServiceID serviceID) {
+            for (ServiceItem item : list)
+                if (serviceID.equals(item.serviceID))
+                    return true;
+            return false;
+        }
+
+        synchronized boolean isDiscarded() {
+            return discarded;
+        }
+
+        synchronized void discard() {
+            discarded = true;
+        }
+    }
+
+    private static class Key {
+        final Class serviceType;
+        final String providerName;
+        final String version;
+
+        Key(Class serviceType, String providerName, String version) {
+            this.serviceType = serviceType;
+            this.providerName = providerName;
+            this.version = version;
+        }
+
+        boolean matches(ServiceItem item) {
+            if (serviceType != null && !serviceType.isInstance(item.service))
+                return false;
+            return (providerName == null || hasName(item)) && (version == null || hasVersion(item));
+        }
+
+        private boolean hasName(ServiceItem item) {
+            if (item.attributeSets != null)
+                for (Entry attr : item.attributeSets)
+                    if (attr instanceof Name && providerName.equals(((Name) attr).name))
+                        return true;
+            return false;
+        }
+
+        private boolean hasVersion(ServiceItem item) {
+            if (item.attributeSets != null)
+                for (Entry attr : item.attributeSets)
+                    if (attr instanceof ServiceInfo && version.equals(((ServiceInfo) attr).version))
+                        return true;
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return serviceType == key.serviceType
+                    && (providerName == null ? key.providerName == null : providerName.equals(key.providerName))
+                    && (version == null ? key.version == null : version.equals(key.version));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = serviceType != null ? serviceType.hashCode() : 0;
+            result = 31 * result + (providerName != null ? providerName.hashCode() : 0);
+            result = 31 * result + (version != null ? version.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return (serviceType == null ? null : serviceType.getName()) + ":" + providerName + ":" + version;
+        }
+    }
+}
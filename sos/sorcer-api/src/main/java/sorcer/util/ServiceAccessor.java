@@ -39,11 +39,11 @@ import java.io.IOException;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -90,7 +90,7 @@ public class ServiceAccessor implements DynamicAccessor {
 
 	private static int MAX_MATCHES = SorcerEnv.getLookupMaxMatches();
 
-    protected Map<String, Object> cache = new HashMap<String, Object>();
+    protected Map<String, Object> cache = new ConcurrentHashMap<String, Object>();
 
     protected ProviderNameUtil providerNameUtil = new SorcerProviderNameUtil();
 
@@ -335,13 +335,15 @@ public class ServiceAccessor implements DynamicAccessor {
 	}
 
 	/**
-	 * Creates a lookup cache for the existing service discovery manager
+	 * Creates a lookup cache for the existing service discovery manager. The
+	 * discovery events of the lookup cache maintain the {@link ProxyCache}.
 	 */
 	private void openCache() {
 		if (cacheEnabled && lookupCache == null) {
 			try {
 				lookupCache = sdManager.createLookupCache(null,
-						null, null);
+						null, ProxyCache.getInstance());
+				ProxyCache.getInstance().setAttached(true);
 			} catch (RemoteException e) {
 				closeLookupCache();
 			}
@@ -353,6 +355,7 @@ public class ServiceAccessor implements DynamicAccessor {
 	 */
 	private void closeLookupCache() {
 		if (lookupCache != null) {
+			ProxyCache.getInstance().setAttached(false);
 			lookupCache.terminate();
 			lookupCache = null;
 		}
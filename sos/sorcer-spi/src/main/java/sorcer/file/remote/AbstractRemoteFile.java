@@ -36,6 +36,10 @@ abstract public class AbstractRemoteFile implements RemoteFile {
         this.checksum = checksum(localFile);
     }
 
+    protected AbstractRemoteFile(String checksum) {
+        this.checksum = checksum;
+    }
+
     abstract protected File doGetFile() throws IOException;
 
     abstract protected File getLocalPath();
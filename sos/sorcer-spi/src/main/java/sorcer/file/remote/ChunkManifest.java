@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.file.remote;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Length, SHA-1 checksum and per-chunk SHA-1 hashes of a file, used to download it in chunks.
+ */
+public class ChunkManifest implements Serializable {
+    private static final long serialVersionUID = 4625930147592613047L;
+
+    private final String checksum;
+    private final long length;
+    private final int chunkSize;
+    private final String[] chunkHashes;
+
+    public ChunkManifest(String checksum, long length, int chunkSize, String[] chunkHashes) {
+        this.checksum = checksum;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.chunkHashes = chunkHashes;
+    }
+
+    /**
+     * Compute the manifest of the file, reading it once
+     */
+    public static ChunkManifest create(File file, int chunkSize) throws IOException {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Invalid chunk size " + chunkSize);
+        Hasher fileHasher = Hashing.sha1().newHasher();
+        List<String> hashes = new ArrayList<String>();
+        byte[] buffer = new byte[chunkSize];
+        long length = 0;
+        InputStream in = new FileInputStream(file);
+        try {
+            int read;
+            while ((read = readChunk(in, buffer)) > 0) {
+                fileHasher.putBytes(buffer, 0, read);
+                hashes.add(Hashing.sha1().hashBytes(buffer, 0, read).toString());
+                length += read;
+            }
+        } finally {
+            in.close();
+        }
+        String[] chunkHashes = hashes.toArray(new String[hashes.size()]);
+        return new ChunkManifest(fileHasher.hash().toString(), length, chunkSize, chunkHashes);
+    }
+
+    private static int readChunk(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        int read;
+        while (total < buffer.length && (read = in.read(buffer, total, buffer.length - total)) >= 0)
+            total += read;
+        return total;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkHashes.length;
+    }
+
+    public long getChunkStart(int chunk) {
+        return (long) chunk * chunkSize;
+    }
+
+    public int getChunkLength(int chunk) {
+        return (int) Math.min(chunkSize, length - getChunkStart(chunk));
+    }
+
+    public String getChunkHash(int chunk) {
+        return chunkHashes[chunk];
+    }
+
+    /**
+     * @return true if the chunk data has the hash of the chunk
+     */
+    public boolean isValid(int chunk, byte[] data, int length) {
+        return length == getChunkLength(chunk)
+                && chunkHashes[chunk].equals(Hashing.sha1().hashBytes(data, 0, length).toString());
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.file.remote;
+
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.util.ConfigurableThreadFactory;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static sorcer.util.StringUtils.tName;
+
+/**
+ * Downloads a file described by a {@link ChunkManifest} with parallel HTTP Range requests.
+ * <p/>
+ * Each chunk is verified against its hash, retried if it's invalid, and written at its position in the target
+ * file. Chunks already present in the target file, left by an interrupted download, are verified and not
+ * downloaded again. The first missing chunk is requested alone: if the server ignores the Range header, the whole
+ * file of its response is written in one stream and no further requests are made.
+ */
+public class ChunkedDownloader {
+    private static final Logger log = LoggerFactory.getLogger(ChunkedDownloader.class);
+
+    private static final int RETRIES = 3;
+    private static final int TIMEOUT = (int) TimeUnit.MINUTES.toMillis(1);
+
+    private final URL url;
+    private final ChunkManifest manifest;
+    private final int threads;
+
+    public ChunkedDownloader(URL url, ChunkManifest manifest, int threads) {
+        this.url = url;
+        this.manifest = manifest;
+        this.threads = Math.max(1, threads);
+    }
+
+    public void download(File target) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(target, "rw");
+        try {
+            List<Integer> missing = getMissingChunks(file);
+            file.setLength(manifest.getLength());
+            if (missing.isEmpty())
+                return;
+            if (missing.size() < manifest.getChunkCount())
+                log.info("Resuming download of {}, {} of {} chunks missing",
+                        url, missing.size(), manifest.getChunkCount());
+            try {
+                if (!fetchFirst(file, missing.get(0)) || missing.size() == 1)
+                    return;
+                fetch(file.getChannel(), missing.subList(1, missing.size()));
+            } catch (RangeNotSupportedException e) {
+                // the server stopped honoring Range requests
+                log.info("{} does not support Range requests, downloading the whole file", url);
+                HttpURLConnection connection = open(0, manifest.getLength());
+                writeWhole(file, connection);
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Fetch the chunk with a single request to find out whether the server supports Range requests. If it
+     * sends the whole file instead, the file is written from that response.
+     *
+     * @return false if the whole file was written
+     */
+    private boolean fetchFirst(RandomAccessFile file, int chunk) throws IOException {
+        long start = manifest.getChunkStart(chunk);
+        byte[] data = new byte[manifest.getChunkLength(chunk)];
+        HttpURLConnection connection = open(start, data.length);
+        try {
+            read(connection, start, data);
+        } catch (RangeNotSupportedException e) {
+            log.info("{} does not support Range requests, downloading the whole file", url);
+            writeWhole(file, connection);
+            return false;
+        } catch (IOException e) {
+            log.warn("Could not download chunk {} of {}", chunk, url, e);
+            fetch(file.getChannel(), chunk);
+            return true;
+        }
+        if (manifest.isValid(chunk, data, data.length))
+            write(file.getChannel(), start, data);
+        else
+            fetch(file.getChannel(), chunk);
+        return true;
+    }
+
+    private void writeWhole(RandomAccessFile file, HttpURLConnection connection) throws IOException {
+        int code = connection.getResponseCode();
+        if (code != HttpURLConnection.HTTP_OK)
+            throw new IOException("Unexpected response " + code + " " + connection.getResponseMessage()
+                    + " from " + url);
+        InputStream in = connection.getInputStream();
+        try {
+            file.seek(0);
+            ByteStreams.copy(in, Channels.newOutputStream(file.getChannel()));
+        } finally {
+            in.close();
+        }
+    }
+
+    private List<Integer> getMissingChunks(RandomAccessFile file) throws IOException {
+        long existing = Math.min(file.length(), manifest.getLength());
+        List<Integer> missing = new ArrayList<Integer>();
+        byte[] buffer = null;
+        for (int chunk = 0; chunk < manifest.getChunkCount(); chunk++) {
+            long start = manifest.getChunkStart(chunk);
+            int length = manifest.getChunkLength(chunk);
+            if (start + length <= existing) {
+                if (buffer == null)
+                    buffer = new byte[manifest.getChunkSize()];
+                file.seek(start);
+                file.readFully(buffer, 0, length);
+                if (manifest.isValid(chunk, buffer, length))
+                    continue;
+            }
+            missing.add(chunk);
+        }
+        return missing;
+    }
+
+    private void fetch(final FileChannel channel, List<Integer> chunks) throws IOException {
+        ConfigurableThreadFactory factory = new ConfigurableThreadFactory();
+        factory.setNameFormat(tName("RemoteFile-download-%2$d"));
+        factory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, chunks.size()), factory);
+        try {
+            CompletionService<Integer> completion = new ExecutorCompletionService<Integer>(executor);
+            for (final Integer chunk : chunks)
+                completion.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        fetch(channel, chunk);
+                        return chunk;
+                    }
+                });
+            for (int i = 0; i < chunks.size(); i++)
+                completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + url);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IOException("Could not download " + url, cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void fetch(FileChannel channel, int chunk) throws IOException {
+        long start = manifest.getChunkStart(chunk);
+        byte[] data = new byte[manifest.getChunkLength(chunk)];
+        IOException failure = null;
+        for (int attempt = 1; attempt <= RETRIES; attempt++) {
+            try {
+                HttpURLConnection connection = open(start, data.length);
+                try {
+                    read(connection, start, data);
+                } catch (RangeNotSupportedException e) {
+                    connection.disconnect();
+                    throw e;
+                }
+                if (manifest.isValid(chunk, data, data.length)) {
+                    write(channel, start, data);
+                    return;
+                }
+                failure = new IOException("Invalid hash of chunk " + chunk + " of " + url);
+            } catch (RangeNotSupportedException e) {
+                throw e;
+            } catch (IOException e) {
+                failure = e;
+            }
+            log.warn("Could not download chunk {} of {}, attempt {}", chunk, url, attempt, failure);
+        }
+        throw failure;
+    }
+
+    private static void write(FileChannel channel, long start, byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining())
+            channel.write(buffer, start + buffer.position());
+    }
+
+    private HttpURLConnection open(long start, long length) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        if (start > 0 || length < manifest.getLength())
+            connection.setRequestProperty("Range", "bytes=" + start + "-" + (start + length - 1));
+        return connection;
+    }
+
+    /**
+     * Read the chunk from the response. If the server sent the whole file, the connection is left open for
+     * {@link #writeWhole} and {@link RangeNotSupportedException} is thrown.
+     */
+    private void read(HttpURLConnection connection, long start, byte[] data) throws IOException {
+        int code = connection.getResponseCode();
+        // a whole file response is fine for a file of a single chunk
+        boolean whole = code == HttpURLConnection.HTTP_OK && start == 0 && data.length == manifest.getLength();
+        if (code != HttpURLConnection.HTTP_PARTIAL && !whole) {
+            if (code == HttpURLConnection.HTTP_OK)
+                throw new RangeNotSupportedException();
+            String message = connection.getResponseMessage();
+            connection.disconnect();
+            throw new IOException("Unexpected response " + code + " " + message + " from " + url);
+        }
+        InputStream in = connection.getInputStream();
+        try {
+            ByteStreams.readFully(in, data);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static class RangeNotSupportedException extends IOException {
+        private static final long serialVersionUID = -2416187425138541316L;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.file.remote;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.core.SorcerEnv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Content-addressed cache of remote files, shared by the JVMs of a host.
+ * <p/>
+ * Files are stored under their SHA-1 checksum and verified once, when they are added to the cache. Concurrent
+ * requests for the same file wait for a single download, also in other JVMs, and the cached file itself is returned
+ * to the callers, so it must not be modified. The partial file of an interrupted download is kept, so the
+ * {@link Loader} can resume it. When the cache grows above its size limit, the least recently used files are removed.
+ * Files handed out or used within the minimum age are never removed, so a running task keeps the file it was given.
+ * <p/>
+ * Configured with the {@value #CACHE_DIR}, {@value #CACHE_SIZE} (in bytes) and {@value #CACHE_MIN_AGE} (in
+ * milliseconds, one hour by default) properties.
+ */
+public class RemoteFileCache {
+    final private static Logger log = LoggerFactory.getLogger(RemoteFileCache.class);
+
+    final public static String CACHE_DIR = "remote.file.cache.dir";
+    final public static String CACHE_SIZE = "remote.file.cache.size";
+    final public static long CACHE_SIZE_DEFAULT = 10L * 1024 * 1024 * 1024;
+    final public static String CACHE_MIN_AGE = "remote.file.cache.minAge";
+    final public static long CACHE_MIN_AGE_DEFAULT = TimeUnit.HOURS.toMillis(1);
+
+    final private static String PART_SUFFIX = ".part";
+    final private static String LOCK_SUFFIX = ".lock";
+    // interrupted loads are kept for a day to be resumed
+    final private static long PART_TTL = TimeUnit.DAYS.toMillis(1);
+
+    private static RemoteFileCache instance;
+
+    private final File root;
+    private final long maxSize;
+    private final long minAge;
+    private final ConcurrentMap<String, FutureTask<File>> loading = new ConcurrentHashMap<String, FutureTask<File>>();
+    // time files were last handed out by this JVM, also protecting files whose modification time can't be updated
+    private final ConcurrentMap<File, Long> leases = new ConcurrentHashMap<File, Long>();
+
+    public RemoteFileCache(File root, long maxSize) {
+        this(root, maxSize, CACHE_MIN_AGE_DEFAULT);
+    }
+
+    public RemoteFileCache(File root, long maxSize, long minAge) {
+        this.root = root;
+        this.maxSize = maxSize;
+        this.minAge = minAge;
+    }
+
+    public static synchronized RemoteFileCache getInstance() {
+        if (instance == null) {
+            File home = SorcerEnv.getHomeDir();
+            String dir = SorcerEnv.getProperty(CACHE_DIR);
+            File root;
+            if (dir != null)
+                root = new File(dir);
+            else if (home != null)
+                root = new File(home, "cache/files");
+            else
+                root = new File(FileUtils.getTempDirectory(), "sorcer-file-cache");
+            instance = new RemoteFileCache(root, getLongProperty(CACHE_SIZE, CACHE_SIZE_DEFAULT),
+                    getLongProperty(CACHE_MIN_AGE, CACHE_MIN_AGE_DEFAULT));
+        }
+        return instance;
+    }
+
+    /**
+     * Writes the content of a file missing in the cache. The target file may contain the data written by an
+     * interrupted load of the same file.
+     */
+    public interface Loader {
+        void load(File target) throws IOException;
+    }
+
+    /**
+     * Return the cached file with the given checksum, loading it if it's not in the cache.
+     *
+     * @throws IOException if the file could not be loaded or the loaded file has a different checksum
+     */
+    public File get(final String checksum, final Loader loader) throws IOException {
+        File file = getPath(checksum);
+        if (file.isFile()) {
+            touch(file);
+            // evicted concurrently by another JVM
+            if (file.isFile())
+                return file;
+        }
+        FutureTask<File> task = new FutureTask<File>(new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                return load(checksum, loader);
+            }
+        });
+        FutureTask<File> current = loading.putIfAbsent(checksum, task);
+        if (current == null) {
+            current = task;
+            try {
+                task.run();
+            } finally {
+                loading.remove(checksum, task);
+            }
+        }
+        try {
+            return current.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading " + checksum);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IOException("Could not load " + checksum, cause);
+        }
+    }
+
+    public boolean contains(String checksum) {
+        return getPath(checksum).isFile();
+    }
+
+    public File getPath(String checksum) {
+        return new File(new File(root, checksum.substring(0, 2)), checksum);
+    }
+
+    private File load(String checksum, Loader loader) throws IOException {
+        File file = getPath(checksum);
+        File dir = file.getParentFile();
+        FileUtils.forceMkdir(dir);
+        // the lock file is removed once the file is cached, so a JVM waiting for the lock finds the cached file
+        File lockFile = new File(dir, checksum + LOCK_SUFFIX);
+        RandomAccessFile lockAccess = new RandomAccessFile(lockFile, "rw");
+        try {
+            FileLock lock = lockAccess.getChannel().lock();
+            try {
+                if (!file.isFile())
+                    load(checksum, loader, file);
+                touch(file);
+                lockFile.delete();
+            } finally {
+                lock.release();
+            }
+        } finally {
+            lockAccess.close();
+        }
+        evict(file);
+        return file;
+    }
+
+    private void load(String checksum, Loader loader, File file) throws IOException {
+        File part = new File(file.getParentFile(), checksum + PART_SUFFIX);
+        loader.load(part);
+        String actual = Files.hash(part, Hashing.sha1()).toString();
+        if (!checksum.equals(actual)) {
+            FileUtils.deleteQuietly(part);
+            throw new IOException("Loaded file has invalid checksum " + actual + ", expected " + checksum);
+        }
+        part.setReadOnly();
+        if (!part.renameTo(file)) {
+            FileUtils.deleteQuietly(part);
+            if (!file.isFile())
+                throw new IOException("Could not move " + part + " to " + file);
+        }
+        log.debug("Cached {}", file);
+    }
+
+    private void touch(File file) {
+        long now = System.currentTimeMillis();
+        leases.put(file, now);
+        if (!file.setLastModified(now))
+            log.debug("Could not update access time of {}", file);
+    }
+
+    private boolean isInUse(File file, long now) {
+        Long leased = leases.get(file);
+        if (leased != null && leased + minAge > now)
+            return true;
+        return file.lastModified() + minAge > now;
+    }
+
+    private static long getLongProperty(String key, long defaultValue) {
+        try {
+            return Long.parseLong(SorcerEnv.getProperty(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid {}, using {}", key, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Remove the least recently used files until the cache fits in its size limit. Files used within the minimum
+     * age are kept even if the cache stays above the limit.
+     */
+    synchronized void evict(File keep) {
+        File[] dirs = root.listFiles();
+        if (dirs == null)
+            return;
+        long now = System.currentTimeMillis();
+        List<File> files = new ArrayList<File>();
+        long size = 0;
+        for (File dir : dirs) {
+            File[] children = dir.listFiles();
+            if (children == null)
+                continue;
+            for (File file : children) {
+                String name = file.getName();
+                if (name.endsWith(LOCK_SUFFIX))
+                    continue;
+                if (name.endsWith(PART_SUFFIX)) {
+                    if (file.lastModified() + PART_TTL < now)
+                        FileUtils.deleteQuietly(file);
+                    continue;
+                }
+                files.add(file);
+                size += file.length();
+            }
+        }
+        // expired leases
+        for (Iterator<Map.Entry<File, Long>> it = leases.entrySet().iterator(); it.hasNext(); )
+            if (it.next().getValue() + minAge <= now)
+                it.remove();
+        if (size <= maxSize)
+            return;
+
+        Collections.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                long m1 = o1.lastModified();
+                long m2 = o2.lastModified();
+                return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+            }
+        });
+        for (Iterator<File> it = files.iterator(); it.hasNext() && size > maxSize; ) {
+            File file = it.next();
+            if (file.equals(keep) || isInUse(file, now))
+                continue;
+            long length = file.length();
+            if (file.delete()) {
+                log.info("Evicted {} from the file cache", file);
+                leases.remove(file);
+                size -= length;
+            }
+        }
+    }
+}
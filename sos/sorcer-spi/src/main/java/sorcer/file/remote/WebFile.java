@@ -17,54 +17,124 @@
 package sorcer.file.remote;
 
 import com.google.common.io.Closer;
+import com.google.common.io.Files;
 import com.google.common.io.Resources;
+import org.apache.commons.io.FileUtils;
 import sorcer.core.SorcerEnv;
-import sorcer.file.ScratchDirManager;
+import sorcer.service.EvaluationException;
 import sorcer.util.IOUtils;
 
 import java.io.*;
 import java.net.URL;
+import java.util.UUID;
 
 /**
  * Remote file that is copied over web using webster data appliance.
+ * <p/>
+ * The file is published in the data directory under its checksum and downloaded to the {@link RemoteFileCache} of
+ * the host, so identical files are transferred once. Downloads are split in chunks fetched in parallel with Range
+ * requests and verified one by one, so an interrupted download is resumed by the next request of the file.
  *
  * @author Rafał Krupiński
  */
 public class WebFile extends AbstractRemoteFile implements Serializable {
     private static final long serialVersionUID = -3333474650265576280L;
+    private static final String PUBLISH_DIR = "remote-files";
+
+    public static final String CHUNK_SIZE = "remote.file.chunk.size";
+    public static final int CHUNK_SIZE_DEFAULT = 8 * 1024 * 1024;
+    public static final String DOWNLOAD_THREADS = "remote.file.download.threads";
+    public static final int DOWNLOAD_THREADS_DEFAULT = 4;
+
     private final File dataDir;
     private URL remoteUrl;
+    // null in instances serialized by older versions
+    private ChunkManifest manifest;
 
     public WebFile(File dataDir, File localFile) throws IOException {
-        super(localFile);
+        this(dataDir, localFile, ChunkManifest.create(localFile, getIntProperty(CHUNK_SIZE, CHUNK_SIZE_DEFAULT)));
+    }
+
+    private WebFile(File dataDir, File localFile, ChunkManifest manifest) throws IOException {
+        super(manifest.getChecksum());
         this.dataDir = dataDir;
+        this.manifest = manifest;
         setLocalFile(localFile);
     }
 
+    /**
+     * Return the file from the local file cache, downloading it if it's not cached. The checksum is verified by
+     * the cache when the file is downloaded.
+     */
+    @Override
+    public File getValue() throws EvaluationException {
+        try {
+            return doGetFile();
+        } catch (IOException e) {
+            throw new EvaluationException("Error getting file", e);
+        }
+    }
+
     @Override
     protected File doGetFile() throws IOException {
-        File localFile = getLocalPath();
+        return RemoteFileCache.getInstance().get(checksum, new RemoteFileCache.Loader() {
+            @Override
+            public void load(File target) throws IOException {
+                download(target);
+            }
+        });
+    }
+
+    protected void download(File target) throws IOException {
+        if (manifest != null) {
+            int threads = getIntProperty(DOWNLOAD_THREADS, DOWNLOAD_THREADS_DEFAULT);
+            new ChunkedDownloader(remoteUrl, manifest, threads).download(target);
+            return;
+        }
         Closer closer = Closer.create();
         try {
-            FileOutputStream local = closer.register(new FileOutputStream(localFile));
+            FileOutputStream local = closer.register(new FileOutputStream(target));
             Resources.copy(remoteUrl, local);
         } finally {
             closer.close();
         }
-        return localFile;
     }
 
     @Override
     protected File getLocalPath() {
-        File parent = new ScratchDirManager().getNewScratchDir("remote-file");
-        return new File(parent, checksum);
+        return RemoteFileCache.getInstance().getPath(checksum);
     }
 
     protected void setLocalFile(File localFile) throws IOException {
-        if (!IOUtils.isChild(dataDir, localFile)) {
-            File my = new File(dataDir, localFile.getName());
-            IOUtils.copyLarge(new FileInputStream(localFile), new FileOutputStream(my));
-            remoteUrl = SorcerEnv.getDataURL(my);
+        File published = IOUtils.isChild(dataDir, localFile) ? localFile : publish(localFile);
+        remoteUrl = SorcerEnv.getDataURL(published);
+    }
+
+    /**
+     * Copy the file to the data directory under its checksum, unless it has been published already
+     */
+    private File publish(File localFile) throws IOException {
+        File dir = new File(dataDir, PUBLISH_DIR);
+        File published = new File(dir, checksum);
+        if (published.isFile() && published.length() == localFile.length())
+            return published;
+        FileUtils.forceMkdir(dir);
+        File temp = new File(dir, checksum + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.copy(localFile, temp);
+            if (!temp.renameTo(published) && !published.isFile())
+                throw new IOException("Could not move " + temp + " to " + published);
+        } finally {
+            FileUtils.deleteQuietly(temp);
+        }
+        return published;
+    }
+
+    private static int getIntProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(SorcerEnv.getProperty(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
         }
     }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.file.remote;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ChunkManifestTest {
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("chunk-manifest-test", ".bin");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(file);
+    }
+
+    @Test
+    public void testChunksOfPartialLastChunk() throws Exception {
+        byte[] content = content(25);
+        Files.write(content, file);
+        ChunkManifest manifest = ChunkManifest.create(file, 10);
+
+        assertEquals(25, manifest.getLength());
+        assertEquals(10, manifest.getChunkSize());
+        assertEquals(3, manifest.getChunkCount());
+        assertEquals(Hashing.sha1().hashBytes(content).toString(), manifest.getChecksum());
+        for (int chunk = 0; chunk < 3; chunk++) {
+            assertEquals(chunk * 10L, manifest.getChunkStart(chunk));
+            assertEquals(chunk < 2 ? 10 : 5, manifest.getChunkLength(chunk));
+            byte[] data = Arrays.copyOfRange(content, chunk * 10, Math.min(25, chunk * 10 + 10));
+            assertEquals(Hashing.sha1().hashBytes(data).toString(), manifest.getChunkHash(chunk));
+        }
+    }
+
+    @Test
+    public void testChunksOfExactMultiple() throws Exception {
+        Files.write(content(20), file);
+        ChunkManifest manifest = ChunkManifest.create(file, 10);
+
+        assertEquals(2, manifest.getChunkCount());
+        assertEquals(10, manifest.getChunkLength(1));
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        ChunkManifest manifest = ChunkManifest.create(file, 10);
+
+        assertEquals(0, manifest.getLength());
+        assertEquals(0, manifest.getChunkCount());
+        assertEquals(Hashing.sha1().hashBytes(new byte[0]).toString(), manifest.getChecksum());
+    }
+
+    @Test
+    public void testIsValid() throws Exception {
+        byte[] content = content(25);
+        Files.write(content, file);
+        ChunkManifest manifest = ChunkManifest.create(file, 10);
+
+        byte[] last = Arrays.copyOfRange(content, 20, 25);
+        assertTrue(manifest.isValid(2, last, last.length));
+        assertFalse("chunk hash of another chunk", manifest.isValid(1, last, last.length));
+        assertFalse("short chunk", manifest.isValid(2, last, last.length - 1));
+        last[0] ^= 1;
+        assertFalse("corrupted chunk", manifest.isValid(2, last, last.length));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidChunkSize() throws Exception {
+        ChunkManifest.create(file, 0);
+    }
+
+    static byte[] content(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++)
+            content[i] = (byte) (i * 31 + 7);
+        return content;
+    }
+}
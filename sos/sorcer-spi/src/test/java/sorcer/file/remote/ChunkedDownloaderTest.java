@@ -0,0 +1,206 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.file.remote;
+
+import com.google.common.io.Files;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Downloads from an in-process HTTP server that serves byte ranges, optionally corrupting some of them.
+ */
+public class ChunkedDownloaderTest {
+    private static final int CHUNK = 10;
+
+    private final byte[] content = ChunkManifestTest.content(95);
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    // remaining corrupted responses by the first byte of the range
+    private final Map<Integer, Integer> corruptions = new HashMap<Integer, Integer>();
+    private volatile boolean ranges = true;
+
+    private ExecutorService executor;
+    private HttpServer server;
+    private File source;
+    private File target;
+    private ChunkManifest manifest;
+
+    @Before
+    public void setUp() throws Exception {
+        source = File.createTempFile("chunked-downloader-test", ".src");
+        target = File.createTempFile("chunked-downloader-test", ".part");
+        FileUtils.deleteQuietly(target);
+        Files.write(content, source);
+        manifest = ChunkManifest.create(source, CHUNK);
+
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/file", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+        executor.shutdownNow();
+        FileUtils.deleteQuietly(source);
+        FileUtils.deleteQuietly(target);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        requests.add(range);
+        byte[] body = content;
+        int code = 200;
+        if (range != null && ranges) {
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int first = Integer.parseInt(bounds[0]);
+            int last = Integer.parseInt(bounds[1]);
+            body = Arrays.copyOfRange(content, first, last + 1);
+            if (corrupt(first))
+                body[0] ^= 1;
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+            code = 206;
+        }
+        exchange.sendResponseHeaders(code, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    private boolean corrupt(int first) {
+        synchronized (corruptions) {
+            Integer remaining = corruptions.get(first);
+            if (remaining == null || remaining == 0)
+                return false;
+            corruptions.put(first, remaining - 1);
+            return true;
+        }
+    }
+
+    private void download() throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/file");
+        new ChunkedDownloader(url, manifest, 4).download(target);
+    }
+
+    private static String range(int chunk) {
+        int first = chunk * CHUNK;
+        return "bytes=" + first + "-" + Math.min(first + CHUNK - 1, 94);
+    }
+
+    @Test
+    public void testDownloadInChunks() throws Exception {
+        download();
+
+        assertArrayEquals(content, Files.toByteArray(target));
+        assertEquals(10, requests.size());
+        Set<String> expected = new HashSet<String>();
+        for (int chunk = 0; chunk < 10; chunk++)
+            expected.add(range(chunk));
+        assertEquals(expected, new HashSet<String>(requests));
+    }
+
+    @Test
+    public void testResumeFetchesOnlyMissingChunks() throws Exception {
+        // chunks 0 to 3 present, chunk 4 partial, chunk 1 damaged
+        byte[] partial = Arrays.copyOf(content, 45);
+        partial[15] ^= 1;
+        FileOutputStream out = new FileOutputStream(target);
+        out.write(partial);
+        out.close();
+
+        download();
+
+        assertArrayEquals(content, Files.toByteArray(target));
+        Set<String> expected = new HashSet<String>();
+        expected.add(range(1));
+        for (int chunk = 4; chunk < 10; chunk++)
+            expected.add(range(chunk));
+        assertEquals(expected.size(), requests.size());
+        assertEquals(expected, new HashSet<String>(requests));
+    }
+
+    @Test
+    public void testCompleteFileIsNotFetched() throws Exception {
+        Files.write(content, target);
+
+        download();
+
+        assertArrayEquals(content, Files.toByteArray(target));
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    public void testBadChunkIsRetried() throws Exception {
+        // the first chunk is probed alone, the other ones in parallel
+        corruptions.put(0, 1);
+        corruptions.put(30, 2);
+
+        download();
+
+        assertArrayEquals(content, Files.toByteArray(target));
+        assertEquals(2, Collections.frequency(requests, range(0)));
+        assertEquals(3, Collections.frequency(requests, range(3)));
+        assertEquals(1, Collections.frequency(requests, range(4)));
+    }
+
+    @Test
+    public void testBadChunkFailsAfterRetries() throws Exception {
+        corruptions.put(30, Integer.MAX_VALUE);
+
+        try {
+            download();
+            fail("Corrupted chunk accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("chunk 3"));
+        }
+        assertEquals(3, Collections.frequency(requests, range(3)));
+    }
+
+    @Test
+    public void testServerIgnoringRange() throws Exception {
+        ranges = false;
+
+        download();
+
+        assertArrayEquals(content, Files.toByteArray(target));
+        assertEquals(Collections.singletonList(range(0)), requests);
+    }
+}
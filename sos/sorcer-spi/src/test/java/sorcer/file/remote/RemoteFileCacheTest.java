@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.file.remote;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RemoteFileCacheTest {
+    private File root;
+
+    @Before
+    public void setUp() throws Exception {
+        root = new File(FileUtils.getTempDirectory(), "remote-file-cache-test");
+        FileUtils.deleteDirectory(root);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(root);
+    }
+
+    @Test
+    public void testConcurrentGetLoadsOnce() throws Exception {
+        final RemoteFileCache cache = new RemoteFileCache(root, 1024);
+        final AtomicInteger loads = new AtomicInteger();
+        final byte[] content = "0123456789".getBytes();
+        final String checksum = checksum(content);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<File>> results = new ArrayList<Future<File>>();
+        for (int i = 0; i < 4; i++)
+            results.add(executor.submit(new Callable<File>() {
+                @Override
+                public File call() throws Exception {
+                    return cache.get(checksum, new RemoteFileCache.Loader() {
+                        @Override
+                        public void load(File target) throws IOException {
+                            loads.incrementAndGet();
+                            try {
+                                Thread.sleep(200);
+                            } catch (InterruptedException ignored) {
+                            }
+                            Files.write(content, target);
+                        }
+                    });
+                }
+            }));
+        for (Future<File> result : results)
+            assertEquals(cache.getPath(checksum), result.get());
+        executor.shutdown();
+
+        assertEquals(1, loads.get());
+        assertTrue(cache.contains(checksum));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidChecksum() throws Exception {
+        RemoteFileCache cache = new RemoteFileCache(root, 1024);
+        String checksum = checksum("expected".getBytes());
+        try {
+            get(cache, "actual".getBytes(), checksum);
+        } finally {
+            assertFalse(cache.contains(checksum));
+        }
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        RemoteFileCache cache = new RemoteFileCache(root, 20, 0);
+        byte[] a = "content-a".getBytes();
+        byte[] b = "content-b".getBytes();
+        byte[] c = "content-c".getBytes();
+        get(cache, a, checksum(a)).setLastModified(System.currentTimeMillis() - 2000);
+        get(cache, b, checksum(b)).setLastModified(System.currentTimeMillis() - 1000);
+        get(cache, c, checksum(c));
+
+        assertFalse(cache.contains(checksum(a)));
+        assertTrue(cache.contains(checksum(b)));
+        assertTrue(cache.contains(checksum(c)));
+    }
+
+    @Test
+    public void testKeepRecentlyHandedOut() throws Exception {
+        RemoteFileCache cache = new RemoteFileCache(root, 20, 60000);
+        byte[] a = "content-a".getBytes();
+        byte[] b = "content-b".getBytes();
+        byte[] c = "content-c".getBytes();
+        // handed out to a running task, even if its modification time is old
+        get(cache, a, checksum(a)).setLastModified(System.currentTimeMillis() - 120000);
+        get(cache, b, checksum(b));
+        get(cache, c, checksum(c));
+
+        assertTrue(cache.contains(checksum(a)));
+        assertTrue(cache.contains(checksum(b)));
+        assertTrue(cache.contains(checksum(c)));
+    }
+
+    private static File get(RemoteFileCache cache, final byte[] content, String checksum) throws IOException {
+        return cache.get(checksum, new RemoteFileCache.Loader() {
+            @Override
+            public void load(File target) throws IOException {
+                Files.write(content, target);
+            }
+        });
+    }
+
+    private static String checksum(byte[] content) {
+        return Hashing.sha1().hashBytes(content).toString();
+    }
+}
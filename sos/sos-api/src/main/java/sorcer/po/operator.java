@@ -339,6 +339,14 @@ public class operator {
 		return new ExertInvoker(exertion);
 	}
 	
+	/**
+	 * Declares the invoker a function of its pars, so its value is reused by
+	 * the par model while the values of its pars are unchanged.
+	 */
+	public static ServiceInvoker functional(ServiceInvoker invoker) {
+		return invoker.setFunctional(true);
+	}
+	
 	public static InvokeIncrementor inc(String name, Invocation invoker) {
 		return new InvokeIncrementor(name, invoker, 1);
 	}
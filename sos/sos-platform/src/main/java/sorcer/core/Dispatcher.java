@@ -16,12 +16,22 @@
  */
 package sorcer.core;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import net.jini.lease.LeaseRenewalManager;
 
 public interface Dispatcher {
     void exec();
+
+    /**
+     * Block until the dispatcher reaches a final state (DONE or FAILED).
+     */
     DispatchResult getResult();
 
+    /**
+     * @return a future completed as soon as the dispatcher reaches a final state (DONE or FAILED)
+     */
+    ListenableFuture<DispatchResult> getResultFuture();
+
     LeaseRenewalManager getLrm();
     void setLrm(LeaseRenewalManager lrm);
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.context;
+
+import java.util.*;
+
+/**
+ * Metacontext table of a singleton attribute (key: path, value: attribute value) with an inverted index of
+ * attribute values to paths, so the paths marked with a value are found without scanning the table.
+ * <p/>
+ * The index is maintained by {@link #put(String, String)} and {@link #remove(Object)}; it's transient and rebuilt
+ * on first use after deserialization or cloning.
+ */
+public class AttributeTable extends Hashtable<String, String> {
+    private static final long serialVersionUID = -3962871049335106733L;
+
+    // attribute value -> paths
+    private transient Map<String, Set<String>> index;
+
+    public AttributeTable() {
+        super();
+    }
+
+    public AttributeTable(Map<String, String> table) {
+        super(table);
+    }
+
+    /**
+     * @return paths marked with the attribute value, using the index if the table is an {@link AttributeTable}
+     */
+    public static List<String> getPaths(Map values, String value) {
+        if (values instanceof AttributeTable)
+            return ((AttributeTable) values).getPaths(value);
+        List<String> paths = new ArrayList<String>();
+        for (Object key : values.keySet())
+            if (value.equals(values.get(key)))
+                paths.add((String) key);
+        return paths;
+    }
+
+    public synchronized List<String> getPaths(String value) {
+        if (index == null)
+            buildIndex();
+        Set<String> paths = index.get(value);
+        if (paths == null)
+            return new ArrayList<String>(0);
+        List<String> result = new ArrayList<String>(paths.size());
+        // skip entries removed through the views of the table
+        for (String path : paths)
+            if (value.equals(super.get(path)))
+                result.add(path);
+        return result;
+    }
+
+    @Override
+    public synchronized String put(String path, String value) {
+        String old = super.put(path, value);
+        if (index != null) {
+            if (old != null)
+                unindex(path, old);
+            index(path, value);
+        }
+        return old;
+    }
+
+    @Override
+    public synchronized String remove(Object path) {
+        String old = super.remove(path);
+        if (old != null && index != null)
+            unindex((String) path, old);
+        return old;
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        index = null;
+    }
+
+    @Override
+    public synchronized Object clone() {
+        AttributeTable clone = (AttributeTable) super.clone();
+        clone.index = null;
+        return clone;
+    }
+
+    private void buildIndex() {
+        index = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, String> entry : entrySet())
+            index(entry.getKey(), entry.getValue());
+    }
+
+    private void index(String path, String value) {
+        Set<String> paths = index.get(value);
+        if (paths == null) {
+            paths = new LinkedHashSet<String>();
+            index.put(value, paths);
+        }
+        paths.add(path);
+    }
+
+    private void unindex(String path, String value) {
+        Set<String> paths = index.get(value);
+        if (paths != null) {
+            paths.remove(path);
+            if (paths.isEmpty())
+                index.remove(value);
+        }
+    }
+}
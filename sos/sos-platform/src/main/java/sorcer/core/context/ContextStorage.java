@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.context;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Storage engine of the path/value entries of a {@link ServiceContext}.
+ * <p/>
+ * The default storage is selected with the {@value #STORAGE_PROPERTY} system property and may be changed per
+ * context with {@link ServiceContext#setStorage(ContextStorage)}. All engines other than {@link #HASHTABLE}
+ * store the entries outside of the {@link java.util.Hashtable} the context extends, so only the Java 6
+ * {@link java.util.Hashtable} API and the Java 8 getOrDefault, putIfAbsent, remove and replace methods are
+ * supported for them; compute, merge, forEach and replaceAll still see the empty superclass table.
+ */
+public enum ContextStorage {
+    /**
+     * Synchronized storage of the {@link java.util.Hashtable} superclass
+     */
+    HASHTABLE,
+
+    /**
+     * Unsynchronized hash map, for contexts confined to a single thread
+     */
+    HASH,
+
+    /**
+     * Unsynchronized sorted map, for contexts confined to a single thread and queried by path prefixes
+     */
+    SORTED,
+
+    /**
+     * Concurrent skip list, for contexts shared between threads and queried by path prefixes; values can't be null
+     */
+    CONCURRENT;
+
+    public static final String STORAGE_PROPERTY = "sorcer.context.storage";
+
+    private static final ContextStorage defaultStorage = valueOf(System.getProperty(STORAGE_PROPERTY,
+            HASHTABLE.name()).toUpperCase());
+
+    public static ContextStorage getDefault() {
+        return defaultStorage;
+    }
+
+    /**
+     * @return new map holding the entries, or null for the {@link #HASHTABLE} storage
+     */
+    public <T> Map<String, T> newMap() {
+        switch (this) {
+            case HASH:
+                return new HashMap<String, T>();
+            case SORTED:
+                return new TreeMap<String, T>();
+            case CONCURRENT:
+                return new ConcurrentSkipListMap<String, T>();
+            default:
+                return null;
+        }
+    }
+}
@@ -62,11 +62,16 @@ public class Contexts {
 			throws ContextException {
 		String path;
 		List ids = new ArrayList();
-		Enumeration e = context.contextPaths();
-		while (e.hasMoreElements()) {
-			path = (String) e.nextElement();
-			if (path.startsWith(subpath))
-				ids.add(context.getValue(path));
+		if (context instanceof ServiceContext) {
+			for (String p : ((ServiceContext<?>) context).getPathsStartsWith(subpath))
+				ids.add(context.getValue(p));
+		} else {
+			Enumeration e = context.contextPaths();
+			while (e.hasMoreElements()) {
+				path = (String) e.nextElement();
+				if (path.startsWith(subpath))
+					ids.add(context.getValue(path));
+			}
 		}
 		if (ids.size() > 0)
 			return ids;
@@ -653,7 +658,7 @@ public class Contexts {
 
 	public static String[] getMarkedPaths(Context cntxt, String association)
 			throws ContextException {
-		String attr, value, key;
+		String attr, value;
 		Hashtable values;
 		// java 1.4.0 regex
 		// Pattern p;
@@ -674,17 +679,7 @@ public class Contexts {
 			values = (Hashtable) cntxt.getMetacontext().get(attr);
 			if (values != null) { // if there are no attributes set,
 				// values==null;
-				Enumeration e = values.keys();
-				while (e.hasMoreElements()) {
-					key = (String) e.nextElement();
-					/*
-					 * java 1.4.0 regex p = Pattern.compile(value); m =
-					 * p.matcher((String)values.get(key)); if (m.find())
-					 * keys.addElement(key);
-					 */
-					if (values.get(key).equals(value))
-						keys.addElement(key);
-				}
+				keys.addAll(AttributeTable.getPaths(values, value));
 			}
 		} else {
 			// it is a metaattribute
@@ -698,55 +693,21 @@ public class Contexts {
 							+ association + "\"  metaattribute \"" + attr
 							+ "\" is defined with metapath =\"" + metapath
 							+ "\"");
-				String[][] paths = new String[attrs.length][];
-				int ii = -1;
+				// the matches are the paths common to all elements of
+				// the metapath
+				Set<String> matches = null;
 				for (int i = 0; i < attrs.length; i++) {
-					paths[i] = getMarkedPaths(cntxt, attrs[i]
+					String[] paths = getMarkedPaths(cntxt, attrs[i]
 							+ APS + vals[i]);
-					if (paths[i] == null) {
-						ii = -1;
+					if (matches == null)
+						matches = new LinkedHashSet<String>(Arrays.asList(paths));
+					else
+						matches.retainAll(new HashSet<String>(Arrays.asList(paths)));
+					if (matches.isEmpty())
 						break; // i.e. no possible match
-					}
-					if (ii < 0 || paths[i].length > paths[ii].length) {
-						ii = i;
-					}
-				}
-
-				if (ii >= 0) {
-					// The common paths across the paths[][] array are
-					// matches. Said another way, the paths[][] array
-					// contains all the paths that match attributes in the
-					// metapath. paths[0][] are the matches for the first
-					// element of the metapath, paths[1][] for the next,
-					// etc. Therefore, the matches that are common for
-					// each element of the metapath are the ones in which
-					// we have interest.
-					String candidate;
-					int match, thisMatch;
-					// go through each element of one with most matches
-					for (int i = 0; i < paths[ii].length; i++) {
-						candidate = paths[ii][i];
-						// now look for paths.length-1 matches...
-						match = 0;
-						for (int j = 0; j < paths.length; j++) {
-							if (j == ii)
-								continue;
-							thisMatch = 0;
-							for (int k = 0; k < paths[j].length; k++)
-								if (candidate.equals(paths[j][k])) {
-									match++;
-									thisMatch++;
-									break;
-								}
-							if (thisMatch == 0)
-								break; // no possible match for this candidate
-						}
-						// System.out.println("candidate="+candidate+"
-						// match="+match+" required maches="+(paths.length-1));
-						if (match == paths.length - 1)
-							keys.addElement(candidate);
-					}
 				}
+				if (matches != null)
+					keys.addAll(matches);
 			}
 		}
 		// above we just checked the top-level context; next, check
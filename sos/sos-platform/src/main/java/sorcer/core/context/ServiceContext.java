@@ -18,6 +18,10 @@
 
 package sorcer.core.context;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OptionalDataException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.rmi.RemoteException;
@@ -149,6 +153,17 @@ public class ServiceContext<T> extends Hashtable<String, T> implements
 	 */
 	protected Hashtable metacontext;
 
+	/**
+	 * Storage engine of the path/value entries, serialized by writeObject
+	 */
+	protected transient ContextStorage storage;
+
+	/**
+	 * The path/value entries, null if stored by the Hashtable superclass;
+	 * serialized by writeObject
+	 */
+	protected transient Map<String, T> data;
+
 	protected Context blockScope;
 
 	/** The exertion that uses this context */
@@ -295,6 +310,8 @@ public class ServiceContext<T> extends Hashtable<String, T> implements
 	 * metacontext(att3:(path1:val3)) metacontext(att4:(path1:val4))
 	 */
 	private void init() {
+		storage = ContextStorage.getDefault();
+		data = storage.newMap();
 		metacontext = new Hashtable();
 		metacontext.put(SorcerConstants.CONTEXT_ATTRIBUTES, new Hashtable());
 
@@ -1218,7 +1235,7 @@ public class ServiceContext<T> extends Hashtable<String, T> implements
 			values = (Hashtable) cntxt.metacontext.get(attribute);
 			if (values == null) {
 				// the creation of this hashtable was delayed until now
-				values = new Hashtable();
+				values = new AttributeTable();
 				cntxt.metacontext.put(attribute, values);
 			}
 			values.put(mappedKey, attributeValue);
@@ -1278,15 +1295,7 @@ public class ServiceContext<T> extends Hashtable<String, T> implements
 			values = (Map)getMetacontext().get(attr);
 			if (values != null) { // if there are no attributes set,
 				// values==null;
-				for (Object key : values.keySet()) {
-					/*
-					 * java 1.4.0 regex p = Pattern.compile(value); m =
-					 * p.matcher((String)values.get(key)); if (m.find())
-					 * keys.addElement(key);
-					 */
-					if (values.get(key).equals(value))
-						keys.addElement(key);
-				}
+				keys.addAll(AttributeTable.getPaths(values, value));
 			}
 		} else {
 			// it is a metaattribute
@@ -1300,55 +1309,21 @@ public class ServiceContext<T> extends Hashtable<String, T> implements
 							+ association + "\"  metaattribute \"" + attr
 							+ "\" is defined with metapath =\"" + metapath
 							+ "\"");
-				Object[][] paths = new Object[attrs.length][];
-				Enumeration ps;
-				int ii = -1;
+				// the matches are the paths common to all elements of
+				// the metapath
+				Set<Object> matches = null;
 				for (int i = 0; i < attrs.length; i++) {
-					ps = markedPaths(attrs[i] + SorcerConstants.APS + vals[i]);
-					paths[i] = StringUtils.makeArray(ps);
-					if (paths[i] == null) {
-						ii = -1;
+					List<Object> ps = Collections.list(markedPaths(attrs[i]
+							+ SorcerConstants.APS + vals[i]));
+					if (matches == null)
+						matches = new LinkedHashSet<Object>(ps);
+					else
+						matches.retainAll(new HashSet<Object>(ps));
+					if (matches.isEmpty())
 						break; // i.e. no possible match
-					}
-					if (ii < 0 || paths[i].length > paths[ii].length) {
-						ii = i;
-					}
-				}
-				if (ii >= 0) {
-					// The common paths across the paths[][] array are
-					// matches. Said another way, the paths[][] array
-					// contains all the paths that match attributes in the
-					// metapath. paths[0][] are the matches for the first
-					// element of the metapath, paths[1][] for the next,
-					// etc. Therefore, the matches that are common for
-					// each element of the metapath are the ones in which
-					// we have interest.
-					String candidate;
-					int match, thisMatch;
-					// go through each element of one with most matches
-					for (int i = 0; i < paths[ii].length; i++) {
-						candidate = (String) paths[ii][i];
-						// now look for paths.length-1 matches...
-						match = 0;
-						for (int j = 0; j < paths.length; j++) {
-							if (j == ii)
-								continue;
-							thisMatch = 0;
-							for (int k = 0; k < paths[j].length; k++)
-								if (candidate.equals(paths[j][k])) {
-									match++;
-									thisMatch++;
-									break;
-								}
-							if (thisMatch == 0)
-								break; // no possible match for this candidate
-						}
-						// System.out.println("candidate="+candidate+"
-						// match="+match+" required maches="+(paths.length-1));
-						if (match == paths.length - 1)
-							keys.addElement(candidate);
-					}
 				}
+				if (matches != null)
+					keys.addAll(matches);
 			}
 		}
 		// above we just checked the top-level context; next, check
@@ -1451,31 +1426,77 @@ public class ServiceContext<T> extends Hashtable<String, T> implements
 	public List<String> getPaths() throws ContextException {
 		ArrayList<String> paths = new ArrayList<String>();
 		Enumeration e = keys();
-		String key, path;
-		Context subcntxt;
+		String key;
+		boolean sorted = data instanceof SortedMap;
 		while (e.hasMoreElements()) {
 			key = (String) e.nextElement();
 			if (get(key) instanceof Link) {
-				// follow link, add paths
-                Link link = (Link) get(key);
-				try {
-					subcntxt = getLinkedContext(link)
-							.getContext(link.getOffset());
-				} catch (RemoteException ex) {
-					throw new ContextException(ex);
-				}
-				// getSubcontext cuts above, which is what we want
-				Enumeration el = subcntxt.contextPaths();
-				while (el.hasMoreElements()) {
-					path = (String) el.nextElement();						
-					paths.add(key + CPS +path);
-				}
+				addLinkedPaths(key, (Link) get(key), paths);
+				sorted = false;
 			}
 			paths.add(key);
 		}
-		Collections.sort(paths);
+		// the keys of a sorted storage are already in order
+		if (!sorted)
+			Collections.sort(paths);
 		return paths;
 	}
+
+	/**
+	 * Returns the sorted list of paths starting with the given prefix. For the
+	 * sorted storage engines only the matching range of paths is visited.
+	 */
+	public List<String> getPathsStartsWith(String prefix) throws ContextException {
+		if (!(data instanceof NavigableMap)) {
+			List<String> paths = new ArrayList<String>();
+			for (String path : getPaths())
+				if (path.startsWith(prefix))
+					paths.add(path);
+			return paths;
+		}
+		NavigableMap<String, T> map = (NavigableMap<String, T>) data;
+		List<String> paths = new ArrayList<String>();
+		boolean sorted = true;
+		// links above the prefix
+		for (int i = prefix.indexOf(CPS); i > 0; i = prefix.indexOf(CPS, i + 1)) {
+			String ancestor = prefix.substring(0, i);
+			if (map.get(ancestor) instanceof Link) {
+				List<String> linked = new ArrayList<String>();
+				addLinkedPaths(ancestor, (Link) map.get(ancestor), linked);
+				for (String path : linked)
+					if (path.startsWith(prefix))
+						paths.add(path);
+				sorted = false;
+			}
+		}
+		for (Map.Entry<String, T> entry : map.subMap(prefix, true,
+				prefix + Character.MAX_VALUE, false).entrySet()) {
+			if (entry.getValue() instanceof Link) {
+				addLinkedPaths(entry.getKey(), (Link) entry.getValue(), paths);
+				sorted = false;
+			}
+			paths.add(entry.getKey());
+		}
+		if (!sorted)
+			Collections.sort(paths);
+		return paths;
+	}
+
+	private void addLinkedPaths(String key, Link link, List<String> paths)
+			throws ContextException {
+		// follow link, add paths
+		Context subcntxt;
+		try {
+			subcntxt = getLinkedContext(link)
+					.getContext(link.getOffset());
+		} catch (RemoteException ex) {
+			throw new ContextException(ex);
+		}
+		// getSubcontext cuts above, which is what we want
+		Enumeration el = subcntxt.contextPaths();
+		while (el.hasMoreElements())
+			paths.add(key + CPS + el.nextElement());
+	}
 	
 	public Enumeration<String> contextPaths() throws ContextException {
 		Vector keys = new Vector(getPaths());
@@ -2813,9 +2834,200 @@ public class ServiceContext<T> extends Hashtable<String, T> implements
 	 */
 	@Override
 	public T get(String path) {
-		return super.get(path);
+		return data == null ? super.get(path) : data.get(path);
     }
 
+	public ContextStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Move the entries of this context to a new storage engine.
+	 */
+	public void setStorage(ContextStorage storage) {
+		Map<String, T> entries = new HashMap<String, T>(this);
+		clear();
+		this.storage = storage;
+		data = storage.newMap();
+		putAll(entries);
+	}
+
+	/*
+	 * The Hashtable methods below delegate to the storage engine unless the
+	 * entries are kept by the Hashtable superclass.
+	 */
+
+	@Override
+	public T get(Object path) {
+		return data == null ? super.get(path) : data.get(path);
+	}
+
+	@Override
+	public T put(String path, T value) {
+		if (data == null)
+			return super.put(path, value);
+		if (value == null)
+			throw new NullPointerException();
+		return data.put(path, value);
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends T> entries) {
+		if (data == null) {
+			super.putAll(entries);
+			return;
+		}
+		for (Map.Entry<? extends String, ? extends T> entry : entries.entrySet())
+			put(entry.getKey(), entry.getValue());
+	}
+
+	@Override
+	public T remove(Object path) {
+		return data == null ? super.remove(path) : data.remove(path);
+	}
+
+	@Override
+	public boolean containsKey(Object path) {
+		return data == null ? super.containsKey(path) : data.containsKey(path);
+	}
+
+	@Override
+	public boolean contains(Object value) {
+		return data == null ? super.contains(value) : data.containsValue(value);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return data == null ? super.containsValue(value) : data.containsValue(value);
+	}
+
+	@Override
+	public int size() {
+		return data == null ? super.size() : data.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return data == null ? super.isEmpty() : data.isEmpty();
+	}
+
+	@Override
+	public void clear() {
+		if (data == null)
+			super.clear();
+		else
+			data.clear();
+	}
+
+	/**
+	 * Unlike the Hashtable enumerations, enumerations of the other storage
+	 * engines are snapshots, so the context may be modified while enumerating.
+	 */
+	@Override
+	public Enumeration<String> keys() {
+		return data == null ? super.keys() : Collections.enumeration(new ArrayList<String>(data.keySet()));
+	}
+
+	@Override
+	public Enumeration<T> elements() {
+		return data == null ? super.elements() : Collections.enumeration(new ArrayList<T>(data.values()));
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return data == null ? super.keySet() : data.keySet();
+	}
+
+	@Override
+	public Set<Map.Entry<String, T>> entrySet() {
+		return data == null ? super.entrySet() : data.entrySet();
+	}
+
+	@Override
+	public Collection<T> values() {
+		return data == null ? super.values() : data.values();
+	}
+
+	@Override
+	public synchronized Object clone() {
+		ServiceContext<T> clone = (ServiceContext<T>) super.clone();
+		if (data != null) {
+			clone.data = storage.newMap();
+			clone.data.putAll(data);
+		}
+		return clone;
+	}
+
+	/*
+	 * Map methods added in Java 8, which Hashtable implements on its own
+	 * table. They are not annotated with @Override to compile against Java 6.
+	 */
+
+	public T getOrDefault(Object path, T defaultValue) {
+		T value = get(path);
+		return value != null || containsKey(path) ? value : defaultValue;
+	}
+
+	public synchronized T putIfAbsent(String path, T value) {
+		T old = get(path);
+		return old != null ? old : put(path, value);
+	}
+
+	public synchronized boolean remove(Object path, Object value) {
+		T old = get(path);
+		if (old == null || !old.equals(value))
+			return false;
+		remove(path);
+		return true;
+	}
+
+	public synchronized boolean replace(String path, T oldValue, T newValue) {
+		T old = get(path);
+		if (old == null || !old.equals(oldValue))
+			return false;
+		put(path, newValue);
+		return true;
+	}
+
+	public synchronized T replace(String path, T value) {
+		return containsKey(path) ? put(path, value) : null;
+	}
+
+	/**
+	 * The Hashtable superclass writes its own entries, which are empty unless
+	 * the storage is {@link ContextStorage#HASHTABLE}; the storage engine and
+	 * its entries are written after the fields.
+	 */
+	private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeObject(storage);
+		if (data != null) {
+			out.writeInt(data.size());
+			for (Map.Entry<String, T> entry : data.entrySet()) {
+				out.writeObject(entry.getKey());
+				out.writeObject(entry.getValue());
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		try {
+			storage = (ContextStorage) in.readObject();
+		} catch (OptionalDataException e) {
+			// written before storage engines were added
+			if (!e.eof)
+				throw e;
+			storage = ContextStorage.HASHTABLE;
+		}
+		data = storage.newMap();
+		if (data != null) {
+			int size = in.readInt();
+			for (int i = 0; i < size; i++)
+				data.put((String) in.readObject(), (T) in.readObject());
+		}
+	}
+
 	public T asis(String path) throws ContextException {
 		T val;
 		synchronized (this) {
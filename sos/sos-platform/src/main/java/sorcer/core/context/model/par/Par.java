@@ -21,10 +21,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.rmi.RemoteException;
 import java.security.Principal;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -201,13 +198,10 @@ public class Par<T>
 					// TODO context binding for all exertions, works for tasks only
 					Context cxt = ((Exertion)val).getDataContext();
 					List<String> paths =((ServiceContext)cxt).getPaths();
-					for (String an : ((Map<String, Object>)scope).keySet()) {
-						for (String p : paths) {
-							if (p.endsWith(an)) {
-								cxt.putValue(p, scope.getValue(an));
-								break;
-							}
-						}
+					Map<String, String> bindings = getPathsEndingWith(
+							((Map<String, Object>) scope).keySet(), paths);
+					for (Map.Entry<String, String> b : bindings.entrySet()) {
+						cxt.putValue(b.getValue(), scope.getValue(b.getKey()));
 					}
 				}
 				val = ((Evaluation<T>) val).getValue(entries);
@@ -238,6 +232,36 @@ public class Par<T>
 		return val;
 	}
 	
+	/**
+	 * Returns for each name the first of the paths ending with the name, in the
+	 * order of the names. Instead of matching each name against each path, only
+	 * the path suffixes of the lengths of names are looked up.
+	 */
+	static Map<String, String> getPathsEndingWith(Collection<String> names,
+			List<String> paths) {
+		Set<String> nameSet = new HashSet<String>(names);
+		SortedSet<Integer> lengths = new TreeSet<Integer>();
+		for (String name : nameSet)
+			lengths.add(name.length());
+		Map<String, String> firstPaths = new HashMap<String, String>();
+		for (String path : paths) {
+			for (int length : lengths) {
+				if (length > path.length())
+					break;
+				String suffix = path.substring(path.length() - length);
+				if (nameSet.contains(suffix) && !firstPaths.containsKey(suffix))
+					firstPaths.put(suffix, path);
+			}
+		}
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		for (String name : names) {
+			String path = firstPaths.get(name);
+			if (path != null)
+				result.put(name, path);
+		}
+		return result;
+	}
+
 	/* (non-Javadoc)
 	 * @see sorcer.service.Evaluation#substitute(sorcer.co.tuple.Parameter[])
 	 */
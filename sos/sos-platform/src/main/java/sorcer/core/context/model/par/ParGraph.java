@@ -0,0 +1,175 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.core.context.model.par;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Dependency graph of the pars of a {@link ParModel} and the memoized values of
+ * its functional invokers.
+ * <p/>
+ * An invoker par depends on the pars of its invoker. When a par is changed in the
+ * model, the values of the pars depending on it, directly or not, are dropped, and
+ * so is whether they can be memoized. A memoized value also keeps the invoker and
+ * the values of its pars it was computed with, and is only reused while they are
+ * equal, so pars changed bypassing the model are detected as well. Only immutable
+ * values are memoized, as a mutated input or value would go unnoticed.
+ */
+class ParGraph {
+
+	static final Object NONE = new Object();
+
+	// matched by exact class, as subclasses of BigInteger and BigDecimal may be mutable
+	private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+			String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+			Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class));
+
+	// par -> pars of its invoker
+	private final Map<String, List<String>> dependencies = new HashMap<String, List<String>>();
+
+	// par -> invoker pars depending on it
+	private final Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+
+	private final Map<String, Memo> memos = new HashMap<String, Memo>();
+
+	// par -> whether the value at the par, kept as the key, can be memoized
+	private final Map<String, Map.Entry<Object, Boolean>> memoizable
+			= new HashMap<String, Map.Entry<Object, Boolean>>();
+
+	synchronized void setDependencies(String par, List<String> inputs) {
+		List<String> old = dependencies.put(par, inputs);
+		if (inputs.equals(old))
+			return;
+		if (old != null)
+			for (String input : old) {
+				Set<String> set = dependents.get(input);
+				if (set != null)
+					set.remove(par);
+			}
+		for (String input : inputs) {
+			Set<String> set = dependents.get(input);
+			if (set == null) {
+				set = new HashSet<String>();
+				dependents.put(input, set);
+			}
+			set.add(par);
+		}
+	}
+
+	synchronized List<String> getDependencies(String par) {
+		List<String> inputs = dependencies.get(par);
+		return inputs == null ? Collections.<String>emptyList() : new ArrayList<String>(inputs);
+	}
+
+	/**
+	 * Returns the pars depending on the given par, directly or not.
+	 */
+	synchronized Set<String> getDependents(String par) {
+		Set<String> result = new LinkedHashSet<String>();
+		Deque<String> queue = new ArrayDeque<String>();
+		queue.add(par);
+		while (!queue.isEmpty()) {
+			Set<String> direct = dependents.get(queue.poll());
+			if (direct != null)
+				for (String dependent : direct)
+					if (result.add(dependent))
+						queue.add(dependent);
+		}
+		return result;
+	}
+
+	/**
+	 * Drops the memoized values of the par and of the pars depending on it.
+	 */
+	synchronized void invalidate(String par) {
+		memos.remove(par);
+		memoizable.remove(par);
+		if (memos.isEmpty() && memoizable.isEmpty())
+			return;
+		for (String dependent : getDependents(par)) {
+			memos.remove(dependent);
+			memoizable.remove(dependent);
+		}
+	}
+
+	synchronized void clear() {
+		dependencies.clear();
+		dependents.clear();
+		memos.clear();
+		memoizable.clear();
+	}
+
+	/**
+	 * Returns whether the value at the par can be memoized, or null if unknown
+	 * or the par holds another value now.
+	 */
+	synchronized Boolean isMemoizable(String par, Object value) {
+		Map.Entry<Object, Boolean> entry = memoizable.get(par);
+		return entry == null || entry.getKey() != value ? null : entry.getValue();
+	}
+
+	synchronized void setMemoizable(String par, Object value, boolean result) {
+		memoizable.put(par, new AbstractMap.SimpleImmutableEntry<Object, Boolean>(value, result));
+	}
+
+	/**
+	 * Returns the memoized value of the par computed by the invoker from the
+	 * given input values, or {@link #NONE}.
+	 */
+	synchronized Object get(String par, Object invoker, Object[] inputs) {
+		Memo memo = memos.get(par);
+		if (memo == null || memo.invoker != invoker || !Arrays.equals(memo.inputs, inputs))
+			return NONE;
+		return memo.value;
+	}
+
+	/**
+	 * Memoizes the value of the par, unless the value or any of the inputs are
+	 * not immutable.
+	 */
+	synchronized void put(String par, Object invoker, Object[] inputs, Object value) {
+		if (!isImmutable(value))
+			return;
+		for (Object input : inputs)
+			if (!isImmutable(input))
+				return;
+		memos.put(par, new Memo(invoker, inputs, value));
+	}
+
+	static boolean isImmutable(Object value) {
+		return value == null || value instanceof Enum || IMMUTABLE_TYPES.contains(value.getClass());
+	}
+
+	synchronized boolean isMemoized(String par) {
+		return memos.containsKey(par);
+	}
+
+	private static class Memo {
+		final Object invoker;
+		final Object[] inputs;
+		final Object value;
+
+		Memo(Object invoker, Object[] inputs, Object value) {
+			this.invoker = invoker;
+			this.inputs = inputs;
+			this.value = value;
+		}
+	}
+}
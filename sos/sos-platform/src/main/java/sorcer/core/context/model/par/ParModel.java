@@ -60,6 +60,9 @@ import sorcer.util.Response;
 public class ParModel<T> extends ServiceContext<T> implements Evaluation<T>, Invocation<T>, ParModeling {
 	
 	private static final long serialVersionUID = -6932730998474298653L;
+
+	// dependencies and memoized values of the functional invoker pars
+	private transient ParGraph parGraph;
 	
 	public ParModel() {
 		super();
@@ -109,6 +112,11 @@ public class ParModel<T> extends ServiceContext<T> implements Evaluation<T>, Inv
 			if ((val instanceof Par) && (((Par) val).asis() instanceof Variability)) {
 				bindVar((Variability) ((Par) val).asis());
 			}
+			if (path != null && (entries == null || entries.length == 0)) {
+				ServiceInvoker invoker = getMemoizableInvoker(path, val);
+				if (invoker != null)
+					return (T) getMemoizedValue(path, (Evaluation) val, invoker);
+			}
 			if (val != null && val instanceof Evaluation) {
 				return (T) ((Evaluation) val).getValue(entries);
 			} else if (val == null && targetPath != null) {
@@ -138,6 +146,7 @@ public class ParModel<T> extends ServiceContext<T> implements Evaluation<T>, Inv
 	@Override
 	public T putValue(String path, Object value) throws ContextException {
 		contextChanged = true;
+		getParGraph().invalidate(path);
 		Object obj = get(path);
 		try {
 			if (obj instanceof Par) {
@@ -160,6 +169,145 @@ public class ParModel<T> extends ServiceContext<T> implements Evaluation<T>, Inv
 		}
 	}
 
+	@Override
+	public Arg addPar(Arg par) throws ContextException {
+		getParGraph().invalidate(par.getName());
+		return super.addPar(par);
+	}
+
+	@Override
+	public Par appendPar(Par par) throws ContextException {
+		getParGraph().invalidate(par.getName());
+		return super.appendPar(par);
+	}
+
+	/**
+	 * Returns the names of the pars of the invoker at the path, as found by the
+	 * last evaluation of the invoker.
+	 */
+	public List<String> getDependencies(String path) {
+		return getParGraph().getDependencies(path);
+	}
+
+	/**
+	 * Returns the names of the invoker pars that depend on the par at the path,
+	 * directly or not.
+	 */
+	public Set<String> getDependents(String path) {
+		return getParGraph().getDependents(path);
+	}
+
+	/**
+	 * Drops the memoized values of the invoker at the path and of the invokers
+	 * depending on it, so they are evaluated again when requested.
+	 */
+	public void invalidate(String path) {
+		getParGraph().invalidate(path);
+	}
+
+	private ParGraph getParGraph() {
+		if (parGraph == null)
+			parGraph = new ParGraph();
+		return parGraph;
+	}
+
+	/**
+	 * Returns the invoker of the value at the path if it can be memoized,
+	 * otherwise null. The invoker must be declared functional, evaluated in the
+	 * scope of this model and all its pars in this model. The pars are evaluated
+	 * again by the invoker, so it's memoized only if the values of its pars are
+	 * plain values or memoized as well. The result is kept in the par graph until
+	 * the par or any of its dependencies is changed.
+	 */
+	private ServiceInvoker getMemoizableInvoker(String path, Object val) throws RemoteException,
+			EvaluationException {
+		ServiceInvoker invoker = getFunctionalInvoker(val);
+		if (invoker == null || !isMemoizable(path, val, invoker, new HashSet<String>()))
+			return null;
+		return invoker;
+	}
+
+	private static ServiceInvoker getFunctionalInvoker(Object val) throws RemoteException,
+			EvaluationException {
+		Object invoker = val;
+		if (val instanceof Par) {
+			Par par = (Par) val;
+			if (par.isMappable() || par.isPersistent())
+				return null;
+			invoker = par.asis();
+		}
+		if (!(invoker instanceof ServiceInvoker) || !((ServiceInvoker) invoker).isFunctional())
+			return null;
+		return (ServiceInvoker) invoker;
+	}
+
+	private boolean isMemoizable(String path, Object val, ServiceInvoker invoker, Set<String> visiting)
+			throws RemoteException, EvaluationException {
+		ParGraph graph = getParGraph();
+		Boolean known = graph.isMemoizable(path, val);
+		if (known != null)
+			return known;
+		// pars on the current path, a cycle of pars is never memoized
+		if (!visiting.add(path))
+			return false;
+		boolean memoizable = invoker.getScope() == this;
+		List<String> names = new ArrayList<String>(invoker.getPars().size());
+		try {
+			for (Arg arg : invoker.getPars()) {
+				names.add(arg.getName());
+				if (!memoizable)
+					continue;
+				Object input = get(arg.getName());
+				if (input == null) {
+					memoizable = false;
+				} else if (!isPlainValue(input)) {
+					ServiceInvoker inputInvoker = getFunctionalInvoker(input);
+					memoizable = inputInvoker != null
+							&& isMemoizable(arg.getName(), input, inputInvoker, visiting);
+				}
+			}
+		} finally {
+			visiting.remove(path);
+		}
+		graph.setDependencies(path, names);
+		graph.setMemoizable(path, val, memoizable);
+		return memoizable;
+	}
+
+	private static boolean isPlainValue(Object val) throws RemoteException,
+			EvaluationException {
+		Object value = val;
+		if (val instanceof Par) {
+			Par par = (Par) val;
+			if (par.isMappable() || par.isPersistent())
+				return false;
+			value = par.asis();
+		}
+		return !(value instanceof Evaluation) && !(value instanceof Invocation);
+	}
+
+	/**
+	 * Returns the value of the functional invoker at the path, evaluating it only if
+	 * the values of its pars changed since it was evaluated last. The pars of the
+	 * invoker are evaluated first, so a change recomputes only the invokers
+	 * depending on the changed par.
+	 */
+	private Object getMemoizedValue(String path, Evaluation val, ServiceInvoker invoker)
+			throws ContextException, RemoteException {
+		ParGraph graph = getParGraph();
+		ArgSet args = invoker.getPars();
+		Object[] inputs = new Object[args.size()];
+		int i = 0;
+		for (Arg arg : args)
+			inputs[i++] = getValue(arg.getName());
+		Object result = graph.get(path, invoker, inputs);
+		if (result == ParGraph.NONE) {
+			result = val.getValue();
+			graph.put(path, invoker, inputs, result);
+		}
+		return result;
+	}
+
 	public Par<Object> getPar(String name) throws ContextException {
 		Object obj = get(name);
 		if (obj instanceof Par)
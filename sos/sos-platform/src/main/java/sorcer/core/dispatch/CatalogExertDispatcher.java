@@ -19,8 +19,11 @@
 package sorcer.core.dispatch;
 
 import java.rmi.RemoteException;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
+import net.jini.core.lookup.ServiceID;
 import net.jini.core.lookup.ServiceItem;
 import net.jini.core.lookup.ServiceTemplate;
 import net.jini.core.transaction.TransactionException;
@@ -41,6 +44,9 @@ import sorcer.service.monitor.MonitorUtil;
 import static sorcer.service.Exec.*;
 
 abstract public class CatalogExertDispatcher extends ExertDispatcher {
+    protected RetryPolicy retryPolicy = RetryPolicy.getDefault();
+    protected CircuitBreakers circuitBreakers = CircuitBreakers.getInstance();
+
     public CatalogExertDispatcher(Exertion job,
                                   Set<Context> sharedContext,
                                   boolean isSpawned,
@@ -120,7 +126,7 @@ abstract public class CatalogExertDispatcher extends ExertDispatcher {
     protected Task execServiceTask(Task task) throws ExertionException {
         logger.info("Starting execServiceTask for: " + task.getName());
         Task result = null;
-        int maxTries = 6;
+        RetryPolicy policy = retryPolicy;
         int tried=0;
         try {
             if (((NetSignature) task.getProcessSignature()).getService()!=null) {
@@ -145,7 +151,11 @@ abstract public class CatalogExertDispatcher extends ExertDispatcher {
             NetSignature sig = (NetSignature) task.getProcessSignature();
             // Catalog lookup or use Lookup Service for the particular
             // service
-            Service service = (Service) Accessor.getService(sig);
+            ServiceItem serviceItem = Accessor.getServiceItem(sig);
+            if (serviceItem != null && !circuitBreakers.acquire(serviceItem.serviceID))
+                serviceItem = selectProvider(sig, Collections.<ServiceID>emptySet());
+            Service service = serviceItem == null ? null : (Service) serviceItem.service;
+            ServiceID serviceID = serviceItem == null ? null : serviceItem.serviceID;
             if (service == null && task.isProvisionable()) {
                 MonitoringSession monSession = MonitorUtil.getMonitoringSession(task);
                 if (task.isMonitorable() && monSession!=null) {
@@ -180,7 +190,9 @@ abstract public class CatalogExertDispatcher extends ExertDispatcher {
                 throw new ExertionException(msg, task);
             } else {
                 tried=0;
-                while (result==null && tried < maxTries) {
+                // providers that failed to execute the task
+                Set<ServiceID> failed = new HashSet<ServiceID>();
+                while (result==null && tried < policy.getMaxTries()) {
                     tried++;
                     try {
                         // setTaskProvider(task, provider.getProviderName());
@@ -209,19 +221,37 @@ abstract public class CatalogExertDispatcher extends ExertDispatcher {
                          */
                         logger.debug("getting result from provider...");
                         result = (Task) service.service(task, null);
+                        if (serviceID != null)
+                            circuitBreakers.success(serviceID);
 
                     } catch (Exception re) {
-                        if (tried >= maxTries) {
+                        if (policy.isProviderFailure(re)) {
+                            if (serviceID != null) {
+                                // don't reuse the cached proxy of a failed provider
+                                Accessor.invalidate(sig, serviceID);
+                                failed.add(serviceID);
+                                circuitBreakers.failure(serviceID);
+                            }
+                        } else if (serviceID != null) {
+                            // the provider is reachable, the task itself failed
+                            circuitBreakers.success(serviceID);
+                        }
+                        if (tried >= policy.getMaxTries()) {
                             logger.error("+++++++++++++++Problem exerting task, already tried " + tried + " times for: " + xrt.getName() + " " + re.getMessage());
                             throw re;
                         }
                         else {
-                            logger.info("Problem exerting task, retrying " + tried + " time: " + xrt.getName() + " " + re.getMessage());
-                            service = (Service) Accessor.getService(sig);
-                            try {
-                                logger.info("+++++++++++++++Got service: " + ((Provider)service).getProviderID());
-                            } catch (Exception e) {
-                                System.out.println("+++++++++++++++The service we got is not valid");
+                            long delay = policy.getDelay(tried);
+                            logger.info("Problem exerting task, retrying " + tried + " time in " + delay + " ms: " + xrt.getName() + " " + re.getMessage());
+                            Thread.sleep(delay);
+                            serviceItem = selectProvider(sig, failed);
+                            if (serviceItem != null) {
+                                service = (Service) serviceItem.service;
+                                serviceID = serviceItem.serviceID;
+                                logger.info("+++++++++++++++Got service: " + serviceID);
+                            } else if (serviceID != null && !circuitBreakers.acquire(serviceID)) {
+                                logger.error("+++++++++++++++No provider left to retry: " + xrt.getName());
+                                throw re;
                             }
                         }
                     }
@@ -254,6 +284,31 @@ abstract public class CatalogExertDispatcher extends ExertDispatcher {
         return result;
     }
 
+    /**
+     * Selects a provider matching the signature that didn't fail the task and whose circuit breaker lets it be
+     * called, and acquires its breaker.
+     *
+     * @return the selected provider, or null if there is none
+     */
+    protected ServiceItem selectProvider(Signature sig, Set<ServiceID> failed) {
+        ServiceItem[] items = Accessor.getServiceItems(sig);
+        if (items == null)
+            return null;
+        for (ServiceItem item : items)
+            if (!failed.contains(item.serviceID) && circuitBreakers.isAvailable(item.serviceID)
+                    && circuitBreakers.acquire(item.serviceID))
+                return item;
+        return null;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
     protected Job execJob(Job job)
             throws DispatcherException, InterruptedException,
             RemoteException {
@@ -25,13 +25,16 @@ import java.util.concurrent.*;
 
 import sorcer.core.provider.Provider;
 import sorcer.core.exertion.Jobs;
+import sorcer.core.provider.ServiceProvider;
 import sorcer.service.*;
 import sorcer.service.monitor.MonitorUtil;
 
 import static sorcer.service.Exec.*;
 
 public class CatalogParallelDispatcher extends CatalogExertDispatcher {
-    protected ExecutorService executor = Executors.newCachedThreadPool();
+    protected final DispatchExecutor executor;
+
+    private final boolean isSpawned;
 
     public CatalogParallelDispatcher(Job job,
             Set<Context> sharedContexts,
@@ -39,30 +42,40 @@ public class CatalogParallelDispatcher extends CatalogExertDispatcher {
             Provider provider,
             ProvisionManager provisionManager) {
 		super(job, sharedContexts, isSpawned, provider, provisionManager);
+        this.isSpawned = isSpawned;
+        if (provider instanceof ServiceProvider)
+            executor = ((ServiceProvider) provider).getDelegate().getDispatchExecutor();
+        else
+            executor = DispatchExecutor.getDefault();
 	}
 
     @Override
     public void exec() {
-        executor.submit(new Runnable() {
+        // a spawned dispatcher is executed by a thread that would only wait for its result
+        if (isSpawned) {
+            super.exec();
+            return;
+        }
+        addTask(executor.submit(new Runnable() {
             @Override
             public void run() {
                 CatalogParallelDispatcher.super.exec();
             }
-        });
+        }));
     }
 
     public void doExec() throws ExertionException,
 			SignatureException {
         List<Future<Exertion>> results = new ArrayList<Future<Exertion>>(inputXrts.size());
         for (Exertion exertion : inputXrts) {
-            results.add(executor.submit(new ExecExertion(exertion)));
+            results.add(addTask(executor.submit(new ExecExertion(exertion))));
 		}
 
         boolean isFailed = false;
         boolean isSuspended = false;
         for (Future<Exertion> result : results) {
             try {
-                ServiceExertion se = (ServiceExertion) result.get();
+                ServiceExertion se = (ServiceExertion) executor.get(result);
                 se.stopExecTime();
                 if (se.getStatus() == FAILED)
                     isFailed = true;
@@ -78,20 +91,18 @@ public class CatalogParallelDispatcher extends CatalogExertDispatcher {
         }
 		if (isFailed) {
 			xrt.setStatus(FAILED);
-			state = FAILED;
 			ExertionException fe = new ExertionException(this.getClass().getName()
 					+ " failed job", xrt);
 			xrt.reportException(fe);
-			dispatchers.remove(xrt.getId());
+			setState(FAILED);
 			throw fe;
 		}
 		else if (isSuspended) {
 			xrt.setStatus(SUSPENDED);
-			state = SUSPENDED;
 			ExertionException fe = new ExertionException(this.getClass().getName()
 					+ " suspended job", xrt);
 			xrt.reportException(fe);
-			dispatchers.remove(xrt.getId());
+			setState(SUSPENDED);
 			throw fe;
 		}
 
@@ -106,8 +117,7 @@ public class CatalogParallelDispatcher extends CatalogExertDispatcher {
 
 		}
 		xrt.setStatus(DONE);
-		dispatchers.remove(xrt.getId());
-		state = DONE;
+		setState(DONE);
 	}
 
     @Override
@@ -124,6 +134,8 @@ public class CatalogParallelDispatcher extends CatalogExertDispatcher {
 
         @Override
         public Exertion call() throws Exception {
+            if (cancelled)
+                throw new ExertionException("Dispatcher cancelled", xrt);
             return execExertion(exertion);
         }
 	}
@@ -45,7 +45,7 @@ public class CatalogSequentialDispatcher extends CatalogExertDispatcher {
             String pn;
             if (inputXrts == null) {
                 xrt.setStatus(FAILED);
-                state = FAILED;
+                setState(FAILED);
                 try {
                     pn = provider.getProviderName();
                     if (pn == null)
@@ -54,7 +54,6 @@ public class CatalogSequentialDispatcher extends CatalogExertDispatcher {
                             + xrt.getName(), xrt);
 
                     xrt.reportException(fe);
-                    dispatchers.remove(xrt.getId());
                     throw fe;
                 } catch (RemoteException e) {
                     logger.warn("Error during local call", e);
@@ -64,6 +63,8 @@ public class CatalogSequentialDispatcher extends CatalogExertDispatcher {
             xrt.startExecTime();
             Context previous = null;
             for (Exertion exertion: inputXrts) {
+                if (cancelled)
+                    throw new ExertionException("Dispatcher cancelled", xrt);
 
                 // Added for Blocks
                 if (xrt.isBlock()) {
@@ -88,27 +89,26 @@ public class CatalogSequentialDispatcher extends CatalogExertDispatcher {
                 }
             }
 
+            int finalState = DONE;
             if (masterXrt != null) {
 				masterXrt = (ServiceExertion) execExertion(masterXrt); // executeMasterExertion();
 				if (masterXrt.getStatus() <= FAILED) {
-					state = FAILED;
+					finalState = FAILED;
 					xrt.setStatus(FAILED);
 				} else {
-					state = DONE;
 					xrt.setStatus(DONE);
 				}
-			} else
-				state = DONE;
-			dispatchers.remove(xrt.getId());
+			}
 			xrt.stopExecTime();
 			xrt.setStatus(DONE);
+			setState(finalState);
 	}
 
     protected void dispatchExertion(ServiceExertion se) throws SignatureException, ExertionException {
         se = (ServiceExertion) execExertion(se);
         if (se.getStatus() <= FAILED) {
             xrt.setStatus(FAILED);
-            state = FAILED;
+            setState(FAILED);
             try {
                 String pn = provider.getProviderName();
                 if (pn == null)
@@ -116,7 +116,6 @@ public class CatalogSequentialDispatcher extends CatalogExertDispatcher {
                 ExertionException fe = new ExertionException(pn
                         + " received failed task: " + se.getName(), se);
                 xrt.reportException(fe);
-                dispatchers.remove(xrt.getId());
                 throw fe;
             } catch (RemoteException e) {
                 logger.warn("Exception during local call");
@@ -127,7 +126,6 @@ public class CatalogSequentialDispatcher extends CatalogExertDispatcher {
             ExertionException ex = new ExertionException(
                     "exertion suspended", se);
             se.reportException(ex);
-            dispatchers.remove(xrt.getId());
             throw ex;
         }
     }
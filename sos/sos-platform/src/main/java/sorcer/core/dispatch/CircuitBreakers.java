@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jini.core.lookup.ServiceID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-provider circuit breakers shared by the catalog dispatchers.
+ * <p/>
+ * A breaker opens after the given number of consecutive provider failures, and the provider is not selected while
+ * it's open. When the open period has elapsed a single trial call is let through (half-open); its success closes
+ * the breaker, its failure opens it again. Candidates are checked with {@link #isAvailable(ServiceID)}, and the
+ * provider actually called with {@link #acquire(ServiceID)}.
+ */
+public class CircuitBreakers {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakers.class);
+
+    public static final String FAILURES = "sorcer.dispatch.breaker.failures";
+    public static final String OPEN_TIME = "sorcer.dispatch.breaker.openTime";
+
+    public static final int DEFAULT_FAILURES = 3;
+    public static final long DEFAULT_OPEN_TIME = 30000;
+
+    private static final CircuitBreakers instance = new CircuitBreakers(
+            Integer.getInteger(FAILURES, DEFAULT_FAILURES),
+            Long.getLong(OPEN_TIME, DEFAULT_OPEN_TIME));
+
+    private final int failureThreshold;
+    private final long openTime;
+    private final ConcurrentMap<ServiceID, Breaker> breakers = new ConcurrentHashMap<ServiceID, Breaker>();
+
+    public CircuitBreakers(int failureThreshold, long openTime) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openTime = openTime;
+    }
+
+    public static CircuitBreakers getInstance() {
+        return instance;
+    }
+
+    /**
+     * Check whether the provider may be selected, without changing the state of its breaker. A half-open breaker is
+     * available until its trial call is taken by {@link #acquire(ServiceID)}.
+     */
+    public boolean isAvailable(ServiceID serviceID) {
+        Breaker breaker = breakers.get(serviceID);
+        if (breaker == null || breaker.failures.get() < failureThreshold)
+            return true;
+        long now = currentTime();
+        if (now < breaker.openUntil)
+            return false;
+        long trial = breaker.trial.get();
+        return trial == 0 || now - trial >= openTime;
+    }
+
+    /**
+     * Acquire the permission to call the provider, to be called only for the provider actually called. In the
+     * half-open state only the first caller gets the trial call; a trial whose outcome was never reported expires
+     * after the open time.
+     *
+     * @return true if the provider may be called
+     */
+    public boolean acquire(ServiceID serviceID) {
+        Breaker breaker = breakers.get(serviceID);
+        if (breaker == null || breaker.failures.get() < failureThreshold)
+            return true;
+        long now = currentTime();
+        if (now < breaker.openUntil)
+            return false;
+        long trial = breaker.trial.get();
+        return (trial == 0 || now - trial >= openTime) && breaker.trial.compareAndSet(trial, now);
+    }
+
+    public boolean isOpen(ServiceID serviceID) {
+        Breaker breaker = breakers.get(serviceID);
+        return breaker != null && breaker.failures.get() >= failureThreshold;
+    }
+
+    public void success(ServiceID serviceID) {
+        if (breakers.remove(serviceID) != null)
+            logger.debug("Closed circuit breaker of {}", serviceID);
+    }
+
+    public void failure(ServiceID serviceID) {
+        Breaker breaker = breakers.get(serviceID);
+        if (breaker == null) {
+            breaker = new Breaker();
+            Breaker existing = breakers.putIfAbsent(serviceID, breaker);
+            if (existing != null)
+                breaker = existing;
+        }
+        if (breaker.failures.incrementAndGet() >= failureThreshold) {
+            breaker.openUntil = currentTime() + openTime;
+            breaker.trial.set(0);
+            logger.info("Opened circuit breaker of {} for {} ms", serviceID, openTime);
+        }
+    }
+
+    long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private static class Breaker {
+        final AtomicInteger failures = new AtomicInteger();
+        // start time of the trial call in the half-open state, 0 if not taken
+        final AtomicLong trial = new AtomicLong();
+        volatile long openUntil;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.util.ConfigurableThreadFactory;
+
+import static sorcer.util.StringUtils.tName;
+
+/**
+ * Bounded, provider-wide executor used by the catalog dispatchers to run component exertions.
+ * <p/>
+ * When the pool and its queue are saturated new submissions are executed by the submitting thread, which throttles
+ * the submitter instead of growing the pool. A thread waiting for an exertion in {@link #get(Future)} executes it
+ * itself if it has not been started yet, so nested jobs never wait for a free pool thread.
+ */
+public class DispatchExecutor implements DispatchExecutorMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(DispatchExecutor.class);
+
+    public static final int DEFAULT_POOL_SIZE = 16;
+    public static final int DEFAULT_MAX_POOL_SIZE = 64;
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    private static DispatchExecutor defaultExecutor;
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final AtomicLong rejected = new AtomicLong();
+    private ObjectName objectName;
+
+    public DispatchExecutor(String name, int poolSize, int maxPoolSize, int queueSize) {
+        ConfigurableThreadFactory factory = new ConfigurableThreadFactory();
+        factory.setNameFormat(tName("Dispatch-" + name + "-%2$d"));
+        factory.setDaemon(true);
+
+        queueCapacity = queueSize;
+        executor = new ThreadPoolExecutor(poolSize, Math.max(poolSize, maxPoolSize), 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueSize), factory, new CallerRunsPolicy());
+        register(name);
+    }
+
+    /**
+     * Executor shared by the dispatchers not running inside a {@link sorcer.core.provider.ServiceProvider}
+     */
+    public static synchronized DispatchExecutor getDefault() {
+        if (defaultExecutor == null)
+            defaultExecutor = new DispatchExecutor("default", DEFAULT_POOL_SIZE, DEFAULT_MAX_POOL_SIZE, DEFAULT_QUEUE_SIZE);
+        return defaultExecutor;
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<T>(task);
+        executor.execute(future);
+        return future;
+    }
+
+    public Future<?> submit(Runnable task) {
+        FutureTask<Object> future = new FutureTask<Object>(task, null);
+        executor.execute(future);
+        return future;
+    }
+
+    /**
+     * Wait for the result of the future returned by {@link #submit}. If the task is still waiting in the queue,
+     * it's executed by the current thread.
+     */
+    public <T> T get(Future<T> future) throws InterruptedException, ExecutionException {
+        if (!future.isDone() && future instanceof Runnable && executor.remove((Runnable) future))
+            ((Runnable) future).run();
+        return future.get();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(3, TimeUnit.SECONDS))
+                executor.shutdownNow();
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        unregister();
+    }
+
+    private void register(String name) {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = new ObjectName(DispatchExecutor.class.getPackage().getName()
+                    + ":type=DispatchExecutor,name=" + ObjectName.quote(name));
+            if (!mbs.isRegistered(on)) {
+                mbs.registerMBean(this, on);
+                objectName = on;
+            }
+        } catch (Exception e) {
+            logger.warn("Could not register {} in the MBean server", name, e);
+        }
+    }
+
+    private void unregister() {
+        if (objectName == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            logger.debug("Could not unregister {}", objectName, e);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    @Override
+    public int getCorePoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @Override
+    public int getLargestPoolSize() {
+        return executor.getLargestPoolSize();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchExecutor{active=" + getActiveCount() + ", pool=" + getPoolSize() + ", queue=" + getQueueSize()
+                + ", rejected=" + getRejectedCount() + "}";
+    }
+
+    /**
+     * Run rejected tasks in the submitting thread, also after shutdown, so no future is left incomplete
+     */
+    private class CallerRunsPolicy implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
+            rejected.incrementAndGet();
+            r.run();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+/**
+ * Management view of the provider-wide {@link DispatchExecutor}.
+ */
+public interface DispatchExecutorMXBean {
+    /**
+     * @return number of exertions waiting in the queue
+     */
+    int getQueueSize();
+
+    int getQueueCapacity();
+
+    /**
+     * @return approximate number of threads actively executing exertions
+     */
+    int getActiveCount();
+
+    int getPoolSize();
+
+    int getCorePoolSize();
+
+    int getMaximumPoolSize();
+
+    int getLargestPoolSize();
+
+    /**
+     * @return number of submissions rejected by the saturated pool and executed by the submitting thread
+     */
+    long getRejectedCount();
+
+    long getCompletedTaskCount();
+}
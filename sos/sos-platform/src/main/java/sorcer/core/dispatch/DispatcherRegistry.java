@@ -0,0 +1,247 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.jini.id.Uuid;
+import net.jini.id.UuidFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.core.provider.Provider;
+import sorcer.service.Exec;
+
+/**
+ * Registry of the running exertion dispatchers of this JVM, keyed by the exertion id.
+ * <p/>
+ * Each registration records the start time, owning provider and the child dispatchers of nested
+ * exertions, so running jobs can be listed, stuck ones found and cancelled. The registry is published in the
+ * platform MBean server and notifies registered {@link Listener}s.
+ */
+public class DispatcherRegistry implements DispatcherRegistryMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(DispatcherRegistry.class);
+
+    private static final DispatcherRegistry instance = new DispatcherRegistry();
+
+    static {
+        instance.register();
+    }
+
+    private final ConcurrentMap<Uuid, Registration> registrations = new ConcurrentHashMap<Uuid, Registration>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    public static DispatcherRegistry getInstance() {
+        return instance;
+    }
+
+    public void register(ExertDispatcher dispatcher) {
+        Uuid id = dispatcher.getExertion().getId();
+        Registration registration = new Registration(dispatcher);
+        Registration old = registrations.put(id, registration);
+        if (old != null && old.dispatcher != dispatcher)
+            logger.warn("Dispatcher of {} replaced while still running", id);
+        Uuid parentId = registration.parentId;
+        if (parentId != null) {
+            Registration parent = registrations.get(parentId);
+            if (parent != null)
+                parent.children.add(id);
+        }
+        for (Listener listener : listeners)
+            listener.registered(dispatcher);
+    }
+
+    public void unregister(Uuid id) {
+        Registration registration = registrations.remove(id);
+        if (registration == null)
+            return;
+        if (registration.parentId != null) {
+            Registration parent = registrations.get(registration.parentId);
+            if (parent != null)
+                parent.children.remove(id);
+        }
+        for (Listener listener : listeners)
+            listener.unregistered(registration.dispatcher);
+    }
+
+    public ExertDispatcher get(Uuid id) {
+        Registration registration = registrations.get(id);
+        return registration == null ? null : registration.dispatcher;
+    }
+
+    public boolean contains(Uuid id) {
+        return registrations.containsKey(id);
+    }
+
+    public int size() {
+        return registrations.size();
+    }
+
+    /**
+     * @return start time of the dispatcher in milliseconds, or -1 if it's not running
+     */
+    public long getStartTime(Uuid id) {
+        Registration registration = registrations.get(id);
+        return registration == null ? -1 : registration.startTime;
+    }
+
+    /**
+     * @return ids of the exertions of running child dispatchers
+     */
+    public Set<Uuid> getChildren(Uuid id) {
+        Registration registration = registrations.get(id);
+        return registration == null ? Collections.<Uuid>emptySet() : new HashSet<Uuid>(registration.children);
+    }
+
+    /**
+     * Cancel the dispatcher and its child dispatchers, see {@link ExertDispatcher#cancel()}
+     *
+     * @return false if no such dispatcher is running
+     */
+    public boolean cancel(Uuid id) {
+        Registration registration = registrations.get(id);
+        if (registration == null)
+            return false;
+        for (Uuid child : registration.children)
+            cancel(child);
+        logger.info("Cancelling dispatcher of {}", registration.dispatcher.getExertion().getName());
+        registration.dispatcher.cancel();
+        unregister(id);
+        return true;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public int getCount() {
+        return registrations.size();
+    }
+
+    @Override
+    public Map<String, Integer> getCountByProvider() {
+        Map<String, Integer> counts = new TreeMap<String, Integer>();
+        for (Registration registration : registrations.values()) {
+            Integer count = counts.get(registration.providerName);
+            counts.put(registration.providerName, count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+
+    @Override
+    public long getOldestAge() {
+        long now = System.currentTimeMillis();
+        long oldest = 0;
+        for (Registration registration : registrations.values())
+            oldest = Math.max(oldest, now - registration.startTime);
+        return oldest;
+    }
+
+    @Override
+    public List<String> getDispatchers() {
+        return findOlderThan(0);
+    }
+
+    @Override
+    public List<String> findOlderThan(long millis) {
+        long now = System.currentTimeMillis();
+        List<Registration> found = new ArrayList<Registration>();
+        for (Registration registration : registrations.values())
+            if (now - registration.startTime >= millis)
+                found.add(registration);
+        Collections.sort(found);
+        List<String> result = new ArrayList<String>(found.size());
+        for (Registration registration : found)
+            result.add(registration.describe(now));
+        return result;
+    }
+
+    @Override
+    public boolean cancel(String exertionId) {
+        return cancel(UuidFactory.create(exertionId));
+    }
+
+    private void register() {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = new ObjectName(DispatcherRegistry.class.getPackage().getName()
+                    + ":type=DispatcherRegistry");
+            if (!mbs.isRegistered(on))
+                mbs.registerMBean(this, on);
+        } catch (Exception e) {
+            logger.warn("Could not register the dispatcher registry in the MBean server", e);
+        }
+    }
+
+    /**
+     * Notified in the thread registering or unregistering a dispatcher
+     */
+    public interface Listener {
+        void registered(ExertDispatcher dispatcher);
+
+        void unregistered(ExertDispatcher dispatcher);
+    }
+
+    private static class Registration implements Comparable<Registration> {
+        final ExertDispatcher dispatcher;
+        final long startTime = System.currentTimeMillis();
+        final String providerName;
+        final Uuid parentId;
+        final Set<Uuid> children = Collections.newSetFromMap(new ConcurrentHashMap<Uuid, Boolean>());
+
+        Registration(ExertDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+            this.providerName = getProviderName(dispatcher.getProvider());
+            this.parentId = dispatcher.getExertion().getParentId();
+        }
+
+        String describe(long now) {
+            return dispatcher.getExertion().getId() + " " + dispatcher.getExertion().getName()
+                    + " provider=" + providerName
+                    + " state=" + Exec.State.name(dispatcher.getState())
+                    + " age=" + (now - startTime) + "ms"
+                    + " children=" + children.size();
+        }
+
+        @Override
+        public int compareTo(Registration o) {
+            return startTime < o.startTime ? -1 : (startTime == o.startTime ? 0 : 1);
+        }
+
+        private static String getProviderName(Provider provider) {
+            if (provider == null)
+                return "";
+            try {
+                String name = provider.getProviderName();
+                return name != null ? name : provider.getClass().getName();
+            } catch (Exception e) {
+                return provider.getClass().getName();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management view of the {@link DispatcherRegistry}.
+ */
+public interface DispatcherRegistryMXBean {
+    /**
+     * @return number of running dispatchers
+     */
+    int getCount();
+
+    /**
+     * @return number of running dispatchers per provider name
+     */
+    Map<String, Integer> getCountByProvider();
+
+    /**
+     * @return age in milliseconds of the oldest running dispatcher, or 0
+     */
+    long getOldestAge();
+
+    /**
+     * @return descriptions of the running dispatchers, oldest first
+     */
+    List<String> getDispatchers();
+
+    /**
+     * @return descriptions of the dispatchers running longer than the given time
+     */
+    List<String> findOlderThan(long millis);
+
+    /**
+     * Cancel the dispatcher of the exertion with the given id and its child dispatchers
+     *
+     * @return false if no such dispatcher is running
+     */
+    boolean cancel(String exertionId);
+}
@@ -21,9 +21,15 @@ package sorcer.core.dispatch;
 import java.lang.reflect.Array;
 import java.rmi.RemoteException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import javax.security.auth.Subject;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import net.jini.id.Uuid;
 import net.jini.id.UuidFactory;
 import net.jini.lease.LeaseRenewalManager;
@@ -54,6 +60,9 @@ abstract public class ExertDispatcher implements Dispatcher {
 
 	protected volatile int state = INITIAL;
 
+    // completed by setState() when the dispatcher reaches DONE or FAILED
+    private final SettableFuture<DispatchResult> result = SettableFuture.create();
+
     protected boolean isMonitored;
 
     protected Set<Context> sharedContexts;
@@ -68,13 +77,17 @@ abstract public class ExertDispatcher implements Dispatcher {
 
     protected Provider provider;
 
-    protected static Map<Uuid, Dispatcher> dispatchers
-            = new HashMap<Uuid, Dispatcher>();
+    protected static final DispatcherRegistry dispatchers = DispatcherRegistry.getInstance();
+
+    protected volatile boolean cancelled;
+
+    // work of the dispatcher stopped when it's cancelled: the exec() call and asynchronous tasks
+    private final List<Future<?>> tasks = new CopyOnWriteArrayList<Future<?>>();
 
 	protected ThreadGroup disatchGroup;
     protected ProvisionManager provisionManager;
 
-    public static Map<Uuid, Dispatcher> getDispatchers() {
+    public static DispatcherRegistry getDispatchers() {
 		return dispatchers;
 	}
 
@@ -104,8 +117,38 @@ abstract public class ExertDispatcher implements Dispatcher {
     }
 
     public void exec() {
-        dispatchers.put(xrt.getId(), this);
-        state = RUNNING;
+        // cancelling the task interrupts the calling thread only while it executes this dispatcher
+        FutureTask<Object> execution = new FutureTask<Object>(new Runnable() {
+            @Override
+            public void run() {
+                execute();
+            }
+        }, null);
+        addTask(execution);
+        execution.run();
+        tasks.remove(execution);
+        // dispatchers still collecting results asynchronously are unregistered when they finish
+        if (!hasPendingTasks())
+            dispatchers.unregister(xrt.getId());
+        if (execution.isCancelled())
+            return;
+        try {
+            execution.get();
+        } catch (InterruptedException e) {
+            // the task is done
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+        }
+    }
+
+    private void execute() {
+        dispatchers.register(this);
+        setState(RUNNING);
         xrt.setStatus(state);
         if (xrt instanceof Job) {
             masterXrt = (ServiceExertion) ((Job) xrt).getMasterExertion();
@@ -117,8 +160,8 @@ abstract public class ExertDispatcher implements Dispatcher {
         } catch (Exception e) {
             logger.warn("Exertion dispatcher thread killed by exception: {}", e.getMessage());
             xrt.setStatus(FAILED);
-            state = FAILED;
             xrt.reportException(e);
+            setState(FAILED);
         } finally {
             try {
                 MonitoringSession monSession = MonitorUtil.getMonitoringSession(xrt);
@@ -126,10 +169,26 @@ abstract public class ExertDispatcher implements Dispatcher {
             } catch (Exception ce) {
                 logger.warn("Problem removing lease for : " + xrt.getName() + " " + Exec.State.name(xrt.getStatus()) , ce);
             }
-            dispatchers.remove(xrt.getId());
         }
     }
 
+    /**
+     * Register asynchronous work of the dispatcher, like a result collector, to be cancelled with it.
+     */
+    protected <T> Future<T> addTask(Future<T> task) {
+        tasks.add(task);
+        if (cancelled)
+            task.cancel(true);
+        return task;
+    }
+
+    private boolean hasPendingTasks() {
+        for (Future<?> task : tasks)
+            if (!task.isDone())
+                return true;
+        return false;
+    }
+
     abstract protected void doExec() throws SignatureException, ExertionException;
     abstract protected List<Exertion> getInputExertions() throws ContextException;
 
@@ -175,20 +234,24 @@ abstract public class ExertDispatcher implements Dispatcher {
 
     @Override
     public DispatchResult getResult() {
-        /**
-         * The default implementation - wait for status to be changed by another thread
-         */
-
         try {
-            while (!finished())
-                Thread.sleep(50);
+            return result.get();
         } catch (InterruptedException e) {
             logger.warn("Interrupted!", e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // never happens, the future is only completed with a value
+            logger.warn("Error while waiting for {}", xrt.getName(), e.getCause());
         }
         return new DispatchResult(State.values()[state], xrt);
     }
 
-    private boolean finished(){
+    @Override
+    public ListenableFuture<DispatchResult> getResultFuture() {
+        return result;
+    }
+
+    private static boolean finished(int state) {
         return state == State.DONE.ordinal() || state == State.FAILED.ordinal();
     }
 
@@ -215,8 +278,36 @@ abstract public class ExertDispatcher implements Dispatcher {
         return state;
     }
 
+    /**
+     * Mark the dispatcher and its exertion as failed and cancel its tasks, interrupting the threads executing them.
+     */
+    public void cancel() {
+        cancelled = true;
+        xrt.setStatus(FAILED);
+        xrt.reportException(new ExertionException("Dispatcher cancelled", xrt));
+        setState(FAILED);
+        for (Future<?> task : tasks)
+            task.cancel(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Change the dispatcher state. Reaching DONE or FAILED completes the result future and removes the dispatcher
+     * from the registry, so any subclass changing the state must use this method and update the exertion before
+     * the final state is set.
+     */
     public void setState(int state) {
+        // a cancelled dispatcher stays failed
+        if (cancelled && state != FAILED)
+            return;
         this.state = state;
+        if (finished(state)) {
+            result.set(new DispatchResult(State.values()[state], xrt));
+            dispatchers.unregister(xrt.getId());
+        }
     }
 
     protected class CollectResultThread implements Runnable {
@@ -228,11 +319,12 @@ abstract public class ExertDispatcher implements Dispatcher {
             } catch (Exception ex) {
                 xrt.setStatus(FAILED);
                 xrt.reportException(ex);
-                ex.printStackTrace();
+                logger.warn("Error while collecting results of {}", xrt.getName(), ex);
+                setState(FAILED);
             }
             if (xrt.isExecTimeRequested())
                 xrt.stopExecTime();
-            dispatchers.remove(xrt.getId());
+            dispatchers.unregister(xrt.getId());
         }
     }
 
@@ -245,11 +337,11 @@ abstract public class ExertDispatcher implements Dispatcher {
             return;
         }
         List<Context> contexts = Jobs.getTaskContexts(ex);
-        logger.info("Contexts to check if shared: " + contexts.toString());
+        logger.debug("Contexts to check if shared: {}", contexts);
         for (Context ctx : contexts) {
             if (((ServiceContext)ctx).isShared()) {
                 sharedContexts.add(ctx);
-                logger.debug("Added shared context: " + ctx);
+                logger.debug("Added shared context: {}", ctx);
             }
         }
 //      for (int i = 0; i < contexts.size(); i++) {
@@ -346,14 +438,17 @@ abstract public class ExertDispatcher implements Dispatcher {
 		if (Context.EMPTY_LEAF.equals(path) || "".equals(path))
             return null;
         if (id != null && id.length() > 0) {
+            Uuid sharedCtxId = UuidFactory.create(id);
+            if (sharedContexts instanceof SharedContextSet)
+                return (ServiceContext) ((SharedContextSet) sharedContexts).get(sharedCtxId);
             for (Context hc : sharedContexts) {
-                Uuid sharedCtxId = UuidFactory.create(id);
-                logger.debug("Comparing: " + sharedCtxId + " with: " + hc.getId() + "\n" + hc);
                 if (sharedCtxId.equals(hc.getId()))
                     return (ServiceContext) hc;
             }
         }
         else {
+            if (sharedContexts instanceof SharedContextSet)
+                return (ServiceContext) ((SharedContextSet) sharedContexts).getWithPath(path);
             for (Context hc : sharedContexts) {
                 if (hc.containsPath(path))
                     return (ServiceContext) hc;
@@ -18,7 +18,6 @@
 
 package sorcer.core.dispatch;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import org.slf4j.Logger;
@@ -169,7 +168,7 @@ public class ExertionDispatcherFactory implements DispatcherFactory {
      */
     @Override
     public Dispatcher createDispatcher(Exertion exertion, Provider provider, String... config) throws DispatcherException {
-        return createDispatcher(exertion, new HashSet<Context>(), false, provider);
+        return createDispatcher(exertion, new SharedContextSet(), false, provider);
     }
 
     @Override
@@ -182,7 +181,7 @@ public class ExertionDispatcherFactory implements DispatcherFactory {
         logger.info("Running Space Task Dispatcher...");
         try {
             return new SpaceTaskDispatcher(task,
-                    new HashSet<Context>(),
+                    new SharedContextSet(),
                     false,
                     loki,
                     provisionManager);
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+import java.rmi.RemoteException;
+import java.util.Random;
+
+/**
+ * Retry policy of the tasks dispatched by the catalog dispatchers to the providers matching their signatures.
+ * <p/>
+ * The delay before a retry grows exponentially with the number of failed attempts and is randomized (full jitter),
+ * so the dispatchers of a job retrying against a flapping provider don't retry in lockstep. Subclasses may
+ * override {@link #getDelay(int)} and {@link #isProviderFailure(Throwable)}.
+ */
+public class RetryPolicy {
+    public static final String MAX_TRIES = "sorcer.dispatch.retry.maxTries";
+    public static final String BACKOFF = "sorcer.dispatch.retry.backoff";
+    public static final String MAX_BACKOFF = "sorcer.dispatch.retry.maxBackoff";
+
+    public static final int DEFAULT_MAX_TRIES = 6;
+    public static final long DEFAULT_BACKOFF = 100;
+    public static final long DEFAULT_MAX_BACKOFF = 10000;
+
+    private static RetryPolicy defaultPolicy = new RetryPolicy(
+            Integer.getInteger(MAX_TRIES, DEFAULT_MAX_TRIES),
+            Long.getLong(BACKOFF, DEFAULT_BACKOFF),
+            Long.getLong(MAX_BACKOFF, DEFAULT_MAX_BACKOFF));
+
+    private final int maxTries;
+    private final long backoff;
+    private final long maxBackoff;
+    private final Random random = new Random();
+
+    public RetryPolicy(int maxTries, long backoff, long maxBackoff) {
+        this.maxTries = Math.max(1, maxTries);
+        this.backoff = Math.max(0, backoff);
+        this.maxBackoff = Math.max(this.backoff, maxBackoff);
+    }
+
+    public static synchronized RetryPolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    public static synchronized void setDefault(RetryPolicy policy) {
+        defaultPolicy = policy;
+    }
+
+    public int getMaxTries() {
+        return maxTries;
+    }
+
+    /**
+     * @param attempt number of failed attempts, starting from 1
+     * @return delay in milliseconds before the next attempt
+     */
+    public long getDelay(int attempt) {
+        long ceiling = backoff << Math.min(attempt - 1, 30);
+        if (ceiling <= 0 || ceiling > maxBackoff)
+            ceiling = maxBackoff;
+        if (ceiling == 0)
+            return 0;
+        synchronized (random) {
+            return (long) (random.nextDouble() * (ceiling + 1));
+        }
+    }
+
+    /**
+     * @return true if the exception means the provider can't be reached, so the next attempt should go to another
+     * provider and the failure counts against the provider circuit breaker
+     */
+    public boolean isProviderFailure(Throwable t) {
+        return t instanceof RemoteException;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+import java.util.*;
+
+import net.jini.id.Uuid;
+import sorcer.service.Context;
+
+/**
+ * Shared contexts of a job, indexed by context id and by path, shared by the dispatchers of the job and its
+ * nested exertions.
+ * <p/>
+ * A context is identified by its id, so adding a new copy of a context (e.g. returned by a provider) replaces the
+ * old one. When many contexts contain the same path, the path is resolved to the one added last.
+ */
+public class SharedContextSet extends AbstractSet<Context> {
+    private final Map<Uuid, Context> contexts = new LinkedHashMap<Uuid, Context>();
+
+    // path -> context, verified on lookup
+    private final Map<String, Context> paths = new HashMap<String, Context>();
+
+    public SharedContextSet() {
+    }
+
+    public SharedContextSet(Collection<? extends Context> contexts) {
+        addAll(contexts);
+    }
+
+    @Override
+    public synchronized boolean add(Context context) {
+        Context old = contexts.put(context.getId(), context);
+        if (context instanceof Map)
+            for (Object path : ((Map<?, ?>) context).keySet())
+                paths.put((String) path, context);
+        return old != context;
+    }
+
+    @Override
+    public synchronized boolean remove(Object o) {
+        if (!(o instanceof Context))
+            return false;
+        Context context = (Context) o;
+        if (contexts.get(context.getId()) != context)
+            return false;
+        contexts.remove(context.getId());
+        return true;
+    }
+
+    @Override
+    public synchronized boolean contains(Object o) {
+        return o instanceof Context && contexts.get(((Context) o).getId()) == o;
+    }
+
+    @Override
+    public synchronized int size() {
+        return contexts.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        contexts.clear();
+        paths.clear();
+    }
+
+    /**
+     * Iterates over a snapshot of the set
+     */
+    @Override
+    public synchronized Iterator<Context> iterator() {
+        final Iterator<Context> snapshot = new ArrayList<Context>(contexts.values()).iterator();
+        return new Iterator<Context>() {
+            private Context current;
+
+            @Override
+            public boolean hasNext() {
+                return snapshot.hasNext();
+            }
+
+            @Override
+            public Context next() {
+                return current = snapshot.next();
+            }
+
+            @Override
+            public void remove() {
+                if (current == null)
+                    throw new IllegalStateException();
+                SharedContextSet.this.remove(current);
+                current = null;
+            }
+        };
+    }
+
+    public synchronized Context get(Uuid id) {
+        return contexts.get(id);
+    }
+
+    /**
+     * @return the context containing the path, or null
+     */
+    public synchronized Context getWithPath(String path) {
+        Context context = paths.get(path);
+        if (context != null && contexts.get(context.getId()) == context && context.containsPath(path))
+            return context;
+        // the path was added to a context after it has been shared
+        for (Context next : contexts.values()) {
+            if (next.containsPath(path)) {
+                paths.put(path, next);
+                return next;
+            }
+        }
+        paths.remove(path);
+        return null;
+    }
+}
@@ -18,16 +18,20 @@
 
 package sorcer.core.dispatch;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.FutureTask;
 
 import net.jini.core.entry.Entry;
 import net.jini.core.entry.UnusableEntryException;
 import net.jini.core.lease.Lease;
 import net.jini.entry.UnusableEntriesException;
 import net.jini.id.Uuid;
+import net.jini.space.JavaSpace;
 import net.jini.space.JavaSpace05;
 import sorcer.core.exertion.Jobs;
 import sorcer.core.monitor.MonitoringSession;
@@ -35,6 +39,8 @@ import sorcer.core.provider.Provider;
 import sorcer.core.exertion.ExertionEnvelop;
 import sorcer.core.exertion.NetJob;
 import sorcer.core.loki.member.LokiMemberUtil;
+import sorcer.core.provider.ProviderDelegate;
+import sorcer.core.provider.ServiceProvider;
 import sorcer.core.provider.SpaceTaker;
 import sorcer.service.*;
 import sorcer.service.monitor.MonitorUtil;
@@ -46,11 +52,18 @@ import static sorcer.util.StringUtils.tName;
 import java.rmi.RemoteException;
 
 public class SpaceParallelDispatcher extends ExertDispatcher {
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 100;
 
     protected JavaSpace05 space;
     private int doneExertionIndex = 0;
     protected LokiMemberUtil loki;
 
+    // maximum number of envelops written to the space in a single call, 1 disables batching
+    protected int writeBatchSize = DEFAULT_WRITE_BATCH_SIZE;
+
+    // wait for space availability events instead of polling the space for results
+    protected boolean resultNotification = true;
+
     public SpaceParallelDispatcher(Exertion exertion,
            Set<Context> sharedContexts,
            boolean isSpawned,
@@ -69,6 +82,11 @@ public class SpaceParallelDispatcher extends ExertDispatcher {
         disatchGroup.setMaxPriority(Thread.NORM_PRIORITY - 1);
 
         this.loki = loki;
+        if (provider instanceof ServiceProvider) {
+            ProviderDelegate delegate = ((ServiceProvider) provider).getDelegate();
+            writeBatchSize = delegate.getSpaceWriteBatchSize();
+            resultNotification = delegate.isSpaceResultNotification();
+        }
 	}
 
     public int getDoneExertionIndex() {
@@ -87,19 +105,17 @@ public class SpaceParallelDispatcher extends ExertDispatcher {
 
     @Override
     public void doExec() throws SignatureException, ExertionException {
-        new Thread(disatchGroup, new CollectResultThread(), tName("collect-" + xrt.getName())).start();
+        FutureTask<Object> collector = new FutureTask<Object>(new CollectResultThread(), null);
+        new Thread(disatchGroup, addTask(collector), tName("collect-" + xrt.getName())).start();
+
+        if (isBatchDispatch()) {
+            for (int from = 0; from < inputXrts.size(); from += writeBatchSize)
+                dispatchExertions(inputXrts.subList(from, Math.min(from + writeBatchSize, inputXrts.size())));
+            return;
+        }
 
         for (Exertion exertion : inputXrts) {
-            MonitoringSession monSession = MonitorUtil.getMonitoringSession(exertion);
-            if (xrt.isMonitorable() && monSession!=null) {
-                try {
-                    monSession.init(ExertionDispatcherFactory.LEASE_RENEWAL_PERIOD, ExertionDispatcherFactory.DEFAULT_TIMEOUT_PERIOD);
-                } catch (MonitorException me) {
-                    logger.error("Problem starting monitoring for " + xrt.getName());
-                } catch (RemoteException re) {
-                    logger.error("Problem starting monitoring for " + xrt.getName());
-                }
-            }
+            initMonitoring(exertion);
             dispatchExertion(exertion);
             try {
                 afterExec(exertion);
@@ -109,6 +125,46 @@ public class SpaceParallelDispatcher extends ExertDispatcher {
         }
 	}
 
+    /**
+     * @return true if the component exertions may be written to the space in chunks of {@link #writeBatchSize}
+     */
+    protected boolean isBatchDispatch() {
+        return writeBatchSize > 1 && inputXrts.size() > 1;
+    }
+
+    private void initMonitoring(Exertion exertion) {
+        MonitoringSession monSession = MonitorUtil.getMonitoringSession(exertion);
+        if (xrt.isMonitorable() && monSession!=null) {
+            try {
+                monSession.init(ExertionDispatcherFactory.LEASE_RENEWAL_PERIOD, ExertionDispatcherFactory.DEFAULT_TIMEOUT_PERIOD);
+            } catch (MonitorException me) {
+                logger.error("Problem starting monitoring for " + xrt.getName());
+            } catch (RemoteException re) {
+                logger.error("Problem starting monitoring for " + xrt.getName());
+            }
+        }
+    }
+
+    /**
+     * Write envelops of all given exertions with a single call to the space
+     */
+    protected void dispatchExertions(List<Exertion> exertions) throws ExertionException, SignatureException {
+        List<Entry> envelops = new ArrayList<Entry>(exertions.size());
+        for (Exertion exertion : exertions) {
+            initMonitoring(exertion);
+            envelops.add(createEnvelop(exertion));
+        }
+        writeEnvelops(envelops);
+        xrt.setStatus(INSPACE);
+        for (Exertion exertion : exertions) {
+            try {
+                afterExec(exertion);
+            } catch (ContextException ce) {
+                logger.warn("Problem sending state to monitor");
+            }
+        }
+    }
+
     protected void dispatchExertion(Exertion exertion) throws ExertionException, SignatureException {
         logger.debug("exertion #{}: exertion: {}", exertion.getIndex(), exertion);
         try {
@@ -138,19 +194,46 @@ public class SpaceParallelDispatcher extends ExertDispatcher {
 	}
 
 	public void collectResults() throws ExertionException, SignatureException {
-		int count = 0;
 		// get all children of the underlying parent job
         List<ExertionEnvelop> templates = Arrays.asList(getTemplate(DONE), getTemplate(FAILED), getTemplate(ERROR));
+        SpaceResultListener listener = resultNotification ? SpaceResultListener.register(space, templates) : null;
+        try {
+            collectResults(templates, listener);
+        } finally {
+            if (listener != null)
+                listener.close();
+        }
+
+        if(xrt.getStatus()!=FAILED) {
+            executeMasterExertion();
+            setState(DONE);
+        }
+    }
+
+    /**
+     * Take results as they become available and hand them to {@link #handleResult(java.util.Collection)}.
+     * With a listener the thread sleeps until the space reports a result, otherwise it polls the space.
+     */
+    private void collectResults(List<ExertionEnvelop> templates, SpaceResultListener listener)
+            throws ExertionException, SignatureException {
+        int count = 0;
         while(count < inputXrts.size() && state != FAILED) {
             Collection<ExertionEnvelop> results;
             try {
-                results = space.take(templates, null, SpaceTaker.SPACE_TIMEOUT, Integer.MAX_VALUE);
+                if (listener == null) {
+                    results = space.take(templates, null, SpaceTaker.SPACE_TIMEOUT, Integer.MAX_VALUE);
+                } else {
+                    results = space.take(templates, null, JavaSpace.NO_WAIT, Integer.MAX_VALUE);
+                    // the timeout only guards against lost events
+                    if (results.isEmpty())
+                        listener.await(SpaceTaker.SPACE_TIMEOUT);
+                }
                 if (results.isEmpty())
                     continue;
                 count += results.size();
             } catch (UnusableEntriesException e) {
                 xrt.setStatus(FAILED);
-                state = FAILED;
+                setState(FAILED);
                 Collection<UnusableEntryException> exceptions = e.getUnusableEntryExceptions();
                 for (UnusableEntryException throwable : exceptions) {
                     logger.warn("UnusableEntryException! unusable fields = " + throwable.partialEntry, throwable);
@@ -160,7 +243,7 @@ public class SpaceParallelDispatcher extends ExertDispatcher {
                 throw new ExertionException(e);
             } catch (Exception e) {
                 xrt.setStatus(FAILED);
-                state = FAILED;
+                setState(FAILED);
                 throw new ExertionException("Taking exertion envelop failed", e);
             } finally {
                 synchronized (this) {
@@ -169,12 +252,6 @@ public class SpaceParallelDispatcher extends ExertDispatcher {
             }
             handleResult(results);
         }
-
-        if(xrt.getStatus()!=FAILED) {
-            executeMasterExertion();
-            state = DONE;
-        }
-        dispatchers.remove(xrt.getId());
     }
 
     protected ExertionEnvelop getTemplate(int state) {
@@ -268,27 +345,53 @@ public class SpaceParallelDispatcher extends ExertDispatcher {
 
     protected void writeEnvelop(Exertion exertion) throws
             ExertionException, SignatureException, RemoteException {
-        // setSubject before exertion is dropped
-        space = SpaceAccessor.getSpace();
         if (space == null) {
-            throw new ExertionException("NO exertion space available!");
+            space = SpaceAccessor.getSpace();
+            if (space == null)
+                throw new ExertionException("NO exertion space available!");
         }
 
+        ExertionEnvelop ee = createEnvelop(exertion);
+        List<Entry> envelops = Collections.<Entry>singletonList(ee);
+        writeEnvelops(envelops);
+    }
+
+    /**
+     * Write the envelops to the cached space proxy, the proxy is resolved again if the space is not reachable
+     */
+    protected void writeEnvelops(List<Entry> envelops) throws ExertionException {
+        List<Long> leases = Collections.nCopies(envelops.size(), Lease.FOREVER);
+        try {
+            try {
+                space.write(envelops, null, leases);
+            } catch (RemoteException re) {
+                logger.warn("Space not reachable....resetting space", re);
+                space = SpaceAccessor.getSpace();
+                if (space == null) {
+                    xrt.setStatus(FAILED);
+                    throw new ExertionException("NO exertion space available!");
+                }
+                space.write(envelops, null, leases);
+            }
+            logger.debug("written {} envelop(s) to: {}", envelops.size(), space);
+        } catch (ExertionException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.warn("writeEnvelop", e);
+            setState(Exec.FAILED);
+        }
+    }
+
+    protected ExertionEnvelop createEnvelop(Exertion exertion) throws ExertionException, SignatureException {
         if (exertion.isProvisionable())
             provisionProviderForExertion(exertion);
 
+        // setSubject before exertion is dropped
         ((ServiceExertion) exertion).setSubject(subject);
         preExecExertion(exertion);
         ExertionEnvelop ee = ExertionEnvelop.getTemplate(exertion);
         ee.state = INITIAL;
-        try {
-            space.write(ee, null, Lease.FOREVER);
-            logger.debug("written envelop: "
-                    + ee.describe() + "\n to: " + space);
-        } catch (Exception e) {
-            logger.warn("writeEnvelop", e);
-            state = Exec.FAILED;
-        }
+        return ee;
     }
 
     protected ExertionEnvelop takeEnvelop(Entry template)
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+import java.util.Collection;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import net.jini.core.entry.Entry;
+import net.jini.core.event.EventRegistration;
+import net.jini.core.event.RemoteEvent;
+import net.jini.core.event.RemoteEventListener;
+import net.jini.core.lease.Lease;
+import net.jini.export.Exporter;
+import net.jini.lease.LeaseRenewalManager;
+import net.jini.space.JavaSpace05;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sorcer.container.jeri.ExporterFactories;
+
+/**
+ * Listener of the space availability events for result envelops of a single dispatcher. The collecting thread
+ * sleeps in {@link #await(long)} until the space reports a matching entry instead of polling the space.
+ */
+public class SpaceResultListener implements RemoteEventListener {
+    private static final Logger logger = LoggerFactory.getLogger(SpaceResultListener.class);
+
+    private static final LeaseRenewalManager leaseManager = new LeaseRenewalManager();
+
+    private final Semaphore available = new Semaphore(0);
+
+    private Exporter exporter;
+
+    private Lease lease;
+
+    /**
+     * Export a new listener and register it for availability of entries matching the templates.
+     *
+     * @return registered listener or null if the listener could not be registered
+     */
+    public static SpaceResultListener register(JavaSpace05 space, Collection<? extends Entry> templates) {
+        SpaceResultListener listener = new SpaceResultListener();
+        try {
+            listener.exporter = ExporterFactories.getBasicTcp();
+            RemoteEventListener proxy = (RemoteEventListener) listener.exporter.export(listener);
+            EventRegistration registration = space.registerForAvailabilityEvent(templates, null, true, proxy,
+                    Lease.FOREVER, null);
+            listener.lease = registration.getLease();
+            leaseManager.renewUntil(listener.lease, Lease.FOREVER, null);
+            return listener;
+        } catch (Exception e) {
+            logger.warn("Could not register for availability events, falling back to polling", e);
+            listener.close();
+            return null;
+        }
+    }
+
+    @Override
+    public void notify(RemoteEvent event) {
+        available.release();
+    }
+
+    /**
+     * Wait for an availability event.
+     *
+     * @return true if at least one event has been received since the last call
+     */
+    public boolean await(long timeout) throws InterruptedException {
+        boolean result = available.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+        // many events may be handled by a single take
+        available.drainPermits();
+        return result;
+    }
+
+    public void close() {
+        if (lease != null) {
+            try {
+                leaseManager.remove(lease);
+                lease.cancel();
+            } catch (Exception e) {
+                logger.debug("Error while cancelling event registration", e);
+            }
+            lease = null;
+        }
+        if (exporter != null) {
+            exporter.unexport(true);
+            exporter = null;
+        }
+    }
+}
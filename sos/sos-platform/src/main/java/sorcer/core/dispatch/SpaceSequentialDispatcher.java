@@ -35,6 +35,12 @@ public class SpaceSequentialDispatcher extends SpaceParallelDispatcher {
 		super(job, sharedContexts, isSpawned, myMemberUtil, provider, provisionManager);
 	}
 
+    @Override
+    protected boolean isBatchDispatch() {
+        // each exertion waits for its predecessor
+        return false;
+    }
+
     protected void dispatchExertion(Exertion exertion) throws ExertionException, SignatureException {
         super.dispatchExertion(exertion);
 		waitForExertion(exertion);
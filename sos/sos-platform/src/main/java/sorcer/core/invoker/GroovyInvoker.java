@@ -17,7 +17,7 @@
 
 package sorcer.core.invoker;
 
-import groovy.lang.GroovyShell;
+import groovy.lang.Binding;
 
 import java.io.File;
 import java.io.IOException;
@@ -49,8 +49,8 @@ public class GroovyInvoker<T> extends ServiceInvoker<T> {
 	/** expression to be evaluated */
 	protected String expression;
 
-	/** The evaluator */
-	transient private GroovyShell shell;
+	/** Bindings of the current evaluation */
+	transient private Binding binding;
 
 	private File scriptFile = null;
 
@@ -100,7 +100,7 @@ public class GroovyInvoker<T> extends ServiceInvoker<T> {
 	public T getValue(Arg... entries) throws InvocationException,
 			RemoteException {
 		Object result = null;
-		shell = new GroovyShell();
+		binding = new Binding();
 		if (entries != null) {
 			for (Arg a : entries)
 				try {
@@ -115,16 +115,15 @@ public class GroovyInvoker<T> extends ServiceInvoker<T> {
 			throw new InvocationException(ex);
 		}
 		try {
-			synchronized (shell) {
-				if (scriptFile != null) {
-					try {
-						result = shell.evaluate(scriptFile);
-					} catch (IOException e) {
-						throw new InvocationException(e);
-					}
-				} else {
-					result = shell.evaluate(expression);
+			// compiled scripts are shared, bindings are not
+			if (scriptFile != null) {
+				try {
+					result = ScriptCache.getScript(scriptFile, binding).run();
+				} catch (IOException e) {
+					throw new InvocationException(e);
 				}
+			} else {
+				result = ScriptCache.getScript(expression, binding).run();
 			}
 		} catch (RuntimeException e) {
 			logger.error("Error Occurred in Groovy Shell: " + e.getMessage());
@@ -161,12 +160,12 @@ public class GroovyInvoker<T> extends ServiceInvoker<T> {
 			if (val instanceof Evaluation) {
 				val = ((Evaluation) val).getValue();
 			}
-			shell.setVariable(key, val);
+			binding.setVariable(key, val);
 		}
 	}
 
 	public void clean() {
-		shell = null;
+		binding = null;
 	}
 
 	@Override
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.Script;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+/**
+ * Bounded cache of compiled Groovy script classes for each class loader the scripts are compiled against. Scripts
+ * are keyed by their text, script files by their path and content checksum. Every compiled class gets its own
+ * {@link GroovyClassLoader}, so evicted scripts can be unloaded.
+ * <p/>
+ * Class loaders are referenced weakly. The compiled classes reference their class loader, so they are referenced
+ * softly: the scripts of an undeployed provider are dropped when memory runs low, and its class loader can be
+ * unloaded then.
+ * <p/>
+ * The cache size of each class loader is set with the {@value #CACHE_SIZE} system property.
+ */
+public class ScriptCache {
+    public static final String CACHE_SIZE = "sorcer.groovy.scriptCacheSize";
+
+    public static final int DEFAULT_CACHE_SIZE = 512;
+
+    private static final LoadingCache<ClassLoader, Cache<Key, Class>> scripts = CacheBuilder.newBuilder()
+            .weakKeys().build(new CacheLoader<ClassLoader, Cache<Key, Class>>() {
+                @Override
+                public Cache<Key, Class> load(ClassLoader classLoader) {
+                    return CacheBuilder.newBuilder().softValues()
+                            .maximumSize(Integer.getInteger(CACHE_SIZE, DEFAULT_CACHE_SIZE)).build();
+                }
+            });
+
+    /**
+     * Create a new instance of the compiled expression with the given bindings
+     */
+    public static Script getScript(final String expression, Binding binding) {
+        final ClassLoader parent = getParentClassLoader();
+        return create(parent, new Key(expression, null), binding, new Callable<Class>() {
+            @Override
+            public Class call() throws Exception {
+                return new GroovyClassLoader(parent).parseClass(expression);
+            }
+        });
+    }
+
+    /**
+     * Create a new instance of the compiled script file with the given bindings. The script is compiled again when
+     * the content of the file changes.
+     */
+    public static Script getScript(final File scriptFile, Binding binding) throws IOException {
+        final ClassLoader parent = getParentClassLoader();
+        String checksum = Files.hash(scriptFile, Hashing.sha1()).toString();
+        return create(parent, new Key(scriptFile.getAbsolutePath(), checksum), binding, new Callable<Class>() {
+            @Override
+            public Class call() throws Exception {
+                return new GroovyClassLoader(parent).parseClass(scriptFile);
+            }
+        });
+    }
+
+    public static void clear() {
+        scripts.invalidateAll();
+    }
+
+    public static long size() {
+        long size = 0;
+        for (Cache<Key, Class> loaderScripts : scripts.asMap().values())
+            size += loaderScripts.size();
+        return size;
+    }
+
+    private static Script create(ClassLoader parent, Key key, Binding binding, Callable<Class> compiler) {
+        Class scriptClass;
+        try {
+            scriptClass = scripts.getUnchecked(parent).get(key, compiler);
+        } catch (ExecutionException e) {
+            // compilation errors are reported the same way GroovyShell does
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        return InvokerHelper.createScript(scriptClass, binding);
+    }
+
+    // the same class loader GroovyShell would use
+    private static ClassLoader getParentClassLoader() {
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        return cl != null ? cl : ScriptCache.class.getClassLoader();
+    }
+
+    private static class Key {
+        private final String source;
+        private final String checksum;
+
+        Key(String source, String checksum) {
+            this.source = source;
+            this.checksum = checksum;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return source.equals(key.source)
+                    && (checksum == null ? key.checksum == null : checksum.equals(key.checksum));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = source.hashCode();
+            result = 31 * result + (checksum != null ? checksum.hashCode() : 0);
+            return result;
+        }
+    }
+}
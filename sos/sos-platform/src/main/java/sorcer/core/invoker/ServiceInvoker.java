@@ -86,6 +86,9 @@ public class ServiceInvoker<T> extends Observable implements Identifiable, Scopa
 
 	private boolean isReactive = false;
 
+	// declared a function of its pars, see isFunctional()
+	private boolean functional = false;
+
 	// indication that value has been calculated with recent arguments
 	protected boolean valueIsValid = false;
 		
@@ -187,6 +190,34 @@ public class ServiceInvoker<T> extends Observable implements Identifiable, Scopa
 			
 	}
 
+	/**
+	 * <p>
+	 * Returns <code>true</code> if this invoker was declared to depend only on
+	 * the values of its pars, so a {@link ParModel} can reuse the value while the
+	 * pars are unchanged. Invokers are not functional unless declared so.
+	 * </p>
+	 * 
+	 * @return <code>true</code> if this invoker is a function of its pars
+	 */
+	public boolean isFunctional() {
+		return functional;
+	}
+
+	/**
+	 * <p>
+	 * Declares whether this invoker depends only on the values of its pars.
+	 * Invokers with side effects or other inputs must not be declared
+	 * functional.
+	 * </p>
+	 * 
+	 * @param functional
+	 *            <code>true</code> if this invoker is a function of its pars
+	 */
+	public ServiceInvoker setFunctional(boolean functional) {
+		this.functional = functional;
+		return this;
+	}
+
 	public void valueValid(boolean state) {
 		valueIsValid = state;
 	}
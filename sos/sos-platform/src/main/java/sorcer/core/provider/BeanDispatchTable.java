@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.provider;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of service bean lookups and resolved bean methods used by {@link ProviderDelegate} for every task executed
+ * by a service bean. The table must be {@link #reset(java.util.Map) reset} whenever the service beans are
+ * registered again.
+ */
+@SuppressWarnings("rawtypes")
+class BeanDispatchTable {
+    private static final Object NONE = new Object();
+
+    private volatile Map<Class, Object> components = Collections.emptyMap();
+
+    // service type -> bean implementing it, or NONE
+    private final ConcurrentMap<Class, Object> beans = new ConcurrentHashMap<Class, Object>();
+
+    // service type -> is there a bean published with a super type
+    private final ConcurrentMap<Class, Boolean> beanable = new ConcurrentHashMap<Class, Boolean>();
+
+    private final ConcurrentMap<MethodKey, Method> methods = new ConcurrentHashMap<MethodKey, Method>();
+
+    public void reset(Map<Class, Object> components) {
+        this.components = components == null ? Collections.<Class, Object>emptyMap() : components;
+        beans.clear();
+        beanable.clear();
+        methods.clear();
+    }
+
+    /**
+     * @return true if any bean is published with the service type or its super type
+     */
+    public boolean isBeanable(Class serviceType) {
+        Map<Class, Object> components = this.components;
+        if (components.isEmpty())
+            return false;
+        Boolean result = beanable.get(serviceType);
+        if (result == null) {
+            result = components.containsKey(serviceType);
+            if (!result)
+                for (Class next : components.keySet())
+                    if (next.isAssignableFrom(serviceType)) {
+                        result = true;
+                        break;
+                    }
+            beanable.put(serviceType, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the bean published with the service type or with a type directly extending it, or null
+     */
+    public Object getBean(Class serviceType) {
+        Object bean = beans.get(serviceType);
+        if (bean == null) {
+            bean = NONE;
+            for (Map.Entry<Class, Object> next : components.entrySet()) {
+                if (next.getKey() == serviceType || Arrays.asList(next.getKey().getInterfaces()).contains(serviceType)) {
+                    bean = next.getValue();
+                    break;
+                }
+            }
+            beans.put(serviceType, bean);
+        }
+        return bean == NONE ? null : bean;
+    }
+
+    /**
+     * @return resolved public method of the bean class, ready to be invoked without access checks
+     */
+    public Method getMethod(Class beanClass, String selector, Class[] argTypes) throws NoSuchMethodException {
+        MethodKey key = new MethodKey(beanClass, selector, argTypes);
+        Method method = methods.get(key);
+        if (method == null) {
+            method = beanClass.getMethod(selector, argTypes);
+            try {
+                method.setAccessible(true);
+            } catch (SecurityException ignored) {
+                // access checks stay on
+            }
+            methods.put(key, method);
+        }
+        return method;
+    }
+
+    private static class MethodKey {
+        private final Class type;
+        private final String selector;
+        private final Class[] argTypes;
+        private final int hash;
+
+        MethodKey(Class type, String selector, Class[] argTypes) {
+            this.type = type;
+            this.selector = selector;
+            this.argTypes = argTypes;
+            hash = 31 * (31 * type.hashCode() + selector.hashCode()) + Arrays.hashCode(argTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MethodKey)) return false;
+            MethodKey that = (MethodKey) o;
+            return type == that.type && selector.equals(that.selector) && Arrays.equals(argTypes, that.argTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
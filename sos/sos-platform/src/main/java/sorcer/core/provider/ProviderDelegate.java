@@ -74,6 +74,8 @@ import sorcer.core.context.Contexts;
 import sorcer.core.context.ControlContext;
 import sorcer.core.context.ServiceContext;
 import sorcer.core.context.model.par.ParModel;
+import sorcer.core.dispatch.DispatchExecutor;
+import sorcer.core.dispatch.SpaceParallelDispatcher;
 import sorcer.core.exertion.ExertionEnvelop;
 import sorcer.core.exertion.NetTask;
 import sorcer.core.loki.member.LokiMemberUtil;
@@ -186,6 +188,19 @@ public class ProviderDelegate {
 
 	private List<ExecutorService> spaceHandlingPools;
 
+	private int dispatchPoolSize = DispatchExecutor.DEFAULT_POOL_SIZE;
+
+	private int maxDispatchPoolSize = DispatchExecutor.DEFAULT_MAX_POOL_SIZE;
+
+	private int dispatchQueueSize = DispatchExecutor.DEFAULT_QUEUE_SIZE;
+
+	/** executor shared by all parallel dispatchers of this provider */
+	private DispatchExecutor dispatchExecutor;
+
+	private int spaceWriteBatchSize = SpaceParallelDispatcher.DEFAULT_WRITE_BATCH_SIZE;
+
+	private boolean spaceResultNotification = true;
+
 	/** The SORCER persistence server. */
 	public static Mandator persister;
 
@@ -272,6 +287,11 @@ public class ProviderDelegate {
 	 */
 	private Map<Class, Object> serviceComponents;
 
+	/**
+	 * Resolved beans and bean methods of the service components
+	 */
+	private final BeanDispatchTable beanDispatchTable = new BeanDispatchTable();
+
 	/**
 	 * List of Exertions for which SLA Offer was given
 	 */
@@ -379,6 +399,36 @@ public class ProviderDelegate {
 		}
 	}
 
+	/**
+	 * Read an int entry of the provider, reporting a malformed entry and
+	 * using the default value instead.
+	 */
+	private static int getIntEntry(Configuration jconfig, String name, int defaultValue) {
+		try {
+			return (Integer) jconfig.getEntry(ServiceProvider.COMPONENT, name,
+					int.class, defaultValue);
+		} catch (ConfigurationException e) {
+			logger.error("Malformed configuration entry {}.{}, using {}",
+					ServiceProvider.COMPONENT, name, defaultValue, e);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Read a boolean entry of the provider, reporting a malformed entry and
+	 * using the default value instead.
+	 */
+	private static boolean getBooleanEntry(Configuration jconfig, String name, boolean defaultValue) {
+		try {
+			return (Boolean) jconfig.getEntry(ServiceProvider.COMPONENT, name,
+					boolean.class, defaultValue);
+		} catch (ConfigurationException e) {
+			logger.error("Malformed configuration entry {}.{}, using {}",
+					ServiceProvider.COMPONENT, name, defaultValue, e);
+			return defaultValue;
+		}
+	}
+
 	protected void configure(Configuration jconfig) throws Exception {
 		final Thread currentThread = Thread.currentThread();
 		implClassLoader = currentThread.getContextClassLoader();
@@ -504,6 +554,17 @@ public class ProviderDelegate {
 			e.printStackTrace();
 		}
 
+		dispatchPoolSize = getIntEntry(jconfig, DISPATCH_POOL_SIZE,
+				DispatchExecutor.DEFAULT_POOL_SIZE);
+		maxDispatchPoolSize = getIntEntry(jconfig, MAX_DISPATCH_POOL_SIZE,
+				DispatchExecutor.DEFAULT_MAX_POOL_SIZE);
+		dispatchQueueSize = getIntEntry(jconfig, DISPATCH_QUEUE_SIZE,
+				DispatchExecutor.DEFAULT_QUEUE_SIZE);
+		spaceWriteBatchSize = getIntEntry(jconfig, SPACE_WRITE_BATCH_SIZE,
+				SpaceParallelDispatcher.DEFAULT_WRITE_BATCH_SIZE);
+		spaceResultNotification = getBooleanEntry(jconfig,
+				SPACE_RESULT_NOTIFICATION, true);
+
 		try {
 			spaceReadiness = (Boolean) jconfig.getEntry(
 					ServiceProvider.COMPONENT, SPACE_READINESS, boolean.class,
@@ -885,39 +946,15 @@ public class ProviderDelegate {
 			return false;
 		Class serviceType = task.getProcessSignature().getServiceType();
 		logger.debug("match serviceType: {}", serviceType);
-        // check declared interfaces
-        if(serviceComponents.containsKey(serviceType))
-            return true;
-
-        for (Class next: serviceComponents.keySet()) {
-			// check implemented interfaces
-            if(next.isAssignableFrom(serviceType))
-                return true;
-		}
-		return false;
+		// check declared and implemented interfaces
+		return beanDispatchTable.isBeanable(serviceType);
 	}
 
 	private Task useServiceComponents(Task task, Transaction transaction)
 			throws RemoteException, ContextException {
 		String selector = task.getProcessSignature().getSelector();
 		Class serviceType = task.getProcessSignature().getServiceType();
-		Iterator i = serviceComponents.entrySet().iterator();
-		Map.Entry next;
-		Object impl = null;
-		while (i.hasNext()) {
-			next = (Map.Entry) i.next();
-			if (next.getKey() == serviceType) {
-				impl = next.getValue();
-				break;
-			}
-			Class[] supertypes = ((Class)next.getKey()).getInterfaces();			
-			for (Class st : supertypes) {
-				if (st == serviceType) {
-					impl = next.getValue();
-					break;
-				}
-			}
-		}
+		Object impl = beanDispatchTable.getBean(serviceType);
 		if (impl != null) {
 			if (task.getProcessSignature().getReturnPath() != null) {
 				((ServiceContext) task.getContext()).setReturnPath(task
@@ -936,21 +973,21 @@ public class ProviderDelegate {
 				// select the proper method for the bean type
                 if (selector.equals("invoke") && (impl instanceof Exertion
                         || impl instanceof ParModeling)) {
-                    	m = impl.getClass().getMethod(selector,
+                    	m = beanDispatchTable.getMethod(impl.getClass(), selector,
 							new Class[] { Context.class, Arg[].class });
 					isContextual = true;
 				} else if (selector.equals("exert") && impl instanceof ExertionDispatcher) {
-					m = impl.getClass().getMethod(selector,
+					m = beanDispatchTable.getMethod(impl.getClass(), selector,
 							new Class[] { Exertion.class, Arg[].class });
 					isContextual = false;
 				} else if (selector.equals("getValue") && impl instanceof Evaluation) {
-					m = impl.getClass().getMethod(selector,
+					m = beanDispatchTable.getMethod(impl.getClass(), selector,
 							new Class[] { Arg[].class });
 					isContextual = false;
 				} else
-					m = impl.getClass().getMethod(selector, argTypes);
-				logger.info("Executing service bean method: " + m + " by: "
-						+ config.getProviderName() + " isContextual: " + isContextual);
+					m = beanDispatchTable.getMethod(impl.getClass(), selector, argTypes);
+				logger.info("Executing service bean method: {} by: {} isContextual: {}",
+						m, config.getProviderName(), isContextual);
 				task.getContext().setExertion(task);
 				((ServiceContext) task.getContext())
 						.setCurrentSelector(selector);
@@ -1756,11 +1793,48 @@ public class ProviderDelegate {
                 }
             }
 		}
+        synchronized (this) {
+            if (dispatchExecutor != null) {
+                dispatchExecutor.shutdown();
+                dispatchExecutor = null;
+            }
+        }
         if (beanListener != null && serviceBeans != null)
             for (Object serviceBean : serviceBeans)
                 beanListener.destroy(serviceBuilder, serviceBean);
 	}
 
+	/**
+	 * Returns the bounded executor shared by the parallel exertion dispatchers
+	 * of this provider, its size is configured with
+	 * {@link #DISPATCH_POOL_SIZE}, {@link #MAX_DISPATCH_POOL_SIZE} and
+	 * {@link #DISPATCH_QUEUE_SIZE}.
+	 */
+	public synchronized DispatchExecutor getDispatchExecutor() {
+		if (dispatchExecutor == null)
+			dispatchExecutor = new DispatchExecutor(getProviderName(),
+					dispatchPoolSize, maxDispatchPoolSize, dispatchQueueSize);
+		return dispatchExecutor;
+	}
+
+	/**
+	 * Returns the maximum number of envelops a space dispatcher of this
+	 * provider writes in a single call, configured with
+	 * {@link #SPACE_WRITE_BATCH_SIZE}.
+	 */
+	public int getSpaceWriteBatchSize() {
+		return spaceWriteBatchSize;
+	}
+
+	/**
+	 * Returns true if the space dispatchers of this provider wait for space
+	 * availability events instead of polling for results, configured with
+	 * {@link #SPACE_RESULT_NOTIFICATION}.
+	 */
+	public boolean isSpaceResultNotification() {
+		return spaceResultNotification;
+	}
+
 	public boolean isValidTask(Exertion servicetask) throws ContextException, RemoteException,
 	ExertionException {
 		//try {
@@ -2757,6 +2831,7 @@ public class ProviderDelegate {
                     serviceComponents.put(type, o);
             }
         }
+		beanDispatchTable.reset(serviceComponents);
 		return serviceComponents;
 	}
 
@@ -2924,6 +2999,7 @@ public class ProviderDelegate {
 
 	public void setServiceComponents(Map serviceComponents) {
 		this.serviceComponents = serviceComponents;
+		beanDispatchTable.reset(serviceComponents);
 	}
 
     public Object getBean(Class serviceType) {
@@ -3090,6 +3166,26 @@ public class ProviderDelegate {
 
 	public static final String MAX_WORKER_POOL_SIZE = "maxWorkerPoolSize";
 
+	/*
+	 * Entries of the exertion dispatchers, all read from the ServiceProvider
+	 * component when the provider is configured:
+	 * dispatchPoolSize - core threads of the executor of the parallel catalog dispatchers
+	 * maxDispatchPoolSize - maximum threads of that executor
+	 * dispatchQueueSize - exertions queued before the submitting thread runs them itself
+	 * spaceWriteBatchSize - envelops written to the space in a single call, 1 disables batching
+	 * spaceResultNotification - wait for space availability events instead of polling for results
+	 */
+
+	public static final String DISPATCH_POOL_SIZE = "dispatchPoolSize";
+
+	public static final String MAX_DISPATCH_POOL_SIZE = "maxDispatchPoolSize";
+
+	public static final String DISPATCH_QUEUE_SIZE = "dispatchQueueSize";
+
+	public static final String SPACE_WRITE_BATCH_SIZE = "spaceWriteBatchSize";
+
+	public static final String SPACE_RESULT_NOTIFICATION = "spaceResultNotification";
+
 	public static final String WORKER_TRANSACTION_LEASE_TIME = "workerTransactionLeaseTime";
 
 	public static final String SPACE_TIMEOUT = "workerTimeout";
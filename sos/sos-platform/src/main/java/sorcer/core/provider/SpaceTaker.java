@@ -19,7 +19,12 @@ package sorcer.core.provider;
 
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import net.jini.config.Configuration;
@@ -77,6 +82,12 @@ public class SpaceTaker implements Runnable {
 
     // controls the loop of this space worker
 	protected volatile boolean keepGoing = true;
+
+	// signalled by workers when they finish
+	private final Object capacityLock = new Object();
+
+	// configured number of core workers, the lower bound for scaling
+	private int minWorkers;
     protected boolean remoteLogging;
 
 	public static void doLog(String msg, String threadId, Transaction.Created txn) {
@@ -150,6 +161,8 @@ public class SpaceTaker implements Runnable {
 		this.transactionLeaseTimeout = getTransactionLeaseTime();
 		this.spaceTimeout = getTimeOut();
 		this.isTransactional = data.workerTransactional;
+		if (pool instanceof ThreadPoolExecutor)
+			minWorkers = ((ThreadPoolExecutor) pool).getCorePoolSize();
 	}
 
 	protected long getTransactionLeaseTime() {
@@ -242,73 +255,62 @@ public class SpaceTaker implements Runnable {
 		String threadId = doThreadMonitorTaker(null);
 
 		Transaction.Created txnCreated = null;
+		List<ExertionEnvelop> templates = Collections.singletonList(data.entry);
 
 		while (keepGoing) {
-			ExertionEnvelop ee;
-            Object envelopNoCast = null;
 			try {
-				space = SpaceAccessor.getSpace(data.spaceName,
-                        data.spaceGroup);
-
 				if (space == null) {
-					Thread.sleep(spaceTimeout / 6);
-					continue;
+					space = SpaceAccessor.getSpace(data.spaceName,
+							data.spaceGroup);
+					if (space == null) {
+						Thread.sleep(spaceTimeout / 6);
+						continue;
+					}
 				}
 
-				if (data.noQueue) {
-					if (((ThreadPoolExecutor) pool).getActiveCount() != ((ThreadPoolExecutor) pool)
-							.getCorePoolSize()) {
-                        Transaction tx = null;
-						if (isTransactional) {
-							txnCreated = TX.createTransaction(transactionLeaseTimeout);
-							if (txnCreated == null) {
-                                logger.warn("SpaceTaker did not get TRANSACTION thread: {}", threadId);
-								Thread.sleep(spaceTimeout / 6);
-								continue;
-							}
-                            tx = txnCreated.transaction;
-						}
-                        envelopNoCast = space.take(data.entry, tx, spaceTimeout);
-                        ee = (ExertionEnvelop) envelopNoCast;
-					} else {
+				// park while all workers are busy, a finished worker wakes us up
+				int free = awaitCapacity();
+				if (free <= 0)
+					continue;
+
+				Collection<ExertionEnvelop> envelops;
+				if (isTransactional) {
+					// each worker commits its own transaction, so take one envelop per transaction
+					txnCreated = TX.createTransaction(transactionLeaseTimeout);
+					if (txnCreated == null) {
+						logger.warn("SpaceTaker did not get TRANSACTION thread: {}", threadId);
+						Thread.sleep(spaceTimeout / 6);
 						continue;
 					}
+					envelops = space.take(templates, txnCreated.transaction, spaceTimeout, 1);
 				} else {
-					if (isTransactional) {
-						txnCreated = TX.createTransaction(transactionLeaseTimeout);
-						if (txnCreated == null) {
-							doLog("\t***warning: space taker did not get TRANSACTION.",
-									threadId, null);
-							Thread.sleep(spaceTimeout / 6);
-							continue;
-						}
-						ee = (ExertionEnvelop) space.take(data.entry,
-								txnCreated.transaction, spaceTimeout);
-					} else {
-						ee = (ExertionEnvelop) space.take(data.entry, null,
-								spaceTimeout);
-					}
+					envelops = space.take(templates, null, spaceTimeout, free);
 				}
 
-				// after 'take' timeout abort transaction and sleep for a while
-				// before 'taking' the next exertion
-				if (ee == null) {
-					if (txnCreated != null) {
+				// after 'take' timeout abort transaction before 'taking' the next exertion
+				if (envelops.isEmpty()) {
+					if (txnCreated != null)
 						TX.abortTransaction(txnCreated);
-						try {
-                            Thread.sleep(spaceTimeout / 2);
-                        } catch (InterruptedException ie) {
-                            keepGoing = false;
-                            break;
-                        }
-					}
-
 					txnCreated = null;
+					scaleWorkers(0, free);
 					continue;
 				}
-                pool.execute(new SpaceWorker(ee, txnCreated, data.provider, remoteLogging));
+				scaleWorkers(envelops.size(), free);
+				for (ExertionEnvelop ee : envelops) {
+					SpaceWorker worker = new SpaceWorker(ee, txnCreated, data.provider, remoteLogging);
+					try {
+						pool.execute(worker);
+					} catch (RejectedExecutionException e) {
+						rejected(worker, ee, txnCreated);
+					}
+				}
+				txnCreated = null;
+			} catch (InterruptedException ie) {
+				keepGoing = false;
 			} catch (Exception ex) {
-                logger.warn("Problem with SpaceTaker", ex);
+				logger.warn("Problem with SpaceTaker", ex);
+				// resolve the space again in the next round
+				space = null;
 			}
 		}
 		
@@ -316,6 +318,77 @@ public class SpaceTaker implements Runnable {
 		doThreadMonitorTaker(threadId);
 	}
 
+	/**
+	 * Number of envelops the pool can accept without blocking: idle workers
+	 * plus the free space in the pool queue, unless {@link SpaceTakerData#noQueue} is set.
+	 */
+	protected int getFreeCapacity() {
+		if (!(pool instanceof ThreadPoolExecutor))
+			return 1;
+		ThreadPoolExecutor tpe = (ThreadPoolExecutor) pool;
+		BlockingQueue<Runnable> queue = tpe.getQueue();
+		int free = tpe.getMaximumPoolSize() - tpe.getActiveCount() - queue.size();
+		if (!data.noQueue)
+			free += queue.remainingCapacity();
+		return free;
+	}
+
+	/**
+	 * Don't lose an envelop already taken from the space when the pool
+	 * rejects it: give it back to the space if the pool is shut down,
+	 * otherwise execute it in the taker thread.
+	 */
+	private void rejected(SpaceWorker worker, ExertionEnvelop ee, Transaction.Created txnCreated) {
+		if (!pool.isShutdown()) {
+			logger.debug("Worker pool saturated, executing {} in the taker thread", ee.exertion);
+			worker.run();
+			return;
+		}
+		try {
+			// aborting the take puts the envelop back
+			if (txnCreated != null)
+				TX.abortTransaction(txnCreated);
+			else
+				space.write(ee, null, Lease.FOREVER);
+		} catch (Exception e) {
+			logger.error("Could not return {} to the space", ee.exertion, e);
+		}
+	}
+
+	private int awaitCapacity() throws InterruptedException {
+		synchronized (capacityLock) {
+			int free = getFreeCapacity();
+			if (free <= 0 && keepGoing) {
+				capacityLock.wait(spaceTimeout);
+				free = getFreeCapacity();
+			}
+			return free;
+		}
+	}
+
+	private void workerDone() {
+		synchronized (capacityLock) {
+			capacityLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Grow the number of core workers while the space delivers full batches
+	 * and shrink it back to the configured size when the space is idle.
+	 */
+	private void scaleWorkers(int taken, int requested) {
+		if (!(pool instanceof ThreadPoolExecutor))
+			return;
+		ThreadPoolExecutor tpe = (ThreadPoolExecutor) pool;
+		int core = tpe.getCorePoolSize();
+		if (taken > 0 && taken >= requested)
+			core = Math.min(tpe.getMaximumPoolSize(), core + taken);
+		else if (taken == 0)
+			core = Math.max(minWorkers, core - 1);
+		if (core != tpe.getCorePoolSize())
+			tpe.setCorePoolSize(core);
+	}
+
 	synchronized public Transaction.Created createTransaction() {
 		return TX.createTransaction(transactionLeaseTimeout);
 	}
@@ -353,6 +426,7 @@ public class SpaceTaker implements Runnable {
 
     public void destroy() {
         keepGoing = false;
+        workerDone();
     }
 
 
@@ -374,7 +448,7 @@ public class SpaceTaker implements Runnable {
 			}
 		}
 
-		public void run() {
+		private void doRun() {
             if(remoteLogging)
                 MDC.put(MDC_SORCER_REMOTE_CALL, MDC_SORCER_REMOTE_CALL);
             if (ee.exertion!=null && ee.exertion.getId()!=null)
@@ -436,6 +510,14 @@ public class SpaceTaker implements Runnable {
             MDC.remove(MDC_PROVIDER_ID);
 		}
 
+		public void run() {
+			try {
+				doRun();
+			} finally {
+				workerDone();
+			}
+		}
+
 		public Entry doEnvelope(ExertionEnvelop ee, Transaction transaction, String threadId, Transaction.Created txn) {
 			ServiceExertion se;
             ServiceExertion out;
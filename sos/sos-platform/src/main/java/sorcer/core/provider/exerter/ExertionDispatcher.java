@@ -304,39 +304,45 @@ public class ExertionDispatcher implements Exerter, Callable {
                     "Cannot find provider for: " + signature));
             return exertion;
         }
-        exertion.getControlContext().appendTrace(
-                "bootstrapping: " + ((Provider) provider).getProviderName()
-                        + ":" + ((Provider) provider).getProviderID());
-        ((NetSignature) signature).setProvider(provider);
-        logger.info("Provider found for: " + signature + "\n\t" + provider);
-        if (((Provider) provider).mutualExclusion()) {
-            return serviceMutualExclusion((Provider) provider, exertion,
-                    transaction);
-        } else {
-            // test exertion for serialization
+        try {
+            exertion.getControlContext().appendTrace(
+                    "bootstrapping: " + ((Provider) provider).getProviderName()
+                            + ":" + ((Provider) provider).getProviderID());
+            ((NetSignature) signature).setProvider(provider);
+            logger.info("Provider found for: " + signature + "\n\t" + provider);
+            if (((Provider) provider).mutualExclusion()) {
+                return serviceMutualExclusion((Provider) provider, exertion,
+                        transaction);
+            } else {
+                // test exertion for serialization
 //			 try {
 //				 logger.info("ServiceExerter.exert0(): going to serialize exertion for testing!!!!!!!!!!!!!!!!!!!!!!!!!!!!");
 //				 ObjectLogger.persistMarshalled("exertionfile", exertion);
 //			 } catch (Exception e) {
 //				 e.printStackTrace();
 //			 }
-			Exertion result = provider.service(exertion, transaction);
-            if (result != null && result.getExceptions().size() > 0) {
-                for (ThrowableTrace et : result.getExceptions()) {
-                    Throwable t = et.getThrowable();
-                    logger.error("Got exception running {} : , {}", exertion.getName(), t.getMessage());
-                    logger.debug("Exception details: {}", t);
-                    if (t instanceof Error)
-                        ((ServiceExertion) result).setStatus(Exec.ERROR);
+				Exertion result = provider.service(exertion, transaction);
+                if (result != null && result.getExceptions().size() > 0) {
+                    for (ThrowableTrace et : result.getExceptions()) {
+                        Throwable t = et.getThrowable();
+                        logger.error("Got exception running {} : , {}", exertion.getName(), t.getMessage());
+                        logger.debug("Exception details: {}", t);
+                        if (t instanceof Error)
+                            ((ServiceExertion) result).setStatus(Exec.ERROR);
+                    }
+					((ServiceExertion)result).setStatus(Exec.FAILED);
+				} else if (result == null) {
+					exertion.reportException(new ExertionException("ServiceExerter failed calling: " 
+							+ exertion.getProcessSignature()));
+					exertion.setStatus(Exec.FAILED);
+					result = exertion;
                 }
-				((ServiceExertion)result).setStatus(Exec.FAILED);
-			} else if (result == null) {
-				exertion.reportException(new ExertionException("ServiceExerter failed calling: " 
-						+ exertion.getProcessSignature()));
-				exertion.setStatus(Exec.FAILED);
-				result = exertion;
+                return result;
             }
-            return result;
+        } catch (RemoteException e) {
+            // don't hand out the proxy of a failed provider again
+            Accessor.invalidateProxy(provider);
+            throw e;
         }
     }
 
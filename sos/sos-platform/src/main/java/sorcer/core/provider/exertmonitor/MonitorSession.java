@@ -23,6 +23,7 @@ import net.jini.id.UuidFactory;
 import sorcer.core.context.ControlContext;
 import sorcer.core.context.IControlContext;
 import sorcer.core.exertion.AltExertion;
+import sorcer.core.monitor.MonitorManagement;
 import sorcer.core.monitor.MonitoringManagement;
 import sorcer.core.provider.MonitorManagementSession;
 import sorcer.core.provider.Provider;
@@ -64,6 +65,9 @@ public class MonitorSession extends ArrayList<MonitorSession> implements
 
 	public transient static MonitoringManagement sessionManager;
 
+	// local store of the sessions, used instead of the sessionManager proxy if set
+	public transient static MonitorManagement sessionPersister;
+
 	public transient static ExecutorService eventPool;
 
 	static transient final String LOGGER = "sorcer.core.provider.monitor.SessionResource";
@@ -180,18 +184,23 @@ public class MonitorSession extends ArrayList<MonitorSession> implements
 	public Map<Uuid, MonitorManagementSession> getSessions() {
 		HashMap<Uuid, MonitorManagementSession> map = new HashMap<Uuid, MonitorManagementSession>();
 		collectSessions(map);
-		map.put(cookie, this);
 		return map;
 	}
 
-	private HashMap<Uuid, MonitorManagementSession> collectSessions(HashMap<Uuid, MonitorManagementSession> map) {
-		MonitorSession resource;
-		for (int i = 0; i < size(); i++) {
-			resource = get(i);
-			map.put(cookie, resource);
-			collectSessions(map);
-		}
-		return map;
+	private void collectSessions(Map<Uuid, MonitorManagementSession> map) {
+		map.put(cookie, this);
+		for (int i = 0; i < size(); i++)
+			get(i).collectSessions(map);
+	}
+
+	/**
+	 * @return the root session of the tree of sessions of a job
+	 */
+	public MonitorSession getRoot() {
+		MonitorSession root = this;
+		while (root.parentResource != null)
+			root = root.parentResource;
+		return root;
 	}
 
 	public Lease init(Monitorable executor, long duration, long timeout)
@@ -350,14 +359,13 @@ public class MonitorSession extends ArrayList<MonitorSession> implements
 
 	// Persist only the root session
 	private void persist() {
-	    MonitorSession tempSession = this;
-        do {
-            if (tempSession.parentResource!=null)
-                tempSession = tempSession.parentResource;
-        } while (tempSession.parentResource!=null);
-        logger.info("Persisting resource for exertion: " + tempSession.runtimeExertion.getName());
+	    MonitorSession tempSession = getRoot();
+        logger.debug("Persisting resource for exertion: " + tempSession.runtimeExertion.getName());
 		try {
-            sessionManager.persist(tempSession);
+            if (sessionPersister != null)
+                sessionPersister.persist(tempSession);
+            else
+                sessionManager.persist(tempSession);
 		} catch (Exception e) {
 			logger.error("Problem persisting monitorSession: " + e.getMessage());
 			try {
@@ -485,6 +493,20 @@ public class MonitorSession extends ArrayList<MonitorSession> implements
 		return null;
 	}
 
+	/**
+	 * @return the session of the exertion with the given id in this session
+	 *         tree, or null
+	 */
+	public MonitorSession getSessionByExertion(Uuid exertionId) {
+		if (exertionId.equals(runtimeExertion.getId()))
+			return this;
+		MonitorSession resource;
+		for (int i = 0; i < size(); i++)
+			if ((resource = get(i).getSessionByExertion(exertionId)) != null)
+				return resource;
+		return null;
+	}
+
 	/***************************************************************************
 	 * 
 	 * Start implementing the semantics of MonitorLandlord.MonitorLeasedResource
@@ -513,6 +535,12 @@ public class MonitorSession extends ArrayList<MonitorSession> implements
 	}
 
 	public void leaseCancelled() {
+		synchronized (getRoot()) {
+			leaseCancelled0();
+		}
+	}
+
+	private void leaseCancelled0() {
 		try {
 			runtimeExertion
 					.reportException(new Exception(
@@ -531,6 +559,12 @@ public class MonitorSession extends ArrayList<MonitorSession> implements
 	}
 
 	public void timedOut() {
+		synchronized (getRoot()) {
+			timedOut0();
+		}
+	}
+
+	private void timedOut0() {
 		try {
 			runtimeExertion.reportException(new Exception(
 					"This exertion was timedout."));
@@ -16,6 +16,8 @@
  */
 package sorcer.core.provider.rendezvous;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.sun.jini.start.LifeCycle;
 import net.jini.core.transaction.Transaction;
 import net.jini.core.transaction.TransactionException;
@@ -23,10 +25,12 @@ import net.jini.id.UuidFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sorcer.core.SorcerEnv;
+import sorcer.core.DispatchResult;
+import sorcer.core.Dispatcher;
 import sorcer.core.context.Contexts;
+import sorcer.core.dispatch.DispatcherException;
 import sorcer.core.dispatch.DispatcherFactory;
 import sorcer.core.dispatch.ExertionDispatcherFactory;
-import sorcer.core.dispatch.JobThread;
 import sorcer.core.provider.ControlFlowManager;
 import sorcer.core.provider.Jobber;
 import sorcer.core.provider.MonitoringControlFlowManager;
@@ -59,16 +63,37 @@ public class ServiceJobber extends RendezvousBean implements Jobber, Executor {
 
             setServiceID(job);
             try {
-                JobThread jobThread = new JobThread((Job)job, provider, getDispatcherFactory(job));
                 if (job.getControlContext().isMonitorable()
                         && !job.getControlContext().isWaitable()) {
                     replaceNullExertionIDs(job);
                     notifyViaEmail(job);
-                    new Thread(jobThread, ((Job)job).getContextName()).start();
+                    final Job spawned = (Job) job;
+                    final Dispatcher dispatcher = createDispatcher(spawned);
+                    // the result is reported to the monitor, don't hold a thread waiting for it
+                    Futures.addCallback(dispatcher.getResultFuture(), new FutureCallback<DispatchResult>() {
+                        @Override
+                        public void onSuccess(DispatchResult dispatchResult) {
+                            logger.debug("Dispatcher State: " + dispatchResult.state);
+                        }
+
+                        @Override
+                        public void onFailure(Throwable t) {
+                            logger.warn("Error while executing job {}", spawned.getName(), t);
+                        }
+                    });
+                    delegate.getDispatchExecutor().submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            dispatcher.exec();
+                        }
+                    });
                     return job;
                 } else {
-                    jobThread.run();
-                    Job result = jobThread.getResult();
+                    Dispatcher dispatcher = createDispatcher((Job) job);
+                    dispatcher.exec();
+                    DispatchResult dispatchResult = dispatcher.getResult();
+                    logger.debug("Dispatcher State: " + dispatchResult.state);
+                    Job result = (Job) dispatchResult.exertion;
                     logger.trace("<== Result: " + result);
                     return result;
                 }
@@ -79,6 +104,18 @@ public class ServiceJobber extends RendezvousBean implements Jobber, Executor {
             }
 	}
 
+    private Dispatcher createDispatcher(Job job) throws DispatcherException {
+        logger.debug("*** Exertion dispatcher started with control context ***\n" + job.getControlContext());
+        Dispatcher dispatcher = getDispatcherFactory(job).createDispatcher(job, provider);
+        try {
+            job.getControlContext().appendTrace(provider.getProviderName() + " dispatcher: "
+                    + dispatcher.getClass().getName());
+        } catch (RemoteException e) {
+            //ignore it, local call
+        }
+        return dispatcher;
+    }
+
     protected DispatcherFactory getDispatcherFactory(Exertion exertion) {
         return ExertionDispatcherFactory.getFactory();
     }
@@ -19,6 +19,8 @@ package sorcer.core.provider.rendezvous;
 
 import java.rmi.RemoteException;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import net.jini.core.transaction.Transaction;
 import net.jini.core.transaction.TransactionException;
 import org.slf4j.Logger;
@@ -27,7 +29,6 @@ import sorcer.core.DispatchResult;
 import sorcer.core.dispatch.DispatcherException;
 import sorcer.core.dispatch.DispatcherFactory;
 import sorcer.core.provider.MonitoringControlFlowManager;
-import sorcer.core.provider.Provider;
 import sorcer.core.dispatch.ExertionDispatcherFactory;
 import sorcer.core.dispatch.SpaceTaskDispatcher;
 import sorcer.core.exertion.NetTask;
@@ -38,8 +39,6 @@ import sorcer.core.provider.Spacer;
 
 import com.sun.jini.start.LifeCycle;
 
-import static sorcer.util.StringUtils.tName;
-
 /**
  * ServiceSpacer - The SORCER rendezvous service provider that provides
  * coordination for executing exertions using JavaSpace from which provides PULL
@@ -67,63 +66,51 @@ public class ServiceSpacer extends ServiceJobber implements Spacer, Executor {
             return doTask(exertion);
     }
 
-    protected class TaskThread extends Thread {
-
-        // doJob method calls this internally
-        private Task task;
-
-        private Task result;
-
-        private Provider provider;
-
-        public TaskThread(Task task, Provider provider) {
-            super(tName("Task-" + task.getName()));
-            this.task = task;
-            this.provider = provider;
-        }
-
-        public void run() {
-            logger.trace("*** TaskThread Started ***");
-            try {
-                SpaceTaskDispatcher dispatcher = getDispatcherFactory(task).createDispatcher(task, provider);
-                try {
-                    task.getControlContext().appendTrace(provider.getProviderName() + " dispatcher: "
-                            + dispatcher.getClass().getName());
-                } catch (RemoteException e) {
-                    //ignore it, local call
-                }
-                dispatcher.exec();
-                DispatchResult dispatchResult = dispatcher.getResult();
-                logger.debug("Dispatcher State: " + dispatchResult.state);
-				result = (NetTask) dispatchResult.exertion;
-            } catch (DispatcherException e) {
-                logger.warn("Error while executing space task {}", task.getName(), e);
-                task.reportException(e);
-            }
-        }
-
-        public Task getResult() throws ContextException {
-            return result;
+    protected SpaceTaskDispatcher dispatchTask(Task task) throws DispatcherException {
+        logger.trace("*** Space task dispatcher started ***");
+        SpaceTaskDispatcher dispatcher = getDispatcherFactory(task).createDispatcher(task, provider);
+        try {
+            task.getControlContext().appendTrace(provider.getProviderName() + " dispatcher: "
+                    + dispatcher.getClass().getName());
+        } catch (RemoteException e) {
+            //ignore it, local call
         }
+        dispatcher.exec();
+        return dispatcher;
     }
 
     public Exertion doTask(Exertion task) throws RemoteException {
         setServiceID(task);
+        final Task spaceTask = (Task) task;
         try {
             if (task.isMonitorable()
                     && !task.isWaitable()) {
                 replaceNullExertionIDs(task);
                 notifyViaEmail(task);
-                new TaskThread((Task) task, provider).start();
+                // the result is reported to the monitor, don't hold a thread waiting for it
+                Futures.addCallback(dispatchTask(spaceTask).getResultFuture(), new FutureCallback<DispatchResult>() {
+                    @Override
+                    public void onSuccess(DispatchResult dispatchResult) {
+                        logger.debug("Dispatcher State: " + dispatchResult.state);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        logger.warn("Error while executing space task {}", spaceTask.getName(), t);
+                    }
+                });
                 return task;
             } else {
-                TaskThread taskThread = new TaskThread((Task) task, provider);
-                taskThread.start();
-                taskThread.join();
-                Task result = taskThread.getResult();
+                DispatchResult dispatchResult = dispatchTask(spaceTask).getResult();
+                logger.debug("Dispatcher State: " + dispatchResult.state);
+                Task result = (NetTask) dispatchResult.exertion;
                 logger.trace("Spacer result: " + result);
                 return result;
             }
+        } catch (DispatcherException e) {
+            logger.warn("Error while executing space task {}", task.getName(), e);
+            spaceTask.reportException(e);
+            return task.isWaitable() ? null : task;
         } catch (Throwable e) {
             e.printStackTrace();
             return null;
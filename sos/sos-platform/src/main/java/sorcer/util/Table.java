@@ -27,6 +27,7 @@ import java.io.Serializable;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Formatter;
@@ -1053,16 +1054,19 @@ public class Table implements ModelTable {
 	}
 	
 	public URL writeToSdbURL(URL url) throws EvaluationException {
+		Object store = null;
 		try {
 			Context cxt = SdbUtil.getStoreContext(this);
 			if (outputStorageSignature != null) {
 				if (outputStorageSignature.getServiceType()!=null &&  outputStorageSignature.getServiceType() == DatabaseStorer.class) {
 					DatabaseStorer objectStore = (DatabaseStorer) Accessor.getService(outputStorageSignature);
+					store = objectStore;
 					outputTableURL = (URL)objectStore.contextStore(cxt).getValue("object/url");
 
 				} else {
 					StorageManagement objectStore = (StorageManagement) Accessor.getService(outputStorageSignature);
 							//.getService(outputStorageSignature));
+					store = objectStore;
 					outputTableURL = (URL)objectStore.contextStore(cxt).getValue("object/url");;
 				}
 			} else if (url.getHost().equals("self")) {
@@ -1078,10 +1082,15 @@ public class Table implements ModelTable {
 				String providerName = url.getPath();
 				StorageManagement objectStore = ((StorageManagement) Accessor
 						.getService(providerName.substring(1), Class.forName(serviceType)));
+				store = objectStore;
 
 				outputTableURL = (URL) objectStore.contextStore(cxt).getValue(
 						"object/url");
 			}
+		} catch (RemoteException e) {
+			// don't hand out the proxy of a failed provider again
+			Accessor.invalidateProxy(store);
+			throw new EvaluationException(e);
 		} catch (Exception e) {
 			//e.printStackTrace();
 			throw new EvaluationException(e);
@@ -373,4 +373,62 @@ public class SdbUtil extends SosDbUtil {
         cxt.setReturnPath(StorageManagement.store_content_list);
         return cxt;
     }
+
+    /**
+     * Returns a context to list a page of the store with <code>contextList</code>
+     *
+     * @param cursor cursor of the previous page, or null for the first page
+     */
+    static public Context getPageContext(DatabaseStorer.Store storeType, String cursor, int pageSize)
+            throws ContextException {
+        Context cxt = getListContext(storeType);
+        cxt.putInValue(StorageManagement.store_page_size, pageSize);
+        if (cursor != null)
+            cxt.putInValue(StorageManagement.store_page_cursor, cursor);
+        return cxt;
+    }
+
+    /**
+     * Returns a context to list a page of the objects whose index value is between the given bounds with
+     * <code>contextQuery</code>
+     */
+    static public Context getQueryContext(DatabaseStorer.Store storeType, DatabaseStorer.Index index,
+                                          Object from, Object to, String cursor, int pageSize)
+            throws ContextException {
+        Context cxt = getPageContext(storeType, cursor, pageSize);
+        cxt.putInValue(StorageManagement.store_index, index);
+        if (from != null)
+            cxt.putInValue(StorageManagement.store_index_from, from);
+        if (to != null)
+            cxt.putInValue(StorageManagement.store_index_to, to);
+        return cxt;
+    }
+
+    /**
+     * Lists a page of the store. The page is in {@link StorageManagement#store_content_list} of the returned
+     * context, and the cursor of the next page, null after the last page, in
+     * {@link StorageManagement#store_page_next}.
+     */
+    static public Context listPage(DatabaseStorer.Store storeType, String cursor, int pageSize)
+            throws ExertionException, SignatureException, ContextException {
+        return execPageTask("contextList", getPageContext(storeType, cursor, pageSize));
+    }
+
+    /**
+     * Lists a page of the objects of the store whose index value is between the given bounds, both inclusive and
+     * optional, in the order of the index. The result is returned like in {@link #listPage}.
+     */
+    static public Context query(DatabaseStorer.Store storeType, DatabaseStorer.Index index, Object from, Object to,
+                                String cursor, int pageSize)
+            throws ExertionException, SignatureException, ContextException {
+        return execPageTask("contextQuery", getQueryContext(storeType, index, from, to, cursor, pageSize));
+    }
+
+    private static Context execPageTask(String selector, Context context)
+            throws ExertionException, SignatureException, ContextException {
+        String storageName = SorcerEnv.getActualName(SorcerEnv.getDatabaseStorerName());
+        Task task = new Task(selector,
+                new NetSignature(selector, DatabaseStorer.class, null, storageName), context);
+        return execTask(task).getContext();
+    }
 }
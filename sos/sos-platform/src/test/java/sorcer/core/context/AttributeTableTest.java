@@ -0,0 +1,193 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.core.context;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static sorcer.core.SorcerConstants.APS;
+
+public class AttributeTableTest {
+
+	// the scan replaced by the index
+	private static Set<String> scan(Map<String, String> values, String value) {
+		Set<String> paths = new HashSet<String>();
+		for (Map.Entry<String, String> entry : values.entrySet())
+			if (value.equals(entry.getValue()))
+				paths.add(entry.getKey());
+		return paths;
+	}
+
+	private static Set<String> paths(AttributeTable table, String value) {
+		List<String> paths = table.getPaths(value);
+		Set<String> set = new HashSet<String>(paths);
+		assertEquals("duplicate paths " + paths, paths.size(), set.size());
+		return set;
+	}
+
+	@Test
+	public void testAdd() {
+		AttributeTable table = new AttributeTable();
+		table.put("a", "in");
+		table.put("b", "out");
+		assertEquals(Arrays.asList("a"), table.getPaths("in"));
+		// added after the index is built
+		table.put("c", "in");
+		assertEquals(new HashSet<String>(Arrays.asList("a", "c")), paths(table, "in"));
+		assertEquals(Arrays.asList("b"), table.getPaths("out"));
+		assertTrue(table.getPaths("inout").isEmpty());
+	}
+
+	@Test
+	public void testRemove() {
+		AttributeTable table = new AttributeTable();
+		table.put("a", "in");
+		table.put("b", "in");
+		assertEquals(2, table.getPaths("in").size());
+		assertEquals("in", table.remove("a"));
+		assertNull(table.remove("a"));
+		assertEquals(Arrays.asList("b"), table.getPaths("in"));
+		table.remove("b");
+		assertTrue(table.getPaths("in").isEmpty());
+	}
+
+	@Test
+	public void testRemark() {
+		AttributeTable table = new AttributeTable();
+		table.put("a", "in");
+		table.getPaths("in");
+		assertEquals("in", table.put("a", "out"));
+		assertTrue(table.getPaths("in").isEmpty());
+		assertEquals(Arrays.asList("a"), table.getPaths("out"));
+		// same value again
+		table.put("a", "out");
+		assertEquals(Arrays.asList("a"), table.getPaths("out"));
+	}
+
+	@Test
+	public void testViewsAndClear() {
+		AttributeTable table = new AttributeTable();
+		table.put("a", "in");
+		table.put("b", "in");
+		table.getPaths("in");
+		// bypasses the index, filtered on lookup
+		table.keySet().remove("a");
+		assertEquals(Arrays.asList("b"), table.getPaths("in"));
+		table.clear();
+		assertTrue(table.getPaths("in").isEmpty());
+		table.put("c", "in");
+		assertEquals(Arrays.asList("c"), table.getPaths("in"));
+	}
+
+	@Test
+	public void testCopies() throws Exception {
+		AttributeTable table = new AttributeTable();
+		table.put("a", "in");
+		table.put("b", "out");
+		table.getPaths("in");
+
+		AttributeTable clone = (AttributeTable) table.clone();
+		clone.put("a", "out");
+		assertEquals(Arrays.asList("a"), table.getPaths("in"));
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b")), paths(clone, "out"));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(table);
+		out.close();
+		AttributeTable copy = (AttributeTable) new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertEquals(Arrays.asList("a"), copy.getPaths("in"));
+		copy.put("c", "in");
+		assertEquals(new HashSet<String>(Arrays.asList("a", "c")), paths(copy, "in"));
+
+		AttributeTable fromMap = new AttributeTable(table);
+		assertEquals(Arrays.asList("b"), fromMap.getPaths("out"));
+	}
+
+	@Test
+	public void testMatchesScan() {
+		Random random = new Random(7);
+		AttributeTable table = new AttributeTable();
+		Hashtable<String, String> plain = new Hashtable<String, String>();
+		String[] values = {"in", "out", "inout"};
+		for (int i = 0; i < 2000; i++) {
+			String path = "p" + random.nextInt(50);
+			String value = values[random.nextInt(values.length)];
+			if (random.nextInt(4) == 0) {
+				table.remove(path);
+				plain.remove(path);
+			} else {
+				table.put(path, value);
+				plain.put(path, value);
+			}
+			if (i % 100 == 0)
+				for (String v : values) {
+					assertEquals(scan(plain, v), paths(table, v));
+					assertEquals(scan(plain, v), new HashSet<String>(AttributeTable.getPaths(plain, v)));
+				}
+		}
+	}
+
+	@Test
+	public void testMarkedPathsIntersection() throws Exception {
+		Random random = new Random(11);
+		ServiceContext<Object> context = new ServiceContext<Object>("marks");
+		context.setAttribute("tag" + APS + "kind" + APS + "unit");
+		String[] kinds = {"length", "mass"};
+		String[] units = {"m", "kg", "s"};
+		for (int i = 0; i < 200; i++) {
+			String path = "arg/p" + random.nextInt(60);
+			context.putValue(path, i);
+			context.mark(path, "tag" + APS + kinds[random.nextInt(kinds.length)]
+					+ APS + units[random.nextInt(units.length)]);
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, String> kindTable = (Map<String, String>) context.getMetacontext().get("kind");
+		@SuppressWarnings("unchecked")
+		Map<String, String> unitTable = (Map<String, String>) context.getMetacontext().get("unit");
+		assertTrue(kindTable instanceof AttributeTable);
+		for (String kind : kinds)
+			for (String unit : units) {
+				Set<String> expected = scan(kindTable, kind);
+				expected.retainAll(scan(unitTable, unit));
+				String association = "tag" + APS + kind + APS + unit;
+				List<Object> marked = Collections.list(context.markedPaths(association));
+				assertEquals(association, expected, new HashSet<Object>(marked));
+				assertEquals(association, marked.size(), new HashSet<Object>(marked).size());
+				assertEquals(association, expected, new HashSet<String>(
+						Arrays.asList(Contexts.getMarkedPaths(context, association))));
+			}
+		assertEquals(scan(kindTable, "mass"), new HashSet<Object>(
+				Collections.list(context.markedPaths("kind" + APS + "mass"))));
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.core.context;
+
+import org.junit.Test;
+import sorcer.service.Context;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static sorcer.core.SorcerConstants.APS;
+
+/**
+ * Runs the same checks against every {@link ContextStorage} engine.
+ */
+public class ContextStorageTest {
+
+	private ServiceContext<Object> newContext(ContextStorage storage) throws Exception {
+		ServiceContext<Object> context = new ServiceContext<Object>("storage");
+		context.setStorage(storage);
+		context.putInValue("arg/x1", 10.0);
+		context.putInValue("arg/x2", 20.0);
+		context.putOutValue("result/y", 30.0);
+		context.putValue("arg/name", "adder");
+		context.putValue("args", "not an arg/ path");
+		return context;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T roundTrip(T object) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(object);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		try {
+			return (T) in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static List<String> linearStartsWith(ServiceContext<?> context, String prefix) throws Exception {
+		List<String> paths = new ArrayList<String>();
+		for (String path : context.getPaths())
+			if (path.startsWith(prefix))
+				paths.add(path);
+		return paths;
+	}
+
+	@Test
+	public void testHashtableMethods() throws Exception {
+		for (ContextStorage storage : ContextStorage.values()) {
+			ServiceContext<Object> context = newContext(storage);
+			assertEquals(storage, context.getStorage());
+			assertEquals(storage.name(), 5, context.size());
+			assertEquals(10.0, context.get("arg/x1"));
+			assertTrue(context.containsKey("result/y"));
+			assertTrue(context.containsValue("adder"));
+			assertEquals(new HashSet<String>(Arrays.asList("arg/x1", "arg/x2", "result/y", "arg/name", "args")),
+					context.keySet());
+
+			Map<String, Object> more = new HashMap<String, Object>();
+			more.put("arg/x3", 40.0);
+			context.putAll(more);
+			assertEquals(40.0, context.get("arg/x3"));
+			assertEquals(40.0, context.remove("arg/x3"));
+			assertFalse(context.containsKey("arg/x3"));
+			assertEquals(5, context.entrySet().size());
+		}
+	}
+
+	@Test
+	public void testJava8MapMethods() throws Exception {
+		for (ContextStorage storage : ContextStorage.values()) {
+			ServiceContext<Object> context = newContext(storage);
+			assertEquals(10.0, context.getOrDefault("arg/x1", 0.0));
+			assertEquals(0.0, context.getOrDefault("arg/none", 0.0));
+
+			assertEquals(10.0, context.putIfAbsent("arg/x1", 11.0));
+			assertNull(context.putIfAbsent("arg/x4", 50.0));
+			assertEquals(50.0, context.get("arg/x4"));
+
+			assertFalse(context.replace("arg/x4", 0.0, 51.0));
+			assertTrue(context.replace("arg/x4", 50.0, 51.0));
+			assertEquals(51.0, context.replace("arg/x4", 52.0));
+			assertNull(context.replace("arg/none", 1.0));
+			assertFalse(context.containsKey("arg/none"));
+
+			assertFalse(context.remove("arg/x4", 0.0));
+			assertTrue(context.remove("arg/x4", 52.0));
+			assertFalse(storage.name(), context.containsKey("arg/x4"));
+		}
+	}
+
+	@Test
+	public void testClone() throws Exception {
+		for (ContextStorage storage : ContextStorage.values()) {
+			ServiceContext<Object> context = newContext(storage);
+			@SuppressWarnings("unchecked")
+			ServiceContext<Object> clone = (ServiceContext<Object>) context.clone();
+			assertEquals(storage, clone.getStorage());
+			clone.putValue("arg/x1", 15.0);
+			assertEquals(storage.name(), 10.0, context.get("arg/x1"));
+			assertEquals(15.0, clone.get("arg/x1"));
+		}
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		for (ContextStorage storage : ContextStorage.values()) {
+			ServiceContext<Object> context = newContext(storage);
+			ServiceContext<Object> copy = roundTrip(context);
+			assertEquals(storage, copy.getStorage());
+			assertEquals(storage.name(), context.getName(), copy.getName());
+			assertEquals(5, copy.size());
+			assertEquals(context.keySet(), copy.keySet());
+			for (String path : context.keySet())
+				assertEquals(context.get(path), copy.get(path));
+			assertEquals(context, copy);
+
+			assertEquals(context.getInPaths(), copy.getInPaths());
+			assertEquals(Arrays.asList("result/y"), copy.getOutPaths());
+			assertEquals(new HashSet<Object>(Arrays.asList(10.0, 20.0)),
+					new HashSet<Object>(copy.getInValues()));
+
+			// the copy keeps working with its storage engine
+			copy.putValue("arg/x3", 40.0);
+			assertEquals(40.0, copy.get("arg/x3"));
+			assertFalse(context.containsKey("arg/x3"));
+		}
+	}
+
+	@Test
+	public void testSerializedOnce() throws Exception {
+		// entries of the other engines must not be written twice
+		ByteArrayOutputStream hashtable = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(hashtable);
+		out.writeObject(newContext(ContextStorage.HASHTABLE));
+		out.close();
+		for (ContextStorage storage : ContextStorage.values()) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			out = new ObjectOutputStream(bytes);
+			out.writeObject(newContext(storage));
+			out.close();
+			assertTrue(storage.name(), bytes.size() < hashtable.size() + 200);
+		}
+	}
+
+	@Test
+	public void testPathsStartsWith() throws Exception {
+		for (ContextStorage storage : ContextStorage.values()) {
+			ServiceContext<Object> context = newContext(storage);
+			for (String prefix : Arrays.asList("arg", "arg/", "arg/x", "result", "none", "")) {
+				List<String> expected = linearStartsWith(context, prefix);
+				assertEquals(storage + " " + prefix, expected, context.getPathsStartsWith(prefix));
+			}
+			assertEquals(new HashSet<Object>(Arrays.asList(10.0, 20.0)),
+					new HashSet<Object>(Contexts.getValuesStartsWith(context, "arg/x")));
+			assertNull(Contexts.getValuesStartsWith(context, "none"));
+		}
+	}
+
+	@Test
+	public void testPathsStartsWithAfterRoundTrip() throws Exception {
+		for (ContextStorage storage : new ContextStorage[]{ContextStorage.SORTED, ContextStorage.CONCURRENT}) {
+			ServiceContext<Object> copy = roundTrip(newContext(storage));
+			assertEquals(Arrays.asList("arg/name", "arg/x1", "arg/x2"), copy.getPathsStartsWith("arg/"));
+			assertEquals(linearStartsWith(copy, "arg"), copy.getPathsStartsWith("arg"));
+		}
+	}
+
+	@Test
+	public void testMarkedPaths() throws Exception {
+		for (ContextStorage storage : ContextStorage.values()) {
+			ServiceContext<Object> context = newContext(storage);
+			String inAssoc = Context.DIRECTION + APS + Context.DA_IN;
+			String outAssoc = Context.DIRECTION + APS + Context.DA_OUT;
+			for (ServiceContext<Object> c : Arrays.asList(context, roundTrip(context))) {
+				String[] in = Contexts.getMarkedPaths(c, inAssoc);
+				Arrays.sort(in);
+				assertArrayEquals(storage.name(), new String[]{"arg/x1", "arg/x2"}, in);
+				assertEquals(Arrays.asList(30.0), c.getMarkedValues(outAssoc));
+			}
+		}
+	}
+}
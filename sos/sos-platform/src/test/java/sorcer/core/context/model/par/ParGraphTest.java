@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.core.context.model.par;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class ParGraphTest {
+	private final Object invoker = new Object();
+	private ParGraph graph;
+
+	@Before
+	public void setUp() {
+		graph = new ParGraph();
+		// z = x + y, w = z * 2, v = y
+		graph.setDependencies("z", Arrays.asList("x", "y"));
+		graph.setDependencies("w", Arrays.asList("z"));
+		graph.setDependencies("v", Arrays.asList("y"));
+		graph.put("z", invoker, new Object[]{1.0, 2.0}, 3.0);
+		graph.put("w", invoker, new Object[]{3.0}, 6.0);
+		graph.put("v", invoker, new Object[]{2.0}, 2.0);
+	}
+
+	@Test
+	public void testDependents() {
+		assertEquals(new HashSet<String>(Arrays.asList("z", "w", "v")), graph.getDependents("y"));
+		assertEquals(Collections.singleton("w"), graph.getDependents("z"));
+		assertTrue(graph.getDependents("w").isEmpty());
+	}
+
+	@Test
+	public void testInvalidateDownstreamOnly() {
+		graph.invalidate("x");
+		assertFalse(graph.isMemoized("z"));
+		assertFalse(graph.isMemoized("w"));
+		assertTrue(graph.isMemoized("v"));
+	}
+
+	@Test
+	public void testMemoMatchesInputs() {
+		assertEquals(3.0, graph.get("z", invoker, new Object[]{1.0, 2.0}));
+		assertSame(ParGraph.NONE, graph.get("z", invoker, new Object[]{1.0, 5.0}));
+		assertSame(ParGraph.NONE, graph.get("z", new Object(), new Object[]{1.0, 2.0}));
+	}
+
+	@Test
+	public void testChangedDependencies() {
+		graph.setDependencies("w", Arrays.asList("x"));
+		assertFalse(graph.getDependents("z").contains("w"));
+		assertTrue(graph.getDependents("x").contains("w"));
+	}
+
+	@Test
+	public void testPathsEndingWith() {
+		assertEquals("{x1=arg/x1, y=result/y}", Par.getPathsEndingWith(
+				Arrays.asList("x1", "z", "y"), Arrays.asList("arg/x1", "arg/ax1", "result/y")).toString());
+	}
+}
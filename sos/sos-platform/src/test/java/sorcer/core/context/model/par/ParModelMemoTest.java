@@ -0,0 +1,196 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.core.context.model.par;
+
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.core.invoker.ServiceInvoker;
+import sorcer.service.Arg;
+import sorcer.service.ContextException;
+import sorcer.service.EvaluationException;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParModelMemoTest {
+	private ParModel<Object> model;
+
+	@Before
+	public void setUp() {
+		model = new ParModel<Object>("memo");
+	}
+
+	@Test
+	public void testPutValueRecomputesOnlyDependents() throws Exception {
+		model.putValue("x", 1.0);
+		model.putValue("y", 2.0);
+		model.putValue("u", 3.0);
+		Sum z = add(new Sum("z", "x", "y"));
+		Sum w = add(new Sum("w", "z"));
+		Sum v = add(new Sum("v", "u"));
+		assertEquals(3.0, model.getValue("w"));
+		assertEquals(3.0, model.getValue("v"));
+		assertEquals(3.0, model.getValue("w"));
+		assertEquals(1, z.runs);
+		assertEquals(1, w.runs);
+		assertEquals(1, v.runs);
+
+		model.putValue("x", 5.0);
+		assertEquals(7.0, model.getValue("w"));
+		assertEquals(3.0, model.getValue("v"));
+		assertEquals(2, z.runs);
+		assertEquals(2, w.runs);
+		assertEquals(1, v.runs);
+	}
+
+	@Test
+	public void testDiamondIsEvaluatedOnce() throws Exception {
+		model.putValue("a", 1.0);
+		Sum b = add(new Sum("b", "a"));
+		Sum c = add(new Sum("c", "a"));
+		Sum d = add(new Sum("d", "b", "c"));
+		assertEquals(2.0, model.getValue("d"));
+		assertEquals(2.0, model.getValue("d"));
+		assertEquals(1, b.runs);
+		assertEquals(1, c.runs);
+		assertEquals(1, d.runs);
+		assertEquals(new HashSet<String>(Arrays.asList("b", "c", "d")), model.getDependents("a"));
+
+		model.putValue("a", 2.0);
+		assertEquals(4.0, model.getValue("d"));
+		assertEquals(2, b.runs);
+		assertEquals(2, c.runs);
+		assertEquals(2, d.runs);
+	}
+
+	/**
+	 * Each level depends twice on the level below, so the pars must not be
+	 * checked once per path to them
+	 */
+	@Test(timeout = 10000)
+	public void testDiamondLadderIsLinear() throws Exception {
+		model.putValue("a0", 1.0);
+		for (int i = 1; i <= 30; i++) {
+			add(new Sum("b" + i, "a" + (i - 1)));
+			add(new Sum("c" + i, "a" + (i - 1)));
+			add(new Sum("a" + i, "b" + i, "c" + i));
+		}
+		assertEquals(Math.pow(2, 30), model.getValue("a30"));
+		model.putValue("a0", 2.0);
+		assertEquals(Math.pow(2, 31), model.getValue("a30"));
+	}
+
+	@Test
+	public void testSharedParSetValueIsDetected() throws Exception {
+		Par<Object> x = new Par<Object>("x", 1.0);
+		model.addPar(x);
+		model.putValue("y", 2.0);
+		Sum z = add(new Sum("z", "x", "y"));
+		assertEquals(3.0, model.getValue("z"));
+
+		// bypassing the model
+		x.setValue(5.0);
+		assertEquals(7.0, model.getValue("z"));
+		assertEquals(2, z.runs);
+	}
+
+	@Test
+	public void testNonFunctionalInvokerIsEvaluatedEveryTime() throws Exception {
+		model.putValue("x", 1.0);
+		Sum z = new Sum("z", "x");
+		z.setFunctional(false);
+		add(z);
+		assertEquals(1.0, model.getValue("z"));
+		assertEquals(1.0, model.getValue("z"));
+		assertEquals(2, z.runs);
+	}
+
+	@Test
+	public void testDependentOfNonFunctionalInvokerIsEvaluatedEveryTime() throws Exception {
+		model.putValue("x", 1.0);
+		Sum y = new Sum("y", "x");
+		y.setFunctional(false);
+		add(y);
+		Sum z = add(new Sum("z", "y"));
+		assertEquals(1.0, model.getValue("z"));
+		assertEquals(1.0, model.getValue("z"));
+		assertEquals(2, z.runs);
+	}
+
+	@Test
+	public void testMutableInputIsNotMemoized() throws Exception {
+		List<Double> values = new ArrayList<Double>(Arrays.asList(1.0, 2.0));
+		model.putValue("x", values);
+		Sum z = add(new Sum("z", "x"));
+		assertEquals(3.0, model.getValue("z"));
+
+		// same list, changed in place
+		values.add(4.0);
+		assertEquals(7.0, model.getValue("z"));
+		assertEquals(2, z.runs);
+	}
+
+	@Test
+	public void testFunctionalIsOptIn() {
+		assertFalse(new ServiceInvoker("plain").isFunctional());
+	}
+
+	private Sum add(Sum sum) throws ContextException {
+		model.addPar(new Par<Object>(sum.getName(), sum));
+		return sum;
+	}
+
+	/**
+	 * Sum of the values of its pars, counting its evaluations. List values are
+	 * summed up.
+	 */
+	private static class Sum extends ServiceInvoker<Double> {
+		int runs;
+
+		Sum(String name, String... inputs) {
+			super(name);
+			for (String input : inputs)
+				pars.add(new Par<Object>(input));
+			setFunctional(true);
+		}
+
+		@Override
+		public Double getValue(Arg... entries) throws EvaluationException, RemoteException {
+			runs++;
+			double sum = 0;
+			try {
+				for (Arg arg : pars) {
+					Object value = invokeContext.getValue(arg.getName());
+					if (value instanceof List)
+						for (Object element : (List) value)
+							sum += ((Number) element).doubleValue();
+					else
+						sum += ((Number) value).doubleValue();
+				}
+			} catch (ContextException e) {
+				throw new EvaluationException(e);
+			}
+			return sum;
+		}
+	}
+}
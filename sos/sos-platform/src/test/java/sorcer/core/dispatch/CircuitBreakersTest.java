@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.core.dispatch;
+
+import net.jini.core.lookup.ServiceID;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakersTest {
+    private static final long OPEN_PERIOD = 1000;
+
+    private final ServiceID provider = new ServiceID(1, 1);
+    private final ServiceID other = new ServiceID(2, 2);
+    private ManualBreakers breakers;
+
+    @Before
+    public void setUp() {
+        breakers = new ManualBreakers();
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        breakers.failure(provider);
+        breakers.failure(provider);
+        assertFalse(breakers.isOpen(provider));
+        assertTrue(breakers.isAvailable(provider));
+        assertTrue(breakers.acquire(provider));
+
+        breakers.failure(provider);
+        assertTrue(breakers.isOpen(provider));
+        assertFalse(breakers.isAvailable(provider));
+        assertFalse(breakers.acquire(provider));
+        assertTrue("other providers are not affected", breakers.acquire(other));
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        breakers.failure(provider);
+        breakers.failure(provider);
+        breakers.success(provider);
+        breakers.failure(provider);
+        breakers.failure(provider);
+
+        assertFalse(breakers.isOpen(provider));
+    }
+
+    @Test
+    public void testHalfOpenLetsOneTrialThrough() {
+        open(provider);
+        breakers.time += OPEN_PERIOD;
+
+        assertTrue(breakers.isAvailable(provider));
+        assertTrue("checking has no effect", breakers.isAvailable(provider));
+        assertTrue(breakers.acquire(provider));
+        assertFalse("trial already taken", breakers.isAvailable(provider));
+        assertFalse(breakers.acquire(provider));
+    }
+
+    @Test
+    public void testTrialSuccessCloses() {
+        open(provider);
+        breakers.time += OPEN_PERIOD;
+        assertTrue(breakers.acquire(provider));
+
+        breakers.success(provider);
+        assertFalse(breakers.isOpen(provider));
+        assertTrue(breakers.acquire(provider));
+        assertTrue(breakers.acquire(provider));
+    }
+
+    @Test
+    public void testTrialFailureOpensAgain() {
+        open(provider);
+        breakers.time += OPEN_PERIOD;
+        assertTrue(breakers.acquire(provider));
+
+        breakers.failure(provider);
+        assertFalse(breakers.isAvailable(provider));
+        breakers.time += OPEN_PERIOD - 1;
+        assertFalse(breakers.acquire(provider));
+        breakers.time += 1;
+        assertTrue(breakers.acquire(provider));
+    }
+
+    @Test
+    public void testUnreportedTrialExpires() {
+        open(provider);
+        breakers.time += OPEN_PERIOD;
+        assertTrue(breakers.acquire(provider));
+
+        breakers.time += OPEN_PERIOD - 1;
+        assertFalse(breakers.acquire(provider));
+        breakers.time += 1;
+        assertTrue(breakers.isAvailable(provider));
+        assertTrue(breakers.acquire(provider));
+    }
+
+    private void open(ServiceID serviceID) {
+        for (int i = 0; i < 3; i++)
+            breakers.failure(serviceID);
+        assertTrue(breakers.isOpen(serviceID));
+    }
+
+    private static class ManualBreakers extends CircuitBreakers {
+        long time = 1000;
+
+        ManualBreakers() {
+            super(3, OPEN_PERIOD);
+        }
+
+        @Override
+        long currentTime() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.core.dispatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DispatchExecutorTest {
+    private DispatchExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new DispatchExecutor("test", 1, 1, 2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Nested submissions on a single-thread pool would deadlock unless the waiting thread runs its queued children
+     */
+    @Test(timeout = 10000)
+    public void testNestedSubmissions() throws Exception {
+        Future<Integer> parent = executor.submit(new Sum(4));
+        assertEquals(Integer.valueOf(16), executor.get(parent));
+        assertTrue(executor.getRejectedCount() > 0);
+    }
+
+    private class Sum implements Callable<Integer> {
+        private final int depth;
+
+        Sum(int depth) {
+            this.depth = depth;
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            if (depth == 0)
+                return 1;
+            List<Future<Integer>> children = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 2; i++)
+                children.add(executor.submit(new Sum(depth - 1)));
+            int result = 0;
+            for (Future<Integer> child : children)
+                result += executor.get(child);
+            return result;
+        }
+    }
+}
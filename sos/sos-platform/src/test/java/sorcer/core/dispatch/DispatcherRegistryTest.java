@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.core.dispatch;
+
+import net.jini.id.Uuid;
+import org.junit.Before;
+import org.junit.Test;
+import sorcer.core.exertion.NetJob;
+import sorcer.service.Context;
+import sorcer.service.Exec;
+import sorcer.service.Exertion;
+import sorcer.service.ServiceExertion;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DispatcherRegistryTest {
+    private DispatcherRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new DispatcherRegistry();
+    }
+
+    @Test
+    public void testRegisterAndUnregister() {
+        TestDispatcher dispatcher = new TestDispatcher(new NetJob("job"));
+        Uuid id = dispatcher.getExertion().getId();
+        registry.register(dispatcher);
+
+        assertTrue(registry.contains(id));
+        assertSame(dispatcher, registry.get(id));
+        assertEquals(1, registry.size());
+        assertTrue(registry.getStartTime(id) > 0);
+        assertEquals(1, registry.getDispatchers().size());
+        assertTrue(registry.getDispatchers().get(0).contains("job"));
+
+        registry.unregister(id);
+        assertFalse(registry.contains(id));
+        assertNull(registry.get(id));
+        assertEquals(-1, registry.getStartTime(id));
+        assertTrue(registry.getDispatchers().isEmpty());
+        // unregistering twice is harmless
+        registry.unregister(id);
+    }
+
+    @Test
+    public void testChildren() {
+        TestDispatcher parent = new TestDispatcher(new NetJob("parent"));
+        TestDispatcher child = new TestDispatcher(child(parent));
+        Uuid parentId = parent.getExertion().getId();
+        Uuid childId = child.getExertion().getId();
+        registry.register(parent);
+        registry.register(child);
+
+        assertEquals(Collections.singleton(childId), registry.getChildren(parentId));
+        registry.unregister(childId);
+        assertTrue(registry.getChildren(parentId).isEmpty());
+    }
+
+    @Test
+    public void testCancelCancelsChildren() {
+        TestDispatcher parent = new TestDispatcher(new NetJob("parent"));
+        TestDispatcher child = new TestDispatcher(child(parent));
+        TestDispatcher other = new TestDispatcher(new NetJob("other"));
+        registry.register(parent);
+        registry.register(child);
+        registry.register(other);
+
+        assertTrue(registry.cancel(parent.getExertion().getId()));
+        assertTrue(parent.isCancelled());
+        assertTrue(child.isCancelled());
+        assertEquals(Exec.FAILED, parent.getState());
+        assertEquals(Exec.FAILED, child.getState());
+        assertFalse(registry.contains(parent.getExertion().getId()));
+        assertFalse(registry.contains(child.getExertion().getId()));
+
+        assertFalse(other.isCancelled());
+        assertTrue(registry.contains(other.getExertion().getId()));
+        assertFalse(registry.cancel(parent.getExertion().getId()));
+    }
+
+    @Test
+    public void testListeners() {
+        final AtomicInteger registered = new AtomicInteger();
+        final AtomicInteger unregistered = new AtomicInteger();
+        registry.addListener(new DispatcherRegistry.Listener() {
+            @Override
+            public void registered(ExertDispatcher dispatcher) {
+                registered.incrementAndGet();
+            }
+
+            @Override
+            public void unregistered(ExertDispatcher dispatcher) {
+                unregistered.incrementAndGet();
+            }
+        });
+        TestDispatcher dispatcher = new TestDispatcher(new NetJob("job"));
+        registry.register(dispatcher);
+        registry.unregister(dispatcher.getExertion().getId());
+        registry.unregister(dispatcher.getExertion().getId());
+
+        assertEquals(1, registered.get());
+        assertEquals(1, unregistered.get());
+    }
+
+    /**
+     * A dispatcher that returns from exec without reaching a final state is unregistered, unless it's still
+     * collecting results
+     */
+    @Test
+    public void testExecUnregisters() {
+        DispatcherRegistry dispatchers = ExertDispatcher.getDispatchers();
+        TestDispatcher dispatcher = new TestDispatcher(new NetJob("job"));
+        dispatcher.exec();
+        assertFalse(dispatchers.contains(dispatcher.getExertion().getId()));
+
+        TestDispatcher collecting = new TestDispatcher(new NetJob("collecting"));
+        collecting.collect = true;
+        collecting.exec();
+        assertTrue(dispatchers.contains(collecting.getExertion().getId()));
+        collecting.collector.run();
+        assertFalse(dispatchers.contains(collecting.getExertion().getId()));
+    }
+
+    private static Exertion child(TestDispatcher parent) {
+        ServiceExertion child = new NetJob("child");
+        child.setParentId(parent.getExertion().getId());
+        return child;
+    }
+
+    private static class TestDispatcher extends ExertDispatcher {
+        boolean collect;
+        FutureTask<Object> collector;
+
+        TestDispatcher(Exertion exertion) {
+            super(exertion, new HashSet<Context>(), false, null, null);
+        }
+
+        @Override
+        protected void doExec() {
+            if (collect) {
+                collector = new FutureTask<Object>(new CollectResultThread(), null);
+                addTask(collector);
+            }
+        }
+
+        @Override
+        protected List<Exertion> getInputExertions() {
+            return Collections.emptyList();
+        }
+    }
+}
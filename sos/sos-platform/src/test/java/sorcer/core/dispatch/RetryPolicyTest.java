@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.core.dispatch;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.rmi.ConnectException;
+import java.rmi.RemoteException;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testDelayGrowsExponentiallyUpToMaximum() {
+        RetryPolicy policy = new RetryPolicy(6, 100, 1000);
+        for (int i = 0; i < 100; i++) {
+            assertBetween(0, 100, policy.getDelay(1));
+            assertBetween(0, 200, policy.getDelay(2));
+            assertBetween(0, 400, policy.getDelay(3));
+            assertBetween(0, 1000, policy.getDelay(5));
+            assertBetween(0, 1000, policy.getDelay(64));
+        }
+    }
+
+    @Test
+    public void testDelayIsRandomized() {
+        RetryPolicy policy = new RetryPolicy(6, 100, 1000);
+        long first = policy.getDelay(5);
+        for (int i = 0; i < 100; i++)
+            if (policy.getDelay(5) != first)
+                return;
+        fail("Delays are not randomized");
+    }
+
+    @Test
+    public void testNoBackoff() {
+        RetryPolicy policy = new RetryPolicy(3, 0, 0);
+        assertEquals(0, policy.getDelay(1));
+        assertEquals(0, policy.getDelay(10));
+    }
+
+    @Test
+    public void testLimits() {
+        RetryPolicy policy = new RetryPolicy(0, -1, -1);
+        assertEquals(1, policy.getMaxTries());
+        assertEquals(0, policy.getDelay(1));
+
+        // maximum lower than the initial backoff
+        assertBetween(0, 100, new RetryPolicy(3, 100, 10).getDelay(5));
+    }
+
+    @Test
+    public void testProviderFailures() {
+        RetryPolicy policy = new RetryPolicy(6, 100, 1000);
+        assertTrue(policy.isProviderFailure(new RemoteException()));
+        assertTrue(policy.isProviderFailure(new ConnectException("refused")));
+        assertFalse(policy.isProviderFailure(new IOException()));
+        assertFalse(policy.isProviderFailure(new IllegalStateException()));
+    }
+
+    private static void assertBetween(long min, long max, long value) {
+        assertTrue(value + " not in [" + min + ", " + max + "]", value >= min && value <= max);
+    }
+}
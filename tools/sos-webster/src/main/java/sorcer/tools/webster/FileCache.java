@@ -0,0 +1,299 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sorcer.tools.webster;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of the metadata of the files served by {@link Webster}: length, modification time and the entity tag.
+ * Files up to {@value #MAX_FILE_SIZE} are read once, concurrent requests waiting for a single read, and tagged
+ * with the SHA-1 hash of their content, which is kept in memory as well. Larger files are served without being
+ * read first and tagged with their length and modification time; these tags are weak, as a file may change without
+ * changing either, so Range requests with an If-Range header get the whole of such files.
+ * <p/>
+ * Each lookup checks the length and modification time of the file, so changed files are never served from the
+ * cache. A watcher thread polls the cached files and drops the entries of changed and deleted files.
+ * <p/>
+ * System properties: {@value #MAX_FILE_SIZE} (largest file kept in memory, 256 KB by default),
+ * {@value #MAX_SIZE} (memory used for file contents, 64 MB by default), {@value #MAX_ENTRIES} (10000 by default)
+ * and {@value #CHECK_INTERVAL} (watcher period in milliseconds, 2000 by default, 0 disables the watcher).
+ */
+class FileCache {
+    private static final Logger logger = LoggerFactory.getLogger(FileCache.class);
+
+    static final String MAX_FILE_SIZE = "webster.cache.maxFileSize";
+    static final String MAX_SIZE = "webster.cache.maxSize";
+    static final String MAX_ENTRIES = "webster.cache.maxEntries";
+    static final String CHECK_INTERVAL = "webster.cache.checkInterval";
+
+    private final long maxFileSize = Long.getLong(MAX_FILE_SIZE, 256 * 1024);
+    private final long maxSize = Long.getLong(MAX_SIZE, 64 * 1024 * 1024);
+    private final int maxEntries = Integer.getInteger(MAX_ENTRIES, 10000);
+    private final long checkInterval = Long.getLong(CHECK_INTERVAL, 2000);
+
+    // access ordered, guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(256, 0.75f, true);
+    private long contentSize;
+    private final ConcurrentMap<String, FutureTask<Entry>> loading = new ConcurrentHashMap<String, FutureTask<Entry>>();
+    private volatile boolean run = true;
+
+    FileCache() {
+        if (checkInterval > 0) {
+            Thread watcher = new Thread(new Runnable() {
+                public void run() {
+                    watch();
+                }
+            }, "Webster-cache-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    /**
+     * @return the current metadata of the file, which must exist
+     */
+    Entry get(File file) throws IOException {
+        String key = file.getPath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.isCurrent(length, lastModified))
+            return entry;
+        if (length > maxFileSize) {
+            entry = new Entry(file, length, lastModified,
+                    "W/\"" + Long.toHexString(length) + '-' + Long.toHexString(lastModified) + '"', null);
+            put(key, entry);
+            return entry;
+        }
+        entry = getLoaded(file, length, lastModified);
+        // joined the load of a previous version of the file
+        if (!entry.isCurrent(length, lastModified))
+            entry = load(file, length, lastModified);
+        if (entry.isCurrent(file.length(), file.lastModified()))
+            put(key, entry);
+        return entry;
+    }
+
+    private Entry getLoaded(final File file, final long length, final long lastModified) throws IOException {
+        String key = file.getPath();
+        FutureTask<Entry> task = new FutureTask<Entry>(new Callable<Entry>() {
+            @Override
+            public Entry call() throws Exception {
+                return load(file, length, lastModified);
+            }
+        });
+        FutureTask<Entry> current = loading.putIfAbsent(key, task);
+        if (current == null) {
+            current = task;
+            try {
+                task.run();
+            } finally {
+                loading.remove(key, task);
+            }
+        }
+        try {
+            return current.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + file, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Could not read " + file, e.getCause());
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    void close() {
+        run = false;
+    }
+
+    private Entry load(File file, long length, long lastModified) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        byte[] content = new byte[(int) length];
+        byte[] buffer = new byte[65536];
+        long total = 0;
+        InputStream in = new FileInputStream(file);
+        try {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+                if (total + read <= content.length)
+                    System.arraycopy(buffer, 0, content, (int) total, read);
+                total += read;
+            }
+        } finally {
+            in.close();
+        }
+        // the file changed while it was read, the entry won't be current
+        if (total != length)
+            content = null;
+        return new Entry(file, total, lastModified, '"' + toHex(digest.digest()) + '"', content);
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry old = entries.put(key, entry);
+        if (old != null && old.content != null)
+            contentSize -= old.content.length;
+        if (entry.content != null)
+            contentSize += entry.content.length;
+        for (Iterator<Entry> it = entries.values().iterator();
+             it.hasNext() && (contentSize > maxSize || entries.size() > maxEntries); ) {
+            Entry eldest = it.next();
+            it.remove();
+            if (eldest.content != null)
+                contentSize -= eldest.content.length;
+        }
+    }
+
+    private synchronized void remove(Entry entry) {
+        String key = entry.file.getPath();
+        if (entries.get(key) == entry) {
+            entries.remove(key);
+            if (entry.content != null)
+                contentSize -= entry.content.length;
+        }
+    }
+
+    private void watch() {
+        while (run) {
+            try {
+                Thread.sleep(checkInterval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Entry> cached;
+            synchronized (this) {
+                cached = new ArrayList<Entry>(entries.values());
+            }
+            for (Entry entry : cached) {
+                File file = entry.file;
+                if (!file.isFile() || !entry.isCurrent(file.length(), file.lastModified())) {
+                    if (logger.isDebugEnabled())
+                        logger.debug("Dropping cached " + file);
+                    remove(entry);
+                }
+            }
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xf, 16));
+            result.append(Character.forDigit(b & 0xf, 16));
+        }
+        return result.toString();
+    }
+
+    static class Entry {
+        final File file;
+        final long length;
+        final long lastModified;
+        final String etag;
+        // content of small files, or null
+        final byte[] content;
+
+        Entry(File file, long length, long lastModified, String etag, byte[] content) {
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.etag = etag;
+            this.content = content;
+        }
+
+        boolean isCurrent(long length, long lastModified) {
+            return this.length == length && this.lastModified == lastModified;
+        }
+
+        boolean isWeak() {
+            return etag.startsWith("W/");
+        }
+
+        /**
+         * @return true if the entity tags of an If-None-Match header match this file, using the weak comparison
+         */
+        boolean matches(String etags) {
+            if (etags == null)
+                return false;
+            if (etags.trim().equals("*"))
+                return true;
+            String opaque = isWeak() ? etag.substring(2) : etag;
+            for (String tag : etags.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/"))
+                    tag = tag.substring(2);
+                if (tag.equals(opaque))
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return true if the file was not modified since the date of an If-Modified-Since header
+         */
+        boolean notModifiedSince(String date) {
+            long since = Webster.parseDate(date);
+            return since >= 0 && lastModified / 1000 <= since / 1000;
+        }
+
+        /**
+         * @return true if a Range request is to be served partially given its If-Range header, which may be null.
+         *         The entity tag or the modification date must match exactly, and never match weak tags.
+         */
+        boolean isRangeValid(String ifRange) {
+            if (ifRange == null)
+                return true;
+            if (isWeak())
+                return false;
+            ifRange = ifRange.trim();
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+                return ifRange.equals(etag);
+            long date = Webster.parseDate(ifRange);
+            return date >= 0 && lastModified / 1000 == date / 1000;
+        }
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.tools.webster;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * NIO serving mode of {@link Webster}.
+ * <p/>
+ * New and idle keep-alive connections wait in a selector, so they don't hold a thread. The selector reads request
+ * headers without blocking, and a connection is handed to the pool only once a complete header has arrived, so
+ * slow clients don't hold threads either; the headers are parsed by the pool thread. Files are sent
+ * with {@link FileChannel#transferTo}, without copying them to the heap. Connections are kept alive after GET and
+ * HEAD requests (HTTP/1.1, or HTTP/1.0 with <code>Connection: keep-alive</code>), pipelined requests are served in
+ * order, and single byte ranges are supported. PUT and DELETE requests are served by the classic handlers and
+ * close the connection.
+ */
+class NioConnector implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(NioConnector.class);
+
+    static final int MAX_HEADER = 16384;
+    static final int MAX_REQUESTS = 1000;
+
+    private final Webster webster;
+    private final ServerSocketChannel server;
+    private final Executor pool;
+    private final int readTimeout;
+    private final long keepAliveTimeout;
+    private final Selector selector;
+    private final Queue<Connection> parked = new ConcurrentLinkedQueue<Connection>();
+    private volatile boolean run = true;
+
+    NioConnector(Webster webster, ServerSocketChannel server, Executor pool, int soTimeout, long keepAliveTimeout)
+            throws IOException {
+        this.webster = webster;
+        this.server = server;
+        this.pool = pool;
+        this.keepAliveTimeout = keepAliveTimeout;
+        this.readTimeout = soTimeout > 0 ? soTimeout : (int) keepAliveTimeout;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Accept connections until closed; connections are served by the selector and pool threads
+     */
+    public void run() {
+        Thread selectorThread = new Thread(new Runnable() {
+            public void run() {
+                select();
+            }
+        }, "Webster-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        while (run) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.socket().setTcpNoDelay(true);
+                park(new Connection(channel));
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (run)
+                    logger.warn("Accepting connection", e);
+            }
+        }
+    }
+
+    void close() {
+        run = false;
+        try {
+            server.close();
+        } catch (IOException e) {
+            logger.warn("Closing server channel", e);
+        }
+        selector.wakeup();
+    }
+
+    private void park(Connection connection) {
+        connection.idleSince = System.currentTimeMillis();
+        parked.add(connection);
+        selector.wakeup();
+    }
+
+    private void select() {
+        List<Connection> ready = new ArrayList<Connection>();
+        while (run) {
+            try {
+                Connection connection;
+                while ((connection = parked.poll()) != null) {
+                    try {
+                        connection.channel.configureBlocking(false);
+                        connection.channel.register(selector, SelectionKey.OP_READ, connection);
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+                selector.select(1000);
+                for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Connection conn = (Connection) key.attachment();
+                    try {
+                        if (conn.readHeader()) {
+                            key.cancel();
+                            ready.add(conn);
+                        }
+                    } catch (IOException e) {
+                        key.cancel();
+                        conn.close();
+                    }
+                }
+                long now = System.currentTimeMillis();
+                for (SelectionKey key : selector.keys()) {
+                    Connection idle = (Connection) key.attachment();
+                    if (key.isValid() && now - idle.idleSince > keepAliveTimeout) {
+                        key.cancel();
+                        idle.close();
+                    }
+                }
+                if (ready.isEmpty())
+                    continue;
+                // deregister the cancelled keys, so the channels can be put back in blocking mode
+                selector.selectNow();
+                for (Connection conn : ready)
+                    dispatch(conn);
+                ready.clear();
+            } catch (IOException e) {
+                logger.warn("Selecting connections", e);
+            } catch (ClosedSelectorException e) {
+                break;
+            }
+        }
+        for (SelectionKey key : selector.keys())
+            ((Connection) key.attachment()).close();
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.warn("Closing selector", e);
+        }
+    }
+
+    private void dispatch(Connection connection) {
+        try {
+            connection.channel.configureBlocking(true);
+            pool.execute(connection);
+        } catch (IOException e) {
+            connection.close();
+        } catch (RejectedExecutionException e) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Parsed request line and headers
+     */
+    static class Request {
+        String method;
+        String path;
+        String version;
+        final Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+
+        boolean isKeepAlive() {
+            String connection = headers.get("Connection");
+            if ("HTTP/1.1".equals(version))
+                return connection == null || !connection.equalsIgnoreCase("close");
+            return connection != null && connection.equalsIgnoreCase("keep-alive");
+        }
+
+        Properties toProperties() {
+            Properties properties = new Properties();
+            properties.putAll(headers);
+            properties.setProperty(method, path);
+            return properties;
+        }
+    }
+
+    /**
+     * @return true if the bytes contain the end of a request header
+     */
+    static boolean hasHeaderEnd(byte[] data, int offset, int length) {
+        for (int i = offset; i < offset + length - 1; i++) {
+            if (data[i] == '\n' && (data[i + 1] == '\n'
+                    || (data[i + 1] == '\r' && i + 2 < offset + length && data[i + 2] == '\n')))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Buffered input of a connection, which starts with the bytes read by the selector
+     */
+    static class ConnectionInput extends BufferedInputStream {
+        ConnectionInput(InputStream in, byte[] data, int length) {
+            super(in, Math.max(8192, length));
+            System.arraycopy(data, 0, buf, 0, length);
+            count = length;
+        }
+
+        synchronized boolean hasHeader() {
+            return hasHeaderEnd(buf, pos, count - pos);
+        }
+
+        synchronized int drainTo(ByteBuffer target) {
+            int length = Math.min(count - pos, target.remaining());
+            target.put(buf, pos, length);
+            pos += length;
+            return length;
+        }
+    }
+
+    class Connection implements Runnable {
+        final SocketChannel channel;
+        final Socket socket;
+        // header bytes read by the selector
+        private final ByteBuffer pending = ByteBuffer.allocate(MAX_HEADER);
+        private ConnectionInput in;
+        volatile long idleSince;
+        private int served;
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.socket = channel.socket();
+            socket.setSoTimeout(readTimeout);
+        }
+
+        /**
+         * Read the available bytes without blocking
+         *
+         * @return true if a complete request header was read
+         */
+        boolean readHeader() throws IOException {
+            if (channel.read(pending) < 0)
+                throw new EOFException();
+            if (hasHeaderEnd(pending.array(), 0, pending.position()))
+                return true;
+            if (!pending.hasRemaining())
+                throw new IOException("Request header too large");
+            return false;
+        }
+
+        public void run() {
+            try {
+                in = new ConnectionInput(socket.getInputStream(), pending.array(), pending.position());
+                pending.clear();
+                while (true) {
+                    Request request = readRequest();
+                    if (request == null) {
+                        close();
+                        return;
+                    }
+                    served++;
+                    if (!serve(request) || served >= MAX_REQUESTS) {
+                        close();
+                        return;
+                    }
+                    // requests pipelined by the client may be already buffered
+                    if (!in.hasHeader()) {
+                        in.drainTo(pending);
+                        in = null;
+                        park(this);
+                        return;
+                    }
+                }
+            } catch (SocketTimeoutException e) {
+                close();
+            } catch (IOException e) {
+                if (logger.isDebugEnabled())
+                    logger.debug("Serving " + socket.getRemoteSocketAddress(), e);
+                close();
+            } catch (RuntimeException e) {
+                logger.warn("Serving " + socket.getRemoteSocketAddress(), e);
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Closing connection", e);
+            }
+        }
+
+        /**
+         * @return null if the connection was closed by the client
+         */
+        private Request readRequest() throws IOException {
+            String line;
+            // skip empty lines between requests
+            do {
+                line = readLine();
+                if (line == null)
+                    return null;
+            } while (line.length() == 0);
+            Request request = new Request();
+            StringTokenizer tokenizer = new StringTokenizer(line, " ");
+            if (tokenizer.countTokens() < 2)
+                throw new IOException("Bad request line: " + line);
+            request.method = tokenizer.nextToken();
+            request.path = tokenizer.nextToken();
+            request.version = tokenizer.hasMoreTokens() ? tokenizer.nextToken() : "HTTP/1.0";
+            if (request.path.startsWith("/"))
+                request.path = request.path.substring(1);
+            while ((line = readLine()) != null && line.length() != 0) {
+                int colon = line.indexOf(':');
+                if (colon > 0)
+                    request.headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+            if (logger.isDebugEnabled())
+                logger.debug("From: " + socket.getRemoteSocketAddress() + ", Request: " + request.method + " "
+                        + request.path + " " + request.headers);
+            return request;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int read;
+            while ((read = in.read()) != -1) {
+                if (read == '\n')
+                    return sb.toString();
+                if (read != '\r')
+                    sb.append((char) read);
+                if (sb.length() > MAX_HEADER)
+                    throw new IOException("Request line too long");
+            }
+            return sb.length() == 0 ? null : sb.toString();
+        }
+
+        /**
+         * @return true if the connection may be kept alive
+         */
+        private boolean serve(Request request) throws IOException {
+            if ("GET".equals(request.method) || "HEAD".equals(request.method))
+                return serveFile(request, "GET".equals(request.method));
+            if ("PUT".equals(request.method)) {
+                webster.new PutFile(socket, request.path, request.toProperties(), in).run();
+                return false;
+            }
+            if ("DELETE".equals(request.method)) {
+                webster.new DelFile(socket, request.path).run();
+                return false;
+            }
+            writeHeader(request, "400 Bad Request", null, 0, false, null);
+            return false;
+        }
+
+        private boolean serveFile(Request request, boolean body) throws IOException {
+            boolean keepAlive = request.isKeepAlive();
+            File file = webster.parseFileName(request.path);
+            if (file.isDirectory()) {
+                byte[] listing = Webster.getDirectoryListing(file).getBytes("UTF-8");
+                writeHeader(request, "200 OK", Webster.getMimeType("dir.txt"), listing.length, keepAlive, null);
+                if (body)
+                    write(ByteBuffer.wrap(listing));
+                return keepAlive;
+            }
+            if (!file.isFile()) {
+                writeHeader(request, "404 Not Found", null, 0, keepAlive, null);
+                return keepAlive;
+            }
+
+            FileCache.Entry entry = webster.getFileCache().get(file);
+            long length = entry.length;
+            long start = 0;
+            long count = length;
+            String status = "200 OK";
+            StringBuilder extra = new StringBuilder();
+            extra.append("ETag: ").append(entry.etag).append("\r\n");
+            extra.append("Last-Modified: ").append(Webster.formatDate(entry.lastModified)).append("\r\n");
+            String ifNoneMatch = request.headers.get("If-None-Match");
+            if (ifNoneMatch != null ? entry.matches(ifNoneMatch)
+                    : entry.notModifiedSince(request.headers.get("If-Modified-Since"))) {
+                writeHeader(request, "304 Not Modified", null, -1, keepAlive, extra);
+                return keepAlive;
+            }
+            extra.append("Accept-Ranges: bytes\r\n");
+            String ifRange = request.headers.get("If-Range");
+            long[] range = entry.isRangeValid(ifRange)
+                    ? Webster.parseRange(request.headers.get("Range"), length) : null;
+            if (range != null) {
+                if (range[0] < 0) {
+                    extra.append("Content-Range: bytes */").append(length).append("\r\n");
+                    writeHeader(request, "416 Requested Range Not Satisfiable", null, 0, keepAlive, extra);
+                    return keepAlive;
+                }
+                start = range[0];
+                count = range[1] - range[0] + 1;
+                status = "206 Partial Content";
+                extra.append("Content-Range: bytes ").append(range[0]).append('-').append(range[1])
+                        .append('/').append(length).append("\r\n");
+            }
+            writeHeader(request, status, Webster.getMimeType(request.path), count, keepAlive, extra);
+            if (body) {
+                if (entry.content != null)
+                    write(ByteBuffer.wrap(entry.content, (int) start, (int) count));
+                else
+                    transfer(file, start, count);
+            }
+            return keepAlive;
+        }
+
+        private void transfer(File file, long position, long count) throws IOException {
+            FileInputStream input = new FileInputStream(file);
+            try {
+                FileChannel fileChannel = input.getChannel();
+                long end = position + count;
+                while (position < end) {
+                    long sent = fileChannel.transferTo(position, end - position, channel);
+                    if (sent <= 0 && position >= fileChannel.size())
+                        throw new EOFException("File " + file + " truncated while being sent");
+                    position += sent;
+                }
+            } finally {
+                input.close();
+            }
+        }
+
+        private void writeHeader(Request request, String status, String contentType, long contentLength,
+                                 boolean keepAlive, CharSequence extra) throws IOException {
+            StringBuilder header = new StringBuilder();
+            header.append("HTTP/1.0".equals(request.version) ? "HTTP/1.0 " : "HTTP/1.1 ").append(status).append("\r\n");
+            header.append("Server: ").append(Webster.SERVER_DESCRIPTION).append("\r\n");
+            header.append("Date: ").append(Webster.formatDate(System.currentTimeMillis())).append("\r\n");
+            if (contentType != null)
+                header.append("Content-Type: ").append(contentType).append("\r\n");
+            if (contentLength >= 0)
+                header.append("Content-Length: ").append(contentLength).append("\r\n");
+            if (extra != null)
+                header.append(extra);
+            header.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+            write(ByteBuffer.wrap(header.toString().getBytes("ISO-8859-1")));
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+}
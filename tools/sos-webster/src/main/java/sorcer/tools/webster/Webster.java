@@ -21,6 +21,9 @@ import net.jini.config.ConfigurationProvider;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.ServerSocketChannel;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -42,6 +45,17 @@ import org.slf4j.LoggerFactory;
  * directories which are separated by a <code>;</code></td>
  * <td>System.getProperty(user.home)</td>
  * </tr>
+ * <tr>
+ * <td>webster.nio</td>
+ * <td>Serve with the {@link NioConnector}: keep-alive connections, zero-copy
+ * file transfers and byte ranges</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>webster.keepAliveTimeout</td>
+ * <td>Milliseconds an idle keep-alive connection is kept open in the NIO mode</td>
+ * <td>15000</td>
+ * </tr>
  * <p/>
  * </table>
  *
@@ -53,6 +67,7 @@ public class Webster implements Runnable {
 
     static final int DEFAULT_MIN_THREADS = 1;
     static final int DEFAULT_MAX_THREADS = 10;
+    static final long DEFAULT_KEEP_ALIVE_TIMEOUT = 15000;
     private ServerSocket ss;
     private int port;
     private volatile boolean run = true;
@@ -64,11 +79,16 @@ public class Webster implements Runnable {
     private int startPort = 0;
     private int endPort = 0;
     private int soTimeout = 0;
+    private boolean nio = Boolean.getBoolean("webster.nio");
+    private long keepAliveTimeout = Long.getLong("webster.keepAliveTimeout", DEFAULT_KEEP_ALIVE_TIMEOUT);
+    private NioConnector connector;
+    private FileCache fileCache;
     private static Logger logger = LoggerFactory.getLogger(Webster.class.getName());
     private com.sun.jini.start.LifeCycle lifeCycle;
     private boolean debug = false;
     private boolean isDaemon = false;
-    private static String SERVER_DESCRIPTION = Webster.class.getName();
+    static final String SERVER_DESCRIPTION = Webster.class.getName();
+    static final String HTTP_DATE = "EEE, dd MMM yyyy HH:mm:ss 'GMT'";
     private String tempDir;
     // Shared class server (webster) 
     private static Webster webster;
@@ -228,7 +248,8 @@ public class Webster implements Runnable {
      *
      * @param args      String[] of options. Valid options are [-port port],
      *                  [-roots list-of-roots], [-bindAddress address], [-minThreads minThreads],
-     *                  [-maxThreads maxThreads] [-soTimeout soTimeout]
+     *                  [-maxThreads maxThreads] [-soTimeout soTimeout] [-nio true|false]
+     *                  [-keepAliveTimeout keepAliveTimeout]
      * @param lifeCycle The LifeCycle object, may be null
      * @throws BindException if Webster cannot create a socket
      */
@@ -296,6 +317,12 @@ public class Webster implements Runnable {
             } else if (option.equals("-soTimeout")) {
                 i++;
                 soTimeout = Integer.parseInt(options[i]);
+            } else if (option.equals("-nio")) {
+                i++;
+                nio = Boolean.parseBoolean(options[i]);
+            } else if (option.equals("-keepAliveTimeout")) {
+                i++;
+                keepAliveTimeout = Long.parseLong(options[i]);
             } else if (option.equals("-isDaemon")) {
                 i++;
                 isDaemon = Boolean.parseBoolean(options[i]);
@@ -426,7 +453,13 @@ public class Webster implements Runnable {
             if (s != null && s.length() > 0) {
                 port = new Integer(s);
             }
-            ss = new ServerSocket(port, 0, address);
+            if (nio) {
+                ServerSocketChannel channel = ServerSocketChannel.open();
+                ss = channel.socket();
+                ss.bind(new InetSocketAddress(address, port));
+            } else {
+                ss = new ServerSocket(port, 0, address);
+            }
         } catch (IOException ioe) {
             if (startPort == endPort) {
                 //logger.error( "Port bind server socket failure: " + endPort, ioe);
@@ -462,6 +495,16 @@ public class Webster implements Runnable {
             logger.error( "Could not create ThreadPool", e);
             throw new RuntimeException("Could not create Thread Pool");
         }
+        fileCache = new FileCache();
+        if (nio) {
+            try {
+                connector = new NioConnector(this, ss.getChannel(), pool, soTimeout, keepAliveTimeout);
+            } catch (IOException e) {
+                logger.error("Could not create the NIO connector", e);
+                throw new RuntimeException("Could not create the NIO connector", e);
+            }
+            logger.info("Webster NIO mode, keep-alive timeout [" + keepAliveTimeout + "] millis");
+        }
         if (soTimeout > 0) {
             if (debug)
                 System.out.println("Webster Socket SO_TIMEOUT set to ["
@@ -541,6 +584,10 @@ public class Webster implements Runnable {
      */
     public void terminate() {
         run = false;
+        if (connector != null)
+            connector.close();
+        if (fileCache != null)
+            fileCache.close();
         if (ss != null) {
             try {
                 ss.close();
@@ -588,6 +635,10 @@ public class Webster implements Runnable {
         Socket s;
         try {
             loadMimes();
+            if (connector != null) {
+                connector.run();
+                return;
+            }
             String fileName;
             while (run) {
                 s = ss.accept(); // accept incoming requests
@@ -608,7 +659,8 @@ public class Webster implements Runnable {
                         tokenizer = new StringTokenizer(line, ":");
                         String aToken = tokenizer.nextToken().trim();
                         if (tokenizer.hasMoreTokens()) {
-                            header.setProperty(aToken, tokenizer.nextToken().trim());
+                            // values such as dates may contain colons
+                            header.setProperty(aToken, line.substring(line.indexOf(':') + 1).trim());
                         }
                     }
                     line = lineBuilder.toString();
@@ -656,7 +708,7 @@ public class Webster implements Runnable {
                             }
                         }
                         if (header.getProperty("GET") != null) {
-                            pool.execute(new GetFile(s, fileName));
+                            pool.execute(new GetFile(s, fileName, header));
                         } else if (header.getProperty("PUT") != null) {
                             pool.execute(new PutFile(s, fileName, header, inputStream));
                         } else if (header.getProperty("DELETE") != null) {
@@ -770,6 +822,112 @@ public class Webster implements Runnable {
         }
     } // end of loadMimes
 
+    FileCache getFileCache() {
+        return fileCache;
+    }
+
+    /**
+     * @return the date in the HTTP format
+     */
+    static String formatDate(long time) {
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(time));
+    }
+
+    /**
+     * @return the time of a date in the HTTP format, or -1 if it's not valid
+     */
+    static long parseDate(String date) {
+        if (date == null)
+            return -1;
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(date.trim()).getTime();
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the MIME type of the file by its extension, or null
+     */
+    static String getMimeType(String fileName) {
+        return MimeTypes.getProperty(fileName.substring(fileName.lastIndexOf(".") + 1));
+    }
+
+    /**
+     * Parse a single byte range
+     *
+     * @return null if the whole file is to be sent, {-1, -1} if the range is not satisfiable, or the first and
+     *         last byte positions
+     */
+    static long[] parseRange(String range, long length) {
+        if (range == null || !range.startsWith("bytes=") || range.indexOf(',') >= 0)
+            return null;
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0)
+            return null;
+        String firstPos = spec.substring(0, dash);
+        String lastPos = spec.substring(dash + 1);
+        // first-last, first- or -suffix
+        if (firstPos.length() == 0 ? !isDigits(lastPos) : !isDigits(firstPos) || lastPos.length() > 0 && !isDigits(lastPos))
+            return null;
+        try {
+            long first;
+            long last;
+            if (dash == 0) {
+                long suffix = Long.parseLong(lastPos);
+                if (suffix <= 0)
+                    return new long[]{-1, -1};
+                first = Math.max(0, length - suffix);
+                last = length - 1;
+            } else {
+                first = Long.parseLong(firstPos);
+                last = lastPos.length() == 0 ? length - 1 : Math.min(Long.parseLong(lastPos), length - 1);
+            }
+            if (first >= length || first > last)
+                return new long[]{-1, -1};
+            return new long[]{first, last};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isDigits(String s) {
+        if (s.length() == 0)
+            return false;
+        for (int i = 0; i < s.length(); i++)
+            if (s.charAt(i) < '0' || s.charAt(i) > '9')
+                return false;
+        return true;
+    }
+
+    /**
+     * @return listing of the directory: a line of path, type (d or f), length
+     *         and modification time per entry, separated by tabs
+     */
+    static String getDirectoryListing(File dir) {
+        StringBuilder dirData = new StringBuilder();
+        String[] files = dir.list();
+        if (files == null)
+            return "";
+        for (String file : files) {
+            File f = new File(dir, file);
+            dirData.append(f.toString().substring(dir.getParent().length()));
+            dirData.append("\t");
+            dirData.append(f.isDirectory() ? "d" : "f");
+            dirData.append("\t");
+            dirData.append(f.length());
+            dirData.append("\t");
+            dirData.append(f.lastModified());
+            dirData.append("\n");
+        }
+        return dirData.toString();
+    }
+
     protected File parseFileName(String filename) {
         StringBuffer fn = new StringBuffer(filename);
         for (int i = 0; i < fn.length(); i++) {
@@ -848,7 +1006,6 @@ public class Webster implements Runnable {
         }
 
         public void run() {
-            StringBuffer dirData = new StringBuffer();
             StringBuffer logData = new StringBuffer();
             try {
                 File getFile = parseFileName(fileName);
@@ -861,23 +1018,7 @@ public class Webster implements Runnable {
                 String header;
                 if (getFile.isDirectory()) {
                     logData.append("directory located");
-                    String files[] = getFile.list();
-                    for (String file : files) {
-                        File f = new File(getFile, file);
-                        dirData.append(f.toString().substring(
-                                getFile.getParent().length()));
-                        dirData.append("\t");
-                        if (f.isDirectory())
-                            dirData.append("d");
-                        else
-                            dirData.append("f");
-                        dirData.append("\t");
-                        dirData.append(f.length());
-                        dirData.append("\t");
-                        dirData.append(f.lastModified());
-                        dirData.append("\n");
-                    }
-                    fileLength = dirData.length();
+                    fileLength = getDirectoryListing(getFile).getBytes("UTF-8").length;
                     String fileType = MimeTypes.getProperty("txt");
                     if (fileType == null)
                         fileType = "application/java";
@@ -937,16 +1078,47 @@ public class Webster implements Runnable {
     class GetFile implements Runnable {
         private Socket client;
         private String fileName;
-        private DataInputStream requestedFile;
-        private int fileLength;
+        private Properties rheader;
+        private FileCache.Entry entry;
+        // first served byte and the served length
+        private long start;
+        private long fileLength;
 
-        GetFile(Socket s, String fileName) {
+        GetFile(Socket s, String fileName, Properties header) {
             client = s;
             this.fileName = fileName;
+            rheader = header;
+        }
+
+        /**
+         * Stream the served range of the file, without reading it in memory
+         */
+        private void sendFile(File file, OutputStream out) throws IOException {
+            byte[] buffer = new byte[65536];
+            long remaining = fileLength;
+            InputStream in = new FileInputStream(file);
+            try {
+                long skip = start;
+                while (skip > 0) {
+                    long skipped = in.skip(skip);
+                    if (skipped <= 0)
+                        throw new EOFException(file + " was truncated while sent");
+                    skip -= skipped;
+                }
+                int read;
+                while (remaining > 0
+                        && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0) {
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            } finally {
+                in.close();
+            }
+            if (remaining > 0)
+                throw new EOFException(file + " was truncated while sent");
         }
 
         public void run() {
-            StringBuffer dirData = new StringBuffer();
             StringBuffer logData = new StringBuffer();
             try {
                 File getFile = parseFileName(fileName);
@@ -956,25 +1128,11 @@ public class Webster implements Runnable {
                        .append(getFile)
                        .append(", ");
                 String header;
+                byte[] listing = null;
                 if (getFile.isDirectory()) {
                     logData.append("directory located");
-                    String files[] = getFile.list();
-                    for (String file : files) {
-                        File f = new File(getFile, file);
-                        dirData.append(f.toString().substring(
-                                getFile.getParent().length()));
-                        dirData.append("\t");
-                        if (f.isDirectory())
-                            dirData.append("d");
-                        else
-                            dirData.append("f");
-                        dirData.append("\t");
-                        dirData.append(f.length());
-                        dirData.append("\t");
-                        dirData.append(f.lastModified());
-                        dirData.append("\n");
-                    }
-                    fileLength = dirData.length();
+                    listing = getDirectoryListing(getFile).getBytes("UTF-8");
+                    fileLength = listing.length;
                     String fileType = MimeTypes.getProperty("txt");
                     if (fileType == null)
                         fileType = "application/java";
@@ -988,23 +1146,51 @@ public class Webster implements Runnable {
                             + fileLength
                             + "\r\n\r\n";
                 } else if (getFile.exists()) {
-                    requestedFile =
-                            new DataInputStream(
-                                    new BufferedInputStream(new FileInputStream(getFile)));
-                    fileLength = requestedFile.available();
+                    entry = fileCache.get(getFile);
+                    fileLength = entry.length;
                     String fileType =
                             fileName.substring(fileName.lastIndexOf(".") + 1,
                                                fileName.length());
                     fileType = MimeTypes.getProperty(fileType);
-                    header = "HTTP/1.0 200 OK\n"
-                            + "Allow: GET\nMIME-Version: 1.0\n"
-                            + "Server: " + SERVER_DESCRIPTION + "\n"
-                            + "Content-Type: "
-                            + fileType
-                            + "\n"
-                            + "Content-Length: "
-                            + fileLength
-                            + "\r\n\r\n";
+                    String validators = "ETag: " + entry.etag + "\n"
+                            + "Last-Modified: " + formatDate(entry.lastModified);
+                    String ifNoneMatch = rheader.getProperty("If-None-Match");
+                    if (ifNoneMatch != null ? entry.matches(ifNoneMatch)
+                            : entry.notModifiedSince(rheader.getProperty("If-Modified-Since"))) {
+                        logData.append("not modified");
+                        entry = null;
+                        header = "HTTP/1.0 304 Not Modified\n"
+                                + "Server: " + SERVER_DESCRIPTION + "\n"
+                                + validators + "\r\n\r\n";
+                    } else {
+                        long[] range = entry.isRangeValid(rheader.getProperty("If-Range"))
+                                ? parseRange(rheader.getProperty("Range"), entry.length) : null;
+                        String status = "200 OK";
+                        validators += "\nAccept-Ranges: bytes";
+                        if (range != null && range[0] < 0) {
+                            logData.append("range not satisfiable");
+                            validators += "\nContent-Range: bytes */" + entry.length;
+                            status = "416 Requested Range Not Satisfiable";
+                            entry = null;
+                            fileLength = 0;
+                        } else if (range != null) {
+                            start = range[0];
+                            fileLength = range[1] - range[0] + 1;
+                            status = "206 Partial Content";
+                            validators += "\nContent-Range: bytes " + range[0] + "-" + range[1] + "/" + entry.length;
+                        }
+                        header = "HTTP/1.0 " + status + "\n"
+                                + "Allow: GET\nMIME-Version: 1.0\n"
+                                + "Server: " + SERVER_DESCRIPTION + "\n"
+                                + "Content-Type: "
+                                + fileType
+                                + "\n"
+                                + "Content-Length: "
+                                + fileLength
+                                + "\n"
+                                + validators
+                                + "\r\n\r\n";
+                    }
                 } else {
                     header = "HTTP/1.0 404 Not Found\r\n\r\n";
                 }
@@ -1013,14 +1199,15 @@ public class Webster implements Runnable {
                                 new BufferedOutputStream(client.getOutputStream()));
                 clientStream.writeBytes(header);
 
-                if (getFile.isDirectory()) {
-                    clientStream.writeBytes(dirData.toString());
-                } else if (getFile.exists()) {
-                    byte[] buffer = new byte[fileLength];
-                    requestedFile.readFully(buffer);
+                if (listing != null) {
+                    clientStream.write(listing);
+                } else if (entry != null) {
                     logData.append("file size: [").append(fileLength).append("]");
                     try {
-                        clientStream.write(buffer);
+                        if (entry.content != null)
+                            clientStream.write(entry.content, (int) start, (int) fileLength);
+                        else
+                            sendFile(getFile, clientStream);
                     } catch (Exception e) {
                         String s = "Sending [" +
                                 getFile.getAbsolutePath() + "], " +
@@ -1036,8 +1223,7 @@ public class Webster implements Runnable {
                             e.printStackTrace();
                         }
                     }
-                    requestedFile.close();
-                } else {
+                } else if (!getFile.exists()) {
                     logData.append("not found");
                 }
                 if (debug)
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.tools.webster;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class FileCacheTest {
+    private FileCache cache;
+    private File small;
+    private File large;
+
+    @Before
+    public void setUp() throws Exception {
+        System.setProperty(FileCache.CHECK_INTERVAL, "0");
+        System.setProperty(FileCache.MAX_FILE_SIZE, "1024");
+        try {
+            cache = new FileCache();
+        } finally {
+            System.clearProperty(FileCache.CHECK_INTERVAL);
+            System.clearProperty(FileCache.MAX_FILE_SIZE);
+        }
+        small = write("small", 100);
+        large = write("large", 4096);
+    }
+
+    @After
+    public void tearDown() {
+        cache.close();
+        small.delete();
+        large.delete();
+    }
+
+    private static File write(String name, int length) throws IOException {
+        File file = File.createTempFile("webster-" + name, ".jar");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[length]);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void testTags() throws Exception {
+        FileCache.Entry entry = cache.get(small);
+        assertFalse(entry.isWeak());
+        assertNotNull(entry.content);
+        assertTrue(entry.etag.startsWith("\""));
+
+        FileCache.Entry largeEntry = cache.get(large);
+        assertTrue(largeEntry.isWeak());
+        assertNull(largeEntry.content);
+        assertTrue(largeEntry.etag.startsWith("W/\""));
+    }
+
+    /**
+     * If-None-Match uses the weak comparison
+     */
+    @Test
+    public void testMatches() throws Exception {
+        FileCache.Entry entry = cache.get(small);
+        assertTrue(entry.matches(entry.etag));
+        assertTrue(entry.matches("W/" + entry.etag));
+        assertTrue(entry.matches("\"other\", " + entry.etag));
+        assertTrue(entry.matches("*"));
+        assertFalse(entry.matches("\"other\""));
+        assertFalse(entry.matches(null));
+
+        FileCache.Entry largeEntry = cache.get(large);
+        assertTrue(largeEntry.matches(largeEntry.etag));
+        assertTrue(largeEntry.matches(largeEntry.etag.substring(2)));
+    }
+
+    /**
+     * If-Range uses the strong comparison, weak tags never match
+     */
+    @Test
+    public void testIfRange() throws Exception {
+        FileCache.Entry entry = cache.get(small);
+        assertTrue(entry.isRangeValid(null));
+        assertTrue(entry.isRangeValid(entry.etag));
+        assertTrue(entry.isRangeValid(" " + entry.etag + " "));
+        assertFalse(entry.isRangeValid("W/" + entry.etag));
+        assertFalse(entry.isRangeValid("\"other\""));
+        assertFalse(entry.isRangeValid("*"));
+
+        String lastModified = Webster.formatDate(entry.lastModified);
+        assertTrue(entry.isRangeValid(lastModified));
+        assertFalse(entry.isRangeValid(Webster.formatDate(entry.lastModified + 10000)));
+        assertFalse(entry.isRangeValid(Webster.formatDate(entry.lastModified - 10000)));
+        assertFalse(entry.isRangeValid("not a date"));
+
+        FileCache.Entry largeEntry = cache.get(large);
+        assertTrue(largeEntry.isRangeValid(null));
+        assertFalse(largeEntry.isRangeValid(largeEntry.etag));
+        assertFalse(largeEntry.isRangeValid(largeEntry.etag.substring(2)));
+        assertFalse(largeEntry.isRangeValid(Webster.formatDate(largeEntry.lastModified)));
+    }
+
+    @Test
+    public void testChangedFile() throws Exception {
+        FileCache.Entry entry = cache.get(small);
+        FileOutputStream out = new FileOutputStream(small, true);
+        out.write(1);
+        out.close();
+        FileCache.Entry changed = cache.get(small);
+        assertEquals(101, changed.length);
+        assertFalse(changed.etag.equals(entry.etag));
+        assertFalse(changed.isRangeValid(entry.etag));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 Sorcersoft.com S.A.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sorcer.tools.webster;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class NioConnectorTest {
+    private static final String REQUEST = "GET /lib/a.jar HTTP/1.1\r\nHost: localhost\r\nRange: bytes=0-9\r\n\r\n";
+
+    private static byte[] bytes(String s) throws IOException {
+        return s.getBytes("US-ASCII");
+    }
+
+    @Test
+    public void testRange() {
+        assertArrayEquals(new long[]{0, 9}, Webster.parseRange("bytes=0-9", 100));
+        assertArrayEquals(new long[]{50, 99}, Webster.parseRange("bytes=50-500", 100));
+        assertArrayEquals(new long[]{99, 99}, Webster.parseRange("bytes=99-99", 100));
+    }
+
+    @Test
+    public void testOpenEndedRange() {
+        assertArrayEquals(new long[]{90, 99}, Webster.parseRange("bytes=90-", 100));
+        assertArrayEquals(new long[]{0, 99}, Webster.parseRange("bytes=0-", 100));
+    }
+
+    @Test
+    public void testSuffixRange() {
+        assertArrayEquals(new long[]{90, 99}, Webster.parseRange("bytes=-10", 100));
+        // longer than the file
+        assertArrayEquals(new long[]{0, 99}, Webster.parseRange("bytes=-200", 100));
+        assertArrayEquals(new long[]{-1, -1}, Webster.parseRange("bytes=-0", 100));
+    }
+
+    @Test
+    public void testUnsatisfiableRange() {
+        assertArrayEquals(new long[]{-1, -1}, Webster.parseRange("bytes=100-", 100));
+        assertArrayEquals(new long[]{-1, -1}, Webster.parseRange("bytes=100-200", 100));
+        assertArrayEquals(new long[]{-1, -1}, Webster.parseRange("bytes=9-5", 100));
+        assertArrayEquals(new long[]{-1, -1}, Webster.parseRange("bytes=0-", 0));
+        assertArrayEquals(new long[]{-1, -1}, Webster.parseRange("bytes=-5", 0));
+    }
+
+    /**
+     * Ranges that aren't a single byte range are ignored, and the whole file is sent
+     */
+    @Test
+    public void testIgnoredRange() {
+        assertNull(Webster.parseRange(null, 100));
+        assertNull(Webster.parseRange("bytes=0-1,5-6", 100));
+        assertNull(Webster.parseRange("items=0-9", 100));
+        assertNull(Webster.parseRange("bytes=5", 100));
+        assertNull(Webster.parseRange("bytes=a-9", 100));
+        assertNull(Webster.parseRange("bytes=0-b", 100));
+        assertNull(Webster.parseRange("bytes=-", 100));
+        assertNull(Webster.parseRange("bytes=--5", 100));
+        assertNull(Webster.parseRange("bytes=5--6", 100));
+        assertNull(Webster.parseRange("bytes=+5-9", 100));
+        assertNull(Webster.parseRange("bytes=0-99999999999999999999", 100));
+    }
+
+    @Test
+    public void testHeaderEnd() throws Exception {
+        byte[] request = bytes(REQUEST);
+        assertTrue(NioConnector.hasHeaderEnd(request, 0, request.length));
+        assertTrue(NioConnector.hasHeaderEnd(bytes("GET / HTTP/1.0\n\n"), 0, 16));
+        assertFalse(NioConnector.hasHeaderEnd(bytes("GET / HTTP/1.0\r\n"), 0, 16));
+        assertFalse(NioConnector.hasHeaderEnd(new byte[0], 0, 0));
+    }
+
+    /**
+     * The selector reads the header in pieces, it's complete only once the whole terminator was read
+     */
+    @Test
+    public void testHeaderEndSplitAcrossReads() throws Exception {
+        byte[] request = bytes(REQUEST);
+        byte[] buffer = new byte[request.length + 16];
+        Arrays.fill(buffer, (byte) '\n');
+        for (int read = 0; read <= request.length; read++) {
+            System.arraycopy(request, 0, buffer, 0, read);
+            assertEquals("after " + read + " bytes", read == request.length,
+                    NioConnector.hasHeaderEnd(buffer, 0, read));
+        }
+    }
+
+    @Test
+    public void testHeaderEndAtOffset() throws Exception {
+        byte[] data = bytes("xx\n\n" + REQUEST + "\n\n");
+        int offset = 4;
+        assertTrue(NioConnector.hasHeaderEnd(data, offset, REQUEST.length()));
+        // terminators outside of the range don't count
+        assertFalse(NioConnector.hasHeaderEnd(data, offset, REQUEST.length() - 1));
+        assertFalse(NioConnector.hasHeaderEnd(data, offset + 1, REQUEST.length() - 4));
+    }
+
+    /**
+     * A pipelined request is complete once its whole header was buffered
+     */
+    @Test
+    public void testPipelinedHeader() throws Exception {
+        byte[] first = bytes(REQUEST);
+        byte[] data = bytes(REQUEST + REQUEST.substring(0, 20));
+        NioConnector.ConnectionInput in = new NioConnector.ConnectionInput(
+                new ByteArrayInputStream(bytes(REQUEST.substring(20))), data, data.length);
+        assertTrue(in.hasHeader());
+        assertEquals(first.length, in.read(new byte[first.length]));
+        assertFalse(in.hasHeader());
+        // fills the buffer with the rest of the second request
+        byte[] second = new byte[first.length];
+        int read = 0;
+        while (read < second.length)
+            read += in.read(second, read, second.length - read);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void testDirectoryListing() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "webster-listing-" + System.nanoTime());
+        assertTrue(dir.mkdir());
+        File sub = new File(dir, "sub");
+        File file = new File(dir, "a.jar");
+        try {
+            assertTrue(sub.mkdir());
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(new byte[42]);
+            out.close();
+            Set<String> lines = new HashSet<String>(Arrays.asList(Webster.getDirectoryListing(dir).split("\n")));
+            String prefix = File.separator + dir.getName() + File.separator;
+            assertEquals(new HashSet<String>(Arrays.asList(
+                    prefix + "sub\td\t" + sub.length() + "\t" + sub.lastModified(),
+                    prefix + "a.jar\tf\t42\t" + file.lastModified())), lines);
+        } finally {
+            file.delete();
+            sub.delete();
+            dir.delete();
+        }
+    }
+}